@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.benchmarks;
+
+import org.gwtproject.xml.benchmarks.SyntheticDocuments.Shape;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark input: the source of a synthetic document, generated once per trial for every
+ * combination of {@link #shape} and {@link #size}.
+ */
+@State(Scope.Benchmark)
+public class DocumentState {
+
+  /** The structure of the document. */
+  @Param({"WIDE", "DEEP", "ATTRIBUTES"})
+  public Shape shape;
+
+  /** Minimum document length in characters, from 1 KB to 50 MB. */
+  @Param({"1024", "65536", "1048576", "10485760", "52428800"})
+  public int size;
+
+  /** The generated document source. */
+  public String source;
+
+  @Setup(Level.Trial)
+  public void generate() {
+    source = SyntheticDocuments.generate(shape, size);
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.xml.client.IncrementalParser;
+import org.gwtproject.xml.client.XMLParser;
+import org.gwtproject.xml.client.XmlEventHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures feeding a document made of a single text node to an {@link IncrementalParser} in chunks,
+ * against parsing it in one call. The cost of feeding should grow linearly with {@link #size},
+ * however many chunks the text spans.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class IncrementalParseBenchmark {
+
+  /** Length of the text in characters. */
+  @Param({"1048576", "2097152", "4194304"})
+  public int size;
+
+  /** Length of the chunks fed to the parser. */
+  @Param({"4096"})
+  public int chunkSize;
+
+  private String source;
+
+  @Setup(Level.Trial)
+  public void generate() {
+    StringBuilder b = new StringBuilder(size + 16).append("<a>");
+    while (b.length() < size + 3) {
+      b.append("text &amp; more ");
+    }
+    source = b.append("</a>").toString();
+  }
+
+  @Benchmark
+  public int parse() {
+    TextCounter counter = new TextCounter();
+    XMLParser.parse(source, counter);
+    return counter.length;
+  }
+
+  @Benchmark
+  public int feed() {
+    TextCounter counter = new TextCounter();
+    IncrementalParser parser = XMLParser.newIncrementalParser(counter);
+    for (int i = 0; i < source.length(); i += chunkSize) {
+      parser.feed(source.substring(i, Math.min(source.length(), i + chunkSize)));
+    }
+    parser.end();
+    return counter.length;
+  }
+
+  private static final class TextCounter implements XmlEventHandler {
+    int length;
+
+    @Override
+    public void characters(String text) {
+      length += text.length();
+    }
+  }
+}
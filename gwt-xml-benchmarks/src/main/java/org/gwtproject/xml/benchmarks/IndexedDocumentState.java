@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.benchmarks;
+
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.XMLParser;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark input: a synthetic document parsed once per trial with its tag names indexed, see
+ * {@link Document#setTagNameIndexed(boolean)}, and its {@code id} attributes as ID index, see
+ * {@link Document#setIdIndex}.
+ */
+@State(Scope.Benchmark)
+public class IndexedDocumentState {
+
+  /** The parsed document. */
+  public Document document;
+
+  /** The name of the element that is repeated throughout the document. */
+  public String tagName;
+
+  @Setup(Level.Trial)
+  public void parse(DocumentState source) {
+    document = XMLParser.parse(source.source);
+    document.setTagNameIndexed(true);
+    document.setIdIndex(document.createIndex("id"));
+    tagName = source.shape.getTagName();
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.Element;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.XMLParser;
+import org.gwtproject.xml.client.bind.XmlAttribute;
+import org.gwtproject.xml.client.bind.XmlElement;
+import org.gwtproject.xml.client.bind.XmlMapped;
+import org.gwtproject.xml.client.bind.XmlText;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading a {@link SyntheticDocuments.Shape#WIDE} document into Java objects, by walking a
+ * parsed document and with the mapper generated by {@code gwt-xml-processor}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MappingBenchmark {
+
+  /** The root of a document, holding its items. */
+  @XmlMapped(name = "root")
+  public static class Root {
+    @XmlElement(name = "item")
+    List<Item> items;
+  }
+
+  /** An item of a {@link SyntheticDocuments.Shape#WIDE} document. */
+  @XmlMapped
+  public static class Item {
+    @XmlAttribute int id;
+
+    @XmlText String text;
+  }
+
+  /** Parses the document and copies the items out of the tree. */
+  @Benchmark
+  public Root readDocument(DocumentState state) {
+    Document document = XMLParser.parse(state.source);
+    Root root = new Root();
+    root.items = new ArrayList<>();
+    for (Node child = document.getDocumentElement().getFirstChild();
+        child != null;
+        child = child.getNextSibling()) {
+      if (child.getNodeType() == Node.ELEMENT_NODE && child.getNodeName().equals("item")) {
+        Element element = (Element) child;
+        Item item = new Item();
+        item.id = Integer.parseInt(element.getAttribute("id").trim());
+        StringBuilder text = new StringBuilder();
+        for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+          if (node.getNodeType() == Node.TEXT_NODE
+              || node.getNodeType() == Node.CDATA_SECTION_NODE) {
+            text.append(node.getNodeValue());
+          }
+        }
+        item.text = text.toString();
+        root.items.add(item);
+      }
+    }
+    return root;
+  }
+
+  /** Reads the items with the generated mapper, straight from an {@code XmlReader}. */
+  @Benchmark
+  public Root readMapper(DocumentState state) {
+    return MappingBenchmark_RootXmlMapper.INSTANCE.read(state.source);
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.XMLParser;
+import org.gwtproject.xml.client.XmlAttributes;
+import org.gwtproject.xml.client.XmlEventHandler;
+import org.gwtproject.xml.client.XmlReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures {@link XMLParser#parse(String)} against the streaming APIs. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ParseBenchmark {
+
+  @Benchmark
+  public Document parse(DocumentState state) {
+    return XMLParser.parse(state.source);
+  }
+
+  @Benchmark
+  public Document parseCompact(DocumentState state) {
+    return XMLParser.parseCompact(state.source);
+  }
+
+  @Benchmark
+  public int parseEvents(DocumentState state) {
+    int[] elements = new int[1];
+    XMLParser.parse(
+        state.source,
+        new XmlEventHandler() {
+          @Override
+          public void startElement(String name, XmlAttributes attributes) {
+            elements[0]++;
+          }
+        });
+    return elements[0];
+  }
+
+  @Benchmark
+  public int read(DocumentState state) {
+    XmlReader reader = XMLParser.createReader(state.source);
+    int elements = 0;
+    while (reader.next() != XmlReader.END_DOCUMENT) {
+      if (reader.getEventType() == XmlReader.START_ELEMENT) {
+        elements++;
+      }
+    }
+    return elements;
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.XMLParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link XMLParser#removeWhitespace}. The call mutates its input, so every invocation
+ * works on a freshly parsed document; this is why the benchmark runs in single shot mode.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RemoveWhitespaceBenchmark {
+
+  /** A freshly parsed copy of the input document for every invocation. */
+  @State(Scope.Thread)
+  public static class FreshDocument {
+    Document document;
+
+    @Setup(Level.Invocation)
+    public void parse(DocumentState source) {
+      document = XMLParser.parse(source.source);
+    }
+  }
+
+  @Benchmark
+  public Document removeWhitespace(FreshDocument state) {
+    XMLParser.removeWhitespace(state.document);
+    return state.document;
+  }
+}
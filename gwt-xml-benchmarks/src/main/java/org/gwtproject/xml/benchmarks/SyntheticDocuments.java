@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.benchmarks;
+
+/**
+ * Generates the synthetic XML inputs used by the benchmarks. Every document is indented, so {@code
+ * removeWhitespace} has whitespace-only text to remove.
+ */
+public final class SyntheticDocuments {
+
+  /** The structure of a generated document. */
+  public enum Shape {
+    /** Many small sibling elements directly under the root. */
+    WIDE("item"),
+    /** Repeated chains of nested elements, {@link #DEPTH} levels deep. */
+    DEEP("level"),
+    /** Empty elements carrying {@link #ATTRIBUTES} attributes each. */
+    ATTRIBUTES("record");
+
+    private final String tagName;
+
+    Shape(String tagName) {
+      this.tagName = tagName;
+    }
+
+    /** Returns the name of the element that is repeated throughout the document. */
+    public String getTagName() {
+      return tagName;
+    }
+  }
+
+  /** Nesting depth of each chain in a {@link Shape#DEEP} document. */
+  public static final int DEPTH = 64;
+
+  /** Number of attributes per element in a {@link Shape#ATTRIBUTES} document. */
+  public static final int ATTRIBUTES = 24;
+
+  /**
+   * Generates a document of the given shape that is at least {@code size} characters long.
+   *
+   * @param shape the structure of the document
+   * @param size the minimum length of the document, in characters
+   * @return the document source
+   */
+  public static String generate(Shape shape, int size) {
+    StringBuilder b = new StringBuilder(size + 4096);
+    b.append("<?xml version=\"1.0\"?>\n<root>\n");
+    for (int i = 0; b.length() < size; i++) {
+      switch (shape) {
+        case WIDE:
+          appendWide(b, i);
+          break;
+        case DEEP:
+          appendDeep(b, i);
+          break;
+        case ATTRIBUTES:
+          appendAttributes(b, i);
+          break;
+        default:
+          throw new IllegalArgumentException(shape.name());
+      }
+    }
+    b.append("</root>\n");
+    return b.toString();
+  }
+
+  private static void appendWide(StringBuilder b, int i) {
+    b.append("  <item id=\"").append(i).append("\">value ").append(i);
+    b.append(" &amp; &lt;escaped&gt; text</item>\n");
+  }
+
+  private static void appendDeep(StringBuilder b, int i) {
+    for (int depth = 0; depth < DEPTH; depth++) {
+      indent(b, depth + 1).append("<level depth=\"").append(depth).append("\">\n");
+    }
+    indent(b, DEPTH + 1).append("leaf ").append(i).append('\n');
+    for (int depth = DEPTH - 1; depth >= 0; depth--) {
+      indent(b, depth + 1).append("</level>\n");
+    }
+  }
+
+  private static void appendAttributes(StringBuilder b, int i) {
+    b.append("  <record");
+    for (int a = 0; a < ATTRIBUTES; a++) {
+      b.append(" attribute").append(a).append("=\"value ").append(i).append('-').append(a);
+      b.append('"');
+    }
+    b.append("/>\n");
+  }
+
+  private static StringBuilder indent(StringBuilder b, int depth) {
+    for (int i = 0; i < depth; i++) {
+      b.append(' ');
+    }
+    return b;
+  }
+
+  private SyntheticDocuments() {}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.xml.client.Attr;
+import org.gwtproject.xml.client.CompiledPath;
+import org.gwtproject.xml.client.Element;
+import org.gwtproject.xml.client.NamedNodeMap;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.NodeList;
+import org.gwtproject.xml.client.QName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures reading a parsed document through the {@link Node} API. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TraversalBenchmark {
+
+  /**
+   * Visits every node in document order using only {@code getFirstChild}, {@code getNextSibling}
+   * and {@code getParentNode}.
+   */
+  @Benchmark
+  public int navigate(ParsedDocumentState state) {
+    Node root = state.document;
+    int count = 0;
+    Node current = root.getFirstChild();
+    while (current != null) {
+      count++;
+      Node next = current.getFirstChild();
+      while (next == null && current != root) {
+        next = current.getNextSibling();
+        current = current.getParentNode();
+      }
+      current = next;
+    }
+    return count;
+  }
+
+  /** Looks up the repeated element by tag name and reads every match. */
+  @Benchmark
+  public int getElementsByTagName(ParsedDocumentState state) {
+    NodeList list = state.document.getElementsByTagName(state.tagName);
+    int count = 0;
+    for (int i = 0, n = list.getLength(); i < n; i++) {
+      if (((Element) list.item(i)).hasAttributes()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** The same count as {@link #getElementsByTagName}, served from the tag name index. */
+  @Benchmark
+  public int indexedGetElementsByTagName(IndexedDocumentState state) {
+    NodeList list = state.document.getElementsByTagName(state.tagName);
+    int count = 0;
+    for (int i = 0, n = list.getLength(); i < n; i++) {
+      if (((Element) list.item(i)).hasAttributes()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Counts the repeated element in no namespace by filtering a local name match on {@code
+   * getNamespaceURI}, as callers without {@code getElementsByTagNameNS} do.
+   */
+  @Benchmark
+  public int filterByNamespace(ParsedDocumentState state) {
+    NodeList list = state.document.getElementsByTagName(state.tagName);
+    int count = 0;
+    for (int i = 0, n = list.getLength(); i < n; i++) {
+      if (list.item(i).getNamespaceURI() == null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** The same count as {@link #filterByNamespace}, matching the namespace in the query. */
+  @Benchmark
+  public int getElementsByTagNameNS(ParsedDocumentState state) {
+    return state.document.getElementsByTagNameNS(null, state.tagName).getLength();
+  }
+
+  /** Reads the name and value of every attribute of the repeated element through its nodes. */
+  @Benchmark
+  public int readAttributeNodes(ParsedDocumentState state) {
+    NodeList list = state.document.getElementsByTagName(state.tagName);
+    int length = 0;
+    for (int i = 0, n = list.getLength(); i < n; i++) {
+      NamedNodeMap attributes = list.item(i).getAttributes();
+      for (int j = 0, m = attributes.getLength(); j < m; j++) {
+        Attr attr = (Attr) attributes.item(j);
+        length += attr.getName().length() + attr.getValue().length();
+      }
+    }
+    return length;
+  }
+
+  /** The same reads as {@link #readAttributeNodes}, through one map per element. */
+  @Benchmark
+  public int readAttributeMap(ParsedDocumentState state) {
+    NodeList list = state.document.getElementsByTagName(state.tagName);
+    int length = 0;
+    for (int i = 0, n = list.getLength(); i < n; i++) {
+      for (Map.Entry<String, String> attr : ((Element) list.item(i)).getAttributeMap().entrySet()) {
+        length += attr.getKey().length() + attr.getValue().length();
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Counts the repeated element by comparing the local part of every element name, as callers
+   * without {@code getLocalName} do.
+   */
+  @Benchmark
+  public int dispatchByName(ParsedDocumentState state) {
+    NodeList list = state.document.getElementsByTagName("*");
+    int count = 0;
+    for (int i = 0, n = list.getLength(); i < n; i++) {
+      String name = list.item(i).getNodeName();
+      if (name.substring(name.indexOf(':') + 1).equals(state.tagName)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** The same count as {@link #dispatchByName}, comparing interned names by reference. */
+  @Benchmark
+  public int dispatchByQName(ParsedDocumentState state) {
+    QName tagName = state.document.getQName(null, state.tagName);
+    NodeList list = state.document.getElementsByTagName("*");
+    int count = 0;
+    for (int i = 0, n = list.getLength(); i < n; i++) {
+      if (list.item(i).getQName() == tagName) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Finds an element in the middle of a wide document by its {@code id} attribute, scanning for it.
+   */
+  @Benchmark
+  public Node findById(ParsedDocumentState state) {
+    return state.document.querySelector("[id='1000']");
+  }
+
+  /** The same lookup as {@link #findById}, from the ID index. */
+  @Benchmark
+  public Node indexedGetElementById(IndexedDocumentState state) {
+    return state.document.getElementById("1000");
+  }
+
+  /**
+   * The same count as {@link #getElementsByTagName}, as one XPath expression. Compact documents
+   * have no XPath engine.
+   */
+  @Benchmark
+  public double evaluateCount(ParsedDocumentState state) {
+    if ("COMPACT".equals(state.representation)) {
+      return 0;
+    }
+    return state.document.evaluateNumber("count(//" + state.tagName + "[@*])");
+  }
+
+  /**
+   * Counts the repeated element with a {@link CompiledPath}, which works for every representation
+   * and wraps none of the nodes it visits.
+   */
+  @Benchmark
+  public int compiledPathCount(ParsedDocumentState state) {
+    return CompiledPath.compile("//" + state.tagName).count(state.document);
+  }
+}
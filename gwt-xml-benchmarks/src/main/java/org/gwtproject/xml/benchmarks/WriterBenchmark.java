@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.Element;
+import org.gwtproject.xml.client.XMLParser;
+import org.gwtproject.xml.client.XmlStreamWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures producing an XML string like a {@link SyntheticDocuments.Shape#WIDE} document, by
+ * building a document and serializing it, and with an {@link XmlStreamWriter}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class WriterBenchmark {
+
+  /** Number of items to write; 100000 items make about 6 MB. */
+  @Param({"1000", "100000"})
+  public int items;
+
+  @Benchmark
+  public String buildDocument() {
+    Document document = XMLParser.createDocument();
+    Element root = document.createElement("root");
+    document.appendChild(root);
+    for (int i = 0; i < items; i++) {
+      Element item = document.createElement("item");
+      item.setAttribute("id", Integer.toString(i));
+      item.appendChild(document.createTextNode("value " + i + " & <escaped> text"));
+      root.appendChild(item);
+    }
+    return document.toString();
+  }
+
+  @Benchmark
+  public String streamWriter() {
+    XmlStreamWriter writer = XMLParser.createWriter();
+    writer.startElement("root");
+    for (int i = 0; i < items; i++) {
+      writer.startElement("item").attribute("id", Integer.toString(i));
+      writer.text("value " + i + " & <escaped> text").endElement();
+    }
+    return writer.endElement().toString();
+  }
+}
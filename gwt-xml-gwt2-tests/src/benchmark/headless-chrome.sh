@@ -0,0 +1,10 @@
+#!/bin/sh
+#
+# Browser launcher for GWT's ExternalBrowser run style, which passes the test
+# module URL as the only argument. Starts a headless Chrome (override with
+# $CHROME, add flags with $CHROME_FLAGS) and appends its console output, which
+# holds the benchmark results, to target/browser-benchmarks.log.
+
+log="$(dirname "$0")/../../target/browser-benchmarks.log"
+exec "${CHROME:-google-chrome}" --headless --disable-gpu --enable-precise-memory-info \
+  --enable-logging=stderr --v=0 $CHROME_FLAGS "$1" 2>> "$log"
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import java.util.List;
+
+/**
+ * Runs {@link XMLBenchmarkSuite} as GWT 2 compiled JavaScript. Only part of the {@code benchmark}
+ * profile, which runs it in production mode on a local headless browser.
+ */
+public class XMLBenchmarks extends GWTTestCase {
+
+  /** Returns the module name for GWT unit test running. */
+  @Override
+  public String getModuleName() {
+    return "org.gwtproject.xml.XMLTest";
+  }
+
+  public void testBenchmarks() {
+    List<String> report = XMLBenchmarkSuite.run("gwt2");
+    assertFalse(report.isEmpty());
+  }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import jsinterop.annotations.JsPackage;
+import jsinterop.annotations.JsType;
+import org.gwtproject.xml.client.CompiledPath;
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.Element;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.NodeList;
+import org.gwtproject.xml.client.QName;
+import org.gwtproject.xml.client.SerializeOptions;
+import org.gwtproject.xml.client.XMLParser;
+import org.gwtproject.xml.client.XmlStreamWriter;
+import org.gwtproject.xml.client.impl.XMLParserImpl.XMLParserImplSafari;
+import org.gwtproject.xml.client.impl.XMLParserImpl.XMLParserImplStandard;
+
+/**
+ * Benchmarks the compiled JavaScript on a fixed corpus. Each case is warmed up, then run repeatedly
+ * for a fixed time. The result is logged to the browser console as one JSON line per case, with the
+ * operations per second and the change in used JS heap (Chrome only, otherwise null). The same
+ * suite is compiled by GWT 2 and J2CL, so the lines can be compared directly.
+ */
+public class XMLBenchmarkSuite {
+
+  @JsType(isNative = true, name = "performance", namespace = JsPackage.GLOBAL)
+  private static class Performance {
+    static MemoryInfo memory;
+
+    static native double now();
+  }
+
+  @JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
+  private static class MemoryInfo {
+    double usedJSHeapSize;
+  }
+
+  @JsType(isNative = true, name = "console", namespace = JsPackage.GLOBAL)
+  private static class Console {
+    static native void log(String message);
+  }
+
+  private static final double WARMUP_MILLIS = 300;
+
+  private static final double MEASURE_MILLIS = 1000;
+
+  /** Number of items in the corpus, roughly 200 KB of XML. */
+  private static final int ITEMS = 2000;
+
+  /** Accumulates results, so the compilers cannot drop the measured work. */
+  private static int sink;
+
+  /** Returns the corpus: a catalog whose item names all need escaping. */
+  static String createCatalog() {
+    StringBuilder b = new StringBuilder("<catalog>\n");
+    for (int i = 0; i < ITEMS; i++) {
+      b.append("  <item id=\"").append(i).append("\" type=\"t").append(i % 7).append("\">\n");
+      b.append("    <name>Item ")
+          .append(i)
+          .append(" &amp; &lt;more&gt; &quot;quoted&quot;</name>\n");
+      b.append("    <price>").append(i * 3 % 1000).append(".99</price>\n");
+      b.append("  </item>\n");
+    }
+    return b.append("</catalog>\n").toString();
+  }
+
+  /**
+   * Runs every benchmark and returns the report lines.
+   *
+   * @param compiler the name of the compiler that produced the running code
+   */
+  public static List<String> run(String compiler) {
+    final String catalog = createCatalog();
+    final Document document = XMLParser.parse(catalog);
+    final NodeList items = document.getElementsByTagName("item");
+    final List<Node> names = new ArrayList<Node>();
+    NodeList nameElements = document.getElementsByTagName("name");
+    for (int i = 0; i < nameElements.getLength(); i++) {
+      names.add(nameElements.item(i).getFirstChild());
+    }
+
+    final XMLParserImplStandard standard = new XMLParserImplStandard();
+    final XMLParserImplSafari safari = new XMLParserImplSafari();
+
+    List<String> report = new ArrayList<String>();
+    report.add(
+        measure(
+            compiler,
+            "XMLParserImplStandard.parseImpl",
+            () -> sink += standard.parseImpl(catalog).childNodes.length));
+    report.add(
+        measure(
+            compiler,
+            "XMLParserImplSafari.parseImpl",
+            () -> sink += safari.parseImpl(catalog).childNodes.length));
+    report.add(measure(compiler, "NodeImpl.build", () -> sink += navigate(document)));
+    report.add(
+        measure(
+            compiler,
+            "NodeListImpl.item",
+            () -> {
+              for (int i = 0; i < items.getLength(); i++) {
+                sink += items.item(i).getNodeType();
+              }
+            }));
+    report.add(
+        measure(
+            compiler,
+            "NodeListImpl.iterator",
+            () -> {
+              for (Node item : items) {
+                sink += item.getNodeType();
+              }
+            }));
+    report.add(
+        measure(
+            compiler,
+            "NativeXPath.evaluate",
+            () -> sink += (int) document.evaluateNumber("count(//item[name])")));
+    CompiledPath itemsWithId = CompiledPath.compile("//item[@id]");
+    report.add(measure(compiler, "PathMatcher.select", () -> sink += itemsWithId.count(document)));
+    final Document indexed = XMLParser.parse(catalog);
+    indexed.setTagNameIndexed(true);
+    report.add(
+        measure(
+            compiler,
+            "TagNameIndex.getElementsByTagName",
+            () -> sink += indexed.getElementsByTagName("item").getLength()));
+    report.add(
+        measure(
+            compiler,
+            "querySelectorAll",
+            () -> sink += document.querySelectorAll("item[id]").getLength()));
+    report.add(
+        measure(
+            compiler,
+            "getElementsByTagNameNS",
+            () -> sink += document.getElementsByTagNameNS(null, "item").getLength()));
+    report.add(
+        measure(
+            compiler,
+            "NodeImpl.getPrefix",
+            () -> {
+              for (Node item : items) {
+                sink += item.getPrefix() == null ? 1 : 0;
+              }
+            }));
+    QName itemName = document.getQName(null, "item");
+    report.add(
+        measure(
+            compiler,
+            "NodeImpl.getQName",
+            () -> {
+              for (Node item : items) {
+                sink += item.getQName() == itemName ? 1 : 0;
+              }
+            }));
+    report.add(
+        measure(
+            compiler,
+            "NativeXmlWriter.write",
+            () -> sink += XMLParser.serialize(document, new SerializeOptions()).length()));
+    final int itemCount = items.getLength();
+    report.add(
+        measure(
+            compiler,
+            "createDocument",
+            () -> {
+              Document created = XMLParser.createDocument();
+              Element root = created.createElement("catalog");
+              created.appendChild(root);
+              for (int i = 0; i < itemCount; i++) {
+                Element item = created.createElement("item");
+                item.setAttribute("id", String.valueOf(i));
+                item.appendChild(created.createTextNode("item " + i + " & more"));
+                root.appendChild(item);
+              }
+              sink += created.toString().length();
+            }));
+    report.add(
+        measure(
+            compiler,
+            "XmlStreamWriterImpl.write",
+            () -> {
+              XmlStreamWriter writer = XMLParser.createWriter();
+              writer.startElement("catalog");
+              for (int i = 0; i < itemCount; i++) {
+                writer.startElement("item").attribute("id", String.valueOf(i));
+                writer.text("item " + i + " & more").endElement();
+              }
+              sink += writer.endElement().toString().length();
+            }));
+    report.add(
+        measure(
+            compiler,
+            "TextImpl.toString",
+            () -> {
+              for (Node name : names) {
+                sink += name.toString().length();
+              }
+            }));
+    return report;
+  }
+
+  /** Visits every node in document order, going through NodeImpl.build at every step. */
+  private static int navigate(Node root) {
+    int count = 0;
+    Node current = root.getFirstChild();
+    while (current != null) {
+      count++;
+      Node next = current.getFirstChild();
+      while (next == null && current != root) {
+        next = current.getNextSibling();
+        current = current.getParentNode();
+      }
+      current = next;
+    }
+    return count;
+  }
+
+  private static String measure(String compiler, String name, Runnable operation) {
+    double warmupEnd = Performance.now() + WARMUP_MILLIS;
+    while (Performance.now() < warmupEnd) {
+      operation.run();
+    }
+
+    double heapBefore = usedHeap();
+    int operations = 0;
+    double start = Performance.now();
+    double elapsed;
+    do {
+      operation.run();
+      operations++;
+      elapsed = Performance.now() - start;
+    } while (elapsed < MEASURE_MILLIS);
+    double heapAfter = usedHeap();
+
+    String heapDelta = heapBefore < 0 ? "null" : String.valueOf((long) (heapAfter - heapBefore));
+    String line =
+        "{\"compiler\":\""
+            + compiler
+            + "\",\"benchmark\":\""
+            + name
+            + "\",\"opsPerSecond\":"
+            + Math.round(operations * 1000 / elapsed)
+            + ",\"heapDeltaBytes\":"
+            + heapDelta
+            + "}";
+    Console.log(line);
+    return line;
+  }
+
+  /** Returns the used JS heap in bytes, or -1 if the browser does not expose it. */
+  private static double usedHeap() {
+    return Performance.memory == null ? -1 : Performance.memory.usedJSHeapSize;
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import static org.junit.Assert.assertFalse;
+
+import com.google.j2cl.junit.apt.J2clTestInput;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Runs {@link XMLBenchmarkSuite} as J2CL compiled JavaScript. Only part of the {@code benchmark}
+ * profile, which runs it on a local headless Chrome.
+ */
+@J2clTestInput(XMLBenchmarks.class)
+public class XMLBenchmarks {
+
+  @Test
+  public void testBenchmarks() {
+    List<String> report = XMLBenchmarkSuite.run("j2cl");
+    assertFalse(report.isEmpty());
+  }
+}
@@ -19,13 +19,21 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import com.google.j2cl.junit.apt.J2clTestInput;
+import elemental2.promise.Promise;
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.gwtproject.xml.client.impl.DOMNodeException;
 import org.gwtproject.xml.client.impl.DOMParseException;
 import org.junit.Test;
 
@@ -143,6 +151,164 @@ public class XMLGwtTest {
     return d;
   }
 
+  @Test
+  public void testAttributeIndex() {
+    String xml = "<a><b id=\"x\" k=\"1\"/><c id=\"y\"><b id=\"z\" k=\"1\"/></c></a>";
+    for (Document d : new Document[] {XMLParser.parse(xml), XMLParser.parseCompact(xml)}) {
+      AttributeIndex ids = d.createIndex("id");
+      assertEquals("id", ids.getAttributeName());
+      assertEquals("c", ids.lookup("y").getTagName());
+      assertNull(ids.lookup("w"));
+      // the first element in document order wins
+      assertEquals("x", d.createIndex("k").lookup("1").getAttribute("id"));
+      d.setIdIndex(ids);
+      assertEquals("b", d.getElementById("z").getTagName());
+    }
+
+    // the index follows the changes made through the DOM API
+    Document d = XMLParser.parse(xml);
+    AttributeIndex ids = d.createIndex("id");
+    d.setIdIndex(ids);
+    Element x = d.getElementById("x");
+    x.setAttribute("id", "w");
+    assertNull(ids.lookup("x"));
+    assertEquals(x, d.getElementById("w"));
+    x.removeAttribute("id");
+    assertNull(ids.lookup("w"));
+    ids.lookup("y").getAttributeNode("id").setNodeValue("v");
+    Element c = ids.lookup("v");
+    assertEquals("c", c.getTagName());
+    d.getDocumentElement().removeChild(c);
+    assertNull(ids.lookup("z"));
+    d.getDocumentElement().appendChild(c);
+    assertEquals("b", ids.lookup("z").getTagName());
+
+    try {
+      d.setIdIndex(XMLParser.parse(xml).createIndex("id"));
+      fail();
+    } catch (DOMException e) {
+      assertEquals(DOMException.INVALID_ACCESS_ERR, e.getCode());
+    }
+  }
+
+  @Test
+  public void testAttributeMap() {
+    String xml = "<a x=\"1\" y=\"&lt;2\"><b/></a>";
+    for (Document d : new Document[] {XMLParser.parse(xml), XMLParser.parseCompact(xml)}) {
+      Map<String, String> attributes = d.getDocumentElement().getAttributeMap();
+      assertEquals(2, attributes.size());
+      assertEquals("1", attributes.get("x"));
+      assertEquals("<2", attributes.get("y"));
+      assertTrue(((Element) d.getDocumentElement().getFirstChild()).getAttributeMap().isEmpty());
+    }
+
+    Document d = XMLParser.parse(xml);
+    Element a = d.getDocumentElement();
+    AttributeIndex xs = d.createIndex("x");
+    assertEquals(a, xs.lookup("1"));
+    Map<String, String> before = a.getAttributeMap();
+    Map<String, String> changes = new LinkedHashMap<String, String>();
+    changes.put("x", "3");
+    changes.put("z", "4");
+    a.setAttributes(changes);
+    assertEquals("1", before.get("x"));
+    assertEquals("3", a.getAttribute("x"));
+    assertEquals("<2", a.getAttribute("y"));
+    assertEquals(3, a.getAttributeMap().size());
+    assertNull(xs.lookup("1"));
+    assertEquals(a, xs.lookup("3"));
+
+    try {
+      XMLParser.parseCompact(xml).getDocumentElement().setAttributes(changes);
+      fail();
+    } catch (DOMException e) {
+      assertEquals(DOMException.NO_MODIFICATION_ALLOWED_ERR, e.getCode());
+    }
+  }
+
+  @Test
+  public void testAttributeNS() {
+    String atom = "http://www.w3.org/2005/Atom";
+    String xlink = "http://www.w3.org/1999/xlink";
+    String xml =
+        "<feed xmlns=\""
+            + atom
+            + "\" xmlns:x=\""
+            + xlink
+            + "\" xmlns:o=\"urn:other\">"
+            + "<entry x:href=\"a\" href=\"b\"><title>1</title><o:title>2</o:title></entry>"
+            + "<o:entry><title>3</title></o:entry></feed>";
+    for (Document d : new Document[] {XMLParser.parse(xml), XMLParser.parseCompact(xml)}) {
+      Element entry = (Element) d.getDocumentElement().getFirstChild();
+      assertEquals("a", entry.getAttributeNS(xlink, "href"));
+      assertNull(entry.getAttributeNS(atom, "href"));
+      assertNull(entry.getAttributeNS(xlink, "missing"));
+    }
+
+    Document d = XMLParser.parse(xml);
+    Element entry = (Element) d.getDocumentElement().getFirstChild();
+    AttributeIndex hrefs = d.createIndex("x:href");
+    entry.setAttributeNS(xlink, "x:href", "c");
+    entry.setAttributeNS("urn:other", "o:rel", "d");
+    assertEquals("c", entry.getAttributeNS(xlink, "href"));
+    assertEquals("c", entry.getAttribute("x:href"));
+    assertEquals("d", entry.getAttributeNS("urn:other", "rel"));
+    assertEquals("urn:other", entry.getAttributeNode("o:rel").getNamespaceURI());
+    assertEquals(entry, hrefs.lookup("c"));
+
+    try {
+      XMLParser.parseCompact(xml).getDocumentElement().setAttributeNS(null, "a", "b");
+      fail();
+    } catch (DOMException e) {
+      assertEquals(DOMException.NO_MODIFICATION_ALLOWED_ERR, e.getCode());
+    }
+  }
+
+  @Test
+  public void testCompiledPath() {
+    String xml =
+        "<a><b id=\"x\"><c>1</c><c>2</c></b><b id=\"y\"><c>3</c></b>"
+            + "<item n=\"1\"><item n=\"2\"/></item></a>";
+    for (Document d : new Document[] {XMLParser.parse(xml), XMLParser.parseCompact(xml)}) {
+      Element a = d.getDocumentElement();
+      NodeList cs = CompiledPath.compile("b[@id='x']/c").select(a);
+      assertEquals(2, cs.getLength());
+      assertEquals("2", cs.item(1).getFirstChild().getNodeValue());
+      assertEquals(3, CompiledPath.compile("/a/b/c").count(a.getFirstChild()));
+      assertEquals(0, CompiledPath.compile("a/b/c").count(a.getFirstChild()));
+      assertEquals(3, CompiledPath.compile("a/b/c").count(d));
+
+      // nested matches are selected once, in document order
+      NodeList items = CompiledPath.compile("//item").select(d);
+      assertEquals(2, items.getLength());
+      assertEquals("2", ((Element) items.item(1)).getAttribute("n"));
+      assertEquals(1, CompiledPath.compile("//a//item//item").count(d));
+      assertEquals(2, CompiledPath.compile("//*/item").count(d));
+
+      NodeList ids = CompiledPath.compile("//b/@id").select(d);
+      assertEquals(2, ids.getLength());
+      assertEquals("y", ids.item(1).getNodeValue());
+      assertEquals("n", CompiledPath.compile("@*").selectFirst(items.item(0)).getNodeName());
+      assertEquals(
+          "3", CompiledPath.compile("//b[@id = 'y']/c/text()").selectFirst(d).getNodeValue());
+      assertNull(CompiledPath.compile("//d").selectFirst(d));
+    }
+
+    try {
+      CompiledPath.compile("a/@b/c");
+      fail();
+    } catch (DOMParseException e) {
+      assertEquals(1, e.getLine());
+      assertEquals(6, e.getColumn());
+    }
+    try {
+      CompiledPath.compile("a[@b='c]");
+      fail();
+    } catch (DOMParseException e) {
+      // expected
+    }
+  }
+
   @Test
   public void testCreate() {
     Document d = XMLParser.createDocument();
@@ -266,6 +432,37 @@ public class XMLGwtTest {
     }
   }
 
+  @Test
+  public void testIncrementalParser() {
+    final StringBuilder events = new StringBuilder();
+    IncrementalParser parser =
+        XMLParser.newIncrementalParser(
+            new XmlEventHandler() {
+              @Override
+              public void startElement(String name, XmlAttributes attributes) {
+                events.append('<').append(name).append('>');
+              }
+
+              @Override
+              public void characters(String text) {
+                events.append(text);
+              }
+
+              @Override
+              public void endDocument() {
+                events.append('.');
+              }
+            });
+    parser.feed("<a><b");
+    assertEquals("<a>", events.toString());
+    parser.feed(">x&am");
+    assertEquals("<a><b>", events.toString());
+    parser.feed("p;y</b></a>");
+    assertEquals("<a><b>x&y", events.toString());
+    parser.end();
+    assertEquals("<a><b>x&y.", events.toString());
+  }
+
   @Test
   public void testNamedNodeMap() {
     Document d = createTestDocument();
@@ -274,6 +471,39 @@ public class XMLGwtTest {
     assertEquals(m.getLength(), 2);
   }
 
+  @Test
+  public void testNamespaceMatching() {
+    String atom = "http://www.w3.org/2005/Atom";
+    String xlink = "http://www.w3.org/1999/xlink";
+    String xml =
+        "<feed xmlns=\""
+            + atom
+            + "\" xmlns:x=\""
+            + xlink
+            + "\" xmlns:o=\"urn:other\">"
+            + "<entry x:href=\"a\" href=\"b\"><title>1</title><o:title>2</o:title></entry>"
+            + "<o:entry><title>3</title></o:entry></feed>";
+    for (Document d : new Document[] {XMLParser.parse(xml), XMLParser.parseCompact(xml)}) {
+      NodeList titles = d.getElementsByTagNameNS(atom, "title");
+      assertEquals(2, titles.getLength());
+      assertEquals("1", titles.item(0).getFirstChild().getNodeValue());
+      assertEquals("3", titles.item(1).getFirstChild().getNodeValue());
+      assertEquals(3, d.getElementsByTagNameNS("*", "title").getLength());
+      assertEquals(2, d.getElementsByTagNameNS("urn:other", "*").getLength());
+      assertEquals(0, d.getElementsByTagNameNS(null, "title").getLength());
+      Element entry = (Element) d.getDocumentElement().getFirstChild();
+      assertEquals(1, entry.getElementsByTagNameNS(atom, "title").getLength());
+      assertEquals("b", entry.getAttributeNS(null, "href"));
+    }
+
+    Document d = XMLParser.parse(xml);
+    Element created = d.createElement("plain");
+    created.setAttribute("key", "e");
+    assertEquals("e", created.getAttributeNS(null, "key"));
+    d.getDocumentElement().appendChild(created);
+    assertEquals(1, d.getElementsByTagNameNS(null, "plain").getLength());
+  }
+
   @Test
   public void testNavigation() {
     Document d = createTestDocument();
@@ -325,6 +555,66 @@ public class XMLGwtTest {
     assertEquals(top.getChildNodes().getLength(), 1);
   }
 
+  @Test
+  public void testNodeListSnapshot() {
+    Document d = XMLParser.parse("<a><b id=\"1\"/><c><b id=\"2\"/></c></a>");
+    Element a = d.getDocumentElement();
+    NodeList live = a.getChildNodes();
+    NodeList snapshot = live.snapshot();
+    StringBuilder names = new StringBuilder();
+    for (Node child : snapshot) {
+      names.append(child.getNodeName());
+      a.appendChild(d.createElement("d"));
+    }
+    assertEquals("bc", names.toString());
+    assertEquals(4, live.getLength());
+    assertEquals(2, snapshot.getLength());
+    assertSame(live.item(1), snapshot.item(1));
+    assertNull(snapshot.item(2));
+
+    Node[] array = d.getElementsByTagName("b").toArray();
+    assertEquals(2, array.length);
+    assertEquals("2", ((Element) array[1]).getAttribute("id"));
+
+    Iterator<Node> children = d.getChildNodes().iterator();
+    assertSame(a, children.next());
+    assertFalse(children.hasNext());
+    try {
+      children.next();
+      fail();
+    } catch (NoSuchElementException e) {
+    }
+
+    // a live list changed while it is iterated fails fast
+    Iterator<Node> changing = live.iterator();
+    a.removeChild(changing.next());
+    try {
+      changing.next();
+      fail();
+    } catch (ConcurrentModificationException e) {
+    }
+  }
+
+  @Test
+  public void testNodeListToString() {
+    Document d = XMLParser.parse("<a xmlns=\"urn:a\"><b/>t<c>&amp;</c></a>");
+    assertEquals(
+        "<b xmlns=\"urn:a\"/>t<c xmlns=\"urn:a\">&amp;</c>",
+        d.getDocumentElement().getChildNodes().toString());
+
+    // a list prints the same as its items
+    NodeList children = d.getDocumentElement().getChildNodes();
+    StringBuilder joined = new StringBuilder();
+    for (Node child : children) {
+      joined.append(child.toString());
+    }
+    assertEquals(joined.toString(), children.toString());
+
+    assertEquals(
+        "x=\"1\" y=\"&lt;\"",
+        XMLParser.parse("<a x='1' y='&lt;'/>").getDocumentElement().getAttributes().toString());
+  }
+
   /**
    * At one point, this test was failing on one Safari configuration in Production Mode in the 1.5
    * release branch.
@@ -354,6 +644,199 @@ public class XMLGwtTest {
     }
   }
 
+  @Test(timeout = 10000)
+  public Promise<Void> testParseAsync() {
+    return new Promise<>(
+        (resolve, reject) ->
+            XMLParser.parseAsync(
+                "<a xmlns:p='urn:p' x='1'><p:b>t&amp;</p:b><!--c--></a>",
+                new ParseCallback() {
+                  @Override
+                  public void onSuccess(Document document) {
+                    try {
+                      Element a = document.getDocumentElement();
+                      assertEquals("1", a.getAttribute("x"));
+                      assertEquals("urn:p", a.getFirstChild().getNamespaceURI());
+                      assertEquals("t&", a.getFirstChild().getFirstChild().getNodeValue());
+                      assertEquals(Node.COMMENT_NODE, a.getLastChild().getNodeType());
+                      XMLParser.parseAsync(
+                          "<a>",
+                          new ParseCallback() {
+                            @Override
+                            public void onSuccess(Document document) {
+                              reject.onInvoke("parsed a malformed document");
+                            }
+
+                            @Override
+                            public void onFailure(DOMException error) {
+                              resolve.onInvoke((Void) null);
+                            }
+                          });
+                    } catch (Throwable e) {
+                      reject.onInvoke(e);
+                    }
+                  }
+
+                  @Override
+                  public void onFailure(DOMException error) {
+                    reject.onInvoke(error);
+                  }
+                }));
+  }
+
+  @Test(timeout = 10000)
+  public Promise<Void> testParseAsyncNamespaceError() {
+    // well-formed for the worker tokenizer, but createElementNS rejects the name
+    return new Promise<>(
+        (resolve, reject) ->
+            XMLParser.parseAsync(
+                "<a:b:c xmlns:a='urn:a'/>",
+                new ParseCallback() {
+                  @Override
+                  public void onSuccess(Document document) {
+                    reject.onInvoke("parsed a name with two colons");
+                  }
+
+                  @Override
+                  public void onFailure(DOMException error) {
+                    if (error instanceof DOMParseException) {
+                      resolve.onInvoke((Void) null);
+                    } else {
+                      reject.onInvoke(error);
+                    }
+                  }
+                }));
+  }
+
+  @Test
+  public void testParseCompact() {
+    String contents =
+        "<!--c--><a xmlns=\"urn:a\" x=\"1\"><p:b xmlns:p=\"urn:p\" y=\"&lt;\">t<![CDATA[d]]>"
+            + "</p:b><?pi data?><b/></a>";
+    Document compact = XMLParser.parseCompact(contents);
+    assertDocumentEquals(XMLParser.parse(contents), compact);
+
+    Element a = compact.getDocumentElement();
+    assertEquals("urn:a", a.getNamespaceURI());
+    assertEquals("1", a.getAttribute("x"));
+    assertNull(a.getAttribute("z"));
+    assertEquals(2, a.getElementsByTagName("b").getLength());
+    Element b = (Element) a.getFirstChild();
+    assertEquals("urn:p", b.getNamespaceURI());
+    assertEquals("p", b.getPrefix());
+    assertEquals(b, compact.getElementsByTagName("p:b").item(0));
+    assertEquals(a, b.getParentNode());
+    assertEquals(b, b.getNextSibling().getPreviousSibling());
+    assertEquals(contents, compact.toString());
+
+    try {
+      b.setAttribute("y", "2");
+      fail();
+    } catch (DOMNodeException e) {
+      assertEquals(DOMException.NO_MODIFICATION_ALLOWED_ERR, e.getCode());
+    }
+  }
+
+  @Test
+  public void testParseCompactSubtree() {
+    String contents = "<a xmlns=\"urn:a\" xmlns:p=\"urn:p\"><p:b p:x=\"1\"><c/></p:b></a>";
+    Node b = XMLParser.parseCompact(contents).getDocumentElement().getFirstChild();
+    assertEquals("<p:b p:x=\"1\" xmlns:p=\"urn:p\"><c xmlns=\"urn:a\"/></p:b>", b.toString());
+  }
+
+  @Test
+  public void testParseErrorLocation() {
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      line.append("<c>").append(i).append("</c>");
+    }
+    String contents = "<a>\n<b>" + line + "</x>" + line + "</b>\n</a>";
+    try {
+      XMLParser.parse(contents);
+      fail();
+    } catch (DOMParseException e) {
+      assertNull(e.getContents());
+      assertTrue(e.getSnippet().length() <= 80);
+      // not every browser names the line of the error
+      assertTrue(e.getLine() == 0 || e.getLine() == 2);
+    }
+    try {
+      XMLParser.parse(contents, new ParseOptions().setRetainContentsOnError(true));
+      fail();
+    } catch (DOMParseException e) {
+      assertEquals(contents, e.getContents());
+    }
+  }
+
+  @Test
+  public void testParseEvents() {
+    final StringBuilder events = new StringBuilder();
+    XMLParser.parse(
+        "<?xml version=\"1.0\"?>\r\n<a k='1 &amp;\t2'>x&lt;y&#x1F600;<b/><![CDATA[<raw>]]></a>",
+        new XmlEventHandler() {
+          @Override
+          public void startElement(String name, XmlAttributes attributes) {
+            events.append('<').append(name).append(' ').append(attributes.getValue("k"));
+            events.append('>');
+          }
+
+          @Override
+          public void endElement(String name) {
+            events.append("</").append(name).append('>');
+          }
+
+          @Override
+          public void characters(String text) {
+            events.append('[').append(text).append(']');
+          }
+        });
+    assertEquals("<a 1 & 2>[x<y😀]<b null></b>[<raw>]</a>", events.toString());
+
+    try {
+      XMLParser.parse("<a><b></a>", new XmlEventHandler() {});
+      fail();
+    } catch (DOMParseException e) {
+      assertEquals("<a><b></a>", e.getSnippet());
+    }
+  }
+
+  @Test
+  public void testParseOptions() {
+    String contents = "<a> <!--c-->x<?p d?>y <![CDATA[<z>]]> <b>  <!--d-->  </b></a>";
+    Document d =
+        XMLParser.parse(
+            contents,
+            new ParseOptions()
+                .setIgnoreWhitespaceText(true)
+                .setIgnoreComments(true)
+                .setIgnoreProcessingInstructions(true)
+                .setCoalesceCDATAIntoText(true));
+    // serialized in Java, since browser serializers differ on empty elements and processing
+    // instructions
+    assertEquals(
+        "<a> xy &lt;z&gt; <b/></a>",
+        XMLParser.serialize(d.getDocumentElement(), new SerializeOptions()));
+    assertEquals(2, d.getDocumentElement().getChildNodes().getLength());
+
+    d = XMLParser.parse(contents, new ParseOptions().setIgnoreComments(true));
+    assertEquals(
+        "<a> x<?p d?>y <![CDATA[<z>]]> <b>    </b></a>",
+        XMLParser.serialize(d.getDocumentElement(), new SerializeOptions()));
+    assertEquals(1, d.getElementsByTagName("b").item(0).getChildNodes().getLength());
+  }
+
+  @Test
+  public void testParseParserErrorElement() {
+    String[] contents = {
+      "<parsererror>x</parsererror>",
+      "<a><parsererror>x</parsererror></a>",
+      "<html><body><parsererror><div>x</div></parsererror></body></html>"
+    };
+    for (String xml : contents) {
+      assertEquals(xml, XMLParser.parse(xml).toString());
+    }
+  }
+
   @Test
   public void testPrefix() {
     Document d =
@@ -381,6 +864,253 @@ public class XMLGwtTest {
     assertEquals(pi.getData(), "other data");
   }
 
+  @Test
+  public void testQName() {
+    String soap = "http://schemas.xmlsoap.org/soap/envelope/";
+    String xml =
+        "<s:Envelope xmlns:s=\""
+            + soap
+            + "\" xmlns:e=\""
+            + soap
+            + "\">"
+            + "<s:Body s:id=\"1\" plain=\"2\"><e:Body/><Body/>text</s:Body></s:Envelope>";
+    for (Document d : new Document[] {XMLParser.parse(xml), XMLParser.parseCompact(xml)}) {
+      Element envelope = d.getDocumentElement();
+      assertEquals("Envelope", envelope.getLocalName());
+      assertEquals("s", envelope.getPrefix());
+      Element body = (Element) envelope.getFirstChild();
+      NodeList children = body.getChildNodes();
+      QName bodyName = d.getQName(soap, "Body");
+      assertEquals(soap, bodyName.getNamespaceURI());
+      assertEquals("Body", bodyName.getLocalName());
+      assertSame(bodyName, body.getQName());
+      assertSame(bodyName, children.item(0).getQName());
+      assertEquals("e", children.item(0).getPrefix());
+      assertEquals("Body", children.item(1).getLocalName());
+      assertNotSame(bodyName, children.item(1).getQName());
+      assertSame(d.getQName(null, "Body"), children.item(1).getQName());
+      assertEquals(new QName(null, "Body"), children.item(1).getQName());
+      assertEquals("{" + soap + "}Body", bodyName.toString());
+
+      Attr id = body.getAttributeNode("s:id");
+      assertEquals("id", id.getLocalName());
+      assertSame(d.getQName(soap, "id"), id.getQName());
+      assertSame(d.getQName("", "plain"), body.getAttributeNode("plain").getQName());
+
+      assertNull(children.item(2).getLocalName());
+      assertNull(children.item(2).getQName());
+      assertNull(d.getLocalName());
+      assertNull(d.getQName());
+    }
+
+    Document d = XMLParser.createDocument();
+    Element created = d.createElement("a:b");
+    assertEquals("b", created.getLocalName());
+    assertEquals("a", created.getPrefix());
+    assertSame(d.getQName(null, "b"), created.getQName());
+  }
+
+  @Test
+  public void testQuerySelector() {
+    String xml =
+        "<a><b id=\"x\" class=\"k m\"><c n=\"1\"/><c/></b><b class=\"km\"><c n=\"2\"/></b>"
+            + "<p:c xmlns:p=\"urn:p\"/></a>";
+    for (Document d : new Document[] {XMLParser.parse(xml), XMLParser.parseCompact(xml)}) {
+      assertEquals(4, d.querySelectorAll("c").getLength());
+      assertEquals(2, d.querySelectorAll("b > c[n]").getLength());
+      assertEquals(2, d.querySelectorAll(".k c").getLength());
+      assertEquals(1, d.querySelectorAll("a>b[class~=m]").getLength());
+      assertEquals(
+          "2", d.querySelectorAll("[n='2']").item(0).getAttributes().item(0).getNodeValue());
+      assertNull(d.querySelector("d"));
+
+      // the selector is matched against the whole document, but only
+      // descendants of the element are selected
+      Element b = d.querySelector("b#x");
+      assertEquals("k m", b.getAttribute("class"));
+      assertEquals(2, b.querySelectorAll("a c").getLength());
+      assertEquals(2, b.querySelectorAll("b c").getLength());
+      assertNull(b.querySelector("b"));
+      assertEquals("1", b.querySelector("*").getAttribute("n"));
+    }
+
+    // the list does not follow the document
+    Document d = XMLParser.parse(xml);
+    NodeList cs = d.querySelectorAll("c");
+    d.getDocumentElement().removeChild(d.getDocumentElement().getFirstChild());
+    assertEquals(4, cs.getLength());
+    assertEquals(2, d.querySelectorAll("c").getLength());
+
+    try {
+      XMLParser.parseCompact(xml).querySelectorAll("b, c");
+      fail();
+    } catch (DOMException e) {
+      assertEquals(DOMException.SYNTAX_ERR, e.getCode());
+    }
+  }
+
+  @Test
+  public void testReader() {
+    XmlReader reader =
+        XMLParser.createReader("<list><skip><a>x</a></skip><item n='1'>a&amp;b</item></list>");
+    assertEquals(XmlReader.START_ELEMENT, reader.next());
+    assertEquals(XmlReader.START_ELEMENT, reader.next());
+    reader.skipElement();
+    assertEquals("skip", reader.getLocalName());
+    assertEquals(XmlReader.START_ELEMENT, reader.next());
+    assertEquals("1", reader.getAttributeValue("n"));
+    assertEquals(XmlReader.CHARACTERS, reader.next());
+    assertEquals("a&b", reader.getText());
+    assertEquals(XmlReader.END_ELEMENT, reader.next());
+    assertEquals(XmlReader.END_ELEMENT, reader.next());
+    assertEquals(XmlReader.END_DOCUMENT, reader.next());
+    assertFalse(reader.hasNext());
+  }
+
+  @Test
+  public void testRemoveWhitespace() {
+    Document d = XMLParser.parse("<a>\n  <b> x <c>\t</c></b><![CDATA[ ]]> </a>");
+    d.getElementsByTagName("c").item(0).appendChild(d.createTextNode(" \r\n"));
+    XMLParser.removeWhitespace(d);
+    assertEquals("<a><b> x <c/></b><![CDATA[ ]]></a>", d.toString());
+    assertTrue(d.getDocumentElement().hasChildNodes());
+  }
+
+  @Test
+  public void testSerialize() {
+    Document d =
+        XMLParser.parse(
+            "<?xml version=\"1.0\"?><a xmlns=\"urn:a\"><b xmlns=\"urn:a\" y=\"1 &amp; 2\">"
+                + "t;'\"</b>  <c><d/></c><![CDATA[x]]]]><![CDATA[>]]><!--n--></a>");
+    assertEquals(
+        "<?xml version=\"1.0\"?><a xmlns=\"urn:a\"><b xmlns=\"urn:a\" y=\"1 &amp; 2\">"
+            + "t;'\"</b>  <c><d/></c><![CDATA[x]]]]><![CDATA[>]]><!--n--></a>",
+        XMLParser.serialize(d));
+    assertEquals("t;'\"", d.getElementsByTagName("b").item(0).getFirstChild().toString());
+
+    Element c = (Element) d.getElementsByTagName("c").item(0);
+    assertEquals("<c xmlns=\"urn:a\"><d/></c>", XMLParser.serialize(c));
+
+    SerializeOptions options =
+        new SerializeOptions()
+            .setOmitXmlDeclaration(true)
+            .setMinimizeNamespaces(true)
+            .setPrettyPrint(true);
+    // drop both CDATA sections, which make the content of <a> mixed
+    c.getParentNode().removeChild(c.getNextSibling());
+    c.getParentNode().removeChild(c.getNextSibling());
+    assertEquals(
+        "<a xmlns=\"urn:a\">\n"
+            + "  <b y=\"1 &amp; 2\">t;'\"</b>\n"
+            + "  <c>\n"
+            + "    <d/>\n"
+            + "  </c>\n"
+            + "  <!--n-->\n"
+            + "</a>",
+        XMLParser.serialize(d, options));
+  }
+
+  @Test
+  public void testStreamWriter() {
+    XmlStreamWriter writer = XMLParser.createWriter();
+    writer.startDocument();
+    writer.startElement("urn:a", "a:feed").namespace(null, "urn:d");
+    writer.startElement("urn:a", "a:entry").attribute("id", "1 < \"2\"");
+    writer.attribute("urn:b", "b:kind", "x").attribute("urn:a", "a:n", "y");
+    assertEquals(2, writer.getDepth());
+    writer.element("title", "R&D").text(" & ").cdata("a]]>b").endElement();
+    writer.startElement(null, "plain").endElement();
+    writer.comment(" c ").processingInstruction("pi", "data");
+    writer.endDocument();
+    assertEquals(0, writer.getDepth());
+    String xml = writer.toString();
+    assertEquals(
+        "<?xml version=\"1.0\"?><a:feed xmlns:a=\"urn:a\" xmlns=\"urn:d\">"
+            + "<a:entry id=\"1 &lt; &quot;2&quot;\" xmlns:b=\"urn:b\" b:kind=\"x\" a:n=\"y\">"
+            + "<title>R&amp;D</title> &amp; <![CDATA[a]]]]><![CDATA[>b]]></a:entry>"
+            + "<plain xmlns=\"\"/><!-- c --><?pi data?></a:feed>",
+        xml);
+
+    Element entry = (Element) XMLParser.parse(xml).getDocumentElement().getFirstChild();
+    assertEquals("urn:a", entry.getNamespaceURI());
+    assertEquals("1 < \"2\"", entry.getAttribute("id"));
+    assertEquals("x", entry.getAttributeNS("urn:b", "kind"));
+    assertEquals("urn:d", entry.getFirstChild().getNamespaceURI());
+    assertEquals(
+        "a]]>b",
+        entry.getLastChild().getPreviousSibling().getNodeValue()
+            + entry.getLastChild().getNodeValue());
+
+    StringBuilder b = new StringBuilder("<!-- kept -->");
+    XmlStreamWriter appending = XMLParser.createWriter(b);
+    appending.startElement("e").endElement().element("f", "");
+    assertEquals("<e/><f></f>", appending.toString());
+    assertEquals("<!-- kept --><e/><f></f>", b.toString());
+    try {
+      appending.startDocument();
+      fail("expected an IllegalStateException");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    try {
+      appending.attribute("a", "b");
+      fail("expected an IllegalStateException");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    try {
+      appending.endElement();
+      fail("expected an IllegalStateException");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    try {
+      appending.comment("a--b");
+      fail("expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testTagNameIndex() {
+    String xml = "<a><b/><c><b/></c><p:b xmlns:p=\"urn:p\"/></a>";
+    Document d = XMLParser.parse(xml);
+    d.setTagNameIndexed(true);
+    // turning the index on does not change the results
+    Document plain = XMLParser.parse(xml);
+    for (String name : new String[] {"b", "p:b", "*", "c", "d"}) {
+      assertEquals(
+          plain.getElementsByTagName(name).getLength(), d.getElementsByTagName(name).getLength());
+    }
+
+    d = XMLParser.parse("<a><b/><c><b/></c><e/></a>");
+    d.setTagNameIndexed(true);
+    NodeList bs = d.getElementsByTagName("b");
+    assertEquals(2, bs.getLength());
+    assertEquals("c", bs.item(1).getParentNode().getNodeName());
+    assertEquals(5, d.getElementsByTagName("*").getLength());
+    assertEquals(0, d.getElementsByTagName("d").getLength());
+
+    // every change through the tree methods rebuilds the index
+    Element a = d.getDocumentElement();
+    Node c = a.getChildNodes().item(1);
+    a.removeChild(c);
+    assertEquals(2, bs.getLength());
+    assertEquals(1, d.getElementsByTagName("b").getLength());
+    a.insertBefore(d.createElement("b"), a.getFirstChild());
+    assertEquals(2, d.getElementsByTagName("b").getLength());
+    a.replaceChild(d.createElement("d"), a.getFirstChild());
+    assertEquals(1, d.getElementsByTagName("d").getLength());
+    ((Element) c).getFirstChild().appendChild(d.createElement("b"));
+    a.appendChild(c);
+    assertEquals(3, d.getElementsByTagName("b").getLength());
+
+    d.setTagNameIndexed(false);
+    a.removeChild(a.getFirstChild());
+    assertEquals(0, d.getElementsByTagName("d").getLength());
+  }
+
   @Test
   public void testText() {
     Document d = createTestDocument();
@@ -472,4 +1202,72 @@ public class XMLGwtTest {
         d.getDocumentElement().getChildNodes().item(3).toString(),
         "0123456789abcdefghij");
   }
+
+  @Test
+  public void testToStringMaxChars() {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      text.append("x&lt;y ");
+    }
+    String markup = "<a k=\"1 &amp; 2\"><b>" + text + "</b><c/></a>";
+    Node[] roots = {
+      XMLParser.parse(markup).getDocumentElement(),
+      XMLParser.parseCompact(markup).getDocumentElement()
+    };
+    for (Node a : roots) {
+      assertEquals(markup, a.toString(Integer.MAX_VALUE));
+      for (int max : new int[] {0, 5, 12, 24, 25, 26, markup.length() - 1}) {
+        assertEquals(markup.substring(0, max), a.toString(max));
+      }
+      assertEquals("", a.toString(-1));
+    }
+
+    // the message of a failed modification only serializes its start
+    Element a = (Element) roots[0];
+    try {
+      a.appendChild(a);
+      fail("appending a node to itself should fail");
+    } catch (DOMException e) {
+      assertEquals("Error during DOM manipulation of: " + markup.substring(0, 128), e.getMessage());
+    }
+  }
+
+  @Test
+  public void testWrapperIdentity() {
+    Document d = createTestDocument();
+    Element top = d.getDocumentElement();
+    assertSame(top, d.getDocumentElement());
+    assertSame(top.getFirstChild(), top.getFirstChild());
+    assertSame(top.getFirstChild(), top.getChildNodes().item(0));
+    assertSame(top, top.getFirstChild().getParentNode());
+    assertSame(d, top.getOwnerDocument());
+    assertSame(top.getFirstChild().getNextSibling(), top.getElementsByTagName("e1").item(0));
+    assertNotSame(top, top.cloneNode(false));
+  }
+
+  @Test
+  public void testXPath() {
+    Document d =
+        XMLParser.parse("<a xmlns:p=\"urn:p\"><b n=\"1\">x</b><b n=\"2\">y</b><p:c>z</p:c></a>");
+    NodeList bs = d.selectNodes("/a/b");
+    assertEquals(2, bs.getLength());
+    assertEquals("y", bs.item(1).getFirstChild().getNodeValue());
+    assertEquals(bs.item(1), d.getDocumentElement().selectSingleNode("b[@n='2']"));
+    assertNull(d.selectSingleNode("//d"));
+    assertEquals(3.0, d.evaluateNumber("sum(//b/@n)"), 0);
+    assertEquals("xy", d.evaluateString("concat(//b[1], //b[2])"));
+    assertEquals("z", d.evaluateString("//p:c"));
+
+    // the same prefix bound to another namespace compiles another expression
+    Document e = XMLParser.parse("<a xmlns:p=\"urn:q\"><p:c>w</p:c></a>");
+    assertEquals("w", e.evaluateString("//p:c"));
+    assertEquals("z", d.evaluateString("//p:c"));
+
+    try {
+      XMLParser.parseCompact("<a/>").selectNodes("/a");
+      fail();
+    } catch (DOMException ex) {
+      assertEquals(DOMException.NOT_SUPPORTED_ERR, ex.getCode());
+    }
+  }
 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import com.google.j2cl.junit.apt.J2clTestInput;
+import org.gwtproject.xml.client.DOMException;
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.NamedNodeMap;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.ParseCallback;
+import org.gwtproject.xml.client.XMLParser;
+import org.junit.Test;
+
+/**
+ * Runs the worker tokenizer of {@link WorkerPool} and its document builder on the main thread and
+ * compares the documents they build with the ones {@link XmlScanner} builds.
+ */
+@J2clTestInput(WorkerPoolGwtTest.class)
+public class WorkerPoolGwtTest {
+
+  private static final String[] WELL_FORMED = {
+    "<a/>",
+    "\uFEFF<?xml version='1.0'?><!DOCTYPE a [<!ELEMENT a ANY>]><!-- c -->"
+        + "<a x='1' y=\"&lt;&#x41;&#66;\">t&amp;u<![CDATA[<c>]]><?p d?><b/>\r\n</a><?q?>",
+    "<a xmlns='urn:a' xmlns:p='urn:p'><p:b p:x='1' y='2'><c xmlns=''/></p:b><d/></a>",
+    "<a x='1\t2\r\n3'>line\rbreaks\r\n</a>",
+    "<a>&#x1F600;&apos;&quot;&gt;</a>",
+  };
+
+  private static final String[] MALFORMED = {
+    "",
+    "<a>",
+    "<a></b>",
+    "<a x='1' x='2'/>",
+    "<a/><b/>",
+    "text<a/>",
+    "<a>&foo;</a>",
+    "<a><!-- -- --></a>",
+    "<a b/>",
+    "<a x='<'/>",
+    "<a/><?xml version='1.0'?>",
+  };
+
+  /**
+   * Describes the tree below <code>node</code> with the namespace of every element and attribute.
+   */
+  private static void describe(Node node, StringBuilder b) {
+    switch (node.getNodeType()) {
+      case Node.ELEMENT_NODE:
+        b.append('<').append(namespace(node)).append(' ').append(node.getNodeName());
+        NamedNodeMap attributes = node.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+          Node attribute = attributes.item(i);
+          b.append(' ').append(namespace(attribute)).append(' ').append(attribute.getNodeName());
+          b.append("=(").append(attribute.getNodeValue()).append(')');
+        }
+        b.append('>');
+        break;
+      case Node.TEXT_NODE:
+        b.append("text(").append(node.getNodeValue()).append(')');
+        break;
+      case Node.CDATA_SECTION_NODE:
+        b.append("cdata(").append(node.getNodeValue()).append(')');
+        break;
+      case Node.COMMENT_NODE:
+        b.append("comment(").append(node.getNodeValue()).append(')');
+        break;
+      case Node.PROCESSING_INSTRUCTION_NODE:
+        b.append("pi(").append(node.getNodeName()).append(' ');
+        b.append(node.getNodeValue()).append(')');
+        break;
+      default:
+        break;
+    }
+    for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+      describe(child, b);
+    }
+    if (node.getNodeType() == Node.ELEMENT_NODE) {
+      b.append("</>");
+    }
+  }
+
+  private static String describe(Node node) {
+    StringBuilder b = new StringBuilder();
+    describe(node, b);
+    return b.toString();
+  }
+
+  private static String namespace(Node node) {
+    String namespaceURI = node.getNamespaceURI();
+    return namespaceURI == null ? "" : namespaceURI;
+  }
+
+  /** Builds the document of <code>contents</code> from the output of the worker tokenizer. */
+  private static Document build(String contents) {
+    final Document[] built = new Document[1];
+    WorkerPool.build(
+        contents,
+        WorkerPool.tokenize(contents),
+        new ParseCallback() {
+          @Override
+          public void onSuccess(Document document) {
+            built[0] = document;
+          }
+
+          @Override
+          public void onFailure(DOMException error) {
+            throw error;
+          }
+        });
+    // small documents are built without yielding
+    assertNotNull(built[0]);
+    return built[0];
+  }
+
+  @Test
+  public void testMalformed() {
+    for (String contents : MALFORMED) {
+      try {
+        XMLParser.parseCompact(contents);
+        fail("XmlScanner accepted " + contents);
+      } catch (DOMParseException e) {
+        // expected
+      }
+      try {
+        WorkerPool.tokenize(contents);
+        fail("the worker accepted " + contents);
+      } catch (Exception e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testWellFormed() {
+    for (String contents : WELL_FORMED) {
+      String expected = describe(XMLParser.parseCompact(contents));
+      assertEquals(contents, expected, describe(build(contents)));
+    }
+  }
+}
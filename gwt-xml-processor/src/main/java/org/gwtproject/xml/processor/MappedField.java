@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.processor;
+
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * A field of an {@link org.gwtproject.xml.client.bind.XmlMapped} class and how it maps to XML, as
+ * found by {@link XmlMapperProcessor}.
+ */
+final class MappedField {
+
+  enum Kind {
+    ATTRIBUTE,
+    ELEMENT,
+    TEXT
+  }
+
+  final Kind kind;
+  /** The name of the attribute or the local name of the child element. */
+  final String xmlName;
+  /** The type of the field, or of its items if it is a list. */
+  final TypeMirror type;
+  /**
+   * The mapper of {@link #type}, or <code>null</code> if it is a scalar that is converted from and
+   * to text.
+   */
+  final String mapper;
+
+  final boolean list;
+  /** The expression reading the field from <code>value</code>. */
+  final String getter;
+  /** The statement storing <code>%s</code> in the field of <code>bean</code>. */
+  final String setter;
+
+  MappedField(
+      Kind kind,
+      String xmlName,
+      TypeMirror type,
+      String mapper,
+      boolean list,
+      String getter,
+      String setter) {
+    this.kind = kind;
+    this.xmlName = xmlName;
+    this.type = type;
+    this.mapper = mapper;
+    this.list = list;
+    this.getter = getter;
+    this.setter = setter;
+  }
+}
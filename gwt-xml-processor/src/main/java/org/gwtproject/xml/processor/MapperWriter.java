@@ -0,0 +1,274 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.processor;
+
+import java.util.List;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Types;
+
+/** Writes the source of the mapper of an {@link org.gwtproject.xml.client.bind.XmlMapped} class. */
+final class MapperWriter {
+
+  private final Types types;
+  private final String beanName;
+  private final List<MappedField> fields;
+  private final StringBuilder out = new StringBuilder();
+  private int indent;
+
+  MapperWriter(Types types, TypeElement type, List<MappedField> fields) {
+    this.types = types;
+    this.beanName = type.getQualifiedName().toString();
+    this.fields = fields;
+  }
+
+  String write(String packageName, String mapperName, String elementName) {
+    if (!packageName.isEmpty()) {
+      line("package " + packageName + ";");
+      line("");
+    }
+    line("import org.gwtproject.xml.client.XmlAttributes;");
+    line("import org.gwtproject.xml.client.XmlReader;");
+    line("import org.gwtproject.xml.client.XmlStreamWriter;");
+    line("import org.gwtproject.xml.client.bind.XmlMapper;");
+    line("import org.gwtproject.xml.client.impl.XmlMapperSupport;");
+    line("");
+    line("/** Reads and writes {@link " + beanName + "}, generated by gwt-xml-processor. */");
+    open("public final class " + mapperName + " implements XmlMapper<" + beanName + ">");
+    line("");
+    line("public static final " + mapperName + " INSTANCE = new " + mapperName + "();");
+    line("");
+    line("private " + mapperName + "() {}");
+    line("");
+    writeRead();
+    line("");
+    line("@Override");
+    open("public void write(" + beanName + " value, XmlStreamWriter out)");
+    line("write(value, " + literal(elementName) + ", out);");
+    close();
+    line("");
+    writeWrite();
+    close();
+    return out.toString();
+  }
+
+  private void writeRead() {
+    line("@Override");
+    open("public " + beanName + " read(XmlReader reader)");
+    line(beanName + " bean = new " + beanName + "();");
+
+    if (has(MappedField.Kind.ATTRIBUTE)) {
+      line("XmlAttributes attributes = reader.getAttributes();");
+      open("for (int i = 0, n = attributes.getLength(); i < n; i++)");
+      open("switch (attributes.getName(i))");
+      for (MappedField field : fields) {
+        if (field.kind == MappedField.Kind.ATTRIBUTE) {
+          line("case " + literal(field.xmlName) + ":");
+          indent++;
+          line(set(field, Scalars.parse(types, field.type, "attributes.getValue(i)")));
+          line("break;");
+          indent--;
+        }
+      }
+      line("default:");
+      line("  break;");
+      close();
+      close();
+    }
+
+    // lists are filled in locals and only stored once complete
+    for (int i = 0; i < fields.size(); i++) {
+      MappedField field = fields.get(i);
+      if (field.list) {
+        line("java.util.List<" + Scalars.qualifiedName(field.type) + "> list" + i + " = null;");
+      }
+    }
+    MappedField text = find(MappedField.Kind.TEXT);
+    if (text != null) {
+      line("String text = null;");
+    }
+
+    open("for (int type = reader.next(); type != XmlReader.END_ELEMENT; type = reader.next())");
+    open("if (type == XmlReader.START_ELEMENT)");
+    open("switch (reader.getLocalName())");
+    for (int i = 0; i < fields.size(); i++) {
+      MappedField field = fields.get(i);
+      if (field.kind != MappedField.Kind.ELEMENT) {
+        continue;
+      }
+      line("case " + literal(field.xmlName) + ":");
+      indent++;
+      String value =
+          field.mapper != null
+              ? field.mapper + ".INSTANCE.read(reader)"
+              : Scalars.parse(types, field.type, "XmlMapperSupport.readText(reader)");
+      if (field.list) {
+        open("if (list" + i + " == null)");
+        line("list" + i + " = new java.util.ArrayList<>();");
+        close();
+        line("list" + i + ".add(" + value + ");");
+      } else {
+        line(set(field, value));
+      }
+      line("break;");
+      indent--;
+    }
+    line("default:");
+    line("  reader.skipElement();");
+    line("  break;");
+    close();
+    if (text != null) {
+      indent--;
+      open("} else if (type == XmlReader.CHARACTERS || type == XmlReader.CDATA)");
+      line("text = XmlMapperSupport.concat(text, reader.getText());");
+    }
+    close();
+    close();
+
+    for (int i = 0; i < fields.size(); i++) {
+      MappedField field = fields.get(i);
+      if (field.list) {
+        open("if (list" + i + " != null)");
+        line(set(field, "list" + i));
+        close();
+      }
+    }
+    if (text != null) {
+      open("if (text != null)");
+      line(set(text, Scalars.parse(types, text.type, "text")));
+      close();
+    }
+    line("return bean;");
+    close();
+  }
+
+  private void writeWrite() {
+    line("@Override");
+    open("public void write(" + beanName + " value, String name, XmlStreamWriter out)");
+    line("out.startElement(name);");
+    for (int i = 0; i < fields.size(); i++) {
+      MappedField field = fields.get(i);
+      if (field.kind == MappedField.Kind.ATTRIBUTE) {
+        writeValue(
+            field,
+            "v" + i,
+            "out.attribute("
+                + literal(field.xmlName)
+                + ", "
+                + Scalars.format(field.type, "v" + i)
+                + ");");
+      }
+    }
+    MappedField text = find(MappedField.Kind.TEXT);
+    if (text != null) {
+      int i = fields.indexOf(text);
+      writeValue(text, "v" + i, "out.text(" + Scalars.format(text.type, "v" + i) + ");");
+    }
+    for (int i = 0; i < fields.size(); i++) {
+      MappedField field = fields.get(i);
+      if (field.kind != MappedField.Kind.ELEMENT) {
+        continue;
+      }
+      String name = literal(field.xmlName);
+      if (field.list) {
+        String itemType = Scalars.qualifiedName(field.type);
+        line("java.util.List<" + itemType + "> v" + i + " = " + field.getter + ";");
+        open("if (v" + i + " != null)");
+        open("for (" + itemType + " item : v" + i + ")");
+        open("if (item != null)");
+        line(writeElement(field, name, "item"));
+        close();
+        close();
+        close();
+      } else {
+        writeValue(field, "v" + i, writeElement(field, name, "v" + i));
+      }
+    }
+    line("out.endElement();");
+    close();
+  }
+
+  /** Reads {@code field} into the local {@code local} and runs {@code statement} unless null. */
+  private void writeValue(MappedField field, String local, String statement) {
+    line(Scalars.qualifiedName(field.type) + " " + local + " = " + field.getter + ";");
+    if (field.type.getKind().isPrimitive()) {
+      line(statement);
+    } else {
+      open("if (" + local + " != null)");
+      line(statement);
+      close();
+    }
+  }
+
+  private String writeElement(MappedField field, String name, String value) {
+    if (field.mapper != null) {
+      return field.mapper + ".INSTANCE.write(" + value + ", " + name + ", out);";
+    }
+    return "out.element(" + name + ", " + Scalars.format(field.type, value) + ");";
+  }
+
+  private String set(MappedField field, String value) {
+    return String.format(field.setter, value);
+  }
+
+  private boolean has(MappedField.Kind kind) {
+    return find(kind) != null;
+  }
+
+  private MappedField find(MappedField.Kind kind) {
+    for (MappedField field : fields) {
+      if (field.kind == kind) {
+        return field;
+      }
+    }
+    return null;
+  }
+
+  private void open(String statement) {
+    line(statement + " {");
+    indent++;
+  }
+
+  private void close() {
+    indent--;
+    line("}");
+  }
+
+  private void line(String text) {
+    if (!text.isEmpty()) {
+      for (int i = 0; i < indent; i++) {
+        out.append("  ");
+      }
+      out.append(text);
+    }
+    out.append('\n');
+  }
+
+  /** Returns {@code value} as a Java string literal. */
+  static String literal(String value) {
+    StringBuilder literal = new StringBuilder("\"");
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        literal.append('\\').append(c);
+      } else if (c < ' ' || c > '~') {
+        literal.append(String.format("\\u%04x", (int) c));
+      } else {
+        literal.append(c);
+      }
+    }
+    return literal.append('"').toString();
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.processor;
+
+import java.util.Locale;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+/**
+ * The types converted from and to text by the generated mappers: {@code String}, the primitives,
+ * their boxes and enums.
+ */
+final class Scalars {
+
+  static boolean isScalar(Types types, TypeMirror type) {
+    return isString(type) || primitive(types, type) != null || isEnum(type);
+  }
+
+  /**
+   * Returns the expression converting the {@code String} expression {@code text} to {@code type}.
+   */
+  static String parse(Types types, TypeMirror type, String text) {
+    if (isString(type)) {
+      return text;
+    }
+    if (isEnum(type)) {
+      return qualifiedName(type) + ".valueOf(" + text + ".trim())";
+    }
+    switch (primitive(types, type)) {
+      case BOOLEAN:
+        return "XmlMapperSupport.parseBoolean(" + text + ")";
+      case CHAR:
+        return "XmlMapperSupport.parseChar(" + text + ")";
+      case BYTE:
+        return "Byte.parseByte(" + text + ".trim())";
+      case SHORT:
+        return "Short.parseShort(" + text + ".trim())";
+      case INT:
+        return "Integer.parseInt(" + text + ".trim())";
+      case LONG:
+        return "Long.parseLong(" + text + ".trim())";
+      case FLOAT:
+        return "Float.parseFloat(" + text + ".trim())";
+      case DOUBLE:
+        return "Double.parseDouble(" + text + ".trim())";
+      default:
+        throw new IllegalArgumentException(type.toString());
+    }
+  }
+
+  /** Returns the expression converting the expression {@code value} of {@code type} to text. */
+  static String format(TypeMirror type, String value) {
+    if (isString(type)) {
+      return value;
+    }
+    if (isEnum(type)) {
+      return value + ".name()";
+    }
+    return "String.valueOf(" + value + ")";
+  }
+
+  /** Returns the source name of {@code type}, without type annotations. */
+  static String qualifiedName(TypeMirror type) {
+    if (type.getKind().isPrimitive()) {
+      return type.getKind().name().toLowerCase(Locale.ROOT);
+    }
+    return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+  }
+
+  private static boolean isString(TypeMirror type) {
+    return type.getKind() == TypeKind.DECLARED && qualifiedName(type).equals("java.lang.String");
+  }
+
+  private static boolean isEnum(TypeMirror type) {
+    return type.getKind() == TypeKind.DECLARED
+        && ((DeclaredType) type).asElement().getKind() == ElementKind.ENUM;
+  }
+
+  /** Returns the kind of the primitive {@code type} or of its box, or {@code null}. */
+  private static TypeKind primitive(Types types, TypeMirror type) {
+    if (type.getKind().isPrimitive()) {
+      return type.getKind();
+    }
+    try {
+      return types.unboxedType(type).getKind();
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private Scalars() {}
+}
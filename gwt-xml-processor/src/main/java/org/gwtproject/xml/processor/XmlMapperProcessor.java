@@ -0,0 +1,311 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import org.gwtproject.xml.client.bind.XmlAttribute;
+import org.gwtproject.xml.client.bind.XmlElement;
+import org.gwtproject.xml.client.bind.XmlMapped;
+import org.gwtproject.xml.client.bind.XmlText;
+
+/**
+ * Generates an {@link org.gwtproject.xml.client.bind.XmlMapper} for every class annotated with
+ * {@link XmlMapped}. The generated readers pull tokens from an {@link
+ * org.gwtproject.xml.client.XmlReader} and switch on attribute and element names, so reading a
+ * class never builds a document or uses reflection, and works the same in the browser and on the
+ * JVM.
+ */
+public class XmlMapperProcessor extends AbstractProcessor {
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton(XmlMapped.class.getCanonicalName());
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (Element element : roundEnv.getElementsAnnotatedWith(XmlMapped.class)) {
+      if (element.getKind() != ElementKind.CLASS) {
+        error(element, "@XmlMapped only applies to classes");
+        continue;
+      }
+      TypeElement type = (TypeElement) element;
+      List<MappedField> fields = new ArrayList<>();
+      if (checkType(type) && collectFields(type, fields)) {
+        generate(type, fields);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the simple name of the mapper of {@code type}, the names of the enclosing classes
+   * joined by underscores followed by {@code XmlMapper}.
+   */
+  static String mapperName(TypeElement type) {
+    String name = type.getSimpleName().toString();
+    Element enclosing = type.getEnclosingElement();
+    while (enclosing.getKind().isClass() || enclosing.getKind().isInterface()) {
+      name = enclosing.getSimpleName() + "_" + name;
+      enclosing = enclosing.getEnclosingElement();
+    }
+    return name + "XmlMapper";
+  }
+
+  /** Returns the name of the element written for {@code type}. */
+  static String elementName(TypeElement type) {
+    String name = type.getAnnotation(XmlMapped.class).name();
+    if (name.isEmpty()) {
+      name = type.getSimpleName().toString();
+      name = Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+    return name;
+  }
+
+  private boolean checkType(TypeElement type) {
+    boolean valid = true;
+    if (type.getModifiers().contains(Modifier.PRIVATE)
+        || type.getModifiers().contains(Modifier.ABSTRACT)) {
+      error(type, "@XmlMapped classes must be neither private nor abstract");
+      valid = false;
+    }
+    if (type.getNestingKind() == NestingKind.MEMBER
+        && !type.getModifiers().contains(Modifier.STATIC)) {
+      error(type, "@XmlMapped nested classes must be static");
+      valid = false;
+    } else if (type.getNestingKind() == NestingKind.LOCAL
+        || type.getNestingKind() == NestingKind.ANONYMOUS) {
+      error(type, "@XmlMapped classes must not be local");
+      valid = false;
+    }
+    if (!type.getTypeParameters().isEmpty()) {
+      error(type, "@XmlMapped classes must not be generic");
+      valid = false;
+    }
+    boolean constructor = false;
+    for (ExecutableElement method : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      if (method.getParameters().isEmpty() && !method.getModifiers().contains(Modifier.PRIVATE)) {
+        constructor = true;
+      }
+    }
+    if (!constructor) {
+      error(type, "@XmlMapped classes need a non-private constructor without parameters");
+      valid = false;
+    }
+    return valid;
+  }
+
+  /**
+   * Adds the mapped fields of {@code type} and its superclasses to {@code fields}, superclass
+   * fields first, and returns {@code false} if any of them is invalid.
+   */
+  private boolean collectFields(TypeElement type, List<MappedField> fields) {
+    TypeMirror superclass = type.getSuperclass();
+    boolean valid = true;
+    if (superclass.getKind() == TypeKind.DECLARED) {
+      valid = collectFields((TypeElement) ((DeclaredType) superclass).asElement(), fields);
+    }
+    for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+      XmlAttribute attribute = field.getAnnotation(XmlAttribute.class);
+      XmlElement element = field.getAnnotation(XmlElement.class);
+      XmlText text = field.getAnnotation(XmlText.class);
+      int count = (attribute != null ? 1 : 0) + (element != null ? 1 : 0) + (text != null ? 1 : 0);
+      if (count == 0) {
+        continue;
+      }
+      if (count > 1) {
+        error(field, "A field is mapped to one of an attribute, an element or the text");
+        valid = false;
+      } else if (field.getModifiers().contains(Modifier.STATIC)
+          || field.getModifiers().contains(Modifier.FINAL)) {
+        error(field, "Mapped fields must be neither static nor final");
+        valid = false;
+      } else if (attribute != null) {
+        valid &= addField(type, field, MappedField.Kind.ATTRIBUTE, attribute.name(), fields);
+      } else if (element != null) {
+        valid &= addField(type, field, MappedField.Kind.ELEMENT, element.name(), fields);
+      } else {
+        valid &= addField(type, field, MappedField.Kind.TEXT, "", fields);
+      }
+    }
+    return valid;
+  }
+
+  private boolean addField(
+      TypeElement owner,
+      VariableElement field,
+      MappedField.Kind kind,
+      String xmlName,
+      List<MappedField> fields) {
+    String name = field.getSimpleName().toString();
+    if (xmlName.isEmpty()) {
+      xmlName = name;
+    }
+    for (MappedField other : fields) {
+      if (other.kind == kind && (kind == MappedField.Kind.TEXT || other.xmlName.equals(xmlName))) {
+        error(
+            field,
+            kind == MappedField.Kind.TEXT
+                ? "A class has at most one @XmlText field"
+                : "Another field is already mapped to " + xmlName);
+        return false;
+      }
+    }
+
+    TypeMirror type = field.asType();
+    boolean list = false;
+    if (isList(type)) {
+      List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+      if (kind != MappedField.Kind.ELEMENT || arguments.size() != 1) {
+        error(field, "Only @XmlElement fields may be a List, of a scalar or mapped type");
+        return false;
+      }
+      type = arguments.get(0);
+      list = true;
+    }
+    String mapper = null;
+    if (!Scalars.isScalar(processingEnv.getTypeUtils(), type)) {
+      TypeElement element = asMapped(type);
+      if (kind != MappedField.Kind.ELEMENT || element == null) {
+        error(
+            field,
+            "Unsupported type "
+                + type
+                + ": expected a String, a primitive, a boxed primitive or an enum"
+                + (kind == MappedField.Kind.ELEMENT ? ", an @XmlMapped class or a List" : ""));
+        return false;
+      }
+      String packageName =
+          processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+      mapper = (packageName.isEmpty() ? "" : packageName + ".") + mapperName(element);
+    }
+
+    String getter;
+    String setter;
+    if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+      getter = "value." + name;
+      setter = "bean." + name + " = %s;";
+    } else {
+      String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+      ExecutableElement get = findMethod(owner, "get" + suffix, field.asType(), null);
+      if (get == null && field.asType().getKind() == TypeKind.BOOLEAN) {
+        get = findMethod(owner, "is" + suffix, field.asType(), null);
+      }
+      ExecutableElement set = findMethod(owner, "set" + suffix, null, field.asType());
+      if (get == null || set == null) {
+        error(field, "Private mapped fields need a non-private getter and setter");
+        return false;
+      }
+      getter = "value." + get.getSimpleName() + "()";
+      setter = "bean." + set.getSimpleName() + "(%s);";
+    }
+    fields.add(new MappedField(kind, xmlName, type, mapper, list, getter, setter));
+    return true;
+  }
+
+  private boolean isList(TypeMirror type) {
+    if (type.getKind() != TypeKind.DECLARED) {
+      return false;
+    }
+    TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+    return element.getQualifiedName().contentEquals("java.util.List");
+  }
+
+  private TypeElement asMapped(TypeMirror type) {
+    if (type.getKind() != TypeKind.DECLARED) {
+      return null;
+    }
+    TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+    return element.getAnnotation(XmlMapped.class) != null ? element : null;
+  }
+
+  /**
+   * Finds a non-private method of {@code owner} returning {@code returns}, or taking a single
+   * {@code parameter} if it is not {@code null}.
+   */
+  private ExecutableElement findMethod(
+      TypeElement owner, String name, TypeMirror returns, TypeMirror parameter) {
+    for (ExecutableElement method :
+        ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(owner))) {
+      if (!method.getSimpleName().contentEquals(name)
+          || method.getModifiers().contains(Modifier.PRIVATE)
+          || method.getModifiers().contains(Modifier.STATIC)) {
+        continue;
+      }
+      if (parameter == null
+          ? method.getParameters().isEmpty()
+              && processingEnv.getTypeUtils().isSameType(method.getReturnType(), returns)
+          : method.getParameters().size() == 1
+              && processingEnv
+                  .getTypeUtils()
+                  .isSameType(method.getParameters().get(0).asType(), parameter)) {
+        return method;
+      }
+    }
+    return null;
+  }
+
+  private void generate(TypeElement type, List<MappedField> fields) {
+    String packageName =
+        processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    String mapperName = mapperName(type);
+    String source =
+        new MapperWriter(processingEnv.getTypeUtils(), type, fields)
+            .write(packageName, mapperName, elementName(type));
+    try {
+      JavaFileObject file =
+          processingEnv
+              .getFiler()
+              .createSourceFile(
+                  packageName.isEmpty() ? mapperName : packageName + "." + mapperName, type);
+      try (Writer writer = file.openWriter()) {
+        writer.write(source);
+      }
+    } catch (IOException e) {
+      error(type, "Cannot write " + mapperName + ": " + e.getMessage());
+    }
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.processor;
+
+import java.util.List;
+import org.gwtproject.xml.client.bind.XmlAttribute;
+import org.gwtproject.xml.client.bind.XmlElement;
+import org.gwtproject.xml.client.bind.XmlMapped;
+import org.gwtproject.xml.client.bind.XmlText;
+
+@XmlMapped
+public class Book {
+
+  enum Format {
+    HARDCOVER,
+    PAPERBACK
+  }
+
+  @XmlMapped(name = "chapter")
+  static class Chapter {
+
+    @XmlAttribute int number;
+
+    @XmlText String title;
+  }
+
+  @XmlAttribute int id;
+
+  @XmlAttribute(name = "xml:lang")
+  String lang;
+
+  @XmlAttribute Format format;
+
+  @XmlElement String title;
+
+  @XmlElement(name = "author")
+  List<String> authors;
+
+  @XmlElement Boolean available;
+
+  @XmlElement Price price;
+
+  @XmlElement(name = "chapter")
+  List<Chapter> chapters;
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.gwtproject.xml.client.XMLParser;
+import org.gwtproject.xml.client.XmlStreamWriter;
+import org.junit.Test;
+
+public class XmlMapperProcessorTest {
+
+  private static final String BOOK =
+      "<?xml version=\"1.0\"?>\n"
+          + "<book id=\" 7 \" xml:lang=\"en\" format=\"PAPERBACK\" unknown=\"x\">\n"
+          + "  <title>XML &amp; You</title>\n"
+          + "  <author>Ann</author>\n"
+          + "  <skipped><title>not this one</title></skipped>\n"
+          + "  <author>Bob</author>\n"
+          + "  <available>1</available>\n"
+          + "  <price currency=\"EUR\"> 12.5 </price>\n"
+          + "  <chapter number=\"1\">Begin<!-- note --><![CDATA[ning]]></chapter>\n"
+          + "  <chapter number=\"2\">End</chapter>\n"
+          + "</book>";
+
+  @Test
+  public void testRead() {
+    Book book = BookXmlMapper.INSTANCE.read(BOOK);
+    assertEquals(7, book.id);
+    assertEquals("en", book.lang);
+    assertEquals(Book.Format.PAPERBACK, book.format);
+    assertEquals("XML & You", book.title);
+    assertEquals(Arrays.asList("Ann", "Bob"), book.authors);
+    assertEquals(Boolean.TRUE, book.available);
+    assertEquals("EUR", book.price.getCurrency());
+    assertEquals(12.5, book.price.getAmount(), 0);
+    assertEquals(2, book.chapters.size());
+    assertEquals(1, book.chapters.get(0).number);
+    assertEquals("Beginning", book.chapters.get(0).title);
+    assertEquals(2, book.chapters.get(1).number);
+    assertEquals("End", book.chapters.get(1).title);
+  }
+
+  @Test
+  public void testReadMissing() {
+    Book book = BookXmlMapper.INSTANCE.read("<other><price/></other>");
+    assertEquals(0, book.id);
+    assertNull(book.lang);
+    assertNull(book.format);
+    assertNull(book.title);
+    assertNull(book.authors);
+    assertNull(book.available);
+    assertNull(book.price.getCurrency());
+    assertEquals(0, book.price.getAmount(), 0);
+    assertNull(book.chapters);
+  }
+
+  @Test
+  public void testReadInvalid() {
+    try {
+      BookXmlMapper.INSTANCE.read("<book id=\"seven\"/>");
+      fail("expected a NumberFormatException");
+    } catch (NumberFormatException e) {
+      // expected
+    }
+    try {
+      BookXmlMapper.INSTANCE.read("<book><available>yes</available></book>");
+      fail("expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testWrite() {
+    Book book = new Book();
+    book.id = 7;
+    book.lang = "en";
+    book.format = Book.Format.HARDCOVER;
+    book.title = "<XML> & \"You\"";
+    book.authors = Arrays.asList("Ann", null, "Bob");
+    Book.Chapter chapter = new Book.Chapter();
+    chapter.number = 1;
+    chapter.title = "One";
+    book.chapters = Arrays.asList(chapter);
+    assertEquals(
+        "<book id=\"7\" xml:lang=\"en\" format=\"HARDCOVER\">"
+            + "<title>&lt;XML&gt; &amp; \"You\"</title>"
+            + "<author>Ann</author><author>Bob</author>"
+            + "<chapter number=\"1\">One</chapter>"
+            + "</book>",
+        BookXmlMapper.INSTANCE.write(book));
+
+    XmlStreamWriter out = XMLParser.createWriter();
+    Price price = new Price();
+    price.setAmount(3);
+    out.startElement("list");
+    Book_ChapterXmlMapper.INSTANCE.write(chapter, "c", out);
+    PriceXmlMapper.INSTANCE.write(price, out);
+    BookXmlMapper.INSTANCE.write(new Book(), out);
+    out.endElement();
+    assertEquals(
+        "<list><c number=\"1\">One</c><price>3.0</price><book id=\"0\"/></list>", out.toString());
+  }
+
+  @Test
+  public void testRoundTrip() {
+    Book book = BookXmlMapper.INSTANCE.read(BOOK);
+    String xml = BookXmlMapper.INSTANCE.write(book);
+    assertEquals(xml, BookXmlMapper.INSTANCE.write(BookXmlMapper.INSTANCE.read(xml)));
+    assertEquals(
+        "<book id=\"7\" xml:lang=\"en\" format=\"PAPERBACK\">"
+            + "<title>XML &amp; You</title>"
+            + "<author>Ann</author><author>Bob</author>"
+            + "<available>true</available>"
+            + "<price currency=\"EUR\">12.5</price>"
+            + "<chapter number=\"1\">Beginning</chapter>"
+            + "<chapter number=\"2\">End</chapter>"
+            + "</book>",
+        xml);
+  }
+
+  @Test
+  public void testErrors() {
+    assertEquals(
+        Arrays.asList("@XmlMapped classes need a non-private constructor without parameters"),
+        compile("@XmlMapped class Bad { Bad(int i) {} }"));
+    assertEquals(
+        Arrays.asList("Private mapped fields need a non-private getter and setter"),
+        compile(
+            "@XmlMapped class Bad { @XmlAttribute private int id; public int getId() {"
+                + " return id; } }"));
+    assertEquals(
+        Arrays.asList(
+            "Unsupported type java.lang.Object: expected a String, a primitive, a boxed"
+                + " primitive or an enum",
+            "Another field is already mapped to a",
+            "A class has at most one @XmlText field"),
+        compile(
+            "@XmlMapped class Bad { @XmlAttribute Object o; @XmlElement String a;"
+                + " @XmlElement(name = \"a\") int b; @XmlText String c; @XmlText String d; }"));
+    assertEquals(
+        Arrays.asList("Only @XmlElement fields may be a List, of a scalar or mapped type"),
+        compile("@XmlMapped class Bad { @XmlAttribute java.util.List<String> ids; }"));
+  }
+
+  /** Compiles {@code source} in the default package and returns the error messages. */
+  private static List<String> compile(String source) {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    JavaFileObject file =
+        new SimpleJavaFileObject(URI.create("string:///Bad.java"), JavaFileObject.Kind.SOURCE) {
+          @Override
+          public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return "import org.gwtproject.xml.client.bind.*;\n" + source;
+          }
+        };
+    boolean success =
+        compiler
+            .getTask(
+                null,
+                null,
+                diagnostics,
+                Arrays.asList(
+                    "-proc:only",
+                    "-classpath",
+                    System.getProperty("java.class.path"),
+                    "-processor",
+                    XmlMapperProcessor.class.getName()),
+                null,
+                Arrays.asList(file))
+            .call();
+    assertFalse(success);
+    List<String> errors = new ArrayList<>();
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        errors.add(diagnostic.getMessage(null));
+      }
+    }
+    return errors;
+  }
+}
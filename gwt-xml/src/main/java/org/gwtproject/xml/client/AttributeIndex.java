@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client;
+
+/**
+ * This interface represents an index of the elements of a document by the
+ * value of one attribute, created by {@link Document#createIndex(String)}.
+ * The index is built in one pass over the document the first time it is used
+ * after the tree or the indexed attribute changed through the DOM API, such
+ * as <code>appendChild</code>, <code>setAttribute</code> or
+ * <code>removeAttribute</code>, so that a lookup does not scan the document.
+ * Changing other attributes leaves the index as it is.
+ * Changes made by other means, such as native code, are not seen. In
+ * browsers without <code>WeakMap</code> the changes cannot be tracked and the
+ * index is rebuilt on every lookup.
+ */
+public interface AttributeIndex {
+
+  /**
+   * This method retrieves the name of the indexed attribute.
+   * 
+   * @return the name of the attribute
+   */
+  String getAttributeName();
+
+  /**
+   * This method retrieves the first element, in document order, whose indexed
+   * attribute has the value <code>value</code>.
+   * 
+   * @param value the value of the attribute
+   * @return the element, or <code>null</code> if there is none
+   */
+  Element lookup(String value);
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client;
+
+import org.gwtproject.xml.client.impl.PathExpression;
+import org.gwtproject.xml.client.impl.XMLParserImplBase;
+
+/**
+ * This class represents a path that is compiled once and can then select
+ * nodes from any number of documents, on every platform and for every kind of
+ * document, without relying on a native XPath engine. Its language is a small
+ * subset of XPath: steps separated by <code>/</code> (children) or
+ * <code>//</code> (descendants), each of which is a name or <code>*</code>
+ * followed by any number of <code>[@name]</code> or
+ * <code>[@name='value']</code> predicates. The last step can also be
+ * <code>@name</code>, <code>@*</code> or <code>text()</code>. A path that
+ * starts with <code>/</code> is relative to the document of the context node,
+ * any other path to the context node itself. For instance
+ * <code>a/b[@id='x']/c</code>, <code>//item</code> and
+ * <code>//item/@id</code>.
+ * <p>
+ * Nodes are selected in document order and each at most once. The nodes that
+ * are visited but not selected are never wrapped, so a path is much cheaper
+ * than walking the tree through the DOM API.
+ */
+public final class CompiledPath {
+
+  private static final XMLParserImplBase impl = XMLParserImplBase.getInstance();
+
+  /**
+   * This method compiles <code>path</code>, throwing a
+   * <code>DOMParseException</code> that locates the error if it is not a valid
+   * path.
+   * 
+   * @param path the path to be compiled
+   * @return the compiled path
+   */
+  public static CompiledPath compile(String path) {
+    return new CompiledPath(PathExpression.compile(path));
+  }
+
+  private final PathExpression path;
+
+  private CompiledPath(PathExpression path) {
+    this.path = path;
+  }
+
+  /**
+   * This method counts the nodes this path selects from <code>context</code>
+   * without creating any of them.
+   * 
+   * @param context the node the path is evaluated from
+   * @return the number of nodes selected
+   */
+  public int count(Node context) {
+    return impl.count(path, context);
+  }
+
+  /**
+   * This method returns the nodes this path selects from
+   * <code>context</code>, in document order. The list does not change when the
+   * document does.
+   * 
+   * @param context the node the path is evaluated from
+   * @return the nodes selected
+   */
+  public NodeList select(Node context) {
+    return impl.select(path, context, Integer.MAX_VALUE);
+  }
+
+  /**
+   * This method returns the first node in document order this path selects
+   * from <code>context</code>, stopping the walk there.
+   * 
+   * @param context the node the path is evaluated from
+   * @return the first node selected, or <code>null</code> if there is none
+   */
+  public Node selectFirst(Node context) {
+    NodeList nodes = impl.select(path, context, 1);
+    return nodes.getLength() == 0 ? null : nodes.item(0);
+  }
+
+  @Override
+  public String toString() {
+    return path.toString();
+  }
+}
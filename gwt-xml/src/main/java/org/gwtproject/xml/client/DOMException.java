@@ -28,6 +28,8 @@ public class DOMException extends RuntimeException {
   public static final short INVALID_CHARACTER_ERR = 5;
   public static final short INVALID_MODIFICATION_ERR = 13;
   public static final short INVALID_STATE_ERR = 11;
+  public static final short NO_MODIFICATION_ALLOWED_ERR = 7;
+  public static final short NOT_SUPPORTED_ERR = 9;
   public static final short SYNTAX_ERR = 12;
 
   protected short code;
@@ -18,8 +18,9 @@ package org.gwtproject.xml.client;
 /*
  * Implementation notes: Safari does not support mutable attributes, so no
  * mechanism for creating Attr objects has been supplied. IE does not support
- * any of the xxxNS operations, so they have been omitted as well. IE does not
- * use importNode to copy nodes from one document into another.
+ * any of the xxxNS operations, so there getElementsByTagNameNS is emulated with
+ * an XPath query. IE does not use importNode to copy nodes from one document
+ * into another.
  */
 /**
  * <code>Document</code> objects represent XML documents. Each
@@ -58,6 +59,23 @@ public interface Document extends Node {
    */
   Element createElement(String tagName);
 
+  /**
+   * This method creates an index of the elements of this
+   * <code>Document</code> by the value of the attribute
+   * <code>attributeName</code>, see {@link AttributeIndex}.
+   * <p>
+   * The default implementation throws a DOMException with the code
+   * NOT_SUPPORTED_ERR, as the index has to be told about changes to the
+   * document.
+   * 
+   * @param attributeName the name of the attribute to index
+   * @return the newly created index
+   */
+  default AttributeIndex createIndex(String attributeName) {
+    throw new DOMException(DOMException.NOT_SUPPORTED_ERR,
+        "Indexing is not supported by " + getClass().getName());
+  }
+
   /**
    * This method creates a new <code>ProcessingInstruction</code>.
    * 
@@ -87,8 +105,9 @@ public interface Document extends Node {
   /**
    * This method retrieves the unique descendent elements which has an id of
    * <code>elementId</code>. Note the attribute which is used as an ID must
-   * be supplied in the DTD of the document. It is not sufficient to give the
-   * <code>Element</code> to be retrieved an attribute named 'id'.
+   * be supplied in the DTD of the document, or be the attribute of the index
+   * given to {@link #setIdIndex(AttributeIndex)}. It is not sufficient to
+   * give the <code>Element</code> to be retrieved an attribute named 'id'.
    * 
    * @return the <code>Element</code> which has an id of
    *         <code>elementId</code> and belongs to this <code>Document</code>
@@ -104,6 +123,43 @@ public interface Document extends Node {
    */
   NodeList getElementsByTagName(String tagname);
 
+  /**
+   * This method retrieves the descendent elements whose namespace URI is
+   * <code>namespaceURI</code> and whose local name is <code>localName</code>,
+   * letting the native implementation match the namespace.
+   * <p>
+   * The default implementation throws a DOMException with the code
+   * NOT_SUPPORTED_ERR.
+   * 
+   * @param namespaceURI the namespace URI of the elements to get,
+   *          <code>null</code> for none, or <code>"*"</code> for any
+   * @param localName the local name of the elements to get, or
+   *          <code>"*"</code> for any
+   * @return the elements of this <code>Document</code> which have that namespace URI
+   *         and local name
+   */
+  default NodeList getElementsByTagNameNS(String namespaceURI, String localName) {
+    throw new DOMException(DOMException.NOT_SUPPORTED_ERR,
+        "getElementsByTagNameNS is not supported by " + getClass().getName());
+  }
+
+  /**
+   * This method retrieves the name of this <code>Document</code> for
+   * <code>namespaceURI</code> and <code>localName</code>, the same instance
+   * that {@link Node#getQName()} returns for its nodes with that name, so that
+   * element and attribute names can be dispatched on by reference.
+   * <p>
+   * The default implementation creates a new name on every call, which is equal
+   * to but not the same as the others.
+   * 
+   * @param namespaceURI the namespace URI, or <code>null</code> for none
+   * @param localName the local name
+   * @return the interned name
+   */
+  default QName getQName(String namespaceURI, String localName) {
+    return new QName(namespaceURI, localName);
+  }
+
   /**
    * This method imports a node into the current <code>Document</code>.
    * 
@@ -111,4 +167,73 @@ public interface Document extends Node {
    * @return the node <code>Node</code> imported
    */
   Node importNode(Node importedNode, boolean deep);
-}
\ No newline at end of file
+
+  /**
+   * This method retrieves the first element of this <code>Document</code>, in
+   * document order, that matches the CSS selectors <code>selectors</code>, see
+   * {@link Element#querySelector(String)}.
+   * <p>
+   * The default implementation throws a DOMException with the code
+   * NOT_SUPPORTED_ERR.
+   * 
+   * @param selectors the CSS selectors to match
+   * @return the first matching element, or <code>null</code> if there is none
+   */
+  default Element querySelector(String selectors) {
+    throw new DOMException(DOMException.NOT_SUPPORTED_ERR,
+        "querySelector is not supported by " + getClass().getName());
+  }
+
+  /**
+   * This method retrieves all the elements of this <code>Document</code> that
+   * match the CSS selectors <code>selectors</code>, in document order, see
+   * {@link Element#querySelectorAll(String)}.
+   * <p>
+   * The default implementation throws a DOMException with the code
+   * NOT_SUPPORTED_ERR.
+   * 
+   * @param selectors the CSS selectors to match
+   * @return the <code>NodeList</code> of matching elements
+   */
+  default NodeList querySelectorAll(String selectors) {
+    throw new DOMException(DOMException.NOT_SUPPORTED_ERR,
+        "querySelectorAll is not supported by " + getClass().getName());
+  }
+
+  /**
+   * This method makes {@link #getElementById(String)} look elements up in
+   * <code>index</code>, so that the attribute it indexes, usually
+   * <code>id</code>, acts as an ID attribute without a DTD. Elements whose ID
+   * is declared in the DTD are still found if the index has no match.
+   * <p>
+   * The default implementation throws a DOMException with the code
+   * NOT_SUPPORTED_ERR.
+   * 
+   * @param index an index of this <code>Document</code>, or <code>null</code>
+   *          to only use the DTD again
+   */
+  default void setIdIndex(AttributeIndex index) {
+    throw new DOMException(DOMException.NOT_SUPPORTED_ERR,
+        "setIdIndex is not supported by " + getClass().getName());
+  }
+
+  /**
+   * This method turns an index of the elements of this <code>Document</code>
+   * by qualified name on or off. While it is on,
+   * {@link #getElementsByTagName(String)} is served from the index, except in
+   * documents that have prefixed elements, which the engines match in
+   * different ways. The index is
+   * built in one pass the first time it is needed after the tree changed
+   * through <code>appendChild</code>, <code>insertBefore</code>,
+   * <code>removeChild</code> or <code>replaceChild</code>. The lists returned
+   * then do not change with the document. Changes made by other means, such
+   * as native code, are not seen. Browsers without <code>WeakMap</code> and
+   * read-only documents ignore this setting.
+   * <p>
+   * The default implementation ignores the setting.
+   * 
+   * @param indexed whether to index the elements
+   */
+  default void setTagNameIndexed(boolean indexed) {
+  }
+}
@@ -15,10 +15,15 @@
  */
 package org.gwtproject.xml.client;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
 /*
  * Implementation notes: Internet Explorer does not support any of the namespace
- * methods, so xxxNS is not supported for all xxx. Safari does not support
- * Attribute node modification; use <code>setAttribute</code> instead.
+ * methods, so there the xxxNS methods are emulated with XPath queries and
+ * qualified attribute lookups. Safari does not support Attribute node
+ * modification; use <code>setAttribute</code> instead.
  * 
  */
 
@@ -41,6 +46,52 @@ public interface Element extends Node {
    */
   String getAttribute(String name);
 
+  /**
+   * This method retrieves the names and values of all the attributes of this
+   * <code>Element</code> at once, in the order of
+   * {@link Node#getAttributes()}. No <code>Attr</code> node is created, so
+   * this is much cheaper than reading the attributes one by one. The map is a
+   * copy, which does not change with the element.
+   * <p>
+   * The default implementation reads the attributes one by one.
+   * 
+   * @return a map from the name of each attribute to its value
+   */
+  default Map<String, String> getAttributeMap() {
+    Map<String, String> map = new LinkedHashMap<String, String>();
+    NamedNodeMap attributes = getAttributes();
+    for (int i = 0, n = attributes.getLength(); i < n; i++) {
+      Node attribute = attributes.item(i);
+      map.put(attribute.getNodeName(), attribute.getNodeValue());
+    }
+    return map;
+  }
+
+  /**
+   * This method retrieves the value of the attribute whose namespace URI is
+   * <code>namespaceURI</code> and whose local name is <code>localName</code>.
+   * <p>
+   * The default implementation looks for the attribute among {@link
+   * Node#getAttributes()}.
+   * 
+   * @param namespaceURI the namespace URI of the attribute, or
+   *          <code>null</code> for none
+   * @param localName the local name of the attribute
+   * @return the value of the attribute, or <code>null</code> if this
+   *         <code>Element</code> has no such attribute
+   */
+  default String getAttributeNS(String namespaceURI, String localName) {
+    NamedNodeMap attributes = getAttributes();
+    for (int i = 0, n = attributes.getLength(); i < n; i++) {
+      Node attribute = attributes.item(i);
+      if (localName.equals(attribute.getLocalName())
+          && Objects.equals(namespaceURI, attribute.getNamespaceURI())) {
+        return attribute.getNodeValue();
+      }
+    }
+    return null;
+  }
+
   /**
    * This method retrieves the attribute node which has a name of
    * <code>name</code>. This <code>Attr</code> will have the same value as
@@ -62,6 +113,26 @@ public interface Element extends Node {
    */
   NodeList getElementsByTagName(String name);
 
+  /**
+   * This method retrieves the descendent elements whose namespace URI is
+   * <code>namespaceURI</code> and whose local name is <code>localName</code>,
+   * letting the native implementation match the namespace.
+   * <p>
+   * The default implementation throws a DOMException with the code
+   * NOT_SUPPORTED_ERR.
+   * 
+   * @param namespaceURI the namespace URI of the elements to get,
+   *          <code>null</code> for none, or <code>"*"</code> for any
+   * @param localName the local name of the elements to get, or
+   *          <code>"*"</code> for any
+   * @return the elements of this <code>Element</code> which have that namespace URI
+   *         and local name
+   */
+  default NodeList getElementsByTagNameNS(String namespaceURI, String localName) {
+    throw new DOMException(DOMException.NOT_SUPPORTED_ERR,
+        "getElementsByTagNameNS is not supported by " + getClass().getName());
+  }
+
   /**
    * This method retrieves the tag name.
    * 
@@ -79,6 +150,43 @@ public interface Element extends Node {
    */
   boolean hasAttribute(String name);
 
+  /**
+   * This method retrieves the first descendent element, in document order,
+   * that matches the CSS selectors <code>selectors</code>. Browsers match
+   * them natively. Elsewhere only a subset is supported: type selectors and
+   * <code>*</code>, <code>#id</code>, <code>.class</code>,
+   * <code>[a]</code>, <code>[a=v]</code> and <code>[a~=v]</code>, with the
+   * descendant and child combinators.
+   * <p>
+   * The default implementation throws a DOMException with the code
+   * NOT_SUPPORTED_ERR.
+   * 
+   * @param selectors the CSS selectors to match
+   * @return the first matching element, or <code>null</code> if there is none
+   */
+  default Element querySelector(String selectors) {
+    throw new DOMException(DOMException.NOT_SUPPORTED_ERR,
+        "querySelector is not supported by " + getClass().getName());
+  }
+
+  /**
+   * This method retrieves all the descendent elements that match the CSS
+   * selectors <code>selectors</code>, in document order, see
+   * {@link #querySelector(String)}. Unlike the list returned by
+   * <code>getElementsByTagName</code>, the list does not change when the
+   * document does.
+   * <p>
+   * The default implementation throws a DOMException with the code
+   * NOT_SUPPORTED_ERR.
+   * 
+   * @param selectors the CSS selectors to match
+   * @return the <code>NodeList</code> of matching elements
+   */
+  default NodeList querySelectorAll(String selectors) {
+    throw new DOMException(DOMException.NOT_SUPPORTED_ERR,
+        "querySelectorAll is not supported by " + getClass().getName());
+  }
+
   /**
    * This method removes the attribute which has the specified name.
    * 
@@ -95,4 +203,39 @@ public interface Element extends Node {
    */
   void setAttribute(String name, String value);
 
-}
\ No newline at end of file
+  /**
+   * This method sets the attribute whose namespace URI is
+   * <code>namespaceURI</code> and whose local name is the local part of
+   * <code>qualifiedName</code> to <code>value</code>, creating it with the
+   * prefix of <code>qualifiedName</code> if it does not exist.
+   * <p>
+   * The default implementation throws a DOMException with the code
+   * NOT_SUPPORTED_ERR.
+   * 
+   * @param namespaceURI the namespace URI of the attribute, or
+   *          <code>null</code> for none
+   * @param qualifiedName the qualified name of the attribute
+   * @param value the new value of the attribute
+   */
+  default void setAttributeNS(String namespaceURI, String qualifiedName, String value) {
+    throw new DOMException(DOMException.NOT_SUPPORTED_ERR,
+        "setAttributeNS is not supported by " + getClass().getName());
+  }
+
+  /**
+   * This method sets every attribute of <code>attributes</code> to its value,
+   * as <code>setAttribute</code> would one by one, and leaves the other
+   * attributes as they are. The indexes of the document are invalidated
+   * once for the whole batch.
+   * <p>
+   * The default implementation calls <code>setAttribute</code> for each entry.
+   * 
+   * @param attributes a map from the name of each attribute to set to its
+   *          new value
+   */
+  default void setAttributes(Map<String, String> attributes) {
+    for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+      setAttribute(attribute.getKey(), attribute.getValue());
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client;
+
+/**
+ * This interface parses a document that arrives in chunks, see
+ * {@link XMLParser#newIncrementalParser(XmlEventHandler)}. Events are delivered
+ * as soon as the tokens they describe have been fed, so parsing overlaps with
+ * the transfer of the rest of the document. Chunks may be split anywhere, even
+ * inside a tag or a reference.
+ */
+public interface IncrementalParser {
+
+  /**
+   * This method appends a chunk of the document, and reports all tokens that
+   * are complete.
+   * 
+   * @param chunk the next part of the document
+   * @throws org.gwtproject.xml.client.impl.DOMParseException if the document is
+   *           found not to be well-formed
+   * @throws IllegalStateException if {@link #end()} was called
+   */
+  void feed(String chunk);
+
+  /**
+   * This method marks the end of the document, reports the remaining tokens
+   * and checks that the document is complete.
+   * 
+   * @throws org.gwtproject.xml.client.impl.DOMParseException if the document is
+   *           not well-formed
+   * @throws IllegalStateException if this method was called before
+   */
+  void end();
+}
@@ -97,6 +97,44 @@ public interface Node {
    */
   Node cloneNode(boolean deep);
 
+  /**
+   * This method evaluates the XPath expression <code>xpath</code> with this
+   * <code>Node</code> as the context node and converts the result to a
+   * number, as the XPath <code>number()</code> function does. Namespace
+   * prefixes in the expression are resolved with the namespaces declared on
+   * the document element. Compiled expressions are cached, so evaluating the
+   * same expression again is a single native call.
+   * <p>
+   * The default implementation throws a DOMException with the code
+   * NOT_SUPPORTED_ERR, as there is no XPath engine for other implementations of
+   * this interface.
+   * 
+   * @param xpath the XPath expression
+   * @return the number value of the result
+   */
+  default double evaluateNumber(String xpath) {
+    throw new DOMException(DOMException.NOT_SUPPORTED_ERR,
+        "XPath is not supported by " + getClass().getName());
+  }
+
+  /**
+   * This method evaluates the XPath expression <code>xpath</code> with this
+   * <code>Node</code> as the context node and converts the result to a
+   * string, as the XPath <code>string()</code> function does.
+   * <p>
+   * The default implementation throws a DOMException with the code
+   * NOT_SUPPORTED_ERR, as there is no XPath engine for other implementations of
+   * this interface.
+   * 
+   * @param xpath the XPath expression
+   * @return the string value of the result
+   * @see #evaluateNumber(String)
+   */
+  default String evaluateString(String xpath) {
+    throw new DOMException(DOMException.NOT_SUPPORTED_ERR,
+        "XPath is not supported by " + getClass().getName());
+  }
+
   /**
    * This method retrieves the attributes.
    * 
@@ -125,6 +163,25 @@ public interface Node {
    */
   Node getLastChild();
 
+  /**
+   * This method retrieves the local name, the part of the name after the
+   * prefix.
+   * <p>
+   * The default implementation returns the part of the node name after the
+   * colon.
+   * 
+   * @return the local name of this <code>Node</code>, or <code>null</code> if
+   *         it is neither an element nor an attribute
+   */
+  default String getLocalName() {
+    short type = getNodeType();
+    if (type != ELEMENT_NODE && type != ATTRIBUTE_NODE) {
+      return null;
+    }
+    String name = getNodeName();
+    return name.substring(name.indexOf(':') + 1);
+  }
+
   /**
    * This method retrieves the namespace URI.
    * 
@@ -188,6 +245,25 @@ public interface Node {
    */
   Node getPreviousSibling();
 
+  /**
+   * This method retrieves the expanded name, made of the namespace URI and the
+   * local name. All nodes of a document with the same expanded name share the
+   * instance returned by {@link Document#getQName(String, String)}.
+   * <p>
+   * The default implementation asks the owner document for the name.
+   * 
+   * @return the expanded name of this <code>Node</code>, or <code>null</code>
+   *         if it is neither an element nor an attribute
+   */
+  default QName getQName() {
+    String localName = getLocalName();
+    Document document = getOwnerDocument();
+    if (localName == null || document == null) {
+      return null;
+    }
+    return document.getQName(getNamespaceURI(), localName);
+  }
+
   /**
    * This method determines whether this <code>Node</code> has any attributes.
    * 
@@ -238,6 +314,42 @@ public interface Node {
    */
   Node replaceChild(Node newChild, Node oldChild);
 
+  /**
+   * This method selects the nodes matched by the XPath expression
+   * <code>xpath</code> with this <code>Node</code> as the context node, in
+   * document order. The list does not change when the document does.
+   * <p>
+   * The default implementation throws a DOMException with the code
+   * NOT_SUPPORTED_ERR, as there is no XPath engine for other implementations of
+   * this interface.
+   * 
+   * @param xpath the XPath expression
+   * @return the nodes selected
+   * @see #evaluateNumber(String)
+   */
+  default NodeList selectNodes(String xpath) {
+    throw new DOMException(DOMException.NOT_SUPPORTED_ERR,
+        "XPath is not supported by " + getClass().getName());
+  }
+
+  /**
+   * This method selects the first node, in document order, matched by the
+   * XPath expression <code>xpath</code> with this <code>Node</code> as the
+   * context node.
+   * <p>
+   * The default implementation throws a DOMException with the code
+   * NOT_SUPPORTED_ERR, as there is no XPath engine for other implementations of
+   * this interface.
+   * 
+   * @param xpath the XPath expression
+   * @return the node selected, or <code>null</code> if none matched
+   * @see #evaluateNumber(String)
+   */
+  default Node selectSingleNode(String xpath) {
+    throw new DOMException(DOMException.NOT_SUPPORTED_ERR,
+        "XPath is not supported by " + getClass().getName());
+  }
+
   /**
    * This method sets the value to <code>nodeValue</code>.
    * 
@@ -245,4 +357,22 @@ public interface Node {
    */
   void setNodeValue(String nodeValue);
 
+  /**
+   * This method returns at most <code>maxChars</code> characters of the
+   * markup of this <code>Node</code> and its descendants. Serialization stops
+   * as soon as the limit is reached, so the cost depends on
+   * <code>maxChars</code> rather than on the size of the subtree, which makes
+   * it suitable for logging and error messages.
+   * <p>
+   * The default implementation cuts <code>toString()</code> short, so its cost
+   * depends on the size of the subtree.
+   * 
+   * @param maxChars the maximum number of characters to return
+   * @return the start of the markup of this <code>Node</code>
+   */
+  default String toString(int maxChars) {
+    String markup = toString();
+    return markup.length() <= maxChars ? markup : markup.substring(0, maxChars);
+  }
+
 }
\ No newline at end of file
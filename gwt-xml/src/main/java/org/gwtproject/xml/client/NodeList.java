@@ -15,10 +15,22 @@
  */
 package org.gwtproject.xml.client;
 
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
 /**
  * This interface represents an immutable ordered collection of nodes.
+ * <p>
+ * The lists returned by <code>getElementsByTagName</code> and
+ * <code>getChildNodes</code> may be live, so that asking for their length
+ * re-evaluates them after the document changes. On the JVM the lists returned
+ * by <code>getElementsByTagName</code> and <code>getElementsByTagNameNS</code>
+ * are collected when they are asked for and do not change. Iterating a list
+ * reads its length once; {@link #snapshot()} freezes it into a list that never
+ * changes.
  */
-public interface NodeList  {
+public interface NodeList extends Iterable<Node> {
   /**
    * This method retrieves the number of items in this <code>NodeList</code> 
    * object.
@@ -35,4 +47,82 @@ public interface NodeList  {
    */
   Node item(int index);
 
+  /**
+   * This method returns an iterator over the nodes in this list. The length is
+   * read when the iterator is created; if nodes are added to or removed from a
+   * live list while it is iterated, <code>next()</code> throws a
+   * <code>ConcurrentModificationException</code>. Iterate over a
+   * {@link #snapshot()} to change the document along the way.
+   * <p>
+   * The default implementation reads the nodes with {@link #item(int)}.
+   * 
+   * @return an iterator over the nodes in this list
+   */
+  @Override
+  default Iterator<Node> iterator() {
+    final int length = getLength();
+    return new Iterator<Node>() {
+      private int index;
+
+      @Override
+      public boolean hasNext() {
+        return index < length;
+      }
+
+      @Override
+      public Node next() {
+        if (getLength() != length) {
+          throw new ConcurrentModificationException();
+        }
+        if (index >= length) {
+          throw new NoSuchElementException();
+        }
+        return item(index++);
+      }
+    };
+  }
+
+  /**
+   * This method copies the nodes in this list into a new list, reading the
+   * underlying list in one pass. The copy does not change when the document
+   * does.
+   * <p>
+   * The default implementation copies the nodes with {@link #toArray()}.
+   * 
+   * @return a list holding the nodes currently in this list
+   */
+  default NodeList snapshot() {
+    final Node[] nodes = toArray();
+    return new NodeList() {
+      @Override
+      public int getLength() {
+        return nodes.length;
+      }
+
+      @Override
+      public Node item(int index) {
+        return index >= 0 && index < nodes.length ? nodes[index] : null;
+      }
+
+      @Override
+      public NodeList snapshot() {
+        return this;
+      }
+    };
+  }
+
+  /**
+   * This method copies the nodes in this list into a new array.
+   * <p>
+   * The default implementation reads the nodes with {@link #item(int)}.
+   * 
+   * @return an array holding the nodes currently in this list
+   */
+  default Node[] toArray() {
+    Node[] nodes = new Node[getLength()];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = item(i);
+    }
+    return nodes;
+  }
 }
\ No newline at end of file
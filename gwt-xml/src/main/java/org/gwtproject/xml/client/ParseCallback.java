@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client;
+
+/**
+ * This interface receives the result of
+ * {@link XMLParser#parseAsync(String, ParseCallback)}.
+ */
+public interface ParseCallback {
+
+  /**
+   * This method is called with the parsed document.
+   * 
+   * @param document the newly created <code>Document</code>
+   */
+  void onSuccess(Document document);
+
+  /**
+   * This method is called if the document could not be parsed.
+   * 
+   * @param error the parse error, a <code>DOMParseException</code>
+   */
+  void onFailure(DOMException error);
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client;
+
+/**
+ * This class holds the options of
+ * {@link XMLParser#parse(String, ParseOptions)}. The setters return the
+ * options, so that they can be chained:
+ * 
+ * <pre>
+ * XMLParser.parse(contents, new ParseOptions().setIgnoreComments(true));
+ * </pre>
+ */
+public class ParseOptions {
+
+  private boolean coalesceCDATAIntoText;
+  private boolean ignoreComments;
+  private boolean ignoreProcessingInstructions;
+  private boolean ignoreWhitespaceText;
+  private boolean namespaceAware = true;
+  private boolean retainContentsOnError;
+
+  /**
+   * This method tells whether CDATA sections become part of the surrounding
+   * text.
+   * 
+   * @return <code>true</code> if CDATA sections are turned into text
+   */
+  public boolean isCoalesceCDATAIntoText() {
+    return coalesceCDATAIntoText;
+  }
+
+  /**
+   * This method tells whether comments are left out of the document.
+   * 
+   * @return <code>true</code> if comments are left out
+   */
+  public boolean isIgnoreComments() {
+    return ignoreComments;
+  }
+
+  /**
+   * This method tells whether processing instructions are left out of the
+   * document.
+   * 
+   * @return <code>true</code> if processing instructions are left out
+   */
+  public boolean isIgnoreProcessingInstructions() {
+    return ignoreProcessingInstructions;
+  }
+
+  /**
+   * This method tells whether text made up of only white space is left out of
+   * the document.
+   * 
+   * @return <code>true</code> if white space text is left out
+   */
+  public boolean isIgnoreWhitespaceText() {
+    return ignoreWhitespaceText;
+  }
+
+  /**
+   * This method tells whether namespaces are resolved, which they are by
+   * default.
+   * 
+   * @return <code>true</code> if namespaces are resolved
+   */
+  public boolean isNamespaceAware() {
+    return namespaceAware;
+  }
+
+  /**
+   * This method tells whether a parse error keeps the input it failed on.
+   * 
+   * @return <code>true</code> if the input is kept
+   */
+  public boolean isRetainContentsOnError() {
+    return retainContentsOnError;
+  }
+
+  /**
+   * This method sets whether CDATA sections are turned into text and merged
+   * with the text next to them.
+   * 
+   * @param coalesceCDATAIntoText whether CDATA sections are turned into text
+   * @return these options
+   */
+  public ParseOptions setCoalesceCDATAIntoText(boolean coalesceCDATAIntoText) {
+    this.coalesceCDATAIntoText = coalesceCDATAIntoText;
+    return this;
+  }
+
+  /**
+   * This method sets whether comments are left out of the document. The text
+   * on either side of a comment is merged into one node.
+   * 
+   * @param ignoreComments whether comments are left out
+   * @return these options
+   */
+  public ParseOptions setIgnoreComments(boolean ignoreComments) {
+    this.ignoreComments = ignoreComments;
+    return this;
+  }
+
+  /**
+   * This method sets whether processing instructions are left out of the
+   * document. The text on either side of one is merged into one node.
+   * 
+   * @param ignoreProcessingInstructions whether processing instructions are
+   *          left out
+   * @return these options
+   */
+  public ParseOptions setIgnoreProcessingInstructions(boolean ignoreProcessingInstructions) {
+    this.ignoreProcessingInstructions = ignoreProcessingInstructions;
+    return this;
+  }
+
+  /**
+   * This method sets whether text made up of only white space (spaces, tabs,
+   * carriage returns and line feeds) is left out of the document, like
+   * {@link XMLParser#removeWhitespace(Node)} does. The check is made after the
+   * text has been merged with any neighbours.
+   * 
+   * @param ignoreWhitespaceText whether white space text is left out
+   * @return these options
+   */
+  public ParseOptions setIgnoreWhitespaceText(boolean ignoreWhitespaceText) {
+    this.ignoreWhitespaceText = ignoreWhitespaceText;
+    return this;
+  }
+
+  /**
+   * This method sets whether namespaces are resolved. Without them, the JVM
+   * implementation parses faster and every node has a <code>null</code>
+   * namespace. Browsers always resolve namespaces, so there this option has no
+   * effect.
+   * 
+   * @param namespaceAware whether namespaces are resolved
+   * @return these options
+   */
+  public ParseOptions setNamespaceAware(boolean namespaceAware) {
+    this.namespaceAware = namespaceAware;
+    return this;
+  }
+
+  /**
+   * This method sets whether the <code>DOMParseException</code> thrown for a
+   * parse error keeps the whole input, see <code>getContents()</code>. By
+   * default it only keeps the location of the error and a snippet of the
+   * input around it, so that a large document is not kept alive by the
+   * exception.
+   * 
+   * @param retainContentsOnError whether the input is kept
+   * @return these options
+   */
+  public ParseOptions setRetainContentsOnError(boolean retainContentsOnError) {
+    this.retainContentsOnError = retainContentsOnError;
+    return this;
+  }
+}
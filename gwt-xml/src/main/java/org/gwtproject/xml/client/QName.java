@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client;
+
+/**
+ * This class represents the expanded name of an element or attribute: its
+ * namespace URI and its local name, without the prefix. Each
+ * <code>Document</code> hands out a single instance per name from
+ * {@link Node#getQName()} and {@link Document#getQName(String, String)}, so
+ * that names of one document can be compared by reference. Names are also
+ * equal by value, which is needed to compare them across documents, or in
+ * browsers without <code>WeakMap</code>, where each wrapper of a document has
+ * its own instances.
+ */
+public final class QName {
+
+  private final String namespaceURI;
+  private final String localName;
+
+  /**
+   * This constructor creates a name that is not interned by any document.
+   * 
+   * @param namespaceURI the namespace URI, or <code>null</code> for none
+   * @param localName the local name
+   */
+  public QName(String namespaceURI, String localName) {
+    this.namespaceURI = namespaceURI;
+    this.localName = localName;
+  }
+
+  /**
+   * This method retrieves the local name.
+   * 
+   * @return the local name
+   */
+  public String getLocalName() {
+    return localName;
+  }
+
+  /**
+   * This method retrieves the namespace URI.
+   * 
+   * @return the namespace URI, or <code>null</code> for none
+   */
+  public String getNamespaceURI() {
+    return namespaceURI;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof QName)) {
+      return false;
+    }
+    QName other = (QName) o;
+    return localName.equals(other.localName)
+        && (namespaceURI == null ? other.namespaceURI == null
+            : namespaceURI.equals(other.namespaceURI));
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (namespaceURI == null ? 0 : namespaceURI.hashCode()) + localName.hashCode();
+  }
+
+  /**
+   * This method returns the name in the form <code>{namespaceURI}localName</code>,
+   * or only the local name if it has no namespace.
+   */
+  @Override
+  public String toString() {
+    return namespaceURI == null ? localName : "{" + namespaceURI + "}" + localName;
+  }
+}
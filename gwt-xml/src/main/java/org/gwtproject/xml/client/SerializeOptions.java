@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client;
+
+/**
+ * This class holds the options of
+ * {@link XMLParser#serialize(Node, SerializeOptions)}. The setters return the
+ * options, so that they can be chained:
+ * 
+ * <pre>
+ * XMLParser.serialize(document, new SerializeOptions().setPrettyPrint(true));
+ * </pre>
+ */
+public class SerializeOptions {
+
+  private String indent = "  ";
+  private boolean minimizeNamespaces;
+  private boolean omitXmlDeclaration;
+  private boolean prettyPrint;
+
+  /**
+   * This method gets the string written once per level of nesting when
+   * pretty-printing, two spaces by default.
+   * 
+   * @return the indentation
+   */
+  public String getIndent() {
+    return indent;
+  }
+
+  /**
+   * This method tells whether namespace declarations that repeat a binding
+   * already in scope are left out.
+   * 
+   * @return <code>true</code> if redundant declarations are left out
+   */
+  public boolean isMinimizeNamespaces() {
+    return minimizeNamespaces;
+  }
+
+  /**
+   * This method tells whether the XML declaration is left out when a
+   * <code>Document</code> is serialized.
+   * 
+   * @return <code>true</code> if the declaration is left out
+   */
+  public boolean isOmitXmlDeclaration() {
+    return omitXmlDeclaration;
+  }
+
+  /**
+   * This method tells whether the output is indented.
+   * 
+   * @return <code>true</code> if the output is indented
+   */
+  public boolean isPrettyPrint() {
+    return prettyPrint;
+  }
+
+  /**
+   * This method sets the string written once per level of nesting when
+   * pretty-printing.
+   * 
+   * @param indent the indentation, such as a tab or a number of spaces
+   * @return these options
+   */
+  public SerializeOptions setIndent(String indent) {
+    this.indent = indent;
+    return this;
+  }
+
+  /**
+   * This method sets whether namespace declarations that bind a prefix to the
+   * namespace it is already bound to are left out. Declarations needed by
+   * elements and attributes that have a namespace are always written.
+   * 
+   * @param minimizeNamespaces whether redundant declarations are left out
+   * @return these options
+   */
+  public SerializeOptions setMinimizeNamespaces(boolean minimizeNamespaces) {
+    this.minimizeNamespaces = minimizeNamespaces;
+    return this;
+  }
+
+  /**
+   * This method sets whether the XML declaration is left out when a
+   * <code>Document</code> is serialized.
+   * 
+   * @param omitXmlDeclaration whether the declaration is left out
+   * @return these options
+   */
+  public SerializeOptions setOmitXmlDeclaration(boolean omitXmlDeclaration) {
+    this.omitXmlDeclaration = omitXmlDeclaration;
+    return this;
+  }
+
+  /**
+   * This method sets whether the output is indented. Elements whose children
+   * include text other than white space are written as they are; in all other
+   * elements the white space text is dropped and every child is written on a
+   * line of its own.
+   * 
+   * @param prettyPrint whether the output is indented
+   * @return these options
+   */
+  public SerializeOptions setPrettyPrint(boolean prettyPrint) {
+    this.prettyPrint = prettyPrint;
+    return this;
+  }
+}
@@ -15,17 +15,62 @@
  */
 package org.gwtproject.xml.client;
 
-import org.gwtproject.xml.client.impl.XMLParserImpl;
-
-import java.util.ArrayList;
-import java.util.List;
+import org.gwtproject.xml.client.impl.XMLParserImplBase;
 
 /**
  * This class represents the client interface to XML parsing.
  */
 public class XMLParser {
 
-  private static final XMLParserImpl impl = XMLParserImpl.getInstance();
+  private static final XMLParserImplBase impl = XMLParserImplBase.getInstance();
+
+  /**
+   * This method creates a reader that steps through the tokens of the supplied
+   * string on demand, without building a document. The string is checked as
+   * far as it is read, so a <code>DOMParseException</code> may be thrown by
+   * any call to {@link XmlReader#next()}.
+   * 
+   * @param contents the String to be read
+   * @return a reader positioned before the first token
+   */
+  public static XmlReader createReader(String contents) {
+    return impl.createReader(contents);
+  }
+
+  /**
+   * This method creates a writer that appends markup to a new buffer, without
+   * building a document. Use {@link XmlStreamWriter#toString()} to get the
+   * result.
+   * 
+   * @return a new writer
+   */
+  public static XmlStreamWriter createWriter() {
+    return impl.createWriter(new StringBuilder());
+  }
+
+  /**
+   * This method creates a writer that appends markup to <code>b</code>,
+   * without building a document.
+   * 
+   * @param b the buffer to append to
+   * @return a new writer
+   */
+  public static XmlStreamWriter createWriter(StringBuilder b) {
+    return impl.createWriter(b);
+  }
+
+  /**
+   * This method creates a parser for a document that arrives in chunks, such as
+   * a streamed HTTP response. The events of
+   * {@link #parse(String, XmlEventHandler)} are delivered to
+   * <code>handler</code> as soon as the chunks containing them have been fed.
+   * 
+   * @param handler the handler that receives the parse events
+   * @return a parser to feed the chunks to
+   */
+  public static IncrementalParser newIncrementalParser(XmlEventHandler handler) {
+    return impl.newIncrementalParser(handler);
+  }
 
   /**
    * This method creates a new document, to be manipulated by the DOM API.
@@ -47,15 +92,111 @@ public class XMLParser {
     return impl.parse(contents);
   }
 
+  /**
+   * This method parses a new document from the supplied string, leaving out
+   * the nodes <code>options</code> ask to be ignored. The options are applied
+   * together in a single pass over the document, rather than one pass for
+   * each, and text that ends up adjacent is merged into one node.
+   * 
+   * @param contents the String to be parsed into a <code>Document</code>
+   * @param options the options of the parse
+   * @return the newly created <code>Document</code>
+   */
+  public static Document parse(String contents, ParseOptions options) {
+    return impl.parse(contents, options);
+  }
+
+  /**
+   * This method parses a read-only document from the supplied string. The
+   * nodes are kept in a few flat arrays and every distinct name and value is
+   * stored once, so the document needs much less memory than one returned by
+   * {@link #parse(String)} and is faster to build. Node objects are created
+   * as they are accessed; two of them for the same node are
+   * <code>equals</code> but not identical. Every method that would modify the
+   * document throws a <code>DOMNodeException</code> with the code
+   * <code>NO_MODIFICATION_ALLOWED_ERR</code>. Only the predefined entities and
+   * character references are resolved.
+   * 
+   * @param contents the String to be parsed into a <code>Document</code>
+   * @return the read-only <code>Document</code>
+   */
+  public static Document parseCompact(String contents) {
+    return impl.parseCompact(contents);
+  }
+
+  /**
+   * This method parses a new document from the supplied string without
+   * blocking the caller. In the browser the string is checked and tokenized in
+   * a pool of Web Workers, one per core up to four, and the document is built
+   * on the UI thread in short slices. On the JVM a thread pool is used and
+   * <code>callback</code> is called on one of its threads. Browsers that cannot
+   * run the workers parse on the UI thread, after a timeout.
+   * <p>
+   * The document type declaration is skipped when workers are used, so only
+   * the predefined entities and character references are resolved.
+   * 
+   * @param contents the String to be parsed into a <code>Document</code>
+   * @param callback receives the document, or the <code>DOMParseException</code>
+   */
+  public static void parseAsync(String contents, ParseCallback callback) {
+    impl.parseAsync(contents, callback);
+  }
+
+  /**
+   * This method parses the supplied string without building a document,
+   * reporting its contents to <code>handler</code> as they are read. No
+   * <code>Node</code>s are created, so this is the cheapest way to extract a
+   * few values from a large document. Events up to the first error have
+   * already been delivered when a <code>DOMParseException</code> is thrown.
+   * Only the predefined entities and character references are resolved.
+   * 
+   * @param contents the String to be parsed
+   * @param handler the handler that receives the parse events
+   */
+  public static void parse(String contents, XmlEventHandler handler) {
+    impl.parse(contents, handler);
+  }
+
+  /**
+   * This method serializes the supplied node with the default options: the XML
+   * declaration is written for a <code>Document</code>, and nothing is
+   * indented.
+   * 
+   * @param node the node to be serialized
+   * @return the markup of <code>node</code>
+   * @see #serialize(Node, SerializeOptions)
+   */
+  public static String serialize(Node node) {
+    return impl.serialize(node, new SerializeOptions());
+  }
+
+  /**
+   * This method serializes the supplied node and its descendants into a
+   * string. Unlike <code>toString()</code>, the tree is walked once in Java
+   * into a single buffer, without creating a serializer or a string per node,
+   * so the time taken grows linearly with the size of the document. Elements
+   * and attributes that have a namespace get the declarations they need, so
+   * the markup of any subtree is well-formed.
+   * 
+   * @param node the node to be serialized
+   * @param options the options of the output
+   * @return the markup of <code>node</code>
+   */
+  public static String serialize(Node node, SerializeOptions options) {
+    return impl.serialize(node, options);
+  }
+
   /**
    * This method removes all <code>Text</code> nodes which are made up of only
-   * white space.
+   * white space: spaces, tabs, carriage returns and line feeds. CDATA sections
+   * are kept. The tree is walked once, without recursion, and browser nodes
+   * are read and removed directly rather than through their wrappers.
    * 
    * @param n the node which is to have all of its whitespace descendents
    *          removed.
    */
   public static void removeWhitespace(Node n) {
-    removeWhitespaceInner(n, null);
+    impl.removeWhitespace(n);
   }
 
   /**
@@ -71,33 +212,6 @@ public class XMLParser {
     return true;
   }
 
-  /*
-   * The inner recursive method for removeWhitespace
-   */
-  private static void removeWhitespaceInner(Node n, Node parent) {
-    // This n is removed from the parent if n is a whitespace node
-    if (parent != null && n instanceof Text && (!(n instanceof CDATASection))) {
-      Text t = (Text) n;
-      if (t.getData().matches("[ \t\n]*")) {
-        parent.removeChild(t);
-      }
-    }
-    if (n.hasChildNodes()) {
-      int length = n.getChildNodes().getLength();
-      List<Node> toBeProcessed = new ArrayList<Node>();
-      // We collect all the nodes to iterate as the child nodes will change 
-      // upon removal
-      for (int i = 0; i < length; i++) {
-        toBeProcessed.add(n.getChildNodes().item(i));
-      }
-      // This changes the child nodes, but the iterator of nodes never changes
-      // meaning that this is safe
-      for (Node childNode : toBeProcessed) {
-        removeWhitespaceInner(childNode, n);
-      }
-    }
-  }
-
   /**
    * Not instantiable.
    */
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client;
+
+/**
+ * This interface gives access to the attributes of the current element of a
+ * streaming parse. The values are only valid until the parser moves on, and are
+ * decoded when they are requested.
+ */
+public interface XmlAttributes {
+
+  /**
+   * This method gets the number of attributes of the current element.
+   * 
+   * @return the number of attributes
+   */
+  int getLength();
+
+  /**
+   * This method gets the qualified name of the attribute at <code>index</code>.
+   * 
+   * @param index the index of the attribute
+   * @return the name of the attribute
+   */
+  String getName(int index);
+
+  /**
+   * This method gets the value of the attribute at <code>index</code>, with
+   * entity and character references resolved.
+   * 
+   * @param index the index of the attribute
+   * @return the value of the attribute
+   */
+  String getValue(int index);
+
+  /**
+   * This method gets the value of the attribute named <code>name</code>.
+   * 
+   * @param name the qualified name of the attribute
+   * @return the value of the attribute, or <code>null</code> if the element
+   *         has no such attribute
+   */
+  String getValue(String name);
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client;
+
+/**
+ * This interface receives the events of a streaming parse, see
+ * {@link XMLParser#parse(String, XmlEventHandler)}. No <code>Node</code>s are
+ * created; every method has an empty default, so handlers only implement the
+ * events they need.
+ */
+public interface XmlEventHandler {
+
+  /**
+   * This method is called once, before any other event.
+   */
+  default void startDocument() {
+  }
+
+  /**
+   * This method is called once, after the end tag of the root element.
+   */
+  default void endDocument() {
+  }
+
+  /**
+   * This method is called for every start tag, and for empty element tags.
+   * 
+   * @param name the qualified name of the element
+   * @param attributes the attributes of the element, only valid until this
+   *          method returns
+   */
+  default void startElement(String name, XmlAttributes attributes) {
+  }
+
+  /**
+   * This method is called for every end tag, and right after
+   * <code>startElement</code> for empty element tags.
+   * 
+   * @param name the qualified name of the element
+   */
+  default void endElement(String name) {
+  }
+
+  /**
+   * This method is called for character data, with entity and character
+   * references resolved. CDATA sections are reported through this method as
+   * well. Adjacent calls may belong to the same text node.
+   * 
+   * @param text the character data
+   */
+  default void characters(String text) {
+  }
+
+  /**
+   * This method is called for every comment.
+   * 
+   * @param text the text between <code>&lt;!--</code> and <code>--&gt;</code>
+   */
+  default void comment(String text) {
+  }
+
+  /**
+   * This method is called for every processing instruction, except the XML
+   * declaration.
+   * 
+   * @param target the target of the processing instruction
+   * @param data the data of the processing instruction
+   */
+  default void processingInstruction(String target, String data) {
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client;
+
+/**
+ * This interface is a cursor over the tokens of an XML string, see
+ * {@link XMLParser#createReader(String)}. Like
+ * {@link XMLParser#parse(String, XmlEventHandler)} it creates no
+ * <code>Node</code>s; in addition, nothing is decoded unless it is asked for,
+ * and {@link #skipElement()} passes over whole subtrees. Names are interned by
+ * the reader, so scanning a document with few distinct names allocates very
+ * little.
+ */
+public interface XmlReader {
+
+  int START_ELEMENT = 1;
+  int END_ELEMENT = 2;
+  int PROCESSING_INSTRUCTION = 3;
+  int CHARACTERS = 4;
+  int COMMENT = 5;
+  int START_DOCUMENT = 7;
+  int END_DOCUMENT = 8;
+  int CDATA = 12;
+
+  /**
+   * This method determines whether there are more tokens.
+   * 
+   * @return <code>false</code> if the reader is at the end of the document
+   */
+  boolean hasNext();
+
+  /**
+   * This method moves to the next token. Whitespace outside the root element
+   * is skipped, as are the XML declaration and the document type declaration.
+   * 
+   * @return the type of the new token
+   * @throws org.gwtproject.xml.client.impl.DOMParseException if the input is
+   *           not well-formed
+   * @throws java.util.NoSuchElementException if the reader is at the end of the
+   *           document
+   */
+  int next();
+
+  /**
+   * This method gets the type of the current token, one of the constants of
+   * this interface. It is <code>START_DOCUMENT</code> before the first call to
+   * {@link #next()}.
+   * 
+   * @return the type of the current token
+   */
+  int getEventType();
+
+  /**
+   * This method gets the qualified name of the current element, or the target
+   * of the current processing instruction.
+   * 
+   * @return the name, or <code>null</code> for other tokens
+   */
+  String getName();
+
+  /**
+   * This method gets the name of the current element without its prefix.
+   * 
+   * @return the local name, or <code>null</code> for other tokens
+   */
+  String getLocalName();
+
+  /**
+   * This method gets the value of an attribute of the current start element.
+   * 
+   * @param name the qualified name of the attribute
+   * @return the value, or <code>null</code> if there is no such attribute or
+   *         the current token is not a start element
+   */
+  String getAttributeValue(String name);
+
+  /**
+   * This method gets all attributes of the current start element.
+   * 
+   * @return the attributes, only valid until the reader moves on
+   */
+  XmlAttributes getAttributes();
+
+  /**
+   * This method gets the text of the current character data, CDATA section or
+   * comment, or the data of the current processing instruction. References are
+   * resolved in character data.
+   * 
+   * @return the text, or <code>null</code> for other tokens
+   */
+  String getText();
+
+  /**
+   * This method skips the rest of the current element, leaving the reader on
+   * its end tag. Nothing inside the element is decoded.
+   * 
+   * @throws IllegalStateException if the current token is not a start element
+   */
+  void skipElement();
+}
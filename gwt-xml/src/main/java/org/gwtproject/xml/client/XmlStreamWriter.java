@@ -0,0 +1,180 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client;
+
+/**
+ * This interface writes XML markup token by token, see
+ * {@link XMLParser#createWriter()}. It is the counterpart of
+ * {@link XmlReader}: no <code>Node</code>s are created, and every call
+ * appends to a single <code>StringBuilder</code>, so writing a document
+ * takes time linear in its size. Text and attribute values are escaped;
+ * names are written as they are given.
+ * <p>
+ * A start tag stays open until the first content of the element is written,
+ * so attributes and namespace declarations can be added after
+ * {@link #startElement(String)}. Elements without content are written as
+ * empty-element tags. Nothing stops several elements or text from being
+ * written at the top level, so the writer can produce fragments as well as
+ * documents.
+ */
+public interface XmlStreamWriter {
+
+  /**
+   * This method writes the XML declaration. It must be the first call.
+   * 
+   * @return this writer
+   * @throws IllegalStateException if something has already been written
+   */
+  XmlStreamWriter startDocument();
+
+  /**
+   * This method opens an element, without changing the namespace
+   * declarations.
+   * 
+   * @param name the qualified name of the element
+   * @return this writer
+   */
+  XmlStreamWriter startElement(String name);
+
+  /**
+   * This method opens an element in a namespace, declaring the namespace of
+   * its prefix unless it is already bound to <code>namespaceURI</code>.
+   * 
+   * @param namespaceURI the namespace URI, or <code>null</code> for no
+   *          namespace
+   * @param name the qualified name of the element
+   * @return this writer
+   */
+  XmlStreamWriter startElement(String namespaceURI, String name);
+
+  /**
+   * This method declares a namespace on the current start tag.
+   * 
+   * @param prefix the prefix, or <code>null</code> or an empty string for the
+   *          default namespace
+   * @param namespaceURI the namespace URI
+   * @return this writer
+   * @throws IllegalStateException if the current token is not a start tag
+   */
+  XmlStreamWriter namespace(String prefix, String namespaceURI);
+
+  /**
+   * This method adds an attribute to the current start tag.
+   * 
+   * @param name the qualified name of the attribute
+   * @param value the value, which is escaped
+   * @return this writer
+   * @throws IllegalStateException if the current token is not a start tag
+   */
+  XmlStreamWriter attribute(String name, String value);
+
+  /**
+   * This method adds an attribute in a namespace to the current start tag,
+   * declaring the namespace of its prefix unless it is already bound to
+   * <code>namespaceURI</code>.
+   * 
+   * @param namespaceURI the namespace URI, or <code>null</code> for no
+   *          namespace
+   * @param name the qualified name of the attribute, which has a prefix if it
+   *          has a namespace
+   * @param value the value, which is escaped
+   * @return this writer
+   * @throws IllegalStateException if the current token is not a start tag
+   * @throws IllegalArgumentException if the attribute has a namespace but no
+   *           prefix
+   */
+  XmlStreamWriter attribute(String namespaceURI, String name, String value);
+
+  /**
+   * This method writes character data.
+   * 
+   * @param text the text, which is escaped
+   * @return this writer
+   */
+  XmlStreamWriter text(String text);
+
+  /**
+   * This method writes a CDATA section, split in several sections where
+   * <code>data</code> contains <code>]]&gt;</code>.
+   * 
+   * @param data the data of the section
+   * @return this writer
+   */
+  XmlStreamWriter cdata(String data);
+
+  /**
+   * This method writes a comment.
+   * 
+   * @param data the data of the comment
+   * @return this writer
+   * @throws IllegalArgumentException if <code>data</code> contains
+   *           <code>--</code> or ends with <code>-</code>
+   */
+  XmlStreamWriter comment(String data);
+
+  /**
+   * This method writes a processing instruction.
+   * 
+   * @param target the target of the instruction
+   * @param data the data of the instruction, or <code>null</code>
+   * @return this writer
+   * @throws IllegalArgumentException if <code>data</code> contains
+   *           <code>?&gt;</code>
+   */
+  XmlStreamWriter processingInstruction(String target, String data);
+
+  /**
+   * This method writes an element that only holds text, the same as
+   * {@link #startElement(String)}, {@link #text(String)} and
+   * {@link #endElement()}.
+   * 
+   * @param name the qualified name of the element
+   * @param text the text, which is escaped
+   * @return this writer
+   */
+  XmlStreamWriter element(String name, String text);
+
+  /**
+   * This method closes the innermost open element.
+   * 
+   * @return this writer
+   * @throws IllegalStateException if no element is open
+   */
+  XmlStreamWriter endElement();
+
+  /**
+   * This method closes every open element.
+   * 
+   * @return this writer
+   */
+  XmlStreamWriter endDocument();
+
+  /**
+   * This method gets the number of open elements.
+   * 
+   * @return the depth of the current position
+   */
+  int getDepth();
+
+  /**
+   * This method gets the markup written so far, which is well-formed once
+   * the root element is closed.
+   * 
+   * @return the markup
+   */
+  @Override
+  String toString();
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.bind;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation maps a field of an {@link XmlMapped} class to a child
+ * element. A field of the types allowed for {@link XmlAttribute} holds the
+ * text of the child, a field of another <code>XmlMapped</code> class holds
+ * the child itself, and a <code>java.util.List</code> of either holds every
+ * child of that name, in document order. Children are matched by their local
+ * name, and children that no field is mapped to are skipped without being
+ * decoded.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface XmlElement {
+
+  /**
+   * The local name of the child element, by default the name of the field.
+   */
+  String name() default "";
+}
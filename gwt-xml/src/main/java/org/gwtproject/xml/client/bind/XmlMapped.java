@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.bind;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation marks a class whose instances are read from and written to
+ * XML by a generated {@link XmlMapper}. The processor in
+ * <code>gwt-xml-processor</code> generates the class
+ * <code><i>Type</i>XmlMapper</code> next to the annotated class, with the
+ * names of enclosing classes joined by underscores for nested classes.
+ * <p>
+ * Only the fields annotated with {@link XmlAttribute}, {@link XmlElement} or
+ * {@link XmlText} are mapped. They are accessed directly unless they are
+ * private, in which case the class needs a non-private getter and setter. The
+ * class needs a non-private constructor without parameters.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface XmlMapped {
+
+  /**
+   * The name of the element written for an instance, by default the simple
+   * name of the class with its first letter in lower case.
+   */
+  String name() default "";
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.bind;
+
+import org.gwtproject.xml.client.XMLParser;
+import org.gwtproject.xml.client.XmlReader;
+import org.gwtproject.xml.client.XmlStreamWriter;
+
+/**
+ * This interface reads and writes the instances of an {@link XmlMapped}
+ * class. The implementations are generated at compile time, so no reflection
+ * is involved, and read straight from an {@link XmlReader} without building
+ * a <code>Document</code>.
+ * 
+ * @param <T> the mapped class
+ */
+public interface XmlMapper<T> {
+
+  /**
+   * This method reads an instance from the root element of
+   * <code>xml</code>, whatever its name.
+   * 
+   * @param xml the XML string
+   * @return the new instance
+   * @throws org.gwtproject.xml.client.impl.DOMParseException if the input is
+   *           not well-formed
+   */
+  default T read(String xml) {
+    XmlReader reader = XMLParser.createReader(xml);
+    while (reader.next() != XmlReader.START_ELEMENT) {
+      // skip the prolog
+    }
+    return read(reader);
+  }
+
+  /**
+   * This method reads an instance from the current element of
+   * <code>reader</code>, leaving the reader on its end tag.
+   * 
+   * @param reader a reader whose current token is a start element
+   * @return the new instance
+   */
+  T read(XmlReader reader);
+
+  /**
+   * This method writes <code>value</code> as an element named after the
+   * mapped class.
+   * 
+   * @param value the instance to write
+   * @return the XML string
+   */
+  default String write(T value) {
+    XmlStreamWriter out = XMLParser.createWriter();
+    write(value, out);
+    return out.toString();
+  }
+
+  /**
+   * This method writes <code>value</code> as an element named after the
+   * mapped class.
+   * 
+   * @param value the instance to write
+   * @param out the writer to write to
+   */
+  void write(T value, XmlStreamWriter out);
+
+  /**
+   * This method appends <code>value</code> as an element named
+   * <code>name</code>.
+   * 
+   * @param value the instance to write
+   * @param name the qualified name of the element
+   * @param out the writer to write to
+   */
+  void write(T value, String name, XmlStreamWriter out);
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.AttributeIndex;
+import org.gwtproject.xml.client.DOMException;
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.Element;
+import org.gwtproject.xml.client.NodeList;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An index of the elements of a document by the value of one attribute, see
+ * {@link Document#createIndex(String)}. Changes to the tree and to the values
+ * of that attribute invalidate it.
+ */
+final class AttributeIndexImpl extends DocumentIndex implements AttributeIndex {
+
+  /**
+   * Returns <code>index</code> as an index of the document
+   * <code>owner</code>, throwing a <code>DOMNodeException</code> if it
+   * indexes another document.
+   */
+  static AttributeIndexImpl of(AttributeIndex index, DOMItem owner) {
+    if (index == null) {
+      return null;
+    }
+    if (!(index instanceof AttributeIndexImpl)
+        || !((AttributeIndexImpl) index).document.equals(owner)) {
+      throw new DOMNodeException(DOMException.INVALID_ACCESS_ERR, null, owner);
+    }
+    return (AttributeIndexImpl) index;
+  }
+
+  private final String attributeName;
+  private final PathExpression withAttribute;
+  private Map<String, Element> elements;
+
+  AttributeIndexImpl(Document document, Changes changes, String attributeName) {
+    super(document, changes, attributeName);
+    this.attributeName = attributeName;
+    withAttribute = PathExpression.withAttribute(attributeName);
+  }
+
+  @Override
+  public String getAttributeName() {
+    return attributeName;
+  }
+
+  @Override
+  public Element lookup(String value) {
+    update();
+    return elements.get(value);
+  }
+
+  /**
+   * Only the elements that have the attribute are wrapped. The first element
+   * in document order wins a value.
+   */
+  @Override
+  void build() {
+    Map<String, Element> map = new HashMap<String, Element>();
+    NodeList found =
+        XMLParserImplBase.getInstance().select(withAttribute, document, Integer.MAX_VALUE);
+    for (int i = 0, n = found.getLength(); i < n; i++) {
+      Element element = (Element) found.item(i);
+      String value = element.getAttribute(attributeName);
+      if (!map.containsKey(value)) {
+        map.put(value, element);
+      }
+    }
+    elements = map;
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.Attr;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.QName;
+
+/**
+ * This class implements the Attr interface over a {@link CompactDocument}.
+ */
+class CompactAttrImpl extends CompactNodeImpl implements Attr {
+
+  CompactAttrImpl(CompactDocument store, int index) {
+    super(store, index);
+  }
+
+  @Override
+  public String getName() {
+    return store.name(index);
+  }
+
+  @Override
+  public String getLocalName() {
+    return store.localName(index);
+  }
+
+  @Override
+  public String getNamespaceURI() {
+    return store.namespaceURI(index);
+  }
+
+  /**
+   * Attributes are not children of their element, so they have no siblings.
+   */
+  @Override
+  public Node getNextSibling() {
+    return null;
+  }
+
+  @Override
+  public Node getParentNode() {
+    return null;
+  }
+
+  @Override
+  public String getPrefix() {
+    String name = store.name(index);
+    int colon = name.indexOf(':');
+    return colon < 0 ? null : name.substring(0, colon);
+  }
+
+  @Override
+  public QName getQName() {
+    return store.qname(index);
+  }
+
+  @Override
+  public Node getPreviousSibling() {
+    return null;
+  }
+
+  @Override
+  public boolean getSpecified() {
+    return true;
+  }
+
+  @Override
+  public String getValue() {
+    return store.value(index);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.CharacterData;
+
+/**
+ * This class implements the CharacterData interface over a
+ * {@link CompactDocument}.
+ */
+abstract class CompactCharacterDataImpl extends CompactNodeImpl implements CharacterData {
+
+  CompactCharacterDataImpl(CompactDocument store, int index) {
+    super(store, index);
+  }
+
+  @Override
+  public void appendData(String appendedData) {
+    throw readOnly();
+  }
+
+  @Override
+  public void deleteData(int offset, int count) {
+    throw readOnly();
+  }
+
+  @Override
+  public String getData() {
+    return store.value(index);
+  }
+
+  @Override
+  public int getLength() {
+    return store.value(index).length();
+  }
+
+  @Override
+  public void insertData(int offset, String insertedData) {
+    throw readOnly();
+  }
+
+  @Override
+  public void replaceData(int offset, int count, String replacementData) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setData(String data) {
+    throw readOnly();
+  }
+
+  @Override
+  public String substringData(int offset, int count) {
+    String data = store.value(index);
+    return data.substring(offset, Math.min(offset + count, data.length()));
+  }
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.QName;
+import org.gwtproject.xml.client.XmlReader;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A read-only document stored in flat arrays. Every node, including the
+ * document itself at index 0 and the attributes, is an index into parallel
+ * <code>int</code> arrays holding its type, parent, first child, next sibling,
+ * name and value; names and values are indexes into a table of strings that
+ * are shared by all equal occurrences. Nodes are numbered in document order,
+ * with the attributes of an element following it, so the descendants of a
+ * node are the indexes up to {@link #subtreeEnd(int)}. The namespaces of the
+ * elements and attributes are resolved once, while the document is built.
+ * <p>
+ * The {@link CompactNodeImpl} wrappers are only created when nodes are
+ * accessed and hold nothing but the index, so they compare equal by position
+ * rather than by identity.
+ */
+final class CompactDocument {
+
+  static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace";
+  static final String XMLNS_NAMESPACE = "http://www.w3.org/2000/xmlns/";
+
+  private static final int NONE = -1;
+
+  int count;
+  byte[] types;
+  int[] parents;
+  int[] firstChildren;
+  int[] nextSiblings;
+  /**
+   * The first attribute of each element, the attributes are chained through
+   * <code>nextSiblings</code>.
+   */
+  int[] firstAttributes;
+  int[] names;
+  int[] values;
+  /**
+   * The namespace of each element and attribute, {@link #NONE} for none.
+   */
+  int[] namespaces;
+  String[] strings;
+
+  /**
+   * The names of the elements and attributes, one instance per name, and the
+   * name of each node once it was asked for, since the wrappers are not kept.
+   */
+  private final QNameTable qnames = new QNameTable();
+  private QName[] nodeNames;
+  /**
+   * The boxed index of each node once it was serialized, since
+   * {@link XmlWriter} compares nodes by identity.
+   */
+  private Integer[] boxes;
+
+  private final CompactDocumentImpl documentNode = new CompactDocumentImpl(this);
+
+  /**
+   * Parses <code>contents</code> into a compact document.
+   */
+  static Document parse(String contents) {
+    return new Builder(contents).build().documentNode;
+  }
+
+  private CompactDocument() {
+  }
+
+  /**
+   * Returns the wrapper for the node at <code>index</code>, or
+   * <code>null</code> for {@link #NONE}.
+   */
+  Node node(int index) {
+    if (index < 0) {
+      return null;
+    }
+    switch (types[index]) {
+      case Node.DOCUMENT_NODE:
+        return documentNode;
+      case Node.ELEMENT_NODE:
+        return new CompactElementImpl(this, index);
+      case Node.ATTRIBUTE_NODE:
+        return new CompactAttrImpl(this, index);
+      case Node.TEXT_NODE:
+        return new CompactTextImpl(this, index);
+      case Node.CDATA_SECTION_NODE:
+        return new CompactCDATASectionImpl(this, index);
+      case Node.COMMENT_NODE:
+        return new CompactCommentImpl(this, index);
+      case Node.PROCESSING_INSTRUCTION_NODE:
+        return new CompactProcessingInstructionImpl(this, index);
+      default:
+        throw new IllegalStateException("Unknown node type " + types[index]);
+    }
+  }
+
+  /**
+   * Returns the name of the node at <code>index</code>, or <code>null</code>
+   * for {@link #NONE} and nodes without a name.
+   */
+  String name(int index) {
+    return index < 0 || names[index] < 0 ? null : strings[names[index]];
+  }
+
+  /**
+   * Returns the value of the node at <code>index</code>, or <code>null</code>
+   * for {@link #NONE} and nodes without a value.
+   */
+  String value(int index) {
+    return index < 0 || values[index] < 0 ? null : strings[values[index]];
+  }
+
+  /**
+   * Returns the local name of the element or attribute at <code>index</code>.
+   */
+  String localName(int index) {
+    String name = name(index);
+    return name.substring(name.indexOf(':') + 1);
+  }
+
+  /**
+   * Returns the interned name of the element or attribute at
+   * <code>index</code>.
+   */
+  QName qname(int index) {
+    if (nodeNames == null) {
+      nodeNames = new QName[count];
+    }
+    QName qname = nodeNames[index];
+    if (qname == null) {
+      qname = qname(namespaceURI(index), localName(index));
+      nodeNames[index] = qname;
+    }
+    return qname;
+  }
+
+  /**
+   * Returns the boxed <code>index</code>, the same instance every time, or
+   * <code>null</code> for {@link #NONE}.
+   */
+  Integer box(int index) {
+    if (index < 0) {
+      return null;
+    }
+    if (boxes == null) {
+      boxes = new Integer[count];
+    }
+    Integer box = boxes[index];
+    if (box == null) {
+      box = index;
+      boxes[index] = box;
+    }
+    return box;
+  }
+
+  /**
+   * Returns the interned name for <code>namespaceURI</code> and
+   * <code>localName</code>.
+   */
+  QName qname(String namespaceURI, String localName) {
+    return qnames.get(namespaceURI, localName);
+  }
+
+  /**
+   * Returns the index after the last descendant of <code>index</code>.
+   */
+  int subtreeEnd(int index) {
+    for (int node = index; node > 0; node = parents[node]) {
+      if (nextSiblings[node] >= 0) {
+        return nextSiblings[node];
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the attribute of <code>element</code> named <code>name</code>.
+   */
+  int attribute(int element, String name) {
+    for (int attr = firstAttributes[element]; attr >= 0; attr = nextSiblings[attr]) {
+      if (name.equals(strings[names[attr]])) {
+        return attr;
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   * Returns the namespace of the element or attribute at <code>index</code>,
+   * which was resolved from the <code>xmlns</code> attributes in scope.
+   */
+  String namespaceURI(int index) {
+    int namespace = namespaces[index];
+    return namespace < 0 ? null : strings[namespace];
+  }
+
+  /**
+   * Fills the arrays from an {@link XmlScanner}.
+   */
+  private static class Builder {
+    private final CompactDocument document = new CompactDocument();
+    private final XmlScanner scanner;
+    private final Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+    private String[] strings = new String[64];
+    private int stringCount;
+
+    /**
+     * The last child of every open element, indexed by depth.
+     */
+    private int[] lastChildren = new int[16];
+    /**
+     * The namespace bindings in scope, innermost last, and for every open
+     * element the number of bindings outside it, indexed by depth.
+     */
+    private String[] prefixes = new String[8];
+    private int[] uris = new int[8];
+    private int bindings;
+    private int[] scopes = new int[16];
+
+    Builder(String contents) {
+      scanner = new XmlScanner(contents);
+      int capacity = Math.max(16, contents.length() / 16);
+      document.types = new byte[capacity];
+      document.parents = new int[capacity];
+      document.firstChildren = new int[capacity];
+      document.nextSiblings = new int[capacity];
+      document.firstAttributes = new int[capacity];
+      document.names = new int[capacity];
+      document.values = new int[capacity];
+      document.namespaces = new int[capacity];
+    }
+
+    CompactDocument build() {
+      int parent = add(Node.DOCUMENT_NODE, NONE, NONE, NONE);
+      int depth = 0;
+      lastChildren[0] = NONE;
+      for (int event = scanner.next(); event != XmlReader.END_DOCUMENT;
+          event = scanner.next()) {
+        int node;
+        switch (event) {
+          case XmlReader.START_ELEMENT:
+            node = add(Node.ELEMENT_NODE, parent, intern(scanner.getName()), NONE);
+            int lastAttr = NONE;
+            for (int i = 0, n = scanner.getLength(); i < n; i++) {
+              int attr = add(Node.ATTRIBUTE_NODE, node, intern(scanner.getName(i)),
+                  intern(scanner.getValue(i)));
+              if (lastAttr < 0) {
+                document.firstAttributes[node] = attr;
+              } else {
+                document.nextSiblings[lastAttr] = attr;
+              }
+              lastAttr = attr;
+            }
+            scopes[depth] = bindings;
+            resolveNamespaces(node);
+            link(parent, node, depth);
+            parent = node;
+            if (++depth == lastChildren.length) {
+              lastChildren = grow(lastChildren, depth * 2);
+              scopes = grow(scopes, depth * 2);
+            }
+            lastChildren[depth] = NONE;
+            break;
+          case XmlReader.END_ELEMENT:
+            parent = document.parents[parent];
+            depth--;
+            bindings = scopes[depth];
+            break;
+          case XmlReader.CHARACTERS:
+            link(parent, add(Node.TEXT_NODE, parent, NONE, intern(scanner.getText())), depth);
+            break;
+          case XmlReader.CDATA:
+            link(parent, add(Node.CDATA_SECTION_NODE, parent, NONE, intern(scanner.getText())),
+                depth);
+            break;
+          case XmlReader.COMMENT:
+            link(parent, add(Node.COMMENT_NODE, parent, NONE, intern(scanner.getText())), depth);
+            break;
+          case XmlReader.PROCESSING_INSTRUCTION:
+            link(parent, add(Node.PROCESSING_INSTRUCTION_NODE, parent,
+                intern(scanner.getName()), intern(scanner.getText())), depth);
+            break;
+          default:
+            break;
+        }
+      }
+      trim();
+      return document;
+    }
+
+    private int add(int type, int parent, int name, int value) {
+      CompactDocument d = document;
+      int index = d.count++;
+      if (index == d.types.length) {
+        int capacity = index * 2;
+        byte[] types = new byte[capacity];
+        System.arraycopy(d.types, 0, types, 0, index);
+        d.types = types;
+        d.parents = grow(d.parents, capacity);
+        d.firstChildren = grow(d.firstChildren, capacity);
+        d.nextSiblings = grow(d.nextSiblings, capacity);
+        d.firstAttributes = grow(d.firstAttributes, capacity);
+        d.names = grow(d.names, capacity);
+        d.values = grow(d.values, capacity);
+        d.namespaces = grow(d.namespaces, capacity);
+      }
+      d.types[index] = (byte) type;
+      d.parents[index] = parent;
+      d.firstChildren[index] = NONE;
+      d.nextSiblings[index] = NONE;
+      d.firstAttributes[index] = NONE;
+      d.names[index] = name;
+      d.values[index] = value;
+      d.namespaces[index] = NONE;
+      return index;
+    }
+
+    /**
+     * Binds the namespaces declared by <code>element</code> and resolves the
+     * namespaces of the element and its attributes.
+     */
+    private void resolveNamespaces(int element) {
+      CompactDocument d = document;
+      for (int attr = d.firstAttributes[element]; attr >= 0; attr = d.nextSiblings[attr]) {
+        String name = strings[d.names[attr]];
+        if (name.startsWith("xmlns") && (name.length() == 5 || name.charAt(5) == ':')) {
+          bind(name.length() == 5 ? "" : name.substring(6), d.values[attr]);
+        }
+      }
+      d.namespaces[element] = resolve(strings[d.names[element]], false);
+      for (int attr = d.firstAttributes[element]; attr >= 0; attr = d.nextSiblings[attr]) {
+        d.namespaces[attr] = resolve(strings[d.names[attr]], true);
+      }
+    }
+
+    /**
+     * Returns the namespace of the element or attribute named
+     * <code>name</code>, or {@link #NONE}. Attributes without a prefix have no
+     * namespace, except for <code>xmlns</code> itself.
+     */
+    private int resolve(String name, boolean attribute) {
+      int colon = name.indexOf(':');
+      if (colon < 0 && attribute) {
+        return name.equals("xmlns") ? intern(XMLNS_NAMESPACE) : NONE;
+      }
+      if (colon == 3 && name.startsWith("xml")) {
+        return intern(XML_NAMESPACE);
+      }
+      if (colon == 5 && name.startsWith("xmlns")) {
+        return intern(XMLNS_NAMESPACE);
+      }
+      int length = Math.max(colon, 0);
+      for (int i = bindings - 1; i >= 0; i--) {
+        String prefix = prefixes[i];
+        if (prefix.length() == length && name.startsWith(prefix)) {
+          int uri = uris[i];
+          return strings[uri].isEmpty() ? NONE : uri;
+        }
+      }
+      return NONE;
+    }
+
+    private void bind(String prefix, int uri) {
+      if (bindings == prefixes.length) {
+        String[] grown = new String[bindings * 2];
+        System.arraycopy(prefixes, 0, grown, 0, bindings);
+        prefixes = grown;
+        uris = grow(uris, bindings * 2);
+      }
+      prefixes[bindings] = prefix;
+      uris[bindings++] = uri;
+    }
+
+    private void link(int parent, int node, int depth) {
+      int last = lastChildren[depth];
+      if (last < 0) {
+        document.firstChildren[parent] = node;
+      } else {
+        document.nextSiblings[last] = node;
+      }
+      lastChildren[depth] = node;
+    }
+
+    private int intern(String string) {
+      Integer index = stringIndexes.get(string);
+      if (index == null) {
+        index = stringCount;
+        stringIndexes.put(string, index);
+        if (stringCount == strings.length) {
+          String[] grown = new String[stringCount * 2];
+          System.arraycopy(strings, 0, grown, 0, stringCount);
+          strings = grown;
+        }
+        strings[stringCount++] = string;
+      }
+      return index;
+    }
+
+    private void trim() {
+      CompactDocument d = document;
+      int n = d.count;
+      byte[] types = new byte[n];
+      System.arraycopy(d.types, 0, types, 0, n);
+      d.types = types;
+      d.parents = grow(d.parents, n);
+      d.firstChildren = grow(d.firstChildren, n);
+      d.nextSiblings = grow(d.nextSiblings, n);
+      d.firstAttributes = grow(d.firstAttributes, n);
+      d.names = grow(d.names, n);
+      d.values = grow(d.values, n);
+      d.namespaces = grow(d.namespaces, n);
+      d.strings = new String[stringCount];
+      System.arraycopy(strings, 0, d.strings, 0, stringCount);
+    }
+
+    private static int[] grow(int[] array, int length) {
+      int[] copy = new int[length];
+      System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+      return copy;
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.AttributeIndex;
+import org.gwtproject.xml.client.CDATASection;
+import org.gwtproject.xml.client.Comment;
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.DocumentFragment;
+import org.gwtproject.xml.client.Element;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.NodeList;
+import org.gwtproject.xml.client.ProcessingInstruction;
+import org.gwtproject.xml.client.QName;
+import org.gwtproject.xml.client.Text;
+
+/**
+ * This class implements the Document interface over a
+ * {@link CompactDocument}. None of the factory methods are supported, since
+ * the nodes they create could never be added to the document.
+ */
+class CompactDocumentImpl extends CompactNodeImpl implements Document {
+
+  /**
+   * The document never changes, so its indexes are built once.
+   */
+  private final DocumentIndex.Changes changes = new DocumentIndex.Changes(true);
+
+  private AttributeIndexImpl idIndex;
+
+  CompactDocumentImpl(CompactDocument store) {
+    super(store, 0);
+  }
+
+  @Override
+  public CDATASection createCDATASection(String data) {
+    throw readOnly();
+  }
+
+  @Override
+  public Comment createComment(String data) {
+    throw readOnly();
+  }
+
+  @Override
+  public DocumentFragment createDocumentFragment() {
+    throw readOnly();
+  }
+
+  @Override
+  public Element createElement(String tagName) {
+    throw readOnly();
+  }
+
+  @Override
+  public AttributeIndex createIndex(String attributeName) {
+    return new AttributeIndexImpl(this, changes, attributeName);
+  }
+
+  @Override
+  public ProcessingInstruction createProcessingInstruction(String target, String data) {
+    throw readOnly();
+  }
+
+  @Override
+  public Text createTextNode(String data) {
+    throw readOnly();
+  }
+
+  @Override
+  public Element getDocumentElement() {
+    for (int child = store.firstChildren[0]; child >= 0; child = store.nextSiblings[child]) {
+      if (store.types[child] == Node.ELEMENT_NODE) {
+        return (Element) store.node(child);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Without a DTD no attribute is of type ID, so without an ID index this
+   * method returns <code>null</code> like the browser and JRE implementations
+   * do.
+   */
+  @Override
+  public Element getElementById(String elementId) {
+    return idIndex == null ? null : idIndex.lookup(elementId);
+  }
+
+  @Override
+  public NodeList getElementsByTagName(String tagName) {
+    return CompactElementImpl.getElementsByTagName(store, 0, tagName);
+  }
+
+  @Override
+  public NodeList getElementsByTagNameNS(String namespaceURI, String localName) {
+    return CompactElementImpl.getElementsByTagNameNS(store, 0, namespaceURI, localName);
+  }
+
+  @Override
+  public QName getQName(String namespaceURI, String localName) {
+    return store.qname(namespaceURI, localName);
+  }
+
+  @Override
+  public String getNodeName() {
+    return "#document";
+  }
+
+  @Override
+  public Document getOwnerDocument() {
+    return null;
+  }
+
+  @Override
+  public Node importNode(Node importedNode, boolean deep) {
+    throw readOnly();
+  }
+
+  @Override
+  public Element querySelector(String selectors) {
+    return XMLParserImplBase.matchSelector(this, selectors);
+  }
+
+  @Override
+  public NodeList querySelectorAll(String selectors) {
+    return XMLParserImplBase.matchSelectors(this, selectors, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void setIdIndex(AttributeIndex index) {
+    idIndex = AttributeIndexImpl.of(index, this);
+  }
+
+  /**
+   * The document cannot change and is searched without wrappers, so it is
+   * never indexed.
+   */
+  @Override
+  public void setTagNameIndexed(boolean indexed) {
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.Attr;
+import org.gwtproject.xml.client.Element;
+import org.gwtproject.xml.client.NamedNodeMap;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.NodeList;
+import org.gwtproject.xml.client.QName;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class implements the Element interface over a {@link CompactDocument}.
+ */
+class CompactElementImpl extends CompactNodeImpl implements Element {
+
+  /**
+   * Collects the elements in the subtree of <code>root</code> whose qualified
+   * or local name is <code>name</code>, or all of them for <code>*</code>.
+   */
+  static NodeList getElementsByTagName(CompactDocument store, int root, String name) {
+    boolean any = "*".equals(name);
+    int[] matches = new int[8];
+    int length = 0;
+    for (int node = root + 1, end = store.subtreeEnd(root); node < end; node++) {
+      if (store.types[node] != Node.ELEMENT_NODE) {
+        continue;
+      }
+      if (any || matches(store.name(node), name)) {
+        matches = grow(matches, length);
+        matches[length++] = node;
+      }
+    }
+    return new CompactNodeListImpl(store, matches, length);
+  }
+
+  /**
+   * Collects the elements in the subtree of <code>root</code> with the
+   * namespace URI <code>namespaceURI</code> and the local name
+   * <code>localName</code>, either of which may be <code>*</code> to match
+   * any. The namespace is only resolved for the elements whose name matches,
+   * and kept with their name for the next query.
+   */
+  static NodeList getElementsByTagNameNS(CompactDocument store, int root, String namespaceURI,
+      String localName) {
+    boolean anyNamespace = "*".equals(namespaceURI);
+    boolean anyName = "*".equals(localName);
+    String uri = namespaceURI == null || namespaceURI.isEmpty() ? null : namespaceURI;
+    int[] matches = new int[8];
+    int length = 0;
+    for (int node = root + 1, end = store.subtreeEnd(root); node < end; node++) {
+      if (store.types[node] != Node.ELEMENT_NODE) {
+        continue;
+      }
+      if ((anyName || hasLocalName(store.name(node), localName))
+          && (anyNamespace || sameNamespace(uri, store.qname(node).getNamespaceURI()))) {
+        matches = grow(matches, length);
+        matches[length++] = node;
+      }
+    }
+    return new CompactNodeListImpl(store, matches, length);
+  }
+
+  private static int[] grow(int[] matches, int length) {
+    if (length < matches.length) {
+      return matches;
+    }
+    int[] grown = new int[length * 2];
+    System.arraycopy(matches, 0, grown, 0, length);
+    return grown;
+  }
+
+  private static boolean matches(String qualifiedName, String name) {
+    return qualifiedName.equals(name) || hasLocalName(qualifiedName, name);
+  }
+
+  private static boolean hasLocalName(String qualifiedName, String localName) {
+    int colon = qualifiedName.indexOf(':');
+    return qualifiedName.length() - colon - 1 == localName.length()
+        && qualifiedName.endsWith(localName);
+  }
+
+  private static boolean sameNamespace(String namespaceURI, String other) {
+    return namespaceURI == null ? other == null : namespaceURI.equals(other);
+  }
+
+  CompactElementImpl(CompactDocument store, int index) {
+    super(store, index);
+  }
+
+  @Override
+  public String getAttribute(String name) {
+    return store.value(store.attribute(index, name));
+  }
+
+  @Override
+  public Map<String, String> getAttributeMap() {
+    Map<String, String> map = new LinkedHashMap<String, String>();
+    for (int attr = store.firstAttributes[index]; attr >= 0; attr = store.nextSiblings[attr]) {
+      map.put(store.name(attr), store.value(attr));
+    }
+    return map;
+  }
+
+  @Override
+  public String getAttributeNS(String namespaceURI, String localName) {
+    String uri = namespaceURI == null || namespaceURI.isEmpty() ? null : namespaceURI;
+    for (int attr = store.firstAttributes[index]; attr >= 0; attr = store.nextSiblings[attr]) {
+      if (hasLocalName(store.name(attr), localName)
+          && sameNamespace(uri, store.namespaceURI(attr))) {
+        return store.value(attr);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public Attr getAttributeNode(String name) {
+    return (Attr) store.node(store.attribute(index, name));
+  }
+
+  @Override
+  public NamedNodeMap getAttributes() {
+    return new CompactNamedNodeMapImpl(store, index);
+  }
+
+  @Override
+  public NodeList getElementsByTagName(String name) {
+    return getElementsByTagName(store, index, name);
+  }
+
+  @Override
+  public String getLocalName() {
+    return store.localName(index);
+  }
+
+  @Override
+  public String getNamespaceURI() {
+    return store.namespaceURI(index);
+  }
+
+  @Override
+  public String getPrefix() {
+    String name = store.name(index);
+    int colon = name.indexOf(':');
+    return colon < 0 ? null : name.substring(0, colon);
+  }
+
+  @Override
+  public QName getQName() {
+    return store.qname(index);
+  }
+
+  @Override
+  public NodeList getElementsByTagNameNS(String namespaceURI, String localName) {
+    return getElementsByTagNameNS(store, index, namespaceURI, localName);
+  }
+
+  @Override
+  public String getTagName() {
+    return store.name(index);
+  }
+
+  @Override
+  public boolean hasAttribute(String name) {
+    return store.attribute(index, name) >= 0;
+  }
+
+  @Override
+  public boolean hasAttributes() {
+    return store.firstAttributes[index] >= 0;
+  }
+
+  @Override
+  public Element querySelector(String selectors) {
+    return XMLParserImplBase.matchSelector(this, selectors);
+  }
+
+  @Override
+  public NodeList querySelectorAll(String selectors) {
+    return XMLParserImplBase.matchSelectors(this, selectors, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void removeAttribute(String name) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setAttribute(String name, String value) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setAttributeNS(String namespaceURI, String qualifiedName, String value) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setAttributes(Map<String, String> attributes) {
+    throw readOnly();
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.NamedNodeMap;
+import org.gwtproject.xml.client.Node;
+
+/**
+ * This class implements the NamedNodeMap interface over the attributes of an
+ * element in a {@link CompactDocument}.
+ */
+class CompactNamedNodeMapImpl implements NamedNodeMap {
+
+  private final CompactDocument store;
+  private final int element;
+
+  CompactNamedNodeMapImpl(CompactDocument store, int element) {
+    this.store = store;
+    this.element = element;
+  }
+
+  @Override
+  public int getLength() {
+    int length = 0;
+    for (int attr = store.firstAttributes[element]; attr >= 0; attr = store.nextSiblings[attr]) {
+      length++;
+    }
+    return length;
+  }
+
+  @Override
+  public Node getNamedItem(String name) {
+    return store.node(store.attribute(element, name));
+  }
+
+  @Override
+  public Node item(int index) {
+    int attr = store.firstAttributes[element];
+    for (int i = 0; i < index && attr >= 0; i++) {
+      attr = store.nextSiblings[attr];
+    }
+    return index < 0 ? null : store.node(attr);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder b = new StringBuilder();
+    for (int attr = store.firstAttributes[element]; attr >= 0; attr = store.nextSiblings[attr]) {
+      XmlWriter.writeAttribute(store.name(attr), store.value(attr), b);
+    }
+    return b.toString();
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.DOMException;
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.NamedNodeMap;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.NodeList;
+import org.gwtproject.xml.client.QName;
+
+/**
+ * This class wraps a node of a {@link CompactDocument}. The wrapper only
+ * holds the index of the node, so two wrappers for the same node are equal
+ * without being the same object.
+ */
+class CompactNodeImpl extends DOMItem implements Node {
+
+  final CompactDocument store;
+  final int index;
+
+  CompactNodeImpl(CompactDocument store, int index) {
+    super(store);
+    this.store = store;
+    this.index = index;
+  }
+
+  @Override
+  public Node appendChild(Node newChild) {
+    throw readOnly();
+  }
+
+  @Override
+  public Node cloneNode(boolean deep) {
+    throw readOnly();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof CompactNodeImpl) {
+      CompactNodeImpl other = (CompactNodeImpl) o;
+      return store == other.store && index == other.index;
+    }
+    return false;
+  }
+
+  @Override
+  public double evaluateNumber(String xpath) {
+    throw noXPath();
+  }
+
+  @Override
+  public String evaluateString(String xpath) {
+    throw noXPath();
+  }
+
+  @Override
+  public NamedNodeMap getAttributes() {
+    return null;
+  }
+
+  @Override
+  public NodeList getChildNodes() {
+    int[] children = new int[8];
+    int length = 0;
+    for (int child = store.firstChildren[index]; child >= 0; child = store.nextSiblings[child]) {
+      if (length == children.length) {
+        int[] grown = new int[length * 2];
+        System.arraycopy(children, 0, grown, 0, length);
+        children = grown;
+      }
+      children[length++] = child;
+    }
+    return new CompactNodeListImpl(store, children, length);
+  }
+
+  @Override
+  public Node getFirstChild() {
+    return store.node(store.firstChildren[index]);
+  }
+
+  @Override
+  public Node getLastChild() {
+    int last = -1;
+    for (int child = store.firstChildren[index]; child >= 0; child = store.nextSiblings[child]) {
+      last = child;
+    }
+    return store.node(last);
+  }
+
+  @Override
+  public String getLocalName() {
+    return null;
+  }
+
+  @Override
+  public String getNamespaceURI() {
+    return null;
+  }
+
+  @Override
+  public Node getNextSibling() {
+    return store.node(store.nextSiblings[index]);
+  }
+
+  @Override
+  public String getNodeName() {
+    return store.name(index);
+  }
+
+  @Override
+  public short getNodeType() {
+    return store.types[index];
+  }
+
+  @Override
+  public String getNodeValue() {
+    return store.value(index);
+  }
+
+  @Override
+  public Document getOwnerDocument() {
+    return (Document) store.node(0);
+  }
+
+  @Override
+  public Node getParentNode() {
+    return store.node(store.parents[index]);
+  }
+
+  @Override
+  public String getPrefix() {
+    return null;
+  }
+
+  @Override
+  public QName getQName() {
+    return null;
+  }
+
+  @Override
+  public Node getPreviousSibling() {
+    int parent = store.parents[index];
+    if (parent < 0) {
+      return null;
+    }
+    int previous = -1;
+    for (int child = store.firstChildren[parent]; child != index;
+        child = store.nextSiblings[child]) {
+      previous = child;
+    }
+    return store.node(previous);
+  }
+
+  @Override
+  public int hashCode() {
+    return store.hashCode() * 31 + index;
+  }
+
+  @Override
+  public boolean hasAttributes() {
+    return false;
+  }
+
+  @Override
+  public boolean hasChildNodes() {
+    return store.firstChildren[index] >= 0;
+  }
+
+  @Override
+  public Node insertBefore(Node newChild, Node refChild) {
+    throw readOnly();
+  }
+
+  /**
+   * A compact document never has adjacent text nodes, so this method does
+   * nothing.
+   */
+  @Override
+  public void normalize() {
+  }
+
+  @Override
+  public Node removeChild(Node oldChild) {
+    throw readOnly();
+  }
+
+  @Override
+  public Node replaceChild(Node newChild, Node oldChild) {
+    throw readOnly();
+  }
+
+  @Override
+  public NodeList selectNodes(String xpath) {
+    throw noXPath();
+  }
+
+  @Override
+  public Node selectSingleNode(String xpath) {
+    throw noXPath();
+  }
+
+  @Override
+  public void setNodeValue(String nodeValue) {
+    throw readOnly();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder b = new StringBuilder();
+    CompactXmlWriter.serialize(store, index, b);
+    return b.toString();
+  }
+
+  @Override
+  public String toString(int maxChars) {
+    StringBuilder b = new StringBuilder();
+    CompactXmlWriter.serialize(store, index, b, maxChars);
+    return b.toString();
+  }
+
+  /**
+   * Returns the exception thrown by every method that would modify the
+   * document.
+   */
+  DOMNodeException readOnly() {
+    return new DOMNodeException(DOMException.NO_MODIFICATION_ALLOWED_ERR,
+        new UnsupportedOperationException("Compact documents are read-only"), this);
+  }
+
+  /**
+   * Returns the exception thrown by the XPath methods, as there is no XPath
+   * engine for compact documents.
+   */
+  DOMNodeException noXPath() {
+    return new DOMNodeException(DOMException.NOT_SUPPORTED_ERR,
+        new UnsupportedOperationException("Compact documents do not support XPath"), this);
+  }
+}
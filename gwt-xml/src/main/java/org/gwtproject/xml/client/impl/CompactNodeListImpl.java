@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.NodeList;
+
+import java.util.Iterator;
+
+/**
+ * This class implements the NodeList interface over the indexes of nodes in a
+ * {@link CompactDocument}. Since the document cannot change, the list is
+ * never stale.
+ */
+class CompactNodeListImpl implements NodeList {
+
+  private final CompactDocument store;
+  private final int[] indexes;
+  private final int length;
+
+  CompactNodeListImpl(CompactDocument store, int[] indexes, int length) {
+    this.store = store;
+    this.indexes = indexes;
+    this.length = length;
+  }
+
+  @Override
+  public int getLength() {
+    return length;
+  }
+
+  @Override
+  public Node item(int index) {
+    return index >= 0 && index < length ? store.node(indexes[index]) : null;
+  }
+
+  @Override
+  public Iterator<Node> iterator() {
+    return new NodeIterator(length) {
+      @Override
+      int length() {
+        return length;
+      }
+
+      @Override
+      Node get(int index) {
+        return store.node(indexes[index]);
+      }
+    };
+  }
+
+  /**
+   * A compact document never changes, so this list is its own snapshot.
+   */
+  @Override
+  public NodeList snapshot() {
+    return this;
+  }
+
+  @Override
+  public Node[] toArray() {
+    Node[] nodes = new Node[length];
+    for (int i = 0; i < length; i++) {
+      nodes[i] = store.node(indexes[i]);
+    }
+    return nodes;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder b = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      CompactXmlWriter.serialize(store, indexes[i], b);
+    }
+    return b.toString();
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.ProcessingInstruction;
+
+/**
+ * This class implements the ProcessingInstruction interface over a
+ * {@link CompactDocument}.
+ */
+class CompactProcessingInstructionImpl extends CompactNodeImpl
+    implements ProcessingInstruction {
+
+  CompactProcessingInstructionImpl(CompactDocument store, int index) {
+    super(store, index);
+  }
+
+  @Override
+  public String getData() {
+    return store.value(index);
+  }
+
+  @Override
+  public String getTarget() {
+    return store.name(index);
+  }
+
+  @Override
+  public void setData(String data) {
+    throw readOnly();
+  }
+}
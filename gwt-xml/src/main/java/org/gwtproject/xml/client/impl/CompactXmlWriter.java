@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.SerializeOptions;
+
+/**
+ * Serializes the nodes of a {@link CompactDocument} straight from its arrays,
+ * see {@link XmlWriter}. Nodes are their indexes, boxed by
+ * {@link CompactDocument#box(int)} so that the same node is always the same
+ * instance.
+ */
+final class CompactXmlWriter extends XmlWriter<Integer> {
+
+  /**
+   * Appends the markup of the node at <code>root</code> as
+   * <code>toString()</code> returns it.
+   */
+  static void serialize(CompactDocument store, int root, StringBuilder b) {
+    new CompactXmlWriter(store, TO_STRING).write(store.box(root), b);
+  }
+
+  /**
+   * Appends at most <code>maxChars</code> characters of the markup of the
+   * node at <code>root</code> as <code>toString()</code> returns it.
+   */
+  static void serialize(CompactDocument store, int root, StringBuilder b, int maxChars) {
+    new CompactXmlWriter(store, TO_STRING).write(store.box(root), b, maxChars);
+  }
+
+  private final CompactDocument store;
+
+  CompactXmlWriter(CompactDocument store, SerializeOptions options) {
+    super(options);
+    this.store = store;
+  }
+
+  @Override
+  short type(Integer node) {
+    return store.types[node];
+  }
+
+  @Override
+  String name(Integer node) {
+    return store.name(node);
+  }
+
+  @Override
+  String value(Integer node) {
+    return store.value(node);
+  }
+
+  @Override
+  String namespaceURI(Integer node) {
+    return store.namespaceURI(node);
+  }
+
+  @Override
+  Integer firstChild(Integer node) {
+    return store.box(store.firstChildren[node]);
+  }
+
+  @Override
+  Integer nextSibling(Integer node) {
+    return store.box(store.nextSiblings[node]);
+  }
+
+  @Override
+  Integer parent(Integer node) {
+    return store.box(store.parents[node]);
+  }
+
+  @Override
+  int attributeCount(Integer element) {
+    int count = 0;
+    for (int attr = store.firstAttributes[element]; attr >= 0; attr = store.nextSiblings[attr]) {
+      count++;
+    }
+    return count;
+  }
+
+  @Override
+  Integer attribute(Integer element, int index) {
+    int attr = store.firstAttributes[element];
+    for (int i = 0; i < index; i++) {
+      attr = store.nextSiblings[attr];
+    }
+    return store.box(attr);
+  }
+
+  /**
+   * Compact documents keep no document type, so this is never reached.
+   */
+  @Override
+  void writeDocumentType(Integer doctype, StringBuilder b) {
+    writeDocumentType(store.name(doctype), null, null, null, b);
+  }
+}
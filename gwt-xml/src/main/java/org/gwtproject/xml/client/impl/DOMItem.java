@@ -27,12 +27,20 @@ class DOMItem {
   static class NativeDomItem {
   }
 
-  private NativeDomItem domItem;
+  private Object domItem;
 
   protected DOMItem(NativeDomItem jso) {
     this.domItem = jso;
   }
 
+  /**
+   * Creates a wrapper around a non-native DOM object, as used by the JRE
+   * implementation.
+   */
+  protected DOMItem(Object item) {
+    this.domItem = item;
+  }
+
   /**
    * This method determines equality for DOMItems.
    *
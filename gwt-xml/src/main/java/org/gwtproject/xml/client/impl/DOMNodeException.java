@@ -16,6 +16,7 @@
 package org.gwtproject.xml.client.impl;
 
 import org.gwtproject.xml.client.DOMException;
+import org.gwtproject.xml.client.Node;
 
 /**
  * Thrown when a particular DOM item causes an exception.
@@ -24,20 +25,40 @@ public class DOMNodeException extends DOMException {
 
   private DOMItem item;
 
+  /**
+   * The message, built from the item the first time it is asked for.
+   */
+  private String message;
+
   public DOMNodeException() {
     super((short) 0, "node exception");
   }
 
   public DOMNodeException(short code, Throwable e, DOMItem item) {
-    // This item must be initialized during construction, and Java does not
-    // allow any statements before the super, so
-    // toString must be evaluated twice
-    super(code, "Error during DOM manipulation of: "
-        + DOMParseException.summarize(item.toString()));
+    super(code, null);
     initCause(e);
     this.item = item;
   }
 
+  /**
+   * The item is only serialized when the message is asked for, and a node no
+   * further than the summary goes, so throwing and catching this exception
+   * does not depend on the size of the document.
+   */
+  @Override
+  public String getMessage() {
+    if (item == null) {
+      return super.getMessage();
+    }
+    if (message == null) {
+      String summary = item instanceof Node
+          ? ((Node) item).toString(DOMParseException.MAX_SUMMARY_LENGTH)
+          : DOMParseException.summarize(item.toString());
+      message = "Error during DOM manipulation of: " + summary;
+    }
+    return message;
+  }
+
   public DOMItem getItem() {
     return item;
   }
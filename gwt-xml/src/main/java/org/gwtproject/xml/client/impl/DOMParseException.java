@@ -18,37 +18,200 @@ package org.gwtproject.xml.client.impl;
 import org.gwtproject.xml.client.DOMException;
 
 /**
- * Thrown when parse errors occur in the underlying implementation.
+ * Thrown when parse errors occur in the underlying implementation. The line
+ * and column of the error are taken from the message of the underlying error
+ * when it names them, and a short snippet of the input around them is kept.
+ * The input itself is only kept if it was asked for, see
+ * {@link org.gwtproject.xml.client.ParseOptions#setRetainContentsOnError}, so
+ * that an exception does not hold on to a large document.
  */
 public class DOMParseException extends DOMException {
 
   /**
    * Maximum size of error message in summary.
    */
-  private static final int MAX_SUMMARY_LENGTH = 128;
+  static final int MAX_SUMMARY_LENGTH = 128;
+
+  /**
+   * Maximum size of the snippet, and how much of it comes before the column
+   * of the error.
+   */
+  private static final int MAX_SNIPPET_LENGTH = 80;
+  private static final int SNIPPET_CONTEXT = 40;
 
   static String summarize(String text) {
     return text.substring(0, Math.min(text.length(), MAX_SUMMARY_LENGTH));
   }
 
   private String contents;
+  private int line;
+  private int column;
+  private String snippet;
 
   public DOMParseException() {
     super(DOMException.SYNTAX_ERR, "Parse error");
   }
 
   public DOMParseException(String contents) {
-    super(DOMException.SYNTAX_ERR, "Failed to parse: " + summarize(contents));
-    this.contents = contents;
+    this(contents, null, false);
   }
 
   public DOMParseException(String contents, Throwable e) {
+    this(contents, e, false);
+  }
+
+  /**
+   * Creates an exception for <code>contents</code>, which is only kept if
+   * <code>retainContents</code> is set.
+   */
+  public DOMParseException(String contents, Throwable e, boolean retainContents) {
     super(DOMException.SYNTAX_ERR, "Failed to parse: " + summarize(contents));
-    initCause(e);
-    this.contents = contents;
+    if (e != null) {
+      initCause(e);
+      locate(e.toString());
+    }
+    snippet = snippet(contents, line, column);
+    if (retainContents) {
+      this.contents = contents;
+    }
+  }
+
+  /**
+   * Creates an exception for an error in <code>contents</code>, the part of
+   * the input that starts at <code>startLine</code> and
+   * <code>startColumn</code>, e.g. what an incremental parser still buffers.
+   * The line and column of the error count from the start of the input, the
+   * snippet is cut from <code>contents</code>.
+   */
+  DOMParseException(String contents, Throwable e, int startLine, int startColumn) {
+    this(contents, e, false);
+    if (line >= startLine) {
+      int column = line == startLine ? this.column - startColumn + 1 : this.column;
+      snippet = snippet(contents, line - startLine + 1, column);
+    }
   }
 
+  /**
+   * Returns the column of the error, counting from 1, or 0 if it is not known.
+   */
+  public int getColumn() {
+    return column;
+  }
+
+  /**
+   * Returns the input that failed to parse, or <code>null</code> if it was not
+   * retained.
+   */
   public String getContents() {
     return contents;
   }
+
+  /**
+   * Returns the line of the error, counting from 1, or 0 if it is not known.
+   */
+  public int getLine() {
+    return line;
+  }
+
+  /**
+   * Returns at most 80 characters of the line of the error around its column,
+   * or of the start of the input if the line is not known.
+   */
+  public String getSnippet() {
+    return snippet;
+  }
+
+  /**
+   * Finds the line and column in <code>message</code>. Parsers word them
+   * differently, e.g. "error on line 2 at column 5", "Line Number 2, Column 5",
+   * "lineNumber: 2; columnNumber: 5" or "line 2, char 5", but all of them name
+   * the line first.
+   */
+  private void locate(String message) {
+    String lower = message.toLowerCase();
+    for (int at = lower.indexOf("line"); at >= 0; at = lower.indexOf("line", at + 4)) {
+      int end = skipToDigits(lower, at + 4);
+      if (end < 0) {
+        continue;
+      }
+      line = readNumber(lower, end);
+      end = skipDigits(lower, end);
+      int label = nearest(lower.indexOf("col", end), lower.indexOf("char", end));
+      if (label >= 0 && label - end <= 16) {
+        int digits = skipToDigits(lower, label + 3);
+        if (digits >= 0) {
+          column = readNumber(lower, digits);
+        }
+      }
+      return;
+    }
+  }
+
+  private static int nearest(int a, int b) {
+    return a < 0 ? b : b < 0 ? a : Math.min(a, b);
+  }
+
+  /**
+   * Returns the index of the first digit among the few characters after
+   * <code>from</code>, or -1.
+   */
+  private static int skipToDigits(String s, int from) {
+    for (int i = from, end = Math.min(s.length(), from + 12); i < end; i++) {
+      if (Character.isDigit(s.charAt(i))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int skipDigits(String s, int from) {
+    int i = from;
+    while (i < s.length() && Character.isDigit(s.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static int readNumber(String s, int from) {
+    return Integer.parseInt(s.substring(from, Math.min(skipDigits(s, from), from + 9)));
+  }
+
+  /**
+   * Returns the part of line <code>line</code> of <code>contents</code> around
+   * <code>column</code>.
+   */
+  private static String snippet(String contents, int line, int column) {
+    if (line <= 0) {
+      return contents.substring(0, Math.min(contents.length(), MAX_SNIPPET_LENGTH));
+    }
+    int start = 0;
+    for (int i = 1; i < line; i++) {
+      int newLine = contents.indexOf('\n', start);
+      if (newLine < 0) {
+        break;
+      }
+      start = newLine + 1;
+    }
+    // move towards the column, but no further than the end of the line allows
+    int lineStart = start;
+    int target = start + column - 1 - SNIPPET_CONTEXT;
+    while (start < target) {
+      if (start == contents.length() || isLineBreak(contents.charAt(start))) {
+        start = Math.max(lineStart, start - SNIPPET_CONTEXT);
+        break;
+      }
+      start++;
+    }
+    int end = start;
+    for (int max = Math.min(contents.length(), start + MAX_SNIPPET_LENGTH); end < max; end++) {
+      if (isLineBreak(contents.charAt(end))) {
+        break;
+      }
+    }
+    return contents.substring(start, end);
+  }
+
+  private static boolean isLineBreak(char c) {
+    return c == '\n' || c == '\r';
+  }
 }
@@ -15,6 +15,7 @@
  */
 package org.gwtproject.xml.client.impl;
 
+import org.gwtproject.xml.client.AttributeIndex;
 import org.gwtproject.xml.client.CDATASection;
 import org.gwtproject.xml.client.Comment;
 import org.gwtproject.xml.client.DOMException;
@@ -24,6 +25,7 @@ import org.gwtproject.xml.client.Element;
 import org.gwtproject.xml.client.Node;
 import org.gwtproject.xml.client.NodeList;
 import org.gwtproject.xml.client.ProcessingInstruction;
+import org.gwtproject.xml.client.QName;
 import org.gwtproject.xml.client.Text;
 import org.gwtproject.xml.client.impl.CDATASectionImpl.NativeCDATASectionImpl;
 import org.gwtproject.xml.client.impl.CommentImpl.NativeCommentImpl;
@@ -48,6 +50,7 @@ class DocumentImpl extends NodeImpl implements Document {
     native NativeCDATASectionImpl createCDATASection(String data);
     native NativeDocumentImpl createDocumentFragment();
     native NativeElementImpl createElement(String tag);
+    native NativeElementImpl createElementNS(String namespaceURI, String qualifiedName);
     native NativeProcessingInstructionImpl createProcessingInstruction(String target, String data);
     native NativeTextImpl createTextNode(String data);
 
@@ -58,6 +61,20 @@ class DocumentImpl extends NodeImpl implements Document {
 
   private final NativeDocumentImpl document;
 
+  /**
+   * The changes made to the tree and the attributes through the wrappers,
+   * counted once a document is indexed, see {@link DocumentIndex}.
+   */
+  final DocumentIndex.Changes changes = new DocumentIndex.Changes(NodeImpl.hasUniqueWrappers());
+
+  private AttributeIndexImpl idIndex;
+  private TagNameIndex tagNames;
+
+  /**
+   * The names of the nodes of this document, one instance per name.
+   */
+  final QNameTable qnames = new QNameTable();
+
   protected DocumentImpl(NativeDocumentImpl o) {
     super(o);
     this.document = o;
@@ -112,6 +129,11 @@ class DocumentImpl extends NodeImpl implements Document {
     }
   }
 
+  @Override
+  public AttributeIndex createIndex(String attributeName) {
+    return new AttributeIndexImpl(this, changes, attributeName);
+  }
+
   /**
    * This function delegates to the native method <code>createProcessingInstruction</code> in
    * XMLParserImpl.
@@ -147,22 +169,46 @@ class DocumentImpl extends NodeImpl implements Document {
   }
 
   /**
-   * This function delegates to the native method <code>getElementById</code> in XMLParserImpl.
+   * This function looks <code>elementId</code> up in the ID index, if there is
+   * one, and otherwise delegates to the native method
+   * <code>getElementById</code> in XMLParserImpl.
    */
   @Override
   public Element getElementById(String elementId) {
+    Element element = idIndex == null ? null : idIndex.lookup(elementId);
+    if (element != null) {
+      return element;
+    }
     return (Element) NodeImpl.build(XMLParserImpl.getElementById(document, elementId));
   }
 
   /**
    * This function delegates to the native method <code>getElementsByTagName</code> in
-   * XMLParserImpl.
+   * XMLParserImpl, unless the tag names are indexed.
    */
   @Override
   public NodeList getElementsByTagName(String tagName) {
+    NodeList indexed = tagNames == null ? null : tagNames.getElementsByTagName(tagName);
+    if (indexed != null) {
+      return indexed;
+    }
     return new NodeListImpl(XMLParserImpl.getElementsByTagName(node, tagName));
   }
 
+  /**
+   * This function delegates to the native method <code>getElementsByTagNameNS</code>
+   * in XMLParserImpl.
+   */
+  @Override
+  public NodeList getElementsByTagNameNS(String namespaceURI, String localName) {
+    return new NodeListImpl(XMLParserImpl.getElementsByTagNameNS(node, namespaceURI, localName));
+  }
+
+  @Override
+  public QName getQName(String namespaceURI, String localName) {
+    return qnames.get(namespaceURI, localName);
+  }
+
   /**
    * This function delegates to the native method <code>importNode</code> in XMLParserImpl.
    */
@@ -175,4 +221,44 @@ class DocumentImpl extends NodeImpl implements Document {
       throw new DOMNodeException(DOMException.INVALID_STATE_ERR, e, this);
     }
   }
+
+  /**
+   * This function delegates to the native method <code>querySelector</code> in
+   * XMLParserImpl.
+   */
+  @Override
+  public Element querySelector(String selectors) {
+    try {
+      return (Element) NodeImpl.build(XMLParserImpl.querySelector(node, selectors));
+    } catch (Exception e) {
+      throw new DOMNodeException(DOMException.SYNTAX_ERR, e, this);
+    }
+  }
+
+  /**
+   * This function delegates to the native method <code>querySelectorAll</code>
+   * in XMLParserImpl.
+   */
+  @Override
+  public NodeList querySelectorAll(String selectors) {
+    try {
+      return XMLParserImpl.querySelectorAll(node, selectors);
+    } catch (Exception e) {
+      throw new DOMNodeException(DOMException.SYNTAX_ERR, e, this);
+    }
+  }
+
+  @Override
+  public void setIdIndex(AttributeIndex index) {
+    idIndex = AttributeIndexImpl.of(index, this);
+  }
+
+  /**
+   * The index is kept in this wrapper, so it is only used where the wrapper
+   * is the only one of its document.
+   */
+  @Override
+  public void setTagNameIndexed(boolean indexed) {
+    tagNames = indexed && changes.counted ? new TagNameIndex(this, changes) : null;
+  }
 }
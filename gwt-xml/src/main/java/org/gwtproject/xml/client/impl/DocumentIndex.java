@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.Node;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An index over the elements of a document, rebuilt in one walk the first
+ * time it is used after the document changed. Every document wrapper counts
+ * the changes made to it through the wrappers in a {@link Changes}, and every
+ * index remembers the count it was built at. The counting only starts once
+ * some document is indexed, so that changes cost nothing until then.
+ */
+abstract class DocumentIndex {
+
+  /**
+   * The changes made to one document.
+   */
+  static final class Changes {
+
+    /**
+     * Whether the changes are counted at all, which needs a single wrapper per
+     * document.
+     */
+    final boolean counted;
+
+    int tree;
+    /**
+     * The changes to each attribute name that an index watches, so that
+     * changing another attribute leaves the index alone.
+     */
+    private final Map<String, int[]> attributes = new HashMap<String, int[]>();
+
+    Changes(boolean counted) {
+      this.counted = counted;
+    }
+
+    void watch(String attributeName) {
+      if (!attributes.containsKey(attributeName)) {
+        attributes.put(attributeName, new int[1]);
+      }
+    }
+
+    void attributeChanged(String attributeName) {
+      int[] count = attributes.get(attributeName);
+      if (count != null) {
+        count[0]++;
+      }
+    }
+
+    int attributes(String attributeName) {
+      return attributes.get(attributeName)[0];
+    }
+  }
+
+  /**
+   * Whether any document was ever indexed.
+   */
+  static boolean inUse;
+
+  private static PathExpression allElements;
+
+  final Document document;
+  private final Changes changes;
+  private final String watchedAttribute;
+  private boolean built;
+  private int builtAt;
+
+  /**
+   * Creates an index over <code>document</code>, which is rebuilt after the
+   * tree and, unless <code>watchedAttribute</code> is <code>null</code>, after
+   * the attributes of that name changed.
+   */
+  DocumentIndex(Document document, Changes changes, String watchedAttribute) {
+    this.document = document;
+    this.changes = changes;
+    this.watchedAttribute = watchedAttribute;
+    if (watchedAttribute != null) {
+      changes.watch(watchedAttribute);
+    }
+    inUse = true;
+  }
+
+  /**
+   * Rebuilds the index if the document changed since it was built. Where the
+   * changes are not counted it is rebuilt every time.
+   */
+  final void update() {
+    int count = watchedAttribute == null ? changes.tree
+        : changes.tree + changes.attributes(watchedAttribute);
+    if (!built || !changes.counted || builtAt != count) {
+      build();
+      built = true;
+      builtAt = count;
+    }
+  }
+
+  abstract void build();
+
+  /**
+   * Returns the elements of the document in document order, wrapping none of
+   * the other nodes.
+   */
+  final Node[] elements() {
+    if (allElements == null) {
+      allElements = PathExpression.compile("//*");
+    }
+    return XMLParserImplBase.getInstance().select(allElements, document, Integer.MAX_VALUE)
+        .toArray();
+  }
+}
@@ -19,9 +19,15 @@ import org.gwtproject.xml.client.Attr;
 import org.gwtproject.xml.client.DOMException;
 import org.gwtproject.xml.client.Element;
 import org.gwtproject.xml.client.NodeList;
+import org.gwtproject.xml.client.impl.AttrImpl.NativeAttrImpl;
+import org.gwtproject.xml.client.impl.NodeListImpl.NativeNodeListImpl;
 
 import jsinterop.annotations.JsPackage;
 import jsinterop.annotations.JsType;
+import jsinterop.base.Js;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * This method implements the Element interface.
@@ -35,9 +41,13 @@ class ElementImpl extends NodeImpl implements Element {
     String tagName;
 
     native String getAttribute(String name);
+    native String getAttributeNS(String namespaceURI, String localName);
+    native boolean hasAttributeNS(String namespaceURI, String localName);
     native NativeNodeImpl getAttributeNode(String name);
     native void removeAttribute(String name);
     native void setAttribute(String name, String value);
+    native void setAttributeNS(String namespaceURI, String qualifiedName, String value);
+    native NativeNodeImpl setAttributeNode(NativeNodeImpl attr);
   }
 
   private final NativeElementImpl element;
@@ -56,6 +66,30 @@ class ElementImpl extends NodeImpl implements Element {
     return element.getAttribute(tagName);
   }
 
+  /**
+   * This function reads the names and values of the native attributes in one
+   * loop, without wrapping them.
+   */
+  @Override
+  public Map<String, String> getAttributeMap() {
+    NativeNodeListImpl attributes = element.attributes;
+    Map<String, String> map = new LinkedHashMap<String, String>();
+    for (int i = 0, n = attributes.length; i < n; i++) {
+      NativeAttrImpl attr = Js.uncheckedCast(attributes.item(i));
+      map.put(attr.name, attr.value);
+    }
+    return map;
+  }
+
+  /**
+   * This function delegates to the native method <code>getAttributeNS</code>
+   * in XMLParserImpl.
+   */
+  @Override
+  public String getAttributeNS(String namespaceURI, String localName) {
+    return XMLParserImpl.getAttributeNS(element, namespaceURI, localName);
+  }
+
   /**
    * This function delegates to the native method <code>getAttributeNode</code>
    * in XMLParserImpl.
@@ -74,6 +108,16 @@ class ElementImpl extends NodeImpl implements Element {
     return new NodeListImpl(XMLParserImpl.getElementsByTagName(element, tagName));
   }
 
+  /**
+   * This function delegates to the native method <code>getElementsByTagNameNS</code>
+   * in XMLParserImpl.
+   */
+  @Override
+  public NodeList getElementsByTagNameNS(String namespaceURI, String localName) {
+    return new NodeListImpl(
+        XMLParserImpl.getElementsByTagNameNS(element, namespaceURI, localName));
+  }
+
   /**
    * This function delegates to the native method <code>getTagName</code> in
    * XMLParserImpl.
@@ -92,6 +136,32 @@ class ElementImpl extends NodeImpl implements Element {
     return getAttribute(tagName) != null;
   }
 
+  /**
+   * This function delegates to the native method <code>querySelector</code> in
+   * XMLParserImpl.
+   */
+  @Override
+  public Element querySelector(String selectors) {
+    try {
+      return (Element) NodeImpl.build(XMLParserImpl.querySelector(element, selectors));
+    } catch (Exception e) {
+      throw new DOMNodeException(DOMException.SYNTAX_ERR, e, this);
+    }
+  }
+
+  /**
+   * This function delegates to the native method <code>querySelectorAll</code>
+   * in XMLParserImpl.
+   */
+  @Override
+  public NodeList querySelectorAll(String selectors) {
+    try {
+      return XMLParserImpl.querySelectorAll(element, selectors);
+    } catch (Exception e) {
+      throw new DOMNodeException(DOMException.SYNTAX_ERR, e, this);
+    }
+  }
+
   /**
    * This function delegates to the native method <code>removeAttribute</code>
    * in XMLParserImpl.
@@ -100,6 +170,7 @@ class ElementImpl extends NodeImpl implements Element {
   public void removeAttribute(String name) throws DOMNodeException {
     try {
       element.removeAttribute(name);
+      attributeChanged(name);
     } catch (Exception e) {
       throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
     }
@@ -113,8 +184,41 @@ class ElementImpl extends NodeImpl implements Element {
   public void setAttribute(String name, String value) throws DOMNodeException {
     try {
       element.setAttribute(name, value);
+      attributeChanged(name);
+    } catch (Exception e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  /**
+   * This function delegates to the native method <code>setAttributeNS</code>
+   * in XMLParserImpl.
+   */
+  @Override
+  public void setAttributeNS(String namespaceURI, String qualifiedName, String value)
+      throws DOMNodeException {
+    try {
+      XMLParserImpl.setAttributeNS(element, namespaceURI, qualifiedName, value);
+      attributeChanged(qualifiedName);
+    } catch (Exception e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  /**
+   * This function delegates to the native method <code>setAttribute</code> in
+   * XMLParserImpl for every attribute, and counts one change per name.
+   */
+  @Override
+  public void setAttributes(Map<String, String> attributes) throws DOMNodeException {
+    try {
+      for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+        element.setAttribute(attribute.getKey(), attribute.getValue());
+      }
     } catch (Exception e) {
       throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    } finally {
+      attributesChanged(attributes.keySet());
     }
   }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.IncrementalParser;
+import org.gwtproject.xml.client.XmlEventHandler;
+
+/**
+ * Feeds chunks to an incremental {@link XmlScanner} and reports its tokens to
+ * a handler.
+ */
+class IncrementalParserImpl implements IncrementalParser {
+
+  private final XmlScanner scanner = new XmlScanner();
+  private final XmlEventHandler handler;
+  private boolean started;
+  private boolean ended;
+
+  IncrementalParserImpl(XmlEventHandler handler) {
+    this.handler = handler;
+  }
+
+  @Override
+  public void feed(String chunk) {
+    if (ended) {
+      throw new IllegalStateException("end() was called");
+    }
+    start();
+    scanner.append(chunk);
+    drain();
+  }
+
+  @Override
+  public void end() {
+    if (ended) {
+      throw new IllegalStateException("end() was called");
+    }
+    ended = true;
+    start();
+    scanner.finish();
+    drain();
+    handler.endDocument();
+  }
+
+  private void start() {
+    if (!started) {
+      started = true;
+      handler.startDocument();
+    }
+  }
+
+  private void drain() {
+    for (int event = scanner.poll(); event != XmlScanner.NEED_INPUT
+        && event != XmlScanner.END_DOCUMENT; event = scanner.poll()) {
+      scanner.dispatch(handler);
+    }
+  }
+}
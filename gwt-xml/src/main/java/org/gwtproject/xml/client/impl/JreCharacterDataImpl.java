@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.CharacterData;
+import org.gwtproject.xml.client.DOMException;
+
+/**
+ * This class implements the CharacterData interface on the JVM.
+ */
+@GwtIncompatible
+abstract class JreCharacterDataImpl extends JreNodeImpl implements CharacterData {
+
+  private final org.w3c.dom.CharacterData charNode;
+
+  JreCharacterDataImpl(org.w3c.dom.CharacterData charNode) {
+    super(charNode);
+    this.charNode = charNode;
+  }
+
+  @Override
+  public void appendData(String arg) {
+    try {
+      charNode.appendData(arg);
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  @Override
+  public void deleteData(int offset, int count) {
+    try {
+      charNode.deleteData(offset, count);
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  @Override
+  public String getData() {
+    return charNode.getData();
+  }
+
+  @Override
+  public int getLength() {
+    return charNode.getLength();
+  }
+
+  @Override
+  public void insertData(int offset, String arg) {
+    try {
+      charNode.insertData(offset, arg);
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  @Override
+  public void replaceData(int offset, int count, String arg) {
+    try {
+      charNode.replaceData(offset, count, arg);
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  @Override
+  public void setData(String data) {
+    try {
+      charNode.setData(data);
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  @Override
+  public String substringData(int offset, int count) {
+    try {
+      return charNode.substringData(offset, count);
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_ACCESS_ERR, e, this);
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.AttributeIndex;
+import org.gwtproject.xml.client.CDATASection;
+import org.gwtproject.xml.client.Comment;
+import org.gwtproject.xml.client.DOMException;
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.DocumentFragment;
+import org.gwtproject.xml.client.Element;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.NodeList;
+import org.gwtproject.xml.client.ProcessingInstruction;
+import org.gwtproject.xml.client.QName;
+import org.gwtproject.xml.client.Text;
+
+/**
+ * This class wraps a JRE Document object.
+ */
+@GwtIncompatible
+class JreDocumentImpl extends JreNodeImpl implements Document {
+
+  private final org.w3c.dom.Document document;
+
+  /**
+   * The changes made to the tree and the attributes through the wrappers,
+   * counted once a document is indexed, see {@link DocumentIndex}.
+   */
+  final DocumentIndex.Changes changes = new DocumentIndex.Changes(true);
+
+  private AttributeIndexImpl idIndex;
+  private TagNameIndex tagNames;
+
+  /**
+   * The names of the nodes of this document, one instance per name.
+   */
+  final QNameTable qnames = new QNameTable();
+
+  JreDocumentImpl(org.w3c.dom.Document document) {
+    super(document);
+    this.document = document;
+  }
+
+  @Override
+  public CDATASection createCDATASection(String data) {
+    try {
+      return (CDATASection) build(document.createCDATASection(data));
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_CHARACTER_ERR, e, this);
+    }
+  }
+
+  @Override
+  public Comment createComment(String data) {
+    try {
+      return (Comment) build(document.createComment(data));
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_CHARACTER_ERR, e, this);
+    }
+  }
+
+  @Override
+  public DocumentFragment createDocumentFragment() {
+    try {
+      return (DocumentFragment) build(document.createDocumentFragment());
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_CHARACTER_ERR, e, this);
+    }
+  }
+
+  @Override
+  public Element createElement(String tagName) {
+    try {
+      return (Element) build(document.createElement(tagName));
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_CHARACTER_ERR, e, this);
+    }
+  }
+
+  @Override
+  public AttributeIndex createIndex(String attributeName) {
+    return new AttributeIndexImpl(this, changes, attributeName);
+  }
+
+  @Override
+  public ProcessingInstruction createProcessingInstruction(String target, String data) {
+    try {
+      return (ProcessingInstruction) build(document.createProcessingInstruction(target, data));
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_CHARACTER_ERR, e, this);
+    }
+  }
+
+  @Override
+  public Text createTextNode(String data) {
+    try {
+      return (Text) build(document.createTextNode(data));
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_CHARACTER_ERR, e, this);
+    }
+  }
+
+  @Override
+  public Element getDocumentElement() {
+    return (Element) build(document.getDocumentElement());
+  }
+
+  @Override
+  public Element getElementById(String elementId) {
+    Element element = idIndex == null ? null : idIndex.lookup(elementId);
+    if (element != null) {
+      return element;
+    }
+    return (Element) build(document.getElementById(elementId));
+  }
+
+  @Override
+  public NodeList getElementsByTagName(String tagName) {
+    NodeList indexed = tagNames == null ? null : tagNames.getElementsByTagName(tagName);
+    if (indexed != null) {
+      return indexed;
+    }
+    return new JreNodeListImpl(XMLParserImplJre.getElementsByTagName(document, tagName));
+  }
+
+  @Override
+  public NodeList getElementsByTagNameNS(String namespaceURI, String localName) {
+    return new JreNodeListImpl(
+        XMLParserImplJre.getElementsByTagNameNS(document, namespaceURI, localName));
+  }
+
+  @Override
+  public QName getQName(String namespaceURI, String localName) {
+    return qnames.get(namespaceURI, localName);
+  }
+
+  @Override
+  public Node importNode(Node importedNode, boolean deep) {
+    try {
+      return build(document.importNode(((JreNodeImpl) importedNode).node, deep));
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_STATE_ERR, e, this);
+    }
+  }
+
+  @Override
+  public Element querySelector(String selectors) {
+    return XMLParserImplBase.matchSelector(this, selectors);
+  }
+
+  @Override
+  public NodeList querySelectorAll(String selectors) {
+    return XMLParserImplBase.matchSelectors(this, selectors, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void setIdIndex(AttributeIndex index) {
+    idIndex = AttributeIndexImpl.of(index, this);
+  }
+
+  @Override
+  public void setTagNameIndexed(boolean indexed) {
+    tagNames = indexed ? new TagNameIndex(this, changes) : null;
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.Attr;
+import org.gwtproject.xml.client.DOMException;
+import org.gwtproject.xml.client.Element;
+import org.gwtproject.xml.client.NodeList;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class implements the Element interface on the JVM.
+ */
+@GwtIncompatible
+class JreElementImpl extends JreNodeImpl implements Element {
+
+  private final org.w3c.dom.Element element;
+
+  JreElementImpl(org.w3c.dom.Element element) {
+    super(element);
+    this.element = element;
+  }
+
+  /**
+   * Returns <code>null</code> for a missing attribute, as browsers do, rather
+   * than the empty string the JRE DOM returns.
+   */
+  @Override
+  public String getAttribute(String name) {
+    org.w3c.dom.Attr attr = element.getAttributeNode(name);
+    return attr == null ? null : attr.getValue();
+  }
+
+  @Override
+  public Map<String, String> getAttributeMap() {
+    org.w3c.dom.NamedNodeMap attributes = element.getAttributes();
+    Map<String, String> map = new LinkedHashMap<>();
+    for (int i = 0, n = attributes.getLength(); i < n; i++) {
+      org.w3c.dom.Node attr = attributes.item(i);
+      map.put(attr.getNodeName(), attr.getNodeValue());
+    }
+    return map;
+  }
+
+  /**
+   * Attributes created without a namespace have no native local name, so the
+   * attributes are matched here rather than by <code>getAttributeNodeNS</code>,
+   * which would miss them.
+   */
+  @Override
+  public String getAttributeNS(String namespaceURI, String localName) {
+    String uri = namespaceURI == null || namespaceURI.isEmpty() ? null : namespaceURI;
+    org.w3c.dom.NamedNodeMap attributes = element.getAttributes();
+    for (int i = 0, n = attributes.getLength(); i < n; i++) {
+      org.w3c.dom.Node attr = attributes.item(i);
+      if (Objects.equals(uri, attr.getNamespaceURI())
+          && localName.equals(XMLParserImplJre.localName(attr))) {
+        return attr.getNodeValue();
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public Attr getAttributeNode(String name) {
+    return (Attr) build(element.getAttributeNode(name));
+  }
+
+  @Override
+  public NodeList getElementsByTagName(String name) {
+    return new JreNodeListImpl(XMLParserImplJre.getElementsByTagName(element, name));
+  }
+
+  @Override
+  public NodeList getElementsByTagNameNS(String namespaceURI, String localName) {
+    return new JreNodeListImpl(
+        XMLParserImplJre.getElementsByTagNameNS(element, namespaceURI, localName));
+  }
+
+  @Override
+  public String getTagName() {
+    return element.getTagName();
+  }
+
+  @Override
+  public boolean hasAttribute(String name) {
+    return element.hasAttribute(name);
+  }
+
+  @Override
+  public Element querySelector(String selectors) {
+    return XMLParserImplBase.matchSelector(this, selectors);
+  }
+
+  @Override
+  public NodeList querySelectorAll(String selectors) {
+    return XMLParserImplBase.matchSelectors(this, selectors, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void removeAttribute(String name) {
+    try {
+      element.removeAttribute(name);
+      attributeChanged(name);
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  @Override
+  public void setAttribute(String name, String value) {
+    try {
+      element.setAttribute(name, value);
+      attributeChanged(name);
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  @Override
+  public void setAttributeNS(String namespaceURI, String qualifiedName, String value) {
+    try {
+      element.setAttributeNS(namespaceURI, qualifiedName, value);
+      attributeChanged(qualifiedName);
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  @Override
+  public void setAttributes(Map<String, String> attributes) {
+    try {
+      for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+        element.setAttribute(attribute.getKey(), attribute.getValue());
+      }
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    } finally {
+      attributesChanged(attributes.keySet());
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.DOMException;
+import org.gwtproject.xml.client.NamedNodeMap;
+import org.gwtproject.xml.client.Node;
+
+/**
+ * This class implements the NamedNodeMap interface on top of a JRE attribute
+ * map.
+ */
+@GwtIncompatible
+class JreNamedNodeMapImpl extends DOMItem implements NamedNodeMap {
+
+  private final org.w3c.dom.NamedNodeMap nodeMap;
+
+  JreNamedNodeMapImpl(org.w3c.dom.NamedNodeMap nodeMap) {
+    super(nodeMap);
+    this.nodeMap = nodeMap;
+  }
+
+  @Override
+  public int getLength() {
+    return nodeMap.getLength();
+  }
+
+  @Override
+  public Node getNamedItem(String name) {
+    return JreNodeImpl.build(nodeMap.getNamedItem(name));
+  }
+
+  @Override
+  public Node item(int index) {
+    return JreNodeImpl.build(nodeMap.item(index));
+  }
+
+  public Node removeNamedItem(String name) {
+    try {
+      return JreNodeImpl.build(nodeMap.removeNamedItem(name));
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  public Node setNamedItem(Node arg) {
+    try {
+      return JreNodeImpl.build(nodeMap.setNamedItem(((JreNodeImpl) arg).node));
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder b = new StringBuilder();
+    for (int i = 0, n = nodeMap.getLength(); i < n; i++) {
+      org.w3c.dom.Node attr = nodeMap.item(i);
+      XmlWriter.writeAttribute(attr.getNodeName(), attr.getNodeValue(), b);
+    }
+    return b.toString();
+  }
+}
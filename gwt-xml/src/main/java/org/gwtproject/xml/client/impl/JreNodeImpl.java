@@ -0,0 +1,376 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.DOMException;
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.NamedNodeMap;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.NodeList;
+import org.gwtproject.xml.client.QName;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+
+/**
+ * This class wraps a JRE DOM node, mirroring {@link NodeImpl} for code that
+ * runs on the JVM.
+ */
+@GwtIncompatible
+class JreNodeImpl extends DOMItem implements Node {
+
+  /**
+   * User data key under which the wrapper of a JRE node is kept, so that the
+   * wrapper lives exactly as long as its node.
+   */
+  private static final String WRAPPER_KEY = "org.gwtproject.xml.client.impl.wrapper";
+
+  /**
+   * This method returns the wrapper for the supplied node, creating a new node
+   * of the correct type the first time a JRE node is seen.
+   *
+   * @param node - the supplied JRE DOM node
+   * @return a Node object that corresponds to the JRE node
+   */
+  static Node build(org.w3c.dom.Node node) {
+    if (node == null) {
+      return null;
+    }
+
+    JreNodeImpl wrapper = (JreNodeImpl) node.getUserData(WRAPPER_KEY);
+    if (wrapper == null) {
+      wrapper = create(node);
+      node.setUserData(WRAPPER_KEY, wrapper, null);
+    }
+    return wrapper;
+  }
+
+  /**
+   * This method creates a new node of the correct type.
+   */
+  private static JreNodeImpl create(org.w3c.dom.Node node) {
+    switch (node.getNodeType()) {
+      case Node.ATTRIBUTE_NODE:
+        return new JreAttrImpl((org.w3c.dom.Attr) node);
+      case Node.CDATA_SECTION_NODE:
+        return new JreCDATASectionImpl((org.w3c.dom.CDATASection) node);
+      case Node.COMMENT_NODE:
+        return new JreCommentImpl((org.w3c.dom.Comment) node);
+      case Node.DOCUMENT_FRAGMENT_NODE:
+        return new JreDocumentFragmentImpl((org.w3c.dom.DocumentFragment) node);
+      case Node.DOCUMENT_NODE:
+        return new JreDocumentImpl((org.w3c.dom.Document) node);
+      case Node.ELEMENT_NODE:
+        return new JreElementImpl((org.w3c.dom.Element) node);
+      case Node.ENTITY_REFERENCE_NODE:
+        return new JreEntityReferenceImpl((org.w3c.dom.EntityReference) node);
+      case Node.PROCESSING_INSTRUCTION_NODE:
+        return new JreProcessingInstructionImpl((org.w3c.dom.ProcessingInstruction) node);
+      case Node.TEXT_NODE:
+        return new JreTextImpl((org.w3c.dom.Text) node);
+      default:
+        return new JreNodeImpl(node);
+    }
+  }
+
+  final org.w3c.dom.Node node;
+
+  /**
+   * The name of this node, kept with the document it was interned in, since a
+   * node may be adopted by another document.
+   */
+  private QName qname;
+  private org.w3c.dom.Document qnameDocument;
+
+  protected JreNodeImpl(org.w3c.dom.Node node) {
+    super(node);
+    this.node = node;
+  }
+
+  /**
+   * Returns the changes of the document of this node, or <code>null</code>
+   * while no document is indexed, see {@link DocumentIndex}.
+   */
+  final DocumentIndex.Changes changes() {
+    if (!DocumentIndex.inUse) {
+      return null;
+    }
+    org.w3c.dom.Node document =
+        node.getNodeType() == DOCUMENT_NODE ? node : node.getOwnerDocument();
+    return document == null ? null : ((JreDocumentImpl) build(document)).changes;
+  }
+
+  final void attributeChanged(String name) {
+    DocumentIndex.Changes changes = changes();
+    if (changes != null) {
+      changes.attributeChanged(name);
+    }
+  }
+
+  final void attributesChanged(Iterable<String> names) {
+    DocumentIndex.Changes changes = changes();
+    if (changes != null) {
+      for (String name : names) {
+        changes.attributeChanged(name);
+      }
+    }
+  }
+
+  private void treeChanged() {
+    DocumentIndex.Changes changes = changes();
+    if (changes != null) {
+      changes.tree++;
+    }
+  }
+
+  @Override
+  public Node appendChild(Node newChild) {
+    try {
+      org.w3c.dom.Node result = node.appendChild(((JreNodeImpl) newChild).node);
+      treeChanged();
+      return build(result);
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  @Override
+  public Node cloneNode(boolean deep) {
+    return build(node.cloneNode(deep));
+  }
+
+  @Override
+  public double evaluateNumber(String xpath) {
+    try {
+      return (Double) XMLParserImplJre.evaluate(node, xpath, XPathConstants.NUMBER);
+    } catch (XPathExpressionException e) {
+      throw new DOMNodeException(DOMException.SYNTAX_ERR, e, this);
+    }
+  }
+
+  @Override
+  public String evaluateString(String xpath) {
+    try {
+      return (String) XMLParserImplJre.evaluate(node, xpath, XPathConstants.STRING);
+    } catch (XPathExpressionException e) {
+      throw new DOMNodeException(DOMException.SYNTAX_ERR, e, this);
+    }
+  }
+
+  @Override
+  public NamedNodeMap getAttributes() {
+    org.w3c.dom.NamedNodeMap attributes = node.getAttributes();
+    return attributes == null ? null : new JreNamedNodeMapImpl(attributes);
+  }
+
+  @Override
+  public NodeList getChildNodes() {
+    return new JreNodeListImpl(node.getChildNodes());
+  }
+
+  @Override
+  public Node getFirstChild() {
+    return build(node.getFirstChild());
+  }
+
+  @Override
+  public Node getLastChild() {
+    return build(node.getLastChild());
+  }
+
+  /**
+   * Nodes created without a namespace have no native local name, so it is
+   * taken from the qualified name, as for {@link #getPrefix()}.
+   */
+  @Override
+  public String getLocalName() {
+    short type = node.getNodeType();
+    if (type != ELEMENT_NODE && type != ATTRIBUTE_NODE) {
+      return null;
+    }
+    return XMLParserImplJre.localName(node);
+  }
+
+  @Override
+  public String getNamespaceURI() {
+    return node.getNamespaceURI();
+  }
+
+  @Override
+  public Node getNextSibling() {
+    return build(node.getNextSibling());
+  }
+
+  @Override
+  public String getNodeName() {
+    return node.getNodeName();
+  }
+
+  @Override
+  public short getNodeType() {
+    return node.getNodeType();
+  }
+
+  @Override
+  public String getNodeValue() {
+    return node.getNodeValue();
+  }
+
+  @Override
+  public Document getOwnerDocument() {
+    return (Document) build(node.getOwnerDocument());
+  }
+
+  @Override
+  public Node getParentNode() {
+    return build(node.getParentNode());
+  }
+
+  /**
+   * Nodes created without a namespace have no native prefix, so the prefix is
+   * taken from the qualified name, as the browser implementations do.
+   */
+  @Override
+  public String getPrefix() {
+    String prefix = node.getPrefix();
+    if (prefix == null && node.getLocalName() == null) {
+      String fullName = node.getNodeName();
+      int colon = fullName.indexOf(':');
+      if (colon != -1) {
+        return fullName.substring(0, colon);
+      }
+    }
+    return prefix;
+  }
+
+  @Override
+  public Node getPreviousSibling() {
+    return build(node.getPreviousSibling());
+  }
+
+  /**
+   * The name is kept by the wrapper since the names of nodes never change,
+   * see {@link NodeImpl#getQName()}.
+   */
+  @Override
+  public QName getQName() {
+    org.w3c.dom.Document document = node.getOwnerDocument();
+    if (qname == null || qnameDocument != document) {
+      String localName = getLocalName();
+      if (localName == null || document == null) {
+        return null;
+      }
+      qname = ((JreDocumentImpl) build(document)).qnames.get(node.getNamespaceURI(), localName);
+      qnameDocument = document;
+    }
+    return qname;
+  }
+
+  @Override
+  public boolean hasAttributes() {
+    return node.hasAttributes();
+  }
+
+  @Override
+  public boolean hasChildNodes() {
+    return node.hasChildNodes();
+  }
+
+  @Override
+  public Node insertBefore(Node newChild, Node refChild) {
+    try {
+      org.w3c.dom.Node refChildNode = refChild == null ? null : ((JreNodeImpl) refChild).node;
+      org.w3c.dom.Node result = node.insertBefore(((JreNodeImpl) newChild).node, refChildNode);
+      treeChanged();
+      return build(result);
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  @Override
+  public void normalize() {
+    node.normalize();
+  }
+
+  @Override
+  public Node removeChild(Node oldChild) {
+    try {
+      org.w3c.dom.Node result = node.removeChild(((JreNodeImpl) oldChild).node);
+      treeChanged();
+      return build(result);
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  @Override
+  public Node replaceChild(Node newChild, Node oldChild) {
+    try {
+      org.w3c.dom.Node result =
+          node.replaceChild(((JreNodeImpl) newChild).node, ((JreNodeImpl) oldChild).node);
+      treeChanged();
+      return build(result);
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  @Override
+  public NodeList selectNodes(String xpath) {
+    try {
+      return new JreNodeListImpl(
+          (org.w3c.dom.NodeList) XMLParserImplJre.evaluate(node, xpath, XPathConstants.NODESET));
+    } catch (XPathExpressionException e) {
+      throw new DOMNodeException(DOMException.SYNTAX_ERR, e, this);
+    }
+  }
+
+  @Override
+  public Node selectSingleNode(String xpath) {
+    try {
+      return build((org.w3c.dom.Node) XMLParserImplJre.evaluate(node, xpath, XPathConstants.NODE));
+    } catch (XPathExpressionException e) {
+      throw new DOMNodeException(DOMException.SYNTAX_ERR, e, this);
+    }
+  }
+
+  @Override
+  public void setNodeValue(String nodeValue) {
+    try {
+      node.setNodeValue(nodeValue);
+      if (node.getNodeType() == ATTRIBUTE_NODE) {
+        attributeChanged(node.getNodeName());
+      }
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder b = new StringBuilder();
+    JreXmlWriter.serialize(node, b);
+    return b.toString();
+  }
+
+  @Override
+  public String toString(int maxChars) {
+    StringBuilder b = new StringBuilder();
+    JreXmlWriter.serialize(node, b, maxChars);
+    return b.toString();
+  }
+}
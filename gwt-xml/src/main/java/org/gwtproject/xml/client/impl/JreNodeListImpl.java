@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.NodeList;
+
+import java.util.Iterator;
+
+/**
+ * This class implements the NodeList interface on top of a JRE node list.
+ */
+@GwtIncompatible
+class JreNodeListImpl extends DOMItem implements NodeList {
+
+  private final org.w3c.dom.NodeList list;
+
+  JreNodeListImpl(org.w3c.dom.NodeList list) {
+    super(list);
+    this.list = list;
+  }
+
+  @Override
+  public int getLength() {
+    return list.getLength();
+  }
+
+  @Override
+  public Node item(int index) {
+    return JreNodeImpl.build(list.item(index));
+  }
+
+  @Override
+  public Iterator<Node> iterator() {
+    return new NodeIterator(list.getLength()) {
+      @Override
+      int length() {
+        return list.getLength();
+      }
+
+      @Override
+      Node get(int index) {
+        return JreNodeImpl.build(list.item(index));
+      }
+    };
+  }
+
+  @Override
+  public NodeList snapshot() {
+    return new StaticNodeListImpl(toArray());
+  }
+
+  @Override
+  public Node[] toArray() {
+    int length = list.getLength();
+    Node[] nodes = new Node[length];
+    for (int i = 0; i < length; i++) {
+      nodes[i] = JreNodeImpl.build(list.item(i));
+    }
+    return nodes;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder b = new StringBuilder();
+    for (int i = 0, n = list.getLength(); i < n; i++) {
+      JreXmlWriter.serialize(list.item(i), b);
+    }
+    return b.toString();
+  }
+}
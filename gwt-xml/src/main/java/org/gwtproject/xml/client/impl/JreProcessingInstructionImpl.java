@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.DOMException;
+import org.gwtproject.xml.client.ProcessingInstruction;
+
+/**
+ * This class implements the XML DOM ProcessingInstruction interface on the
+ * JVM.
+ */
+@GwtIncompatible
+class JreProcessingInstructionImpl extends JreNodeImpl implements ProcessingInstruction {
+
+  private final org.w3c.dom.ProcessingInstruction instruction;
+
+  JreProcessingInstructionImpl(org.w3c.dom.ProcessingInstruction instruction) {
+    super(instruction);
+    this.instruction = instruction;
+  }
+
+  @Override
+  public String getData() {
+    return instruction.getData();
+  }
+
+  @Override
+  public String getTarget() {
+    return instruction.getTarget();
+  }
+
+  @Override
+  public void setData(String data) {
+    try {
+      instruction.setData(data);
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_CHARACTER_ERR, e, this);
+    }
+  }
+}
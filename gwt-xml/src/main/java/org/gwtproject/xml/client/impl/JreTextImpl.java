@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.DOMException;
+import org.gwtproject.xml.client.Text;
+
+/**
+ * This class is the implementation of the XML DOM Text interface on the JVM.
+ */
+@GwtIncompatible
+class JreTextImpl extends JreCharacterDataImpl implements Text {
+
+  private final org.w3c.dom.Text text;
+
+  JreTextImpl(org.w3c.dom.Text text) {
+    super(text);
+    this.text = text;
+  }
+
+  @Override
+  public Text splitText(int offset) {
+    try {
+      return (Text) build(text.splitText(offset));
+    } catch (org.w3c.dom.DOMException e) {
+      throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return XmlEscaper.escape(getData(), false);
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.SerializeOptions;
+
+/**
+ * Serializes JRE DOM nodes, see {@link XmlWriter}.
+ */
+@GwtIncompatible
+final class JreXmlWriter extends XmlWriter<org.w3c.dom.Node> {
+
+  /**
+   * Appends the markup of <code>root</code> as <code>toString()</code>
+   * returns it.
+   */
+  static void serialize(org.w3c.dom.Node root, StringBuilder b) {
+    new JreXmlWriter(TO_STRING).write(root, b);
+  }
+
+  /**
+   * Appends at most <code>maxChars</code> characters of the markup of
+   * <code>root</code> as <code>toString()</code> returns it.
+   */
+  static void serialize(org.w3c.dom.Node root, StringBuilder b, int maxChars) {
+    new JreXmlWriter(TO_STRING).write(root, b, maxChars);
+  }
+
+  JreXmlWriter(SerializeOptions options) {
+    super(options);
+  }
+
+  @Override
+  short type(org.w3c.dom.Node node) {
+    return node.getNodeType();
+  }
+
+  @Override
+  String name(org.w3c.dom.Node node) {
+    return node.getNodeName();
+  }
+
+  @Override
+  String value(org.w3c.dom.Node node) {
+    return node.getNodeValue();
+  }
+
+  @Override
+  String namespaceURI(org.w3c.dom.Node node) {
+    return node.getNamespaceURI();
+  }
+
+  @Override
+  org.w3c.dom.Node firstChild(org.w3c.dom.Node node) {
+    return node.getFirstChild();
+  }
+
+  @Override
+  org.w3c.dom.Node nextSibling(org.w3c.dom.Node node) {
+    return node.getNextSibling();
+  }
+
+  @Override
+  org.w3c.dom.Node parent(org.w3c.dom.Node node) {
+    return node.getParentNode();
+  }
+
+  @Override
+  int attributeCount(org.w3c.dom.Node element) {
+    return element.getAttributes().getLength();
+  }
+
+  @Override
+  org.w3c.dom.Node attribute(org.w3c.dom.Node element, int index) {
+    return element.getAttributes().item(index);
+  }
+
+  @Override
+  void writeDocumentType(org.w3c.dom.Node doctype, StringBuilder b) {
+    org.w3c.dom.DocumentType type = (org.w3c.dom.DocumentType) doctype;
+    writeDocumentType(type.getName(), type.getPublicId(), type.getSystemId(),
+        type.getInternalSubset(), b);
+  }
+}
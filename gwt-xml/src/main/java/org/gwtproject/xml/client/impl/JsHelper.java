@@ -57,6 +57,14 @@ class JsHelper {
                                 + "Could not find appropriate version of DOMDocument.");
     }
 
+    /**
+     * Whether the native <code>WeakMap</code> is available to key the node
+     * wrapper cache on.
+     */
+    public static boolean supportsWeakMap() {
+        return Js.asPropertyMap(DomGlobal.window).has("WeakMap");
+    }
+
     public static NativeDocumentImpl createDocumentImpl() {
         return Js.uncheckedCast(DomGlobal.document.implementation.createDocument("", "", null));
     }
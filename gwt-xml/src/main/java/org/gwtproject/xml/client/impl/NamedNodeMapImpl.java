@@ -22,6 +22,7 @@ import org.gwtproject.xml.client.impl.NodeImpl.NativeNodeImpl;
 
 import jsinterop.annotations.JsPackage;
 import jsinterop.annotations.JsType;
+import jsinterop.base.Js;
 
 /**
  * This class implements the NamedNodeMap interface.
@@ -31,6 +32,7 @@ class NamedNodeMapImpl extends NodeListImpl implements NamedNodeMap {
   @JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
   static class NativeNamedNodeMapImpl  extends NativeNodeListImpl {
     native NativeNodeImpl getNamedItem(String name);
+    native NativeNodeImpl getQualifiedItem(String baseName, String namespaceURI);
     native NativeNodeImpl removeNamedItem(String name);
     native NativeNodeImpl setNamedItem(NativeDomItem value);
   }
@@ -75,4 +77,18 @@ class NamedNodeMapImpl extends NodeListImpl implements NamedNodeMap {
       throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
     }
   }
+
+  /**
+   * The attributes are written as in a start tag, rather than as the
+   * concatenation of their values that the list of nodes would give.
+   */
+  @Override
+  public String toString() {
+    StringBuilder b = new StringBuilder();
+    for (int i = 0, n = nodeMap.length; i < n; i++) {
+      NativeXmlWriter.NativeNode attr = Js.uncheckedCast(nodeMap.item(i));
+      XmlWriter.writeAttribute(attr.nodeName, attr.nodeValue, b);
+    }
+    return b.toString();
+  }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.NodeList;
+import org.gwtproject.xml.client.impl.NodeImpl.NativeNodeImpl;
+
+import jsinterop.annotations.JsFunction;
+import jsinterop.annotations.JsPackage;
+import jsinterop.annotations.JsType;
+import jsinterop.base.Js;
+
+/**
+ * Evaluates XPath expressions with the browser's <code>document.evaluate</code>
+ * machinery. Expressions are compiled once with
+ * <code>document.createExpression</code> and kept in an {@link XPathCache}, so
+ * a query is a single native call however many nodes it visits. Engines
+ * without <code>createExpression</code> evaluate the expression with
+ * <code>document.evaluate</code> each time instead.
+ */
+final class NativeXPath {
+
+  /**
+   * The properties of a native node that are read to compile an expression.
+   */
+  @JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
+  static class NativeContext {
+    NativeAttributes attributes;
+    NativeContext documentElement;
+    String nodeName;
+    short nodeType;
+    String nodeValue;
+    NativeContext ownerDocument;
+
+    native NativeExpression createExpression(String expression, NamespaceResolver resolver);
+    native NativeResult evaluate(String expression, NativeNodeImpl context,
+        NamespaceResolver resolver, int type, NativeResult result);
+  }
+
+  @JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
+  static class NativeAttributes {
+    int length;
+    native NativeContext item(int index);
+  }
+
+  @JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
+  static class NativeExpression {
+    native NativeResult evaluate(NativeNodeImpl context, int type, NativeResult result);
+  }
+
+  @JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
+  static class NativeResult {
+    double numberValue;
+    NativeNodeImpl singleNodeValue;
+    int snapshotLength;
+    String stringValue;
+
+    native NativeNodeImpl snapshotItem(int index);
+  }
+
+  @JsFunction
+  interface NamespaceResolver {
+    String lookupNamespaceURI(String prefix);
+  }
+
+  /**
+   * The result types of <code>XPathResult</code>.
+   */
+  private static final int NUMBER_TYPE = 1;
+  private static final int STRING_TYPE = 2;
+  private static final int ORDERED_NODE_SNAPSHOT_TYPE = 7;
+  private static final int FIRST_ORDERED_NODE_TYPE = 9;
+
+  private static final String[] NO_NAMESPACES = new String[0];
+
+  private static final XPathCache<NativeExpression> cache = new XPathCache<NativeExpression>();
+
+  static NodeList selectNodes(NativeNodeImpl context, String xpath) {
+    NativeResult result = evaluate(context, xpath, ORDERED_NODE_SNAPSHOT_TYPE);
+    Node[] nodes = new Node[result.snapshotLength];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = NodeImpl.build(result.snapshotItem(i));
+    }
+    return new StaticNodeListImpl(nodes);
+  }
+
+  static NativeNodeImpl selectSingleNode(NativeNodeImpl context, String xpath) {
+    return evaluate(context, xpath, FIRST_ORDERED_NODE_TYPE).singleNodeValue;
+  }
+
+  static double evaluateNumber(NativeNodeImpl context, String xpath) {
+    return evaluate(context, xpath, NUMBER_TYPE).numberValue;
+  }
+
+  static String evaluateString(NativeNodeImpl context, String xpath) {
+    return evaluate(context, xpath, STRING_TYPE).stringValue;
+  }
+
+  private static NativeResult evaluate(NativeNodeImpl context, String xpath, int type) {
+    NativeContext node = Js.uncheckedCast(context);
+    NativeContext document = node.nodeType == Node.DOCUMENT_NODE ? node : node.ownerDocument;
+    String[] namespaces = XPathCache.usesPrefixes(xpath)
+        ? namespaces(document.documentElement) : NO_NAMESPACES;
+    NamespaceResolver resolver = prefix -> XPathCache.lookup(namespaces, prefix);
+    if (!canCompile(document)) {
+      return document.evaluate(xpath, context, resolver, type, null);
+    }
+    String key = XPathCache.key(xpath, namespaces);
+    NativeExpression expression = cache.get(key);
+    if (expression == null) {
+      expression = document.createExpression(xpath, resolver);
+      cache.put(key, expression);
+    }
+    return expression.evaluate(context, type, null);
+  }
+
+  private static boolean canCompile(NativeContext document) {
+    return Js.isTruthy(Js.asPropertyMap(document).get("createExpression"));
+  }
+
+  /**
+   * Returns the prefixes declared on <code>element</code> and their URIs in
+   * turn.
+   */
+  private static String[] namespaces(NativeContext element) {
+    if (element == null) {
+      return NO_NAMESPACES;
+    }
+    NativeAttributes attributes = element.attributes;
+    int count = 0;
+    for (int i = 0; i < attributes.length; i++) {
+      if (attributes.item(i).nodeName.startsWith("xmlns:")) {
+        count++;
+      }
+    }
+    String[] namespaces = new String[count * 2];
+    for (int i = 0, j = 0; j < namespaces.length; i++) {
+      NativeContext attr = attributes.item(i);
+      if (attr.nodeName.startsWith("xmlns:")) {
+        namespaces[j++] = attr.nodeName.substring(6);
+        namespaces[j++] = attr.nodeValue;
+      }
+    }
+    return namespaces;
+  }
+
+  private NativeXPath() {
+  }
+}
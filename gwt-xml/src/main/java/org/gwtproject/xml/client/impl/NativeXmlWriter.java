@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.SerializeOptions;
+
+import jsinterop.annotations.JsPackage;
+import jsinterop.annotations.JsType;
+
+/**
+ * Serializes browser DOM nodes by reading their properties directly, so that
+ * no wrappers are built for them, see {@link XmlWriter}.
+ */
+final class NativeXmlWriter extends XmlWriter<NativeXmlWriter.NativeNode> {
+
+  /**
+   * The properties of a native node that are read while serializing.
+   */
+  @JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
+  static class NativeNode {
+    NativeAttributes attributes;
+    NativeNode firstChild;
+    String internalSubset;
+    String namespaceURI;
+    NativeNode nextSibling;
+    String nodeName;
+    short nodeType;
+    String nodeValue;
+    NativeNode parentNode;
+    String publicId;
+    String systemId;
+  }
+
+  @JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
+  static class NativeAttributes {
+    int length;
+    native NativeNode item(int index);
+  }
+
+  NativeXmlWriter(SerializeOptions options) {
+    super(options);
+  }
+
+  @Override
+  short type(NativeNode node) {
+    return node.nodeType;
+  }
+
+  @Override
+  String name(NativeNode node) {
+    return node.nodeName;
+  }
+
+  @Override
+  String value(NativeNode node) {
+    return node.nodeValue;
+  }
+
+  @Override
+  String namespaceURI(NativeNode node) {
+    return node.namespaceURI;
+  }
+
+  @Override
+  NativeNode firstChild(NativeNode node) {
+    return node.firstChild;
+  }
+
+  @Override
+  NativeNode nextSibling(NativeNode node) {
+    return node.nextSibling;
+  }
+
+  @Override
+  NativeNode parent(NativeNode node) {
+    return node.parentNode;
+  }
+
+  @Override
+  int attributeCount(NativeNode element) {
+    return element.attributes.length;
+  }
+
+  @Override
+  NativeNode attribute(NativeNode element, int index) {
+    return element.attributes.item(index);
+  }
+
+  @Override
+  void writeDocumentType(NativeNode doctype, StringBuilder b) {
+    writeDocumentType(doctype.nodeName, doctype.publicId, doctype.systemId,
+        doctype.internalSubset, b);
+  }
+}
@@ -20,6 +20,7 @@ import org.gwtproject.xml.client.Document;
 import org.gwtproject.xml.client.NamedNodeMap;
 import org.gwtproject.xml.client.Node;
 import org.gwtproject.xml.client.NodeList;
+import org.gwtproject.xml.client.QName;
 import org.gwtproject.xml.client.impl.AttrImpl.NativeAttrImpl;
 import org.gwtproject.xml.client.impl.CDATASectionImpl.NativeCDATASectionImpl;
 import org.gwtproject.xml.client.impl.CommentImpl.NativeCommentImpl;
@@ -35,6 +36,7 @@ import jsinterop.annotations.JsOverlay;
 import jsinterop.annotations.JsPackage;
 import jsinterop.annotations.JsProperty;
 import jsinterop.annotations.JsType;
+import jsinterop.base.Js;
 
 /**
  * This class wraps the native Node object.
@@ -51,9 +53,11 @@ class NodeImpl extends DOMItem implements Node {
     String namespaceURI;
     NativeElementImpl parentNode;
     String prefix;
+    String localName;
+    String baseName;
     NativeNodeImpl previousSibling;
     NativeNodeListImpl childNodes;
-    String xml;
+    String text;
     String innerHTML;
     Object nodeType;
 
@@ -69,6 +73,9 @@ class NodeImpl extends DOMItem implements Node {
     native short nodeTypeAsShort();
 
     native NativeNodeListImpl selectNodes(String selector);
+    native NativeNodeImpl selectSingleNode(String selector);
+    native NativeNodeImpl querySelector(String selectors);
+    native NativeNodeListImpl querySelectorAll(String selectors);
     native NativeNodeListImpl getElementsByTagName(String selector);
     native NativeNodeListImpl getElementsByTagNameNS(String ns ,String tagName);
     native NativeNodeImpl appendChild(NativeNodeImpl child);
@@ -79,9 +86,43 @@ class NodeImpl extends DOMItem implements Node {
     native NativeNodeImpl removeChild(NativeNodeImpl child);
     native NativeNodeImpl replaceChild(NativeNodeImpl newChild, NativeNodeImpl oldChild);
   }
-  
+
   /**
-   * This method creates a new node of the correct type.
+   * Maps native nodes to the wrapper that was built for them. The keys are
+   * held weakly, so a native node and its wrapper can still be collected once
+   * the application drops them.
+   */
+  @JsType(isNative = true, name = "WeakMap", namespace = JsPackage.GLOBAL)
+  private static class NativeWrapperCache {
+    native NodeImpl get(NativeNodeImpl node);
+    native void set(NativeNodeImpl node, NodeImpl wrapper);
+  }
+
+  /**
+   * Holds the wrapper cache, created on first use so that loading this class
+   * does not touch the browser.
+   */
+  private static class WrapperCacheHolder {
+    /**
+     * <code>null</code> if the browser does not support <code>WeakMap</code>,
+     * in which case a new wrapper is built on every access.
+     */
+    static final NativeWrapperCache wrappers =
+        JsHelper.supportsWeakMap() ? new NativeWrapperCache() : null;
+  }
+
+  /**
+   * Whether every native node has a single wrapper, so that state kept in a
+   * wrapper is seen by every later access.
+   */
+  static boolean hasUniqueWrappers() {
+    return WrapperCacheHolder.wrappers != null;
+  }
+
+  /**
+   * This method returns the wrapper for the supplied node, creating a new node
+   * of the correct type the first time a native node is seen. Repeated calls
+   * with the same native node return the same wrapper.
    * 
    * @param node - the supplied DOM JavaScript object
    * @return a Node object that corresponds to the DOM object
@@ -90,7 +131,23 @@ class NodeImpl extends DOMItem implements Node {
     if (node == null) {
       return null;
     }
+    NativeWrapperCache wrappers = WrapperCacheHolder.wrappers;
+    if (wrappers == null) {
+      return create(node);
+    }
+
+    NodeImpl wrapper = wrappers.get(node);
+    if (wrapper == null) {
+      wrapper = create(node);
+      wrappers.set(node, wrapper);
+    }
+    return wrapper;
+  }
 
+  /**
+   * This method creates a new node of the correct type.
+   */
+  private static NodeImpl create(NativeNodeImpl node) {
     switch (node.getNodeType()) {
       case Node.ATTRIBUTE_NODE:
         return new AttrImpl((NativeAttrImpl) node);
@@ -115,6 +172,13 @@ class NodeImpl extends DOMItem implements Node {
 
   final NativeNodeImpl node;
 
+  /**
+   * The name of this node, kept with the document it was interned in, since a
+   * node may be adopted by another document.
+   */
+  private QName qname;
+  private NativeNodeImpl qnameDocument;
+
   /**
    * creates a new NodeImpl from the supplied JavaScriptObject.
    * 
@@ -125,6 +189,41 @@ class NodeImpl extends DOMItem implements Node {
     this.node = jso;
   }
 
+  /**
+   * Returns the changes of the document of this node, or <code>null</code>
+   * while no document is indexed, see {@link DocumentIndex}.
+   */
+  final DocumentIndex.Changes changes() {
+    if (!DocumentIndex.inUse) {
+      return null;
+    }
+    NativeNodeImpl document = node.getNodeType() == DOCUMENT_NODE ? node : node.ownerDocument;
+    return document == null ? null : ((DocumentImpl) build(document)).changes;
+  }
+
+  final void attributeChanged(String name) {
+    DocumentIndex.Changes changes = changes();
+    if (changes != null) {
+      changes.attributeChanged(name);
+    }
+  }
+
+  final void attributesChanged(Iterable<String> names) {
+    DocumentIndex.Changes changes = changes();
+    if (changes != null) {
+      for (String name : names) {
+        changes.attributeChanged(name);
+      }
+    }
+  }
+
+  private void treeChanged() {
+    DocumentIndex.Changes changes = changes();
+    if (changes != null) {
+      changes.tree++;
+    }
+  }
+
   /**
    * This function delegates to the native method <code>appendChild</code> in
    * XMLParserImpl.
@@ -134,6 +233,7 @@ class NodeImpl extends DOMItem implements Node {
     NodeImpl c = (NodeImpl) newChild;
     try {
       final NativeNodeImpl appendChildResults = node.appendChild(c.node);
+      treeChanged();
       return NodeImpl.build(appendChildResults);
     } catch (Exception e) {
       throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
@@ -149,6 +249,32 @@ class NodeImpl extends DOMItem implements Node {
     return NodeImpl.build(node.cloneNode(deep));
   }
 
+  /**
+   * This function delegates to the native method <code>evaluateNumber</code>
+   * in XMLParserImpl.
+   */
+  @Override
+  public double evaluateNumber(String xpath) {
+    try {
+      return XMLParserImpl.evaluateNumber(node, xpath);
+    } catch (Exception e) {
+      throw new DOMNodeException(DOMException.SYNTAX_ERR, e, this);
+    }
+  }
+
+  /**
+   * This function delegates to the native method <code>evaluateString</code>
+   * in XMLParserImpl.
+   */
+  @Override
+  public String evaluateString(String xpath) {
+    try {
+      return XMLParserImpl.evaluateString(node, xpath);
+    } catch (Exception e) {
+      throw new DOMNodeException(DOMException.SYNTAX_ERR, e, this);
+    }
+  }
+
   @Override
   public NamedNodeMap getAttributes() {
     return new NamedNodeMapImpl(node.attributes);
@@ -169,6 +295,15 @@ class NodeImpl extends DOMItem implements Node {
     return getChildNodes().item(getChildNodes().getLength() - 1);
   }
 
+  /**
+   * This function delegates to the native method <code>getLocalName</code>
+   * in XMLParserImpl.
+   */
+  @Override
+  public String getLocalName() {
+    return XMLParserImpl.getLocalName(node);
+  }
+
   /**
    * This function delegates to the native method <code>getNamespaceURI</code>
    * in XMLParserImpl.
@@ -222,6 +357,25 @@ class NodeImpl extends DOMItem implements Node {
     return NodeImpl.build(node.previousSibling);
   }
 
+  /**
+   * The name is interned in the document of this node, see
+   * {@link DocumentImpl#getQName(String, String)}, and kept by the wrapper
+   * since the names of nodes never change.
+   */
+  @Override
+  public QName getQName() {
+    NativeNodeImpl document = node.ownerDocument;
+    if (qname == null || qnameDocument != document) {
+      String localName = getLocalName();
+      if (localName == null || document == null) {
+        return null;
+      }
+      qname = ((DocumentImpl) build(document)).qnames.get(node.namespaceURI, localName);
+      qnameDocument = document;
+    }
+    return qname;
+  }
+
   /**
    * This function delegates to the native method <code>hasAttributes</code>
    * in XMLParserImpl.
@@ -255,6 +409,7 @@ class NodeImpl extends DOMItem implements Node {
         refChildJs = null;
       }
       NativeNodeImpl insertBeforeResults = node.insertBefore(newChildJs, refChildJs);
+      treeChanged();
       return NodeImpl.build(insertBeforeResults);
     } catch (Exception e) {
       throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
@@ -279,6 +434,7 @@ class NodeImpl extends DOMItem implements Node {
     try {
       NativeNodeImpl oldChildJs = ((NodeImpl) oldChild).node;
       NativeNodeImpl removeChildResults = node.removeChild(oldChildJs);
+      treeChanged();
       return NodeImpl.build(removeChildResults);
     } catch (Exception e) {
       throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
@@ -294,12 +450,39 @@ class NodeImpl extends DOMItem implements Node {
       final NativeNodeImpl newChildJs = ((NodeImpl) newChild).node;
       final NativeNodeImpl oldChildJs = ((NodeImpl) oldChild).node;
       final NativeNodeImpl replaceChildResults = node.replaceChild(newChildJs, oldChildJs);
+      treeChanged();
       return NodeImpl.build(replaceChildResults);
     } catch (Exception e) {
       throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
     }
   }
 
+  /**
+   * This function delegates to the native method <code>selectNodes</code> in
+   * XMLParserImpl.
+   */
+  @Override
+  public NodeList selectNodes(String xpath) {
+    try {
+      return XMLParserImpl.selectNodes(node, xpath);
+    } catch (Exception e) {
+      throw new DOMNodeException(DOMException.SYNTAX_ERR, e, this);
+    }
+  }
+
+  /**
+   * This function delegates to the native method
+   * <code>selectSingleNode</code> in XMLParserImpl.
+   */
+  @Override
+  public Node selectSingleNode(String xpath) {
+    try {
+      return NodeImpl.build(XMLParserImpl.selectSingleNode(node, xpath));
+    } catch (Exception e) {
+      throw new DOMNodeException(DOMException.SYNTAX_ERR, e, this);
+    }
+  }
+
   /**
    * This function delegates to the native method <code>setNodeValue</code> in
    * XMLParserImpl.
@@ -308,13 +491,32 @@ class NodeImpl extends DOMItem implements Node {
   public void setNodeValue(String nodeValue) {
     try {
       node.nodeValue = nodeValue;
+      if (node.getNodeType() == ATTRIBUTE_NODE) {
+        attributeChanged(node.nodeName);
+      }
     } catch (Exception e) {
       throw new DOMNodeException(DOMException.INVALID_MODIFICATION_ERR, e, this);
     }
   }
 
+  /**
+   * The node is serialized in Java, like the lists and maps of nodes, so that
+   * a list prints the same as its items.
+   */
   @Override
   public String toString() {
-    return XMLParserImpl.getInstance().toStringImpl(this);
+    return toString(Integer.MAX_VALUE);
+  }
+
+  /**
+   * The node is serialized in Java, since <code>XMLSerializer</code> cannot
+   * stop early.
+   */
+  @Override
+  public String toString(int maxChars) {
+    StringBuilder b = new StringBuilder();
+    new NativeXmlWriter(XmlWriter.TO_STRING).write(
+        Js.<NativeXmlWriter.NativeNode>uncheckedCast(node), b, maxChars);
+    return b.toString();
   }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.Node;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates the nodes of a list whose length was read when the iterator was
+ * created. A live list whose length has changed since then fails fast with a
+ * <code>ConcurrentModificationException</code> rather than skipping nodes or
+ * returning <code>null</code>. Subclasses fetch the node at an index without
+ * checking it against the length again.
+ */
+abstract class NodeIterator implements Iterator<Node> {
+
+  private final int length;
+  private int index;
+
+  NodeIterator(int length) {
+    this.length = length;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return index < length;
+  }
+
+  @Override
+  public Node next() {
+    if (length() != length) {
+      throw new ConcurrentModificationException();
+    }
+    if (index >= length) {
+      throw new NoSuchElementException();
+    }
+    return get(index++);
+  }
+
+  /**
+   * Returns the current length of the underlying list.
+   */
+  abstract int length();
+
+  /**
+   * Returns the node at <code>index</code>, which is less than the length.
+   */
+  abstract Node get(int index);
+}
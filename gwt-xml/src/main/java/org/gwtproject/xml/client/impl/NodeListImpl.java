@@ -21,6 +21,9 @@ import org.gwtproject.xml.client.impl.NodeImpl.NativeNodeImpl;
 
 import jsinterop.annotations.JsPackage;
 import jsinterop.annotations.JsType;
+import jsinterop.base.Js;
+
+import java.util.Iterator;
 
 /**
  * This class implements the NodeList interface using the underlying
@@ -61,11 +64,50 @@ class NodeListImpl extends DOMItem implements NodeList {
     return NodeImpl.build(domList.item(index));
   }
 
+  /**
+   * The iterator reads the length of the native list once and then indexes it
+   * directly, so a live list is not re-evaluated for every node.
+   */
+  @Override
+  public Iterator<Node> iterator() {
+    return new NodeIterator(domList.length) {
+      @Override
+      int length() {
+        return domList.length;
+      }
+
+      @Override
+      Node get(int index) {
+        return NodeImpl.build(domList.item(index));
+      }
+    };
+  }
+
+  @Override
+  public NodeList snapshot() {
+    return new StaticNodeListImpl(toArray());
+  }
+
+  @Override
+  public Node[] toArray() {
+    int length = domList.length;
+    Node[] nodes = new Node[length];
+    for (int i = 0; i < length; i++) {
+      nodes[i] = NodeImpl.build(domList.item(i));
+    }
+    return nodes;
+  }
+
+  /**
+   * All the items are written by one {@link NativeXmlWriter} into the same
+   * buffer, without building their wrappers.
+   */
   @Override
   public String toString() {
     StringBuilder b = new StringBuilder();
-    for (int i = 0; i < getLength(); i++) {
-      b.append(item(i).toString());
+    NativeXmlWriter writer = new NativeXmlWriter(XmlWriter.TO_STRING);
+    for (int i = 0, n = domList.length; i < n; i++) {
+      writer.write(Js.<NativeXmlWriter.NativeNode>uncheckedCast(domList.item(i)), b);
     }
     return b.toString();
   }
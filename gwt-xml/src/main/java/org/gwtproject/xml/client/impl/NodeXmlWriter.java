@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.NamedNodeMap;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.SerializeOptions;
+
+/**
+ * Serializes nodes through the {@link Node} interface, for the
+ * implementations that have no cheaper access to their nodes, see
+ * {@link XmlWriter}.
+ */
+final class NodeXmlWriter extends XmlWriter<Node> {
+
+  NodeXmlWriter(SerializeOptions options) {
+    super(options);
+  }
+
+  @Override
+  short type(Node node) {
+    return node.getNodeType();
+  }
+
+  @Override
+  String name(Node node) {
+    return node.getNodeName();
+  }
+
+  @Override
+  String value(Node node) {
+    return node.getNodeValue();
+  }
+
+  @Override
+  String namespaceURI(Node node) {
+    return node.getNamespaceURI();
+  }
+
+  @Override
+  Node firstChild(Node node) {
+    return node.getFirstChild();
+  }
+
+  @Override
+  Node nextSibling(Node node) {
+    return node.getNextSibling();
+  }
+
+  @Override
+  Node parent(Node node) {
+    return node.getParentNode();
+  }
+
+  @Override
+  int attributeCount(Node element) {
+    NamedNodeMap attributes = element.getAttributes();
+    return attributes == null ? 0 : attributes.getLength();
+  }
+
+  @Override
+  Node attribute(Node element, int index) {
+    return element.getAttributes().item(index);
+  }
+
+  /**
+   * The {@link Node} interface has no access to the identifiers, so only the
+   * name is written.
+   */
+  @Override
+  void writeDocumentType(Node doctype, StringBuilder b) {
+    writeDocumentType(doctype.getNodeName(), null, null, null, b);
+  }
+}
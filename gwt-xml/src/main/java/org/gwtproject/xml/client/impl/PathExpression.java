@@ -0,0 +1,437 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A path compiled into arrays of steps, see
+ * {@link org.gwtproject.xml.client.CompiledPath}. The language is a small
+ * subset of XPath:
+ *
+ * <pre>
+ * path      ::= ('/' | '//')? step (('/' | '//') step)*
+ * step      ::= '.' | (name | '*') predicate* | '@' (name | '*') | 'text()'
+ * predicate ::= '[' '@' name ('=' literal)? ']'
+ * </pre>
+ *
+ * Names are compared with the qualified node names. An attribute or
+ * <code>text()</code> step can only come last. The step <code>.</code> stands
+ * for the nodes selected so far, the context node when it comes first, so it
+ * adds no step of its own; <code>//.</code> is only supported before another
+ * step.
+ * <p>
+ * CSS selectors compile to the same steps, see {@link #compileSelector}.
+ */
+public final class PathExpression {
+
+  static final byte ELEMENT = 0;
+  static final byte ATTRIBUTE = 1;
+  static final byte TEXT = 2;
+
+  /**
+   * Compiles <code>path</code>.
+   *
+   * @throws DOMParseException if <code>path</code> is not a valid path
+   */
+  public static PathExpression compile(String path) {
+    return new Parser(path).parse();
+  }
+
+  /**
+   * Compiles a CSS selector for the nodes that have no selector engine of
+   * their own. The selector selects elements below the context, but its
+   * compound selectors before the last can match any ancestor, as in
+   * <code>querySelectorAll</code>. Supported are type selectors and
+   * <code>*</code>, which compare local names, <code>#id</code>,
+   * <code>.class</code>, <code>[a]</code>, <code>[a=v]</code> and
+   * <code>[a~=v]</code>, and the descendant and child combinators.
+   *
+   * @throws DOMParseException if <code>selector</code> is not valid or not
+   *         supported
+   */
+  static PathExpression compileSelector(String selector) {
+    return new Parser(selector).parseSelector();
+  }
+
+  /**
+   * Builds <code>//*[@attributeName]</code> without parsing it, so that any
+   * attribute name can be looked for.
+   */
+  static PathExpression withAttribute(String attributeName) {
+    return new PathExpression("//*[@" + attributeName + "]", true, false,
+        new boolean[] {true}, new byte[] {ELEMENT}, new String[] {null},
+        new String[][] {{attributeName}}, new String[][] {{null}}, new boolean[][] {{false}});
+  }
+
+  final String source;
+  final boolean absolute;
+  /**
+   * Whether this is a selector, which only selects below the context and
+   * compares local names.
+   */
+  final boolean selector;
+  /**
+   * For every step, whether it selects descendants rather than children of
+   * the nodes selected by the step before.
+   */
+  final boolean[] descendant;
+  final byte[] kinds;
+  /**
+   * For every step, the name it matches or <code>null</code> for any name.
+   */
+  final String[] names;
+  /**
+   * For every step, the names of the attributes its predicates require and the
+   * values they must have, <code>null</code> for any value.
+   */
+  final String[][] predicateNames;
+  final String[][] predicateValues;
+  /**
+   * For every predicate, whether its value must be one of the white space
+   * separated words of the attribute rather than all of it.
+   */
+  final boolean[][] predicateWords;
+  /**
+   * How deep below the context the nodes of the last element or text step
+   * can be, which bounds the walk when the path only has child steps.
+   */
+  final int maxDepth;
+
+  private PathExpression(String source, boolean absolute, boolean selector,
+      boolean[] descendant, byte[] kinds, String[] names, String[][] predicateNames,
+      String[][] predicateValues, boolean[][] predicateWords) {
+    this.source = source;
+    this.absolute = absolute;
+    this.selector = selector;
+    this.descendant = descendant;
+    this.kinds = kinds;
+    this.names = names;
+    this.predicateNames = predicateNames;
+    this.predicateValues = predicateValues;
+    this.predicateWords = predicateWords;
+    int depth = kinds.length > 0 && kinds[kinds.length - 1] == ATTRIBUTE
+        ? kinds.length - 1 : kinds.length;
+    for (int i = 0; i < depth; i++) {
+      if (descendant[i]) {
+        depth = Integer.MAX_VALUE;
+        break;
+      }
+    }
+    maxDepth = depth;
+  }
+
+  @Override
+  public String toString() {
+    return source;
+  }
+
+  /**
+   * Reads a path or a selector from left to right.
+   */
+  private static final class Parser {
+    private final String path;
+    private int pos;
+
+    private final List<Boolean> descendant = new ArrayList<Boolean>();
+    private final List<Byte> kinds = new ArrayList<Byte>();
+    private final List<String> names = new ArrayList<String>();
+    private final List<String[]> predicateNames = new ArrayList<String[]>();
+    private final List<String[]> predicateValues = new ArrayList<String[]>();
+    private final List<boolean[]> predicateWords = new ArrayList<boolean[]>();
+
+    Parser(String path) {
+      this.path = path;
+    }
+
+    PathExpression parse() {
+      boolean absolute = path.startsWith("/");
+      boolean nextDescendant = false;
+      if (path.startsWith("//")) {
+        nextDescendant = true;
+        pos = 2;
+      } else if (absolute) {
+        pos = 1;
+      }
+      while (true) {
+        // a self step keeps the nodes of the step before, so a descendant
+        // separator in front of it carries over to the next step
+        boolean self = path.startsWith(".", pos);
+        if (self) {
+          pos++;
+          if (nextDescendant && pos == path.length()) {
+            throw error("'//.' must be followed by a step");
+          }
+        } else {
+          if (!kinds.isEmpty() && kinds.get(kinds.size() - 1) != ELEMENT) {
+            throw error("only the last step can select attributes or text");
+          }
+          descendant.add(nextDescendant);
+          step();
+        }
+        if (pos == path.length()) {
+          break;
+        }
+        boolean carried = self && nextDescendant;
+        if (path.startsWith("//", pos)) {
+          nextDescendant = true;
+          pos += 2;
+        } else if (path.charAt(pos) == '/') {
+          nextDescendant = carried;
+          pos++;
+        } else {
+          throw error("expected '/'");
+        }
+      }
+      return build(absolute, false);
+    }
+
+    /**
+     * Reads compound selectors separated by white space or <code>&gt;</code>.
+     */
+    PathExpression parseSelector() {
+      boolean nextDescendant = true;
+      skipSpace();
+      while (true) {
+        descendant.add(nextDescendant);
+        compound();
+        int start = pos;
+        skipSpace();
+        if (pos == path.length()) {
+          break;
+        }
+        if (path.charAt(pos) == '>') {
+          pos++;
+          skipSpace();
+          nextDescendant = false;
+        } else if (pos > start) {
+          nextDescendant = true;
+        } else {
+          throw error("unsupported selector");
+        }
+      }
+      return build(true, true);
+    }
+
+    private PathExpression build(boolean absolute, boolean selector) {
+      int n = kinds.size();
+      boolean[] descendantArray = new boolean[n];
+      byte[] kindArray = new byte[n];
+      for (int i = 0; i < n; i++) {
+        descendantArray[i] = descendant.get(i);
+        kindArray[i] = kinds.get(i);
+      }
+      return new PathExpression(path, absolute, selector, descendantArray, kindArray,
+          names.toArray(new String[n]), predicateNames.toArray(new String[n][]),
+          predicateValues.toArray(new String[n][]), predicateWords.toArray(new boolean[n][]));
+    }
+
+    private void step() {
+      List<String> stepPredicateNames = new ArrayList<String>();
+      List<String> stepPredicateValues = new ArrayList<String>();
+      if (path.startsWith("text()", pos)) {
+        pos += 6;
+        kinds.add(TEXT);
+        names.add(null);
+      } else if (path.startsWith("@", pos)) {
+        pos++;
+        kinds.add(ATTRIBUTE);
+        names.add(nameTest());
+      } else {
+        kinds.add(ELEMENT);
+        names.add(nameTest());
+        while (path.startsWith("[", pos)) {
+          pos++;
+          skipSpace();
+          expect('@');
+          stepPredicateNames.add(name());
+          skipSpace();
+          String value = null;
+          if (path.startsWith("=", pos)) {
+            pos++;
+            skipSpace();
+            value = literal();
+            skipSpace();
+          }
+          stepPredicateValues.add(value);
+          expect(']');
+        }
+      }
+      addPredicates(stepPredicateNames, stepPredicateValues, null);
+    }
+
+    /**
+     * Reads a type selector or <code>*</code>, which can be left out, followed
+     * by any number of id, class and attribute selectors.
+     */
+    private void compound() {
+      List<String> stepPredicateNames = new ArrayList<String>();
+      List<String> stepPredicateValues = new ArrayList<String>();
+      List<Boolean> stepPredicateWords = new ArrayList<Boolean>();
+      int start = pos;
+      kinds.add(ELEMENT);
+      if (path.startsWith("*", pos)) {
+        pos++;
+        names.add(null);
+      } else {
+        names.add(pos < path.length() && isIdentChar(path.charAt(pos)) ? ident() : null);
+      }
+      while (pos < path.length()) {
+        char c = path.charAt(pos);
+        if (c == '#' || c == '.') {
+          pos++;
+          stepPredicateNames.add(c == '#' ? "id" : "class");
+          stepPredicateValues.add(ident());
+          stepPredicateWords.add(c == '.');
+        } else if (c == '[') {
+          pos++;
+          skipSpace();
+          stepPredicateNames.add(ident());
+          skipSpace();
+          String value = null;
+          boolean words = path.startsWith("~=", pos);
+          if (words || path.startsWith("=", pos)) {
+            pos += words ? 2 : 1;
+            skipSpace();
+            c = pos < path.length() ? path.charAt(pos) : 0;
+            value = c == '\'' || c == '"' ? literal() : ident();
+            skipSpace();
+          }
+          stepPredicateValues.add(value);
+          stepPredicateWords.add(words);
+          expect(']');
+        } else {
+          break;
+        }
+      }
+      if (pos == start) {
+        throw error("expected a selector");
+      }
+      addPredicates(stepPredicateNames, stepPredicateValues, stepPredicateWords);
+    }
+
+    private void addPredicates(List<String> stepPredicateNames,
+        List<String> stepPredicateValues, List<Boolean> stepPredicateWords) {
+      int n = stepPredicateNames.size();
+      boolean[] words = new boolean[n];
+      for (int i = 0; stepPredicateWords != null && i < n; i++) {
+        words[i] = stepPredicateWords.get(i);
+      }
+      predicateNames.add(stepPredicateNames.toArray(new String[n]));
+      predicateValues.add(stepPredicateValues.toArray(new String[n]));
+      predicateWords.add(words);
+    }
+
+    /**
+     * Reads a name or <code>*</code>, returning <code>null</code> for the
+     * latter.
+     */
+    private String nameTest() {
+      if (path.startsWith("*", pos)) {
+        pos++;
+        return null;
+      }
+      return name();
+    }
+
+    private String name() {
+      int start = pos;
+      if (pos < path.length() && isNameStartChar(path.charAt(pos))) {
+        pos++;
+      }
+      while (pos > start && pos < path.length() && isNameChar(path.charAt(pos))) {
+        pos++;
+      }
+      if (pos == start) {
+        throw error("expected a name");
+      }
+      return path.substring(start, pos);
+    }
+
+    /**
+     * Reads a CSS identifier, in which a backslash escapes the next character.
+     */
+    private String ident() {
+      StringBuilder b = new StringBuilder();
+      while (pos < path.length()) {
+        char c = path.charAt(pos);
+        if (c == '\\' && pos + 1 < path.length()) {
+          c = path.charAt(++pos);
+        } else if (!isIdentChar(c)) {
+          break;
+        }
+        b.append(c);
+        pos++;
+      }
+      if (b.length() == 0) {
+        throw error("expected a name");
+      }
+      return b.toString();
+    }
+
+    private String literal() {
+      char quote = pos < path.length() ? path.charAt(pos) : 0;
+      if (quote != '\'' && quote != '"') {
+        throw error("expected a quoted value");
+      }
+      int end = path.indexOf(quote, pos + 1);
+      if (end < 0) {
+        throw error("unterminated value");
+      }
+      String value = path.substring(pos + 1, end);
+      pos = end + 1;
+      return value;
+    }
+
+    private void expect(char c) {
+      if (pos == path.length() || path.charAt(pos) != c) {
+        throw error("expected '" + c + "'");
+      }
+      pos++;
+    }
+
+    private void skipSpace() {
+      while (pos < path.length() && TreeFilter.isWhitespace(path.charAt(pos))) {
+        pos++;
+      }
+    }
+
+    /**
+     * Names cannot start with <code>.</code>, which is the self step, nor with
+     * a digit or <code>-</code>.
+     */
+    private static boolean isNameStartChar(char c) {
+      return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':'
+          || c >= 0x80;
+    }
+
+    private static boolean isNameChar(char c) {
+      return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+          || c == '_' || c == '-' || c == '.' || c == ':' || c >= 0x80;
+    }
+
+    private static boolean isIdentChar(char c) {
+      return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+          || c == '_' || c == '-' || c >= 0x80;
+    }
+
+    private DOMParseException error(String message) {
+      return new DOMParseException(path, new RuntimeException(
+          "line 1, column " + (pos + 1) + ": " + message));
+    }
+  }
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.Attr;
+import org.gwtproject.xml.client.Element;
+import org.gwtproject.xml.client.Node;
+
+import jsinterop.annotations.JsPackage;
+import jsinterop.annotations.JsType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates a {@link PathExpression}. The subtree of the context is walked
+ * once in document order, and every node is matched against the steps from
+ * the last to the first by looking at its ancestors, the way browsers match
+ * CSS selectors. The results are therefore in document order without
+ * duplicates, and nothing is allocated for the nodes that do not match. A
+ * path without <code>//</code> is not followed deeper than its number of
+ * steps. Subclasses read the nodes of one DOM implementation, so that no
+ * wrappers need to be built for the nodes visited.
+ *
+ * @param <N> the type of the nodes
+ */
+abstract class PathMatcher<N> {
+
+  /**
+   * Reads browser nodes directly.
+   */
+  static final class NativeMatcher extends PathMatcher<NativeMatcher.NativeNode> {
+
+    @JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
+    static class NativeNode {
+      NativeAttributes attributes;
+      NativeNode firstChild;
+      NativeNode nextSibling;
+      String nodeName;
+      short nodeType;
+      String nodeValue;
+      NativeNode ownerDocument;
+      NativeNode parentNode;
+
+      native NativeNode getAttributeNode(String name);
+    }
+
+    @JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
+    static class NativeAttributes {
+      int length;
+      native NativeNode item(int index);
+    }
+
+    NativeMatcher(PathExpression path) {
+      super(path);
+    }
+
+    @Override
+    short type(NativeNode node) {
+      return node.nodeType;
+    }
+
+    @Override
+    String name(NativeNode node) {
+      return node.nodeName;
+    }
+
+    @Override
+    NativeNode firstChild(NativeNode node) {
+      return node.firstChild;
+    }
+
+    @Override
+    NativeNode nextSibling(NativeNode node) {
+      return node.nextSibling;
+    }
+
+    @Override
+    NativeNode parent(NativeNode node) {
+      return node.parentNode;
+    }
+
+    @Override
+    NativeNode document(NativeNode node) {
+      return node.nodeType == Node.DOCUMENT_NODE ? node : node.ownerDocument;
+    }
+
+    @Override
+    int attributeCount(NativeNode element) {
+      return element.attributes.length;
+    }
+
+    @Override
+    NativeNode attribute(NativeNode element, int index) {
+      return element.attributes.item(index);
+    }
+
+    @Override
+    NativeNode attribute(NativeNode element, String name) {
+      return element.getAttributeNode(name);
+    }
+
+    @Override
+    String value(NativeNode attr) {
+      return attr.nodeValue;
+    }
+  }
+
+  /**
+   * Goes through the {@link Node} interface, for the implementations that
+   * have no cheaper access to their nodes.
+   */
+  static final class NodeMatcher extends PathMatcher<Node> {
+
+    NodeMatcher(PathExpression path) {
+      super(path);
+    }
+
+    @Override
+    short type(Node node) {
+      return node.getNodeType();
+    }
+
+    @Override
+    String name(Node node) {
+      return node.getNodeName();
+    }
+
+    @Override
+    Node firstChild(Node node) {
+      return node.getFirstChild();
+    }
+
+    @Override
+    Node nextSibling(Node node) {
+      return node.getNextSibling();
+    }
+
+    @Override
+    Node parent(Node node) {
+      return node.getParentNode();
+    }
+
+    @Override
+    Node document(Node node) {
+      return node.getNodeType() == Node.DOCUMENT_NODE ? node : node.getOwnerDocument();
+    }
+
+    @Override
+    int attributeCount(Node element) {
+      return element.getAttributes().getLength();
+    }
+
+    @Override
+    Node attribute(Node element, int index) {
+      return element.getAttributes().item(index);
+    }
+
+    @Override
+    Node attribute(Node element, String name) {
+      return ((Element) element).getAttributeNode(name);
+    }
+
+    @Override
+    String value(Node attr) {
+      return ((Attr) attr).getValue();
+    }
+
+    /**
+     * Wrappers are not unique for every implementation, so nodes are compared
+     * with <code>equals</code>.
+     */
+    @Override
+    boolean same(Node a, Node b) {
+      return a == null ? b == null : a.equals(b);
+    }
+  }
+
+  private final PathExpression path;
+  private final int last;
+
+  /**
+   * The node the path is relative to during the current evaluation.
+   */
+  private N root;
+
+  /**
+   * The node below which nodes are selected, which is the context rather than
+   * the root for selectors.
+   */
+  private N start;
+
+  PathMatcher(PathExpression path) {
+    this.path = path;
+    last = path.kinds.length - 1;
+  }
+
+  abstract short type(N node);
+
+  abstract String name(N node);
+
+  abstract N firstChild(N node);
+
+  abstract N nextSibling(N node);
+
+  abstract N parent(N node);
+
+  /**
+   * Returns the document of <code>node</code>, which is the node itself if it
+   * is a document.
+   */
+  abstract N document(N node);
+
+  abstract int attributeCount(N element);
+
+  abstract N attribute(N element, int index);
+
+  /**
+   * Returns the attribute of <code>element</code> named <code>name</code>, or
+   * <code>null</code>.
+   */
+  abstract N attribute(N element, String name);
+
+  /**
+   * Returns the value of an attribute or the data of a text node.
+   */
+  abstract String value(N node);
+
+  boolean same(N a, N b) {
+    return a == b;
+  }
+
+  /**
+   * Adds at most <code>limit</code> nodes selected by the path from
+   * <code>context</code> to <code>out</code>, in document order, and returns
+   * how many were found. If <code>out</code> is <code>null</code> the nodes
+   * are only counted.
+   */
+  final int select(N context, List<N> out, int limit) {
+    root = path.absolute ? document(context) : context;
+    start = path.selector ? context : root;
+    if (last < 0) {
+      // the path is only self steps
+      if (out != null && limit > 0) {
+        out.add(root);
+      }
+      return limit > 0 ? 1 : 0;
+    }
+    short type = type(start);
+    if (type != Node.ELEMENT_NODE && type != Node.DOCUMENT_NODE
+        && type != Node.DOCUMENT_FRAGMENT_NODE) {
+      return 0;
+    }
+    if (path.kinds[last] != PathExpression.ATTRIBUTE) {
+      return walk(last, out, limit, 0);
+    }
+    if (last == 0) {
+      return type == Node.ELEMENT_NODE ? attributes(start, out, limit, 0) : 0;
+    }
+    return walk(last - 1, out, limit, 0);
+  }
+
+  /**
+   * Returns the nodes selected by the path from <code>context</code>, see
+   * {@link #select(Object, List, int)}.
+   */
+  final List<N> select(N context, int limit) {
+    List<N> out = new ArrayList<N>();
+    select(context, out, limit);
+    return out;
+  }
+
+  /**
+   * Visits the subtree of the start node in document order, down to the depth of
+   * the path, collecting the nodes that match step <code>step</code> or, if
+   * the path ends with an attribute step, their attributes.
+   */
+  private int walk(int step, List<N> out, int limit, int found) {
+    int maxDepth = path.maxDepth;
+    int depth = 1;
+    N current = firstChild(start);
+    while (current != null && found < limit) {
+      if (matches(current, step)) {
+        if (step == last) {
+          if (out != null) {
+            out.add(current);
+          }
+          found++;
+        } else {
+          found = attributes(current, out, limit, found);
+        }
+      }
+      N next = depth < maxDepth && type(current) == Node.ELEMENT_NODE
+          ? firstChild(current) : null;
+      if (next != null) {
+        depth++;
+      } else {
+        while (current != null) {
+          next = nextSibling(current);
+          if (next != null) {
+            break;
+          }
+          current = parent(current);
+          depth--;
+          if (same(current, start)) {
+            return found;
+          }
+        }
+      }
+      current = next;
+    }
+    return found;
+  }
+
+  /**
+   * Collects the attributes of <code>element</code> that the last step
+   * selects. Namespace declarations are not attributes in a path, as in
+   * XPath.
+   */
+  private int attributes(N element, List<N> out, int limit, int found) {
+    String name = path.names[last];
+    if (name != null) {
+      N attr = attribute(element, name);
+      if (attr != null && found < limit) {
+        if (out != null) {
+          out.add(attr);
+        }
+        found++;
+      }
+      return found;
+    }
+    for (int i = 0, n = attributeCount(element); i < n && found < limit; i++) {
+      N attr = attribute(element, i);
+      String attrName = name(attr);
+      if (!attrName.equals("xmlns") && !attrName.startsWith("xmlns:")) {
+        if (out != null) {
+          out.add(attr);
+        }
+        found++;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Returns whether <code>node</code> is selected by the steps up to
+   * <code>step</code>.
+   */
+  private boolean matches(N node, int step) {
+    if (!test(node, step)) {
+      return false;
+    }
+    N parent = parent(node);
+    if (step == 0) {
+      return path.descendant[0] || same(parent, root);
+    }
+    if (!path.descendant[step]) {
+      return parent != null && !same(parent, root) && matches(parent, step - 1);
+    }
+    for (N ancestor = parent; ancestor != null && !same(ancestor, root);
+        ancestor = parent(ancestor)) {
+      if (matches(ancestor, step - 1)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether <code>node</code> itself passes step <code>step</code>.
+   */
+  private boolean test(N node, int step) {
+    short type = type(node);
+    if (path.kinds[step] == PathExpression.TEXT) {
+      return type == Node.TEXT_NODE || type == Node.CDATA_SECTION_NODE;
+    }
+    if (type != Node.ELEMENT_NODE) {
+      return false;
+    }
+    String name = path.names[step];
+    if (name != null) {
+      String nodeName = name(node);
+      if (path.selector ? !isLocalName(name, nodeName) : !name.equals(nodeName)) {
+        return false;
+      }
+    }
+    String[] predicateNames = path.predicateNames[step];
+    for (int i = 0; i < predicateNames.length; i++) {
+      N attr = attribute(node, predicateNames[i]);
+      if (attr == null) {
+        return false;
+      }
+      String value = path.predicateValues[step][i];
+      if (value != null && !(path.predicateWords[step][i] ? containsWord(value(attr), value)
+          : value.equals(value(attr)))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether <code>name</code> is the local part of the qualified name
+   * <code>qName</code>.
+   */
+  private static boolean isLocalName(String name, String qName) {
+    int colon = qName.length() - name.length() - 1;
+    return qName.endsWith(name) && (colon < 0 || qName.charAt(colon) == ':');
+  }
+
+  /**
+   * Returns whether <code>word</code> is one of the white space separated
+   * words of <code>value</code>.
+   */
+  private static boolean containsWord(String value, String word) {
+    if (word.isEmpty()) {
+      return false;
+    }
+    for (int i = value.indexOf(word); i >= 0; i = value.indexOf(word, i + 1)) {
+      int end = i + word.length();
+      if ((i == 0 || TreeFilter.isWhitespace(value.charAt(i - 1)))
+          && (end == value.length() || TreeFilter.isWhitespace(value.charAt(end)))) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
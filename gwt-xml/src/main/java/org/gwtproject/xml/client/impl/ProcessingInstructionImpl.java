@@ -70,9 +70,4 @@ class ProcessingInstructionImpl extends NodeImpl implements
       throw new DOMNodeException(DOMException.INVALID_CHARACTER_ERR, e, this);
     }
   }
-
-  @Override
-  public String toString() {
-    return XMLParserImpl.getInstance().toStringImpl(this);
-  }
 }
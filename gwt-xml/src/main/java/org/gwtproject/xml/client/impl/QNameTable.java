@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.QName;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The interned names of one document, looked up by namespace URI and then by
+ * local name so that finding an existing name allocates nothing.
+ */
+final class QNameTable {
+
+  private final Map<String, QName> noNamespace = new HashMap<>();
+  private final Map<String, Map<String, QName>> namespaces = new HashMap<>();
+
+  /**
+   * Returns the single name of this table for <code>namespaceURI</code> and
+   * <code>localName</code>, or <code>null</code> if <code>localName</code> is.
+   * An empty namespace URI is the same as none, as in the DOM.
+   */
+  QName get(String namespaceURI, String localName) {
+    if (localName == null) {
+      return null;
+    }
+    Map<String, QName> names;
+    if (namespaceURI == null || namespaceURI.isEmpty()) {
+      namespaceURI = null;
+      names = noNamespace;
+    } else {
+      names = namespaces.get(namespaceURI);
+      if (names == null) {
+        names = new HashMap<>();
+        namespaces.put(namespaceURI, names);
+      }
+    }
+    QName name = names.get(localName);
+    if (name == null) {
+      name = new QName(namespaceURI, localName);
+      names.put(localName, name);
+    }
+    return name;
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.NodeList;
+
+import java.util.Iterator;
+
+/**
+ * This class implements the NodeList interface over an array of nodes, for
+ * lists that do not change with the document.
+ */
+class StaticNodeListImpl implements NodeList {
+
+  private final Node[] nodes;
+
+  StaticNodeListImpl(Node[] nodes) {
+    this.nodes = nodes;
+  }
+
+  @Override
+  public int getLength() {
+    return nodes.length;
+  }
+
+  @Override
+  public Node item(int index) {
+    return index >= 0 && index < nodes.length ? nodes[index] : null;
+  }
+
+  @Override
+  public Iterator<Node> iterator() {
+    return new NodeIterator(nodes.length) {
+      @Override
+      int length() {
+        return nodes.length;
+      }
+
+      @Override
+      Node get(int index) {
+        return nodes[index];
+      }
+    };
+  }
+
+  /**
+   * This list never changes, so it is its own snapshot.
+   */
+  @Override
+  public NodeList snapshot() {
+    return this;
+  }
+
+  @Override
+  public Node[] toArray() {
+    Node[] copy = new Node[nodes.length];
+    System.arraycopy(nodes, 0, copy, 0, nodes.length);
+    return copy;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder b = new StringBuilder();
+    for (Node node : nodes) {
+      b.append(node.toString());
+    }
+    return b.toString();
+  }
+}
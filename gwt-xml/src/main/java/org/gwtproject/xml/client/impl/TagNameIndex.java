@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.NodeList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the elements of a document by name, see
+ * {@link Document#setTagNameIndexed(boolean)}. The elements are bucketed in
+ * document order under their qualified name only. The engines differ on how
+ * names match prefixed elements, by qualified or by local name, so a
+ * document that has prefixed elements is left to the engine. Only changes to
+ * the tree invalidate the index.
+ */
+final class TagNameIndex extends DocumentIndex {
+
+  private Map<String, Node[]> buckets;
+  private Node[] all;
+  private boolean prefixed;
+
+  TagNameIndex(Document document, Changes changes) {
+    super(document, changes, null);
+  }
+
+  /**
+   * Returns the elements named <code>tagName</code>, or all of them for
+   * <code>*</code>, or <code>null</code> if the document has prefixed
+   * elements and the engine has to answer.
+   */
+  NodeList getElementsByTagName(String tagName) {
+    update();
+    if (prefixed) {
+      return null;
+    }
+    Node[] nodes = "*".equals(tagName) ? all : buckets.get(tagName);
+    return new StaticNodeListImpl(nodes == null ? new Node[0] : nodes);
+  }
+
+  @Override
+  void build() {
+    all = elements();
+    Map<String, List<Node>> lists = new HashMap<String, List<Node>>();
+    prefixed = false;
+    for (Node element : all) {
+      String name = element.getNodeName();
+      add(lists, name, element);
+      prefixed |= name.indexOf(':') >= 0;
+    }
+    buckets = new HashMap<String, Node[]>();
+    for (Map.Entry<String, List<Node>> entry : lists.entrySet()) {
+      buckets.put(entry.getKey(), entry.getValue().toArray(new Node[entry.getValue().size()]));
+    }
+  }
+
+  private static void add(Map<String, List<Node>> lists, String name, Node element) {
+    List<Node> list = lists.get(name);
+    if (list == null) {
+      list = new ArrayList<Node>();
+      lists.put(name, list);
+    }
+    list.add(element);
+  }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.ParseOptions;
+
+import jsinterop.annotations.JsPackage;
+import jsinterop.annotations.JsType;
+
+/**
+ * Removes white space text, comments and processing instructions from a tree
+ * and turns CDATA sections into text, all in a single iterative pass.
+ * Subclasses read and change the nodes of one DOM implementation, so that no
+ * wrappers need to be built.
+ * <p>
+ * When merging, every run of adjacent text that is left once the other nodes
+ * have been removed becomes a single text node, so the result is the
+ * document a parser that skipped those nodes would have built. White space
+ * is XML white space: space, tab, carriage return and line feed.
+ *
+ * @param <N> the type of the nodes
+ */
+abstract class TreeFilter<N> {
+
+  /**
+   * Reads and changes browser nodes directly.
+   */
+  static final class NativeFilter extends TreeFilter<NativeFilter.NativeNode> {
+
+    @JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
+    static class NativeNode {
+      NativeNode firstChild;
+      NativeNode nextSibling;
+      String nodeValue;
+      short nodeType;
+      NativeNode ownerDocument;
+      NativeNode parentNode;
+
+      native NativeNode createTextNode(String data);
+      native NativeNode removeChild(NativeNode child);
+      native NativeNode replaceChild(NativeNode newChild, NativeNode oldChild);
+    }
+
+    NativeFilter(ParseOptions options, boolean mergeText) {
+      super(options, mergeText);
+    }
+
+    @Override
+    short type(NativeNode node) {
+      return node.nodeType;
+    }
+
+    @Override
+    String value(NativeNode node) {
+      return node.nodeValue;
+    }
+
+    @Override
+    void setValue(NativeNode node, String value) {
+      node.nodeValue = value;
+    }
+
+    @Override
+    NativeNode firstChild(NativeNode node) {
+      return node.firstChild;
+    }
+
+    @Override
+    NativeNode nextSibling(NativeNode node) {
+      return node.nextSibling;
+    }
+
+    @Override
+    NativeNode parent(NativeNode node) {
+      return node.parentNode;
+    }
+
+    @Override
+    void remove(NativeNode node) {
+      node.parentNode.removeChild(node);
+    }
+
+    @Override
+    void replaceWithText(NativeNode node, String data) {
+      node.parentNode.replaceChild(node.ownerDocument.createTextNode(data), node);
+    }
+  }
+
+  /**
+   * Goes through the {@link Node} interface, for the implementations that
+   * have no cheaper access to their nodes.
+   */
+  static final class NodeFilter extends TreeFilter<Node> {
+
+    NodeFilter(ParseOptions options, boolean mergeText) {
+      super(options, mergeText);
+    }
+
+    @Override
+    short type(Node node) {
+      return node.getNodeType();
+    }
+
+    @Override
+    String value(Node node) {
+      return node.getNodeValue();
+    }
+
+    @Override
+    void setValue(Node node, String value) {
+      node.setNodeValue(value);
+    }
+
+    @Override
+    Node firstChild(Node node) {
+      return node.getFirstChild();
+    }
+
+    @Override
+    Node nextSibling(Node node) {
+      return node.getNextSibling();
+    }
+
+    @Override
+    Node parent(Node node) {
+      return node.getParentNode();
+    }
+
+    @Override
+    void remove(Node node) {
+      node.getParentNode().removeChild(node);
+    }
+
+    @Override
+    void replaceWithText(Node node, String data) {
+      node.getParentNode().replaceChild(node.getOwnerDocument().createTextNode(data), node);
+    }
+  }
+
+  /**
+   * Returns whether <code>text</code> only contains XML white space.
+   */
+  static boolean isWhitespace(String text) {
+    for (int i = 0, n = text.length(); i < n; i++) {
+      if (!isWhitespace(text.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+  }
+
+  /**
+   * Returns whether <code>options</code> ask for any change to the tree.
+   */
+  static boolean changesTree(ParseOptions options) {
+    return options.isIgnoreWhitespaceText() || options.isIgnoreComments()
+        || options.isIgnoreProcessingInstructions() || options.isCoalesceCDATAIntoText();
+  }
+
+  private final boolean ignoreWhitespaceText;
+  private final boolean ignoreComments;
+  private final boolean ignoreProcessingInstructions;
+  private final boolean coalesceCDATAIntoText;
+  private final boolean mergeText;
+
+  /**
+   * The first node of the current run of text, or <code>null</code>.
+   */
+  private N run;
+  /**
+   * The text of the current run, if more than one node has been merged into
+   * it.
+   */
+  private final StringBuilder runText = new StringBuilder();
+  private boolean merged;
+
+  TreeFilter(ParseOptions options, boolean mergeText) {
+    ignoreWhitespaceText = options.isIgnoreWhitespaceText();
+    ignoreComments = options.isIgnoreComments();
+    ignoreProcessingInstructions = options.isIgnoreProcessingInstructions();
+    coalesceCDATAIntoText = options.isCoalesceCDATAIntoText();
+    this.mergeText = mergeText;
+  }
+
+  abstract short type(N node);
+
+  abstract String value(N node);
+
+  abstract void setValue(N node, String value);
+
+  abstract N firstChild(N node);
+
+  abstract N nextSibling(N node);
+
+  abstract N parent(N node);
+
+  abstract void remove(N node);
+
+  /**
+   * Replaces <code>node</code> with a text node holding <code>data</code>.
+   */
+  abstract void replaceWithText(N node, String data);
+
+  /**
+   * Filters the descendants of <code>root</code>, which itself is kept.
+   */
+  final void filter(N root) {
+    N parent = root;
+    N current = firstChild(root);
+    while (true) {
+      if (current == null) {
+        // the children of parent are done
+        endRun();
+        if (parent == root) {
+          return;
+        }
+        current = nextSibling(parent);
+        parent = parent(parent);
+        continue;
+      }
+      N next = nextSibling(current);
+      short type = type(current);
+      if ((type == Node.COMMENT_NODE && ignoreComments)
+          || (type == Node.PROCESSING_INSTRUCTION_NODE && ignoreProcessingInstructions)) {
+        remove(current);
+      } else if (type == Node.TEXT_NODE
+          || (type == Node.CDATA_SECTION_NODE && coalesceCDATAIntoText)) {
+        if (run != null && mergeText) {
+          if (!merged) {
+            runText.setLength(0);
+            runText.append(value(run));
+            merged = true;
+          }
+          runText.append(value(current));
+          remove(current);
+        } else {
+          endRun();
+          run = current;
+        }
+      } else {
+        endRun();
+        N child = firstChild(current);
+        if (child != null) {
+          parent = current;
+          current = child;
+          continue;
+        }
+      }
+      current = next;
+    }
+  }
+
+  /**
+   * Writes back the text of the current run, removing it if it is white
+   * space.
+   */
+  private void endRun() {
+    if (run == null) {
+      return;
+    }
+    String text = merged ? runText.toString() : value(run);
+    if (ignoreWhitespaceText && isWhitespace(text)) {
+      remove(run);
+    } else if (type(run) == Node.CDATA_SECTION_NODE) {
+      replaceWithText(run, text);
+    } else if (merged) {
+      setValue(run, text);
+    }
+    run = null;
+    merged = false;
+  }
+}
@@ -0,0 +1,614 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.ParseCallback;
+import org.gwtproject.xml.client.impl.DocumentImpl.NativeDocumentImpl;
+import org.gwtproject.xml.client.impl.ElementImpl.NativeElementImpl;
+import org.gwtproject.xml.client.impl.NodeImpl.NativeNodeImpl;
+
+import elemental2.dom.DomGlobal;
+import jsinterop.annotations.JsFunction;
+import jsinterop.annotations.JsMethod;
+import jsinterop.annotations.JsPackage;
+import jsinterop.annotations.JsType;
+import jsinterop.base.Js;
+import jsinterop.base.JsArrayLike;
+import jsinterop.base.JsPropertyMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses documents in a small pool of dedicated workers, for
+ * {@link XMLParserImpl#parseAsync(String, ParseCallback)}. Workers have no
+ * <code>DOMParser</code> and cannot hand back nodes, so they run the tokenizer
+ * in {@link #WORKER_SCRIPT}: it checks the document and flattens it into an
+ * <code>Int32Array</code> of operations plus a string table. The table is
+ * sent as one string and an <code>Int32Array</code> of the end of each entry,
+ * so both arrays are transferred back without copying and only one flat
+ * string is cloned. Strings cannot be transferred, so the input is cloned on
+ * its way to the worker. The native document is then built from the
+ * operations on the main thread in short slices, so neither step blocks the UI
+ * for long.
+ * Requests go to the worker with the fewest characters still to parse, and a
+ * new worker is started while all of them are busy, up to
+ * {@link #MAX_WORKERS}.
+ * <p>
+ * The document type declaration is skipped, as in {@link XmlScanner}, so only
+ * the predefined entities and character references are resolved.
+ * <p>
+ * The worker tokenizer is only a fast path: when it rejects a document, the
+ * document is parsed again on the main thread like
+ * {@link XMLParserImpl#parse(String)}, so that <code>parseAsync</code>
+ * accepts and rejects the same documents and reports the same errors. A
+ * document the tokenizer accepts but the DOM does not, e.g. because of a
+ * name with two colons, fails with a {@link DOMParseException} while it is
+ * built.
+ */
+final class WorkerPool {
+
+  /*
+   * Operations in the worker output. ELEMENT is followed by the namespace,
+   * name and attribute count, and a namespace, name and value per attribute.
+   * TEXT, CDATA and COMMENT are followed by the data, PROCESSING_INSTRUCTION
+   * by target and data. Strings are indexes into the string table, -1 for
+   * null.
+   */
+  private static final int ELEMENT = 1;
+  private static final int END = 2;
+  private static final int TEXT = 3;
+  private static final int CDATA = 4;
+  private static final int COMMENT = 5;
+  private static final int PROCESSING_INSTRUCTION = 6;
+
+  private static final int MAX_WORKERS = 4;
+
+  /**
+   * How long the main thread builds a document before yielding.
+   */
+  private static final long SLICE_MILLIS = 8;
+
+  private static final String WORKER_SCRIPT =
+      "var XMLNS = 'http://www.w3.org/2000/xmlns/';\n"
+      + "var ENTITIES = {lt: '<', gt: '>', amp: '&', quot: '\"', apos: \"'\"};\n"
+      + "var NAME_START = /[A-Za-z_:\\u00C0-\\uFFFF]/;\n"
+      + "var NAME_CHAR = /[A-Za-z0-9_:.\\-\\u00B7\\u00C0-\\uFFFF]/;\n"
+      + "onmessage = function(m) {\n"
+      + "  var id = m.data[0];\n"
+      + "  try {\n"
+      + "    var r = tokenize(m.data[1]);\n"
+      + "    postMessage([id, r.ops.buffer, r.ends.buffer, r.chars, null],\n"
+      + "        [r.ops.buffer, r.ends.buffer]);\n"
+      + "  } catch (e) {\n"
+      + "    postMessage([id, null, null, null, String(e.message || e)]);\n"
+      + "  }\n"
+      + "};\n"
+      + "function tokenize(s) {\n"
+      + "  var p = 0, n = s.length, ops = [], strings = [], ids = {}, stack = [], root = false;\n"
+      + "  var rootScope = Object.create(null);\n"
+      + "  rootScope[''] = '';\n"
+      + "  rootScope['xml'] = 'http://www.w3.org/XML/1998/namespace';\n"
+      + "  rootScope['xmlns'] = XMLNS;\n"
+      + "  var scopes = [rootScope];\n"
+      + "  function fail(message) {\n"
+      + "    var line = 1, column = 1;\n"
+      + "    for (var i = 0; i < p && i < n; i++) {\n"
+      + "      if (s.charCodeAt(i) === 10) { line++; column = 1; } else { column++; }\n"
+      + "    }\n"
+      + "    throw new Error('line ' + line + ', column ' + column + ': ' + message);\n"
+      + "  }\n"
+      + "  function at(t) { return s.substr(p, t.length) === t; }\n"
+      + "  function ws() {\n"
+      + "    var a = p;\n"
+      + "    while (p < n && ' \\t\\r\\n'.indexOf(s.charAt(p)) >= 0) p++;\n"
+      + "    return p > a;\n"
+      + "  }\n"
+      + "  function name() {\n"
+      + "    var a = p;\n"
+      + "    while (p < n && NAME_CHAR.test(s.charAt(p))) p++;\n"
+      + "    if (p === n) fail('Unexpected end of input');\n"
+      + "    if (p === a || !NAME_START.test(s.charAt(a))) { p = a; fail('Expected a name'); }\n"
+      + "    return s.substring(a, p);\n"
+      + "  }\n"
+      + "  function intern(t) {\n"
+      + "    var k = '$' + t, i = ids[k];\n"
+      + "    if (i === undefined) { i = ids[k] = strings.length; strings.push(t); }\n"
+      + "    return i;\n"
+      + "  }\n"
+      + "  function text(t) { return strings.push(t) - 1; }\n"
+      + "  function lines(t) { return t.indexOf('\\r') < 0 ? t : t.replace(/\\r\\n?/g, '\\n'); }\n"
+      + "  function decode(a, b, attribute) {\n"
+      + "    var t = lines(s.substring(a, b));\n"
+      + "    if (attribute) t = t.replace(/[\\t\\n]/g, ' ');\n"
+      + "    if (t.indexOf('&') < 0) return t;\n"
+      + "    return t.replace(/&([^;&]*);?/g, function(ref, body) {\n"
+      + "      var c;\n"
+      + "      if (ref.charAt(ref.length - 1) !== ';') fail('Malformed reference');\n"
+      + "      if (body.charAt(0) === '#') {\n"
+      + "        c = body.charAt(1) === 'x' ? parseInt(body.substring(2), 16)\n"
+      + "            : parseInt(body.substring(1), 10);\n"
+      + "        if (!(c > 0 && c <= 0x10FFFF) || !/^#(x[0-9A-Fa-f]+|[0-9]+)$/.test(body)) {\n"
+      + "          fail('Malformed character reference');\n"
+      + "        }\n"
+      + "        if (c < 0x10000) return String.fromCharCode(c);\n"
+      + "        c -= 0x10000;\n"
+      + "        return String.fromCharCode(0xD800 + (c >> 10), 0xDC00 + (c & 0x3FF));\n"
+      + "      }\n"
+      + "      if (!ENTITIES.hasOwnProperty(body)) fail('Undeclared entity &' + body + ';');\n"
+      + "      return ENTITIES[body];\n"
+      + "    });\n"
+      + "  }\n"
+      + "  if (s.charCodeAt(0) === 0xFEFF) p = 1;\n"
+      + "  while (p < n) {\n"
+      + "    var start = p, end;\n"
+      + "    if (s.charAt(p) !== '<') {\n"
+      + "      end = s.indexOf('<', p);\n"
+      + "      if (end < 0) end = n;\n"
+      + "      if (stack.length) {\n"
+      + "        ops.push(3, text(decode(p, end, false)));\n"
+      + "      } else {\n"
+      + "        for (; p < end; p++) {\n"
+      + "          if (' \\t\\r\\n'.indexOf(s.charAt(p)) < 0) {\n"
+      + "            fail('Text outside the root element');\n"
+      + "          }\n"
+      + "        }\n"
+      + "      }\n"
+      + "      p = end;\n"
+      + "    } else if (at('</')) {\n"
+      + "      p += 2;\n"
+      + "      var endName = name();\n"
+      + "      ws();\n"
+      + "      if (p >= n) fail('Unterminated end tag');\n"
+      + "      if (s.charAt(p) !== '>') fail('Unterminated end tag');\n"
+      + "      if (stack[stack.length - 1] !== endName) {\n"
+      + "        p = start + 2;\n"
+      + "        fail('Unexpected end tag </' + endName + '>');\n"
+      + "      }\n"
+      + "      stack.pop();\n"
+      + "      scopes.pop();\n"
+      + "      ops.push(2);\n"
+      + "      p++;\n"
+      + "    } else if (at('<!--')) {\n"
+      + "      end = s.indexOf('--', p + 4);\n"
+      + "      if (end < 0 || end + 2 >= n) { p = n; fail('Unterminated comment'); }\n"
+      + "      if (s.substr(end, 3) !== '-->') { p = end; fail(\"'--' in comment\"); }\n"
+      + "      ops.push(5, text(lines(s.substring(p + 4, end))));\n"
+      + "      p = end + 3;\n"
+      + "    } else if (at('<![CDATA[')) {\n"
+      + "      if (!stack.length) fail('CDATA section outside the root element');\n"
+      + "      end = s.indexOf(']]>', p + 9);\n"
+      + "      if (end < 0) { p = n; fail('Unterminated CDATA section'); }\n"
+      + "      ops.push(4, text(lines(s.substring(p + 9, end))));\n"
+      + "      p = end + 3;\n"
+      + "    } else if (at('<!DOCTYPE')) {\n"
+      + "      if (root) fail('DOCTYPE after the root element');\n"
+      + "      var quote = '', brackets = 0;\n"
+      + "      for (p += 9; p < n; p++) {\n"
+      + "        var d = s.charAt(p);\n"
+      + "        if (quote) {\n"
+      + "          if (d === quote) quote = '';\n"
+      + "        } else if (d === '\"' || d === \"'\") {\n"
+      + "          quote = d;\n"
+      + "        } else if (d === '[') {\n"
+      + "          brackets++;\n"
+      + "        } else if (d === ']') {\n"
+      + "          brackets--;\n"
+      + "        } else if (d === '>' && !brackets) {\n"
+      + "          break;\n"
+      + "        }\n"
+      + "      }\n"
+      + "      if (p >= n) fail('Unterminated DOCTYPE');\n"
+      + "      p++;\n"
+      + "    } else if (at('<?')) {\n"
+      + "      p += 2;\n"
+      + "      var target = name();\n"
+      + "      end = s.indexOf('?>', p);\n"
+      + "      if (end < 0) { p = n; fail('Unterminated processing instruction'); }\n"
+      + "      if (!ws() && p !== end) {\n"
+      + "        fail('Expected whitespace after processing instruction target');\n"
+      + "      }\n"
+      + "      var data = lines(s.substring(p, end));\n"
+      + "      p = end + 2;\n"
+      + "      if (target.toLowerCase() === 'xml') {\n"
+      + "        if (start > (s.charCodeAt(0) === 0xFEFF ? 1 : 0)) {\n"
+      + "          p = start;\n"
+      + "          fail('XML declaration not at the start of the document');\n"
+      + "        }\n"
+      + "      } else {\n"
+      + "        ops.push(6, intern(target), text(data));\n"
+      + "      }\n"
+      + "    } else {\n"
+      + "      if (root && !stack.length) fail('More than one root element');\n"
+      + "      p++;\n"
+      + "      var qname = name(), attributes = [], empty = false;\n"
+      + "      for (;;) {\n"
+      + "        var separated = ws();\n"
+      + "        if (p >= n) fail('Unterminated start tag <' + qname + '>');\n"
+      + "        var c = s.charAt(p);\n"
+      + "        if (c === '>') { p++; break; }\n"
+      + "        if (c === '/' && s.charAt(p + 1) === '>') { p += 2; empty = true; break; }\n"
+      + "        if (!separated) fail('Expected whitespace before attribute');\n"
+      + "        var attributeStart = p, attributeName = name();\n"
+      + "        ws();\n"
+      + "        if (s.charAt(p) !== '=') fail(\"Expected '=' after attribute name\");\n"
+      + "        p++;\n"
+      + "        ws();\n"
+      + "        var q = s.charAt(p);\n"
+      + "        if (q !== '\"' && q !== \"'\") fail('Expected quoted attribute value');\n"
+      + "        end = s.indexOf(q, p + 1);\n"
+      + "        if (end < 0) { p = n; fail('Unterminated attribute value'); }\n"
+      + "        var lt = s.indexOf('<', p + 1);\n"
+      + "        if (lt >= 0 && lt < end) { p = lt; fail(\"'<' in attribute value\"); }\n"
+      + "        for (var k = 0; k < attributes.length; k += 2) {\n"
+      + "          if (attributes[k] === attributeName) {\n"
+      + "            p = attributeStart;\n"
+      + "            fail('Duplicate attribute ' + attributeName);\n"
+      + "          }\n"
+      + "        }\n"
+      + "        attributes.push(attributeName, decode(p + 1, end, true));\n"
+      + "        p = end + 1;\n"
+      + "      }\n"
+      + "      var scope = scopes[scopes.length - 1];\n"
+      + "      for (k = 0; k < attributes.length; k += 2) {\n"
+      + "        var an = attributes[k];\n"
+      + "        if (an === 'xmlns' || an.substring(0, 6) === 'xmlns:') {\n"
+      + "          if (scope === scopes[scopes.length - 1]) scope = Object.create(scope);\n"
+      + "          scope[an === 'xmlns' ? '' : an.substring(6)] = attributes[k + 1];\n"
+      + "        }\n"
+      + "      }\n"
+      + "      var colon = qname.indexOf(':');\n"
+      + "      var uri = scope[colon < 0 ? '' : qname.substring(0, colon)];\n"
+      + "      if (uri === undefined) { p = start; fail('Unbound prefix in <' + qname + '>'); }\n"
+      + "      ops.push(1, uri ? intern(uri) : -1, intern(qname), attributes.length / 2);\n"
+      + "      for (k = 0; k < attributes.length; k += 2) {\n"
+      + "        an = attributes[k];\n"
+      + "        colon = an.indexOf(':');\n"
+      + "        uri = an === 'xmlns' ? XMLNS : colon < 0 ? '' : scope[an.substring(0, colon)];\n"
+      + "        if (uri === undefined) { p = start; fail('Unbound prefix in ' + an); }\n"
+      + "        ops.push(uri ? intern(uri) : -1, intern(an), text(attributes[k + 1]));\n"
+      + "      }\n"
+      + "      root = true;\n"
+      + "      if (empty) {\n"
+      + "        ops.push(2);\n"
+      + "      } else {\n"
+      + "        stack.push(qname);\n"
+      + "        scopes.push(scope);\n"
+      + "      }\n"
+      + "    }\n"
+      + "  }\n"
+      + "  if (stack.length) fail('Unclosed element <' + stack[stack.length - 1] + '>');\n"
+      + "  if (!root) fail('No root element');\n"
+      + "  var ends = new Int32Array(strings.length), length = 0;\n"
+      + "  for (var i = 0; i < strings.length; i++) ends[i] = length += strings[i].length;\n"
+      + "  return {ops: new Int32Array(ops), ends: ends, chars: strings.join('')};\n"
+      + "}\n";
+
+  @JsFunction
+  interface EventHandler {
+    void onEvent(MessageEvent event);
+  }
+
+  @JsFunction
+  interface Task {
+    void run();
+  }
+
+  @JsType(isNative = true, name = "Worker", namespace = JsPackage.GLOBAL)
+  private static class Worker {
+    EventHandler onmessage;
+    EventHandler onerror;
+
+    Worker(String url) {
+    }
+
+    native void postMessage(Object message);
+  }
+
+  @JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
+  private static class MessageEvent {
+    JsArrayLike<Object> data;
+  }
+
+  @JsType(isNative = true, name = "Blob", namespace = JsPackage.GLOBAL)
+  private static class Blob {
+    Blob(String[] parts, BlobOptions options) {
+    }
+  }
+
+  @JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
+  private static class BlobOptions {
+    String type;
+  }
+
+  @JsType(isNative = true, name = "URL", namespace = JsPackage.GLOBAL)
+  private static class URL {
+    static native String createObjectURL(Blob blob);
+  }
+
+  @JsType(isNative = true, name = "Function", namespace = JsPackage.GLOBAL)
+  private static class Function {
+    Function(String parameter, String body) {
+    }
+
+    native Object call(Object self, Object argument);
+  }
+
+  /**
+   * The output of the tokenizer: the operations, the end of each string of
+   * the string table and the strings joined together.
+   */
+  @JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
+  static class Tokens {
+    Object ops;
+    Object ends;
+    String chars;
+  }
+
+  @JsType(isNative = true, name = "Int32Array", namespace = JsPackage.GLOBAL)
+  private static class Int32Array {
+    Int32Array(Object buffer) {
+    }
+  }
+
+  @JsMethod(namespace = JsPackage.GLOBAL)
+  private static native double setTimeout(Task task, double delay);
+
+  private static WorkerPool instance;
+  private static boolean unavailable;
+
+  /**
+   * Parses <code>contents</code> in a worker, or on the main thread after a
+   * timeout if this browser cannot run the workers.
+   */
+  static void parse(final XMLParserImpl impl, final String contents,
+      final ParseCallback callback) {
+    if (instance == null && !unavailable) {
+      try {
+        instance = isSupported() ? new WorkerPool(impl) : null;
+      } catch (Exception e) {
+        // e.g. blob: URLs are not supported, parse on the main thread instead
+      }
+      unavailable = instance == null;
+    }
+    if (instance == null || instance.failed) {
+      setTimeout(() -> impl.parseNow(contents, callback), 0);
+    } else {
+      instance.submit(contents, callback);
+    }
+  }
+
+  /**
+   * Runs the tokenizer of {@link #WORKER_SCRIPT} on the current thread, so
+   * that tests can compare it with {@link XmlScanner}. The script is run with
+   * its own <code>onmessage</code>, so the global one is left alone.
+   */
+  static Tokens tokenize(String contents) {
+    Function tokenizer = Js.uncheckedCast(
+        new Function("onmessage", WORKER_SCRIPT + "return tokenize;").call(null, null));
+    return Js.uncheckedCast(tokenizer.call(null, contents));
+  }
+
+  /**
+   * Builds the document of <code>contents</code> from <code>tokens</code> on
+   * the current thread and reports it to <code>callback</code>, as for the
+   * output of a worker.
+   */
+  static void build(String contents, Tokens tokens, ParseCallback callback) {
+    new DocumentBuilder(new Request(contents, callback), Js.asArrayLike(tokens.ops),
+        Js.asArrayLike(tokens.ends), tokens.chars).run();
+  }
+
+  private static boolean isSupported() {
+    JsPropertyMap<Object> global = Js.asPropertyMap(DomGlobal.window);
+    return global.has("Worker") && global.has("Blob") && global.has("URL")
+        && global.has("Int32Array");
+  }
+
+  private final XMLParserImpl impl;
+  private final String scriptUrl;
+  private final int maxWorkers;
+  private final List<PooledWorker> workers = new ArrayList<PooledWorker>();
+  private int nextId;
+  private boolean failed;
+
+  private WorkerPool(XMLParserImpl impl) {
+    this.impl = impl;
+    BlobOptions options = new BlobOptions();
+    options.type = "text/javascript";
+    scriptUrl = URL.createObjectURL(new Blob(new String[] {WORKER_SCRIPT}, options));
+    Object cores = Js.asPropertyMap(DomGlobal.navigator).get("hardwareConcurrency");
+    maxWorkers = Math.max(1, Math.min(MAX_WORKERS, cores == null ? 2 : Js.asInt(cores)));
+  }
+
+  private void submit(String contents, ParseCallback callback) {
+    PooledWorker worker = null;
+    for (PooledWorker candidate : workers) {
+      if (worker == null || candidate.pendingChars < worker.pendingChars) {
+        worker = candidate;
+      }
+    }
+    if ((worker == null || worker.pendingChars > 0) && workers.size() < maxWorkers) {
+      worker = new PooledWorker();
+      workers.add(worker);
+    }
+    worker.submit(nextId++, contents, callback);
+  }
+
+  /**
+   * Gives up on workers, e.g. when the script could not be loaded, and parses
+   * the pending documents on the main thread, one per task.
+   */
+  private void fail() {
+    failed = true;
+    for (PooledWorker worker : workers) {
+      for (Request request : worker.pending.values()) {
+        parseLater(request);
+      }
+      worker.pending.clear();
+    }
+  }
+
+  /**
+   * Parses the document of <code>request</code> on the main thread in a task
+   * of its own.
+   */
+  private void parseLater(final Request request) {
+    setTimeout(() -> impl.parseNow(request.contents, request.callback), 0);
+  }
+
+  private static class Request {
+    final String contents;
+    final ParseCallback callback;
+
+    Request(String contents, ParseCallback callback) {
+      this.contents = contents;
+      this.callback = callback;
+    }
+  }
+
+  private class PooledWorker {
+    private final Worker worker = new Worker(scriptUrl);
+    private final Map<Integer, Request> pending = new HashMap<Integer, Request>();
+    private int pendingChars;
+
+    PooledWorker() {
+      worker.onmessage = this::onMessage;
+      worker.onerror = event -> fail();
+    }
+
+    void submit(int id, String contents, ParseCallback callback) {
+      pending.put(id, new Request(contents, callback));
+      pendingChars += contents.length();
+      // ids are sent as doubles, which are plain numbers in JavaScript
+      worker.postMessage(new Object[] {(double) id, contents});
+    }
+
+    private void onMessage(MessageEvent event) {
+      JsArrayLike<Object> data = event.data;
+      Request request = pending.remove(Js.asInt(data.getAt(0)));
+      if (request == null) {
+        return;
+      }
+      pendingChars -= request.contents.length();
+      if (data.getAt(4) != null) {
+        // report the error of the main thread parser, which may also differ
+        // on whether the document is well-formed at all
+        parseLater(request);
+        return;
+      }
+      new DocumentBuilder(request, Js.asArrayLike(new Int32Array(data.getAt(1))),
+          Js.asArrayLike(new Int32Array(data.getAt(2))), Js.asString(data.getAt(3))).run();
+    }
+  }
+
+  /**
+   * Builds the native document from the worker output, yielding to the event
+   * loop every {@link #SLICE_MILLIS}.
+   */
+  private static class DocumentBuilder {
+    private final Request request;
+    private final JsArrayLike<Object> ops;
+    private final JsArrayLike<Object> ends;
+    private final String chars;
+    private final NativeDocumentImpl document = JsHelper.createDocumentImpl();
+    private NativeNodeImpl parent = document;
+    private int pos;
+
+    DocumentBuilder(Request request, JsArrayLike<Object> ops, JsArrayLike<Object> ends,
+        String chars) {
+      this.request = request;
+      this.ops = ops;
+      this.ends = ends;
+      this.chars = chars;
+    }
+
+    void run() {
+      long deadline = System.currentTimeMillis() + SLICE_MILLIS;
+      int length = ops.getLength();
+      int steps = 0;
+      try {
+        while (pos < length) {
+          step();
+          if (++steps % 256 == 0 && System.currentTimeMillis() > deadline) {
+            setTimeout(this::run, 0);
+            return;
+          }
+        }
+      } catch (Exception e) {
+        // e.g. a NamespaceError for a name the worker tokenizer accepts
+        request.callback.onFailure(new DOMParseException(request.contents, e));
+        return;
+      }
+      request.callback.onSuccess((Document) NodeImpl.build(document));
+    }
+
+    private void step() {
+      switch (next()) {
+        case ELEMENT:
+          // names without a namespace go through the plain methods, which
+          // leave the namespace null rather than passing null to the engine
+          String namespaceURI = string(next());
+          NativeElementImpl element = namespaceURI == null
+              ? document.createElement(string(next()))
+              : document.createElementNS(namespaceURI, string(next()));
+          for (int i = next(); i > 0; i--) {
+            namespaceURI = string(next());
+            if (namespaceURI == null) {
+              element.setAttribute(string(next()), string(next()));
+            } else {
+              element.setAttributeNS(namespaceURI, string(next()), string(next()));
+            }
+          }
+          parent.appendChild(element);
+          parent = element;
+          break;
+        case END:
+          parent = parent.parentNode;
+          break;
+        case TEXT:
+          parent.appendChild(document.createTextNode(string(next())));
+          break;
+        case CDATA:
+          parent.appendChild(document.createCDATASection(string(next())));
+          break;
+        case COMMENT:
+          parent.appendChild(document.createComment(string(next())));
+          break;
+        case PROCESSING_INSTRUCTION:
+          parent.appendChild(document.createProcessingInstruction(string(next()), string(next())));
+          break;
+        default:
+          throw new IllegalStateException("Unknown operation");
+      }
+    }
+
+    private int next() {
+      return Js.asInt(ops.getAt(pos++));
+    }
+
+    private String string(int index) {
+      if (index < 0) {
+        return null;
+      }
+      return chars.substring(index == 0 ? 0 : Js.asInt(ends.getAt(index - 1)),
+          Js.asInt(ends.getAt(index)));
+    }
+  }
+}
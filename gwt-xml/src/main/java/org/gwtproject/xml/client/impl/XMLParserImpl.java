@@ -16,6 +16,11 @@
 package org.gwtproject.xml.client.impl;
 
 import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.NodeList;
+import org.gwtproject.xml.client.ParseCallback;
+import org.gwtproject.xml.client.ParseOptions;
+import org.gwtproject.xml.client.SerializeOptions;
 import org.gwtproject.xml.client.impl.DocumentImpl.NativeDocumentImpl;
 import org.gwtproject.xml.client.impl.ElementImpl.NativeElementImpl;
 import org.gwtproject.xml.client.impl.NodeImpl.NativeNodeImpl;
@@ -23,12 +28,15 @@ import org.gwtproject.xml.client.impl.NodeListImpl.NativeNodeListImpl;
 
 import jsinterop.annotations.JsPackage;
 import jsinterop.annotations.JsType;
+import jsinterop.base.Js;
+
+import java.util.List;
 
 /**
  * Native implementation associated with
  * {@link org.gwtproject.xml.client.XMLParser}.
  */
-public abstract class XMLParserImpl {
+public abstract class XMLParserImpl extends XMLParserImplBase {
 
   static class XMLParserImplIE8And9 extends XMLParserImpl {
 
@@ -37,6 +45,7 @@ public abstract class XMLParserImpl {
       boolean preserveWhiteSpace;
       native void setProperty(String name , String value);
       native boolean loadXML(String content);
+      native NativeNodeImpl createNode(int type, String name, String namespaceURI);
       ParseError parseError;
     }
 
@@ -64,10 +73,52 @@ public abstract class XMLParserImpl {
       return o.nodeFromID(elementId);
     }
 
+    @Override
+    protected String getAttributeNSImpl(NativeElementImpl o, String namespaceURI,
+        String localName) {
+      NativeNodeImpl attr = o.attributes.getQualifiedItem(localName,
+          namespaceURI == null ? "" : namespaceURI);
+      return attr == null ? null : attr.nodeValue;
+    }
+
     @Override
     protected NativeNodeListImpl getElementsByTagNameImpl(NativeNodeImpl o,
         String tagName) {
-      return o.selectNodes(".//*[local-name()='" + tagName + "']");
+      return o.selectNodes(".//*[local-name()=" + literal(tagName) + "]");
+    }
+
+    @Override
+    protected NativeNodeListImpl getElementsByTagNameNSImpl(NativeNodeImpl o,
+        String namespaceURI, String localName) {
+      StringBuilder xpath = new StringBuilder(".//*");
+      if (!"*".equals(localName)) {
+        xpath.append("[local-name()=").append(literal(localName)).append(']');
+      }
+      if (!"*".equals(namespaceURI)) {
+        xpath.append("[namespace-uri()=").append(literal(namespaceURI == null ? "" : namespaceURI))
+            .append(']');
+      }
+      return o.selectNodes(xpath.toString());
+    }
+
+    /**
+     * Quotes <code>value</code> as an XPath string literal. XPath 1.0 has no
+     * escapes, so a value holding both kinds of quotes is built with
+     * <code>concat()</code>.
+     */
+    private static String literal(String value) {
+      if (value.indexOf('\'') < 0) {
+        return "'" + value + "'";
+      }
+      if (value.indexOf('"') < 0) {
+        return '"' + value + '"';
+      }
+      return "concat('" + value.replace("'", "', \"'\", '") + "')";
+    }
+
+    @Override
+    protected String getLocalNameImpl(NativeNodeImpl node) {
+      return node.baseName;
     }
 
     @Override
@@ -75,6 +126,57 @@ public abstract class XMLParserImpl {
       return node.prefix;
     }
 
+    @Override
+    protected NodeList selectNodesImpl(NativeNodeImpl o, String xpath) {
+      return new NodeListImpl(o.selectNodes(xpath));
+    }
+
+    /**
+     * MSXML has no <code>setAttributeNS</code>, so the attribute is created
+     * with <code>createNode</code> unless it exists.
+     */
+    @Override
+    protected void setAttributeNSImpl(NativeElementImpl o, String namespaceURI,
+        String qualifiedName, String value) {
+      String uri = namespaceURI == null ? "" : namespaceURI;
+      NativeNodeImpl attr = o.attributes.getQualifiedItem(
+          qualifiedName.substring(qualifiedName.indexOf(':') + 1), uri);
+      if (attr == null) {
+        NativeInternalDocumentImpl document = Js.uncheckedCast(o.ownerDocument);
+        attr = document.createNode(Node.ATTRIBUTE_NODE, qualifiedName, uri);
+        o.setAttributeNode(attr);
+      }
+      attr.nodeValue = value;
+    }
+
+    @Override
+    protected NativeNodeImpl selectSingleNodeImpl(NativeNodeImpl o, String xpath) {
+      return o.selectSingleNode(xpath);
+    }
+
+    /**
+     * MSXML only selects nodes, so this is the number value of the text of the
+     * first node selected.
+     */
+    @Override
+    protected double evaluateNumberImpl(NativeNodeImpl o, String xpath) {
+      try {
+        return Double.parseDouble(evaluateStringImpl(o, xpath).trim());
+      } catch (NumberFormatException e) {
+        return Double.NaN;
+      }
+    }
+
+    /**
+     * MSXML only selects nodes, so this is the text of the first node
+     * selected.
+     */
+    @Override
+    protected String evaluateStringImpl(NativeNodeImpl o, String xpath) {
+      NativeNodeImpl node = o.selectSingleNode(xpath);
+      return node == null ? "" : node.text;
+    }
+
     @Override
     protected NativeNodeImpl importNodeImpl(
         NativeDocumentImpl o, NativeNodeImpl importedNode, boolean deep) {
@@ -94,23 +196,13 @@ public abstract class XMLParserImpl {
       }
       return doc;
     }
-
-    @Override
-    protected String toStringImpl(ProcessingInstructionImpl node) {
-      return toStringImpl((NodeImpl) node);
-    }
-
-    @Override
-    protected String toStringImpl(NodeImpl node) {
-      return node.node.xml;
-    }
   }
 
   /**
    * This class implements the methods for standard browsers that use the
    * DOMParser model of XML parsing.
    */
-  private static class XMLParserImplStandard extends XMLParserImpl {
+  static class XMLParserImplStandard extends XMLParserImpl {
 
     @JsType(isNative = true, name = "DOMParser", namespace = JsPackage.GLOBAL)
     static class DOMParser {
@@ -129,18 +221,110 @@ public abstract class XMLParserImpl {
       return document.getElementById(id);
     }
 
+    /**
+     * Older DOMs return an empty string for a missing attribute, so an empty
+     * value is only returned if the attribute exists.
+     */
+    @Override
+    protected String getAttributeNSImpl(NativeElementImpl o, String namespaceURI,
+        String localName) {
+      String value = o.getAttributeNS(namespaceURI, localName);
+      if (value == null || (value.isEmpty() && !o.hasAttributeNS(namespaceURI, localName))) {
+        return null;
+      }
+      return value;
+    }
+
     @Override
     protected NativeNodeListImpl getElementsByTagNameImpl(NativeNodeImpl o, String tagName) {
       return o.getElementsByTagNameNS("*", tagName);
     }
 
+    @Override
+    protected NativeNodeListImpl getElementsByTagNameNSImpl(NativeNodeImpl o,
+        String namespaceURI, String localName) {
+      return o.getElementsByTagNameNS(namespaceURI, localName);
+    }
+
+    /**
+     * Nodes created without a namespace have their qualified name as native
+     * local name, so it is only used if it has no prefix.
+     */
+    @Override
+    protected String getLocalNameImpl(NativeNodeImpl node) {
+      String localName = node.localName;
+      if (localName != null && localName.indexOf(':') == -1) {
+        return localName;
+      }
+      String fullName = node.nodeName;
+      return fullName.substring(fullName.indexOf(':') + 1);
+    }
+
+    /**
+     * Nodes created without a namespace have no native prefix, so it is then
+     * taken from the qualified name.
+     */
     @Override
     protected String getPrefixImpl(NativeNodeImpl node) {
+      String prefix = node.prefix;
+      if (prefix != null) {
+        return prefix;
+      }
       String fullName = node.nodeName;
-      if (fullName != null && fullName.indexOf(":") != -1) {
-        return fullName.split(":", 2)[0];
+      int colon = fullName == null ? -1 : fullName.indexOf(':');
+      return colon == -1 ? null : fullName.substring(0, colon);
+    }
+
+    @Override
+    protected NativeNodeImpl querySelectorImpl(NativeNodeImpl o, String selectors) {
+      if (!hasSelectors(o)) {
+        return super.querySelectorImpl(o, selectors);
       }
-      return null;
+      return o.querySelector(selectors);
+    }
+
+    /**
+     * The browsers return a static list.
+     */
+    @Override
+    protected NodeList querySelectorAllImpl(NativeNodeImpl o, String selectors) {
+      if (!hasSelectors(o)) {
+        return super.querySelectorAllImpl(o, selectors);
+      }
+      return new NodeListImpl(o.querySelectorAll(selectors));
+    }
+
+    /**
+     * Some engines only implement the selector API on HTML documents.
+     */
+    private static boolean hasSelectors(NativeNodeImpl o) {
+      return Js.isTruthy(Js.asPropertyMap(o).get("querySelectorAll"));
+    }
+
+    @Override
+    protected NodeList selectNodesImpl(NativeNodeImpl o, String xpath) {
+      return NativeXPath.selectNodes(o, xpath);
+    }
+
+    @Override
+    protected NativeNodeImpl selectSingleNodeImpl(NativeNodeImpl o, String xpath) {
+      return NativeXPath.selectSingleNode(o, xpath);
+    }
+
+    @Override
+    protected void setAttributeNSImpl(NativeElementImpl o, String namespaceURI,
+        String qualifiedName, String value) {
+      o.setAttributeNS(namespaceURI, qualifiedName, value);
+    }
+
+    @Override
+    protected double evaluateNumberImpl(NativeNodeImpl o, String xpath) {
+      return NativeXPath.evaluateNumber(o, xpath);
+    }
+
+    @Override
+    protected String evaluateStringImpl(NativeNodeImpl o, String xpath) {
+      return NativeXPath.evaluateString(o, xpath);
     }
 
     @Override
@@ -162,33 +346,33 @@ public abstract class XMLParserImpl {
 
       return result;
     }
-
-    @Override
-    protected String toStringImpl(ProcessingInstructionImpl node) {
-      return toStringImpl((NodeImpl) node);
-    }
-
-    @Override
-    protected String toStringImpl(NodeImpl node) {
-      return new XMLSerializer().serializeToString(node.node);
-    }
-
-    @JsType(isNative = true, name = "XMLSerializer", namespace = JsPackage.GLOBAL)
-    private static class XMLSerializer {
-      native String serializeToString(NativeNodeImpl node);
-    }
   }
 
   /**
    * This class is Safari implementation of the XMLParser interface.
    */
-  private static class XMLParserImplSafari extends XMLParserImplStandard {
+  static class XMLParserImplSafari extends XMLParserImplStandard {
 
     @Override
     protected NativeNodeListImpl getElementsByTagNameImpl(NativeNodeImpl o, String tagName) {
       return o.getElementsByTagName(tagName);
     }
 
+    /**
+     * The nodes read to find the error report.
+     */
+    @JsType(isNative = true, name = "Object", namespace = JsPackage.GLOBAL)
+    static class NativeReportNode {
+      NativeReportNode documentElement;
+      NativeReportNode firstChild;
+      NativeReportNode nextSibling;
+      String namespaceURI;
+      String nodeName;
+      String textContent;
+    }
+
+    private static final String XHTML_NAMESPACE = "http://www.w3.org/1999/xhtml";
+
     /**
      * <html><body><parsererror style="white-space: pre; border: 2px solid #c77;
      * padding: 0 1em 0 1em; margin: 1em; background-color: #fdd; color: black" >
@@ -202,6 +386,9 @@ public abstract class XMLParserImpl {
      *
      * </parsererror></body></html> is all you get from Safari. Hope that nobody wants to send one
      * of those error reports over the wire to be parsed by safari...
+     * <p>
+     * When the input has a document element, the report is inserted as its first child instead.
+     * Only these positions are looked at, so a valid document is not searched.
      *
      * @param contents contents
      * @return parsed JavaScript object
@@ -211,48 +398,98 @@ public abstract class XMLParserImpl {
     protected NativeDocumentImpl parseImpl(String contents) {
       NativeDocumentImpl result = domParser.parseFromString(contents, "text/xml");
 
-      NativeNodeListImpl parseErrors = result.getElementsByTagName("parsererror");
-      if (parseErrors.length > 0) {
-        NativeNodeImpl error = parseErrors.item(0);
-        if ("body".equals(error.parentNode.tagName)) {
-          throw new RuntimeException(error.childNodes.item(1).innerHTML);
-        }
+      NativeReportNode report = findReport(Js.<NativeReportNode>uncheckedCast(result));
+      if (report != null) {
+        throw new RuntimeException(reportMessage(report));
       }
 
       return result;
     }
-  }
 
-  private static XMLParserImpl impl;
+    private static NativeReportNode findReport(NativeReportNode document) {
+      NativeReportNode root = document.documentElement;
+      if (root == null) {
+        return null;
+      }
+      if (isReport(root)) {
+        return root;
+      }
+      if (isReport(root.firstChild)) {
+        return root.firstChild;
+      }
+      if ("html".equals(root.nodeName)) {
+        for (NativeReportNode child = root.firstChild; child != null; child = child.nextSibling) {
+          if ("body".equals(child.nodeName)) {
+            return isReport(child.firstChild) ? child.firstChild : null;
+          }
+        }
+      }
+      return null;
+    }
 
-  public static XMLParserImpl getInstance() {
-    if (impl == null) {
-      impl = createImpl();
+    private static boolean isReport(NativeReportNode node) {
+      return node != null && "parsererror".equals(node.nodeName)
+          && XHTML_NAMESPACE.equals(node.namespaceURI);
     }
 
-    return impl;
+    /**
+     * Returns the text of the <code>div</code> holding the message, which
+     * names the line and column of the error.
+     */
+    private static String reportMessage(NativeReportNode report) {
+      for (NativeReportNode child = report.firstChild; child != null; child = child.nextSibling) {
+        if ("div".equals(child.nodeName)) {
+          return child.textContent;
+        }
+      }
+      return report.textContent;
+    }
   }
 
-  private static XMLParserImpl createImpl() {
+  private static XMLParserImpl impl;
+
+  /**
+   * Creates the implementation for the browser the code was compiled for,
+   * which the static methods below delegate to.
+   */
+  static XMLParserImpl createImpl() {
     String userAgent = System.getProperty("user.agent", "safari");
 
     if ("ie".equals(userAgent) || "ie9".equals(userAgent)) {
-      return new XMLParserImplIE8And9();
+      impl = new XMLParserImplIE8And9();
     } else if ("safari".equals(userAgent)) {
-      return new XMLParserImplSafari();
+      impl = new XMLParserImplSafari();
     } else {
-      return new XMLParserImplStandard();
+      impl = new XMLParserImplStandard();
     }
+    return impl;
   }
 
   static NativeElementImpl getElementById(NativeDocumentImpl document, String id) {
     return impl.getElementByIdImpl(document, id);
   }
 
+  static String getAttributeNS(NativeElementImpl o, String namespaceURI, String localName) {
+    return impl.getAttributeNSImpl(o, namespaceURI, localName);
+  }
+
   static NativeNodeListImpl getElementsByTagName(NativeNodeImpl o, String tagName) {
     return impl.getElementsByTagNameImpl(o, tagName);
   }
 
+  static NativeNodeListImpl getElementsByTagNameNS(NativeNodeImpl o, String namespaceURI,
+      String localName) {
+    return impl.getElementsByTagNameNSImpl(o, namespaceURI, localName);
+  }
+
+  static String getLocalName(NativeNodeImpl node) {
+    short type = node.getNodeType();
+    if (type != Node.ELEMENT_NODE && type != Node.ATTRIBUTE_NODE) {
+      return null;
+    }
+    return impl.getLocalNameImpl(node);
+  }
+
   static String getPrefix(NativeNodeImpl node) {
     return impl.getPrefixImpl(node);
   }
@@ -262,17 +499,48 @@ public abstract class XMLParserImpl {
     return impl.importNodeImpl(document, importedNode, deep);
   }
 
+  static NativeNodeImpl querySelector(NativeNodeImpl o, String selectors) {
+    return impl.querySelectorImpl(o, selectors);
+  }
+
+  static NodeList querySelectorAll(NativeNodeImpl o, String selectors) {
+    return impl.querySelectorAllImpl(o, selectors);
+  }
+
+  static void setAttributeNS(NativeElementImpl o, String namespaceURI, String qualifiedName,
+      String value) {
+    impl.setAttributeNSImpl(o, namespaceURI, qualifiedName, value);
+  }
+
+  static NodeList selectNodes(NativeNodeImpl o, String xpath) {
+    return impl.selectNodesImpl(o, xpath);
+  }
+
+  static NativeNodeImpl selectSingleNode(NativeNodeImpl o, String xpath) {
+    return impl.selectSingleNodeImpl(o, xpath);
+  }
+
+  static double evaluateNumber(NativeNodeImpl o, String xpath) {
+    return impl.evaluateNumberImpl(o, xpath);
+  }
+
+  static String evaluateString(NativeNodeImpl o, String xpath) {
+    return impl.evaluateStringImpl(o, xpath);
+  }
+
   /**
    * Not globally instantable.
    */
   XMLParserImpl() {
   }
 
-  public final Document createDocument() {
+  @Override
+  public Document createDocument() {
     return (Document) NodeImpl.build(createDocumentImpl());
   }
 
-  public final Document parse(String contents) {
+  @Override
+  public Document parse(String contents) {
     try {
       return (Document) NodeImpl.build(parseImpl(contents));
     } catch (Exception e) {
@@ -280,13 +548,84 @@ public abstract class XMLParserImpl {
     }
   }
 
+  /**
+   * Browser nodes are read directly, see {@link NativeXmlWriter}.
+   */
+  @Override
+  public String serialize(Node node, SerializeOptions options) {
+    if (!(node instanceof NodeImpl)) {
+      return super.serialize(node, options);
+    }
+    StringBuilder b = new StringBuilder();
+    new NativeXmlWriter(options).write(
+        Js.<NativeXmlWriter.NativeNode>uncheckedCast(((NodeImpl) node).node), b);
+    return b.toString();
+  }
+
+  /**
+   * Browser nodes are read and changed directly.
+   */
+  @Override
+  void filter(Node node, ParseOptions options, boolean mergeText) {
+    if (!(node instanceof NodeImpl)) {
+      super.filter(node, options, mergeText);
+    } else if (TreeFilter.changesTree(options)) {
+      new TreeFilter.NativeFilter(options, mergeText).filter(
+          Js.<TreeFilter.NativeFilter.NativeNode>uncheckedCast(((NodeImpl) node).node));
+    }
+  }
+
+  /**
+   * Browser nodes are read directly.
+   */
+  @Override
+  public NodeList select(PathExpression path, Node context, int limit) {
+    if (!(context instanceof NodeImpl)) {
+      return super.select(path, context, limit);
+    }
+    List<PathMatcher.NativeMatcher.NativeNode> found = new PathMatcher.NativeMatcher(path)
+        .select(Js.<PathMatcher.NativeMatcher.NativeNode>uncheckedCast(
+            ((NodeImpl) context).node), limit);
+    Node[] nodes = new Node[found.size()];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = NodeImpl.build(Js.<NativeNodeImpl>uncheckedCast(found.get(i)));
+    }
+    return new StaticNodeListImpl(nodes);
+  }
+
+  @Override
+  public int count(PathExpression path, Node context) {
+    if (!(context instanceof NodeImpl)) {
+      return super.count(path, context);
+    }
+    return new PathMatcher.NativeMatcher(path).select(
+        Js.<PathMatcher.NativeMatcher.NativeNode>uncheckedCast(((NodeImpl) context).node),
+        null, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Parses <code>contents</code> in a worker, see {@link WorkerPool}.
+   */
+  @Override
+  public void parseAsync(String contents, ParseCallback callback) {
+    WorkerPool.parse(this, contents, callback);
+  }
+
   protected abstract NativeDocumentImpl createDocumentImpl();
 
   protected abstract NativeElementImpl getElementByIdImpl(NativeDocumentImpl document, String id);
 
+  protected abstract String getAttributeNSImpl(NativeElementImpl element, String namespaceURI,
+      String localName);
+
   protected abstract NativeNodeListImpl getElementsByTagNameImpl(
       NativeNodeImpl node, String tagName);
 
+  protected abstract NativeNodeListImpl getElementsByTagNameNSImpl(
+      NativeNodeImpl node, String namespaceURI, String localName);
+
+  protected abstract String getLocalNameImpl(NativeNodeImpl node);
+
   protected abstract String getPrefixImpl(NativeNodeImpl node);
 
   protected abstract NativeNodeImpl importNodeImpl(
@@ -294,7 +633,30 @@ public abstract class XMLParserImpl {
 
   protected abstract NativeDocumentImpl parseImpl(String contents);
 
-  abstract String toStringImpl(ProcessingInstructionImpl node);
+  /**
+   * Matches the selectors with {@link PathMatcher}, for the browsers that have
+   * no selector engine for XML, such as MSXML.
+   */
+  protected NativeNodeImpl querySelectorImpl(NativeNodeImpl o, String selectors) {
+    List<PathMatcher.NativeMatcher.NativeNode> found = new PathMatcher.NativeMatcher(
+        PathExpression.compileSelector(selectors)).select(
+            Js.<PathMatcher.NativeMatcher.NativeNode>uncheckedCast(o), 1);
+    return found.isEmpty() ? null : Js.<NativeNodeImpl>uncheckedCast(found.get(0));
+  }
+
+  protected NodeList querySelectorAllImpl(NativeNodeImpl o, String selectors) {
+    return select(PathExpression.compileSelector(selectors), NodeImpl.build(o),
+        Integer.MAX_VALUE);
+  }
+
+  protected abstract NodeList selectNodesImpl(NativeNodeImpl o, String xpath);
+
+  protected abstract NativeNodeImpl selectSingleNodeImpl(NativeNodeImpl o, String xpath);
+
+  protected abstract void setAttributeNSImpl(NativeElementImpl o, String namespaceURI,
+      String qualifiedName, String value);
+
+  protected abstract double evaluateNumberImpl(NativeNodeImpl o, String xpath);
 
-  abstract String toStringImpl(NodeImpl node);
+  protected abstract String evaluateStringImpl(NativeNodeImpl o, String xpath);
 }
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.Element;
+import org.gwtproject.xml.client.IncrementalParser;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.NodeList;
+import org.gwtproject.xml.client.ParseCallback;
+import org.gwtproject.xml.client.ParseOptions;
+import org.gwtproject.xml.client.SerializeOptions;
+import org.gwtproject.xml.client.XmlEventHandler;
+import org.gwtproject.xml.client.XmlReader;
+import org.gwtproject.xml.client.XmlStreamWriter;
+
+/**
+ * Implementation associated with {@link org.gwtproject.xml.client.XMLParser},
+ * extended by the browser implementation, {@link XMLParserImpl}, and the JRE
+ * implementation. The operations that work on any {@link Node} live here;
+ * subclasses read their own nodes directly and leave the others to this
+ * class.
+ */
+public abstract class XMLParserImplBase {
+
+  /**
+   * Selects the implementation for the browser the code was compiled for.
+   */
+  static class PlatformSupport {
+    XMLParserImplBase createJreImpl() {
+      return null;
+    }
+  }
+
+  /**
+   * Selects the JRE implementation when running on the JVM. The override is
+   * stripped when compiling to JavaScript, leaving the browser selection.
+   */
+  static class JrePlatformSupport extends PlatformSupport {
+    @GwtIncompatible
+    @Override
+    XMLParserImplBase createJreImpl() {
+      return new XMLParserImplJre();
+    }
+  }
+
+  /**
+   * Holds the options of {@link #removeWhitespace(Node)}.
+   */
+  static class WhitespaceHolder {
+    static final ParseOptions options = new ParseOptions().setIgnoreWhitespaceText(true);
+  }
+
+  private static XMLParserImplBase impl;
+
+  public static XMLParserImplBase getInstance() {
+    if (impl == null) {
+      impl = createImpl();
+    }
+
+    return impl;
+  }
+
+  private static XMLParserImplBase createImpl() {
+    XMLParserImplBase jreImpl = new JrePlatformSupport().createJreImpl();
+    if (jreImpl != null) {
+      return jreImpl;
+    }
+    return XMLParserImpl.createImpl();
+  }
+
+  /**
+   * Returns the first element below <code>context</code> that matches the CSS
+   * selectors, for the implementations that have no selector engine, see
+   * {@link PathExpression#compileSelector}.
+   */
+  static Element matchSelector(Node context, String selectors) {
+    NodeList nodes = matchSelectors(context, selectors, 1);
+    return nodes.getLength() == 0 ? null : (Element) nodes.item(0);
+  }
+
+  /**
+   * Returns at most <code>limit</code> elements below <code>context</code>
+   * that match the CSS selectors, see {@link #matchSelector}.
+   */
+  static NodeList matchSelectors(Node context, String selectors, int limit) {
+    return getInstance().select(PathExpression.compileSelector(selectors), context, limit);
+  }
+
+  /**
+   * Not globally instantable.
+   */
+  XMLParserImplBase() {
+  }
+
+  public abstract Document createDocument();
+
+  public abstract Document parse(String contents);
+
+  /**
+   * Parses <code>contents</code> off the UI thread.
+   */
+  public abstract void parseAsync(String contents, ParseCallback callback);
+
+  /**
+   * Serializes <code>node</code>, see {@link XmlWriter}. Compact nodes are
+   * read directly, nodes of other implementations through the {@link Node}
+   * interface.
+   */
+  public String serialize(Node node, SerializeOptions options) {
+    StringBuilder b = new StringBuilder();
+    if (node instanceof CompactNodeImpl) {
+      CompactDocument store = ((CompactNodeImpl) node).store;
+      new CompactXmlWriter(store, options).write(store.box(((CompactNodeImpl) node).index), b);
+    } else {
+      new NodeXmlWriter(options).write(node, b);
+    }
+    return b.toString();
+  }
+
+  /**
+   * Parses <code>contents</code> and applies <code>options</code> to the
+   * document in one pass, see {@link TreeFilter}. Namespaces are always
+   * resolved unless a subclass says otherwise.
+   */
+  public Document parse(String contents, ParseOptions options) {
+    Document document;
+    try {
+      document = parse(contents);
+    } catch (DOMParseException e) {
+      if (!options.isRetainContentsOnError()) {
+        throw e;
+      }
+      throw new DOMParseException(contents, e.getCause(), true);
+    }
+    filter(document, options, true);
+    return document;
+  }
+
+  /**
+   * Removes the white space text nodes below <code>node</code>, see
+   * {@link TreeFilter}.
+   */
+  public void removeWhitespace(Node node) {
+    filter(node, WhitespaceHolder.options, false);
+  }
+
+  /**
+   * Applies the changes <code>options</code> ask for to the descendants of
+   * <code>node</code> through the {@link Node} interface.
+   */
+  void filter(Node node, ParseOptions options, boolean mergeText) {
+    if (TreeFilter.changesTree(options)) {
+      new TreeFilter.NodeFilter(options, mergeText).filter(node);
+    }
+  }
+
+  /**
+   * Returns at most <code>limit</code> nodes selected by <code>path</code>
+   * from <code>context</code> through the {@link Node} interface, see
+   * {@link PathMatcher}.
+   */
+  public NodeList select(PathExpression path, Node context, int limit) {
+    List<Node> nodes = new ArrayList<Node>();
+    new PathMatcher.NodeMatcher(path).select(context, nodes, limit);
+    return new StaticNodeListImpl(nodes.toArray(new Node[nodes.size()]));
+  }
+
+  /**
+   * Counts the nodes selected by <code>path</code> from <code>context</code>
+   * without collecting them.
+   */
+  public int count(PathExpression path, Node context) {
+    return new PathMatcher.NodeMatcher(path).select(context, null, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Parses <code>contents</code> into a read-only document, see
+   * {@link CompactDocument}. This is the same on every platform.
+   */
+  public Document parseCompact(String contents) {
+    return CompactDocument.parse(contents);
+  }
+
+  /**
+   * Parses <code>contents</code> on the current thread and reports the result
+   * to <code>callback</code>.
+   */
+  void parseNow(String contents, ParseCallback callback) {
+    Document document;
+    try {
+      document = parse(contents);
+    } catch (DOMParseException e) {
+      callback.onFailure(e);
+      return;
+    }
+    callback.onSuccess(document);
+  }
+
+  /**
+   * Creates a reader over <code>contents</code>, see {@link XmlScanner}.
+   */
+  public XmlReader createReader(String contents) {
+    return new XmlScanner(contents);
+  }
+
+  /**
+   * Creates a writer appending to <code>b</code>, see
+   * {@link XmlStreamWriterImpl}. This is the same on every platform.
+   */
+  public XmlStreamWriter createWriter(StringBuilder b) {
+    return new XmlStreamWriterImpl(b);
+  }
+
+  /**
+   * Creates a parser for a document that arrives in chunks, see
+   * {@link XmlScanner}.
+   */
+  public IncrementalParser newIncrementalParser(XmlEventHandler handler) {
+    return new IncrementalParserImpl(handler);
+  }
+
+  /**
+   * Parses <code>contents</code> without building a document, see
+   * {@link XmlScanner}. This is the same on every platform.
+   */
+  public void parse(String contents, XmlEventHandler handler) {
+    XmlScanner.parse(contents, handler);
+  }
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.gwtproject.xml.client.Document;
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.NodeList;
+import org.gwtproject.xml.client.ParseCallback;
+import org.gwtproject.xml.client.ParseOptions;
+import org.gwtproject.xml.client.SerializeOptions;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Implementation of {@link org.gwtproject.xml.client.XMLParser} for code that
+ * runs on the JVM, backed by the JRE's own DOM. The factory is configured once
+ * and every thread reuses its own parser, so a parse costs no factory lookup.
+ */
+@GwtIncompatible
+class XMLParserImplJre extends XMLParserImplBase {
+
+  /**
+   * Reports warnings silently and fails on the errors a browser would reject
+   * the document for, instead of printing them to the console.
+   */
+  private static final ErrorHandler errorHandler = new ErrorHandler() {
+    @Override
+    public void warning(SAXParseException exception) {
+    }
+
+    @Override
+    public void error(SAXParseException exception) throws SAXParseException {
+      throw exception;
+    }
+
+    @Override
+    public void fatalError(SAXParseException exception) throws SAXParseException {
+      throw exception;
+    }
+  };
+
+  private static final DocumentBuilderFactory factory = createFactory(true);
+
+  /**
+   * Parsers are not thread safe, so each thread keeps one that is reused by
+   * all of its parses.
+   */
+  private static final ThreadLocal<DocumentBuilder> builders =
+      ThreadLocal.withInitial(() -> createBuilder(factory));
+
+  /**
+   * Holds the parsers that do not resolve namespaces, created on first use.
+   */
+  private static class PlainHolder {
+    static final DocumentBuilderFactory factory = createFactory(false);
+    static final ThreadLocal<DocumentBuilder> builders =
+        ThreadLocal.withInitial(() -> createBuilder(factory));
+  }
+
+  /**
+   * Runs {@link #parseAsync(String, ParseCallback)} on one daemon thread per
+   * core, created on first use.
+   */
+  private static class AsyncHolder {
+    static final ExecutorService executor = Executors.newFixedThreadPool(
+        Runtime.getRuntime().availableProcessors(), task -> {
+          Thread thread = new Thread(task, "gwt-xml-parser");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * Compiles XPath expressions and keeps them in an {@link XPathCache}.
+   * Neither is thread safe, so each thread keeps its own.
+   */
+  private static final class XPathCompiler {
+    static final ThreadLocal<XPathCompiler> compilers =
+        ThreadLocal.withInitial(XPathCompiler::new);
+
+    private static final String[] NO_NAMESPACES = new String[0];
+
+    private final XPath xpath = XPathFactory.newInstance().newXPath();
+    private final XPathCache<XPathExpression> cache = new XPathCache<>();
+
+    XPathExpression compile(org.w3c.dom.Node context, String expression)
+        throws XPathExpressionException {
+      String[] namespaces = XPathCache.usesPrefixes(expression)
+          ? namespaces(context) : NO_NAMESPACES;
+      String key = XPathCache.key(expression, namespaces);
+      XPathExpression compiled = cache.get(key);
+      if (compiled == null) {
+        xpath.setNamespaceContext(new NamespaceContext() {
+          @Override
+          public String getNamespaceURI(String prefix) {
+            return XPathCache.lookup(namespaces, prefix);
+          }
+
+          @Override
+          public String getPrefix(String namespaceURI) {
+            List<String> prefixes = XPathCache.prefixes(namespaces, namespaceURI);
+            return prefixes.isEmpty() ? null : prefixes.get(0);
+          }
+
+          @Override
+          public Iterator<String> getPrefixes(String namespaceURI) {
+            return XPathCache.prefixes(namespaces, namespaceURI).iterator();
+          }
+        });
+        compiled = xpath.compile(expression);
+        cache.put(key, compiled);
+      }
+      return compiled;
+    }
+
+    /**
+     * Returns the prefixes declared on the document element of
+     * <code>context</code> and their URIs in turn.
+     */
+    private static String[] namespaces(org.w3c.dom.Node context) {
+      org.w3c.dom.Document document = context.getNodeType() == Node.DOCUMENT_NODE
+          ? (org.w3c.dom.Document) context : context.getOwnerDocument();
+      org.w3c.dom.Element root = document.getDocumentElement();
+      if (root == null) {
+        return NO_NAMESPACES;
+      }
+      List<String> namespaces = new ArrayList<>();
+      org.w3c.dom.NamedNodeMap attributes = root.getAttributes();
+      for (int i = 0; i < attributes.getLength(); i++) {
+        org.w3c.dom.Node attr = attributes.item(i);
+        if (attr.getNodeName().startsWith("xmlns:")) {
+          namespaces.add(attr.getNodeName().substring(6));
+          namespaces.add(attr.getNodeValue());
+        }
+      }
+      return namespaces.toArray(new String[0]);
+    }
+  }
+
+  /**
+   * Evaluates <code>expression</code> against <code>context</code>, compiling
+   * it once per thread, see {@link XPathCache}.
+   */
+  static Object evaluate(org.w3c.dom.Node context, String expression, QName type)
+      throws XPathExpressionException {
+    return XPathCompiler.compilers.get().compile(context, expression).evaluate(context, type);
+  }
+
+  private static DocumentBuilderFactory createFactory(boolean namespaceAware) {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(namespaceAware);
+    factory.setXIncludeAware(false);
+    try {
+      // Like the browsers, never fetch external DTDs or entities.
+      factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+      factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+      factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+      factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+    } catch (ParserConfigurationException e) {
+      throw new IllegalStateException(e);
+    }
+    return factory;
+  }
+
+  private static DocumentBuilder createBuilder(DocumentBuilderFactory factory) {
+    try {
+      DocumentBuilder builder = factory.newDocumentBuilder();
+      builder.setErrorHandler(errorHandler);
+      return builder;
+    } catch (ParserConfigurationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Collects the descendant elements whose qualified or local name is
+   * <code>tagName</code>, matching both the standard and the Safari
+   * behaviour of the browser implementations. Unlike the browsers' lists, the
+   * list is collected once and does not change with the document: the JRE's
+   * DOM has no public way to tell that a subtree changed short of mutation
+   * events, which would slow down every change to the document.
+   */
+  static org.w3c.dom.NodeList getElementsByTagName(org.w3c.dom.Node root, String tagName) {
+    boolean any = "*".equals(tagName);
+    return getElements(root, element -> any || tagName.equals(element.getNodeName())
+        || tagName.equals(element.getLocalName()));
+  }
+
+  /**
+   * Collects the descendant elements with the namespace URI
+   * <code>namespaceURI</code> and the local name <code>localName</code>,
+   * either of which may be <code>*</code> to match any. Elements created
+   * without a namespace match their qualified name as local name, as in the
+   * browsers.
+   */
+  static org.w3c.dom.NodeList getElementsByTagNameNS(org.w3c.dom.Node root,
+      String namespaceURI, String localName) {
+    boolean anyNamespace = "*".equals(namespaceURI);
+    boolean anyName = "*".equals(localName);
+    String uri = namespaceURI == null || namespaceURI.isEmpty() ? null : namespaceURI;
+    return getElements(root, element -> (anyNamespace
+        || Objects.equals(uri, element.getNamespaceURI()))
+        && (anyName || localName.equals(localName(element))));
+  }
+
+  /**
+   * Returns the local name of an element or attribute, taken from its
+   * qualified name if it was created without a namespace.
+   */
+  static String localName(org.w3c.dom.Node node) {
+    String localName = node.getLocalName();
+    if (localName == null) {
+      String fullName = node.getNodeName();
+      return fullName.substring(fullName.indexOf(':') + 1);
+    }
+    return localName;
+  }
+
+  private static org.w3c.dom.NodeList getElements(org.w3c.dom.Node root,
+      Predicate<org.w3c.dom.Node> filter) {
+    final List<org.w3c.dom.Node> matches = new ArrayList<>();
+    org.w3c.dom.Node current = root.getFirstChild();
+    while (current != null) {
+      if (current.getNodeType() == Node.ELEMENT_NODE && filter.test(current)) {
+        matches.add(current);
+      }
+      org.w3c.dom.Node next = current.getFirstChild();
+      while (next == null && current != root) {
+        next = current.getNextSibling();
+        current = current.getParentNode();
+      }
+      current = next;
+    }
+    return new org.w3c.dom.NodeList() {
+      @Override
+      public org.w3c.dom.Node item(int index) {
+        return index < matches.size() ? matches.get(index) : null;
+      }
+
+      @Override
+      public int getLength() {
+        return matches.size();
+      }
+    };
+  }
+
+  @Override
+  public Document createDocument() {
+    return (Document) JreNodeImpl.build(builders.get().newDocument());
+  }
+
+  @Override
+  public Document parse(String contents) {
+    try {
+      InputSource source = new InputSource(new StringReader(contents));
+      return (Document) JreNodeImpl.build(builders.get().parse(source));
+    } catch (Exception e) {
+      throw new DOMParseException(contents, e);
+    }
+  }
+
+  /**
+   * Parses on a thread pool instead of in workers; <code>callback</code> is
+   * called on the pool thread.
+   */
+  @Override
+  public void parseAsync(String contents, ParseCallback callback) {
+    AsyncHolder.executor.execute(() -> parseNow(contents, callback));
+  }
+
+  /**
+   * Namespaces are only resolved if <code>options</code> ask for it.
+   */
+  @Override
+  public Document parse(String contents, ParseOptions options) {
+    if (options.isNamespaceAware()) {
+      return super.parse(contents, options);
+    }
+    Document document;
+    try {
+      InputSource source = new InputSource(new StringReader(contents));
+      document = (Document) JreNodeImpl.build(PlainHolder.builders.get().parse(source));
+    } catch (Exception e) {
+      throw new DOMParseException(contents, e, options.isRetainContentsOnError());
+    }
+    filter(document, options, true);
+    return document;
+  }
+
+  /**
+   * JRE nodes are read directly.
+   */
+  @Override
+  public NodeList select(PathExpression path, Node context, int limit) {
+    if (!(context instanceof JreNodeImpl)) {
+      return super.select(path, context, limit);
+    }
+    List<org.w3c.dom.Node> found =
+        new JreMatcher(path).select(((JreNodeImpl) context).node, limit);
+    Node[] nodes = new Node[found.size()];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = JreNodeImpl.build(found.get(i));
+    }
+    return new StaticNodeListImpl(nodes);
+  }
+
+  @Override
+  public int count(PathExpression path, Node context) {
+    if (!(context instanceof JreNodeImpl)) {
+      return super.count(path, context);
+    }
+    return new JreMatcher(path).select(((JreNodeImpl) context).node, null, Integer.MAX_VALUE);
+  }
+
+  /**
+   * JRE nodes are read and changed directly.
+   */
+  @Override
+  void filter(Node node, ParseOptions options, boolean mergeText) {
+    if (!(node instanceof JreNodeImpl)) {
+      super.filter(node, options, mergeText);
+    } else if (TreeFilter.changesTree(options)) {
+      new JreFilter(options, mergeText).filter(((JreNodeImpl) node).node);
+    }
+  }
+
+  /**
+   * JRE nodes are read directly, nodes of other implementations through the
+   * {@link Node} interface.
+   */
+  @Override
+  public String serialize(Node node, SerializeOptions options) {
+    if (!(node instanceof JreNodeImpl)) {
+      return super.serialize(node, options);
+    }
+    StringBuilder b = new StringBuilder();
+    new JreXmlWriter(options).write(((JreNodeImpl) node).node, b);
+    return b.toString();
+  }
+
+  /**
+   * Filters JRE nodes, see {@link TreeFilter}.
+   */
+  private static final class JreFilter extends TreeFilter<org.w3c.dom.Node> {
+
+    JreFilter(ParseOptions options, boolean mergeText) {
+      super(options, mergeText);
+    }
+
+    @Override
+    short type(org.w3c.dom.Node node) {
+      return node.getNodeType();
+    }
+
+    @Override
+    String value(org.w3c.dom.Node node) {
+      return node.getNodeValue();
+    }
+
+    @Override
+    void setValue(org.w3c.dom.Node node, String value) {
+      node.setNodeValue(value);
+    }
+
+    @Override
+    org.w3c.dom.Node firstChild(org.w3c.dom.Node node) {
+      return node.getFirstChild();
+    }
+
+    @Override
+    org.w3c.dom.Node nextSibling(org.w3c.dom.Node node) {
+      return node.getNextSibling();
+    }
+
+    @Override
+    org.w3c.dom.Node parent(org.w3c.dom.Node node) {
+      return node.getParentNode();
+    }
+
+    @Override
+    void remove(org.w3c.dom.Node node) {
+      node.getParentNode().removeChild(node);
+    }
+
+    @Override
+    void replaceWithText(org.w3c.dom.Node node, String data) {
+      node.getParentNode().replaceChild(node.getOwnerDocument().createTextNode(data), node);
+    }
+  }
+
+  /**
+   * Matches paths against JRE nodes, see {@link PathMatcher}.
+   */
+  private static final class JreMatcher extends PathMatcher<org.w3c.dom.Node> {
+
+    JreMatcher(PathExpression path) {
+      super(path);
+    }
+
+    @Override
+    short type(org.w3c.dom.Node node) {
+      return node.getNodeType();
+    }
+
+    @Override
+    String name(org.w3c.dom.Node node) {
+      return node.getNodeName();
+    }
+
+    @Override
+    org.w3c.dom.Node firstChild(org.w3c.dom.Node node) {
+      return node.getFirstChild();
+    }
+
+    @Override
+    org.w3c.dom.Node nextSibling(org.w3c.dom.Node node) {
+      return node.getNextSibling();
+    }
+
+    @Override
+    org.w3c.dom.Node parent(org.w3c.dom.Node node) {
+      return node.getParentNode();
+    }
+
+    @Override
+    org.w3c.dom.Node document(org.w3c.dom.Node node) {
+      return node.getNodeType() == Node.DOCUMENT_NODE ? node : node.getOwnerDocument();
+    }
+
+    @Override
+    int attributeCount(org.w3c.dom.Node element) {
+      return element.getAttributes().getLength();
+    }
+
+    @Override
+    org.w3c.dom.Node attribute(org.w3c.dom.Node element, int index) {
+      return element.getAttributes().item(index);
+    }
+
+    @Override
+    org.w3c.dom.Node attribute(org.w3c.dom.Node element, String name) {
+      return ((org.w3c.dom.Element) element).getAttributeNode(name);
+    }
+
+    @Override
+    String value(org.w3c.dom.Node node) {
+      return node.getNodeValue();
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the most recently used compiled XPath expressions, so that evaluating
+ * the same expression again does not parse it again. An expression that may
+ * use namespace prefixes is compiled against the namespaces declared on the
+ * document element, which are then part of its key.
+ *
+ * @param <E> the type of the compiled expressions
+ */
+final class XPathCache<E> extends LinkedHashMap<String, E> {
+
+  static final int CAPACITY = 64;
+
+  /**
+   * Returns whether <code>expression</code> may contain a namespace prefix.
+   * Axes such as <code>child::</code> also contain a colon, which costs no
+   * more than a cache entry per namespace context.
+   */
+  static boolean usesPrefixes(String expression) {
+    return expression.indexOf(':') >= 0;
+  }
+
+  /**
+   * Returns the key of <code>expression</code> compiled with
+   * <code>namespaces</code>, which holds prefixes and their URIs in turn.
+   */
+  static String key(String expression, String[] namespaces) {
+    if (namespaces.length == 0) {
+      return expression;
+    }
+    StringBuilder b = new StringBuilder(expression);
+    for (String s : namespaces) {
+      b.append('\n').append(s);
+    }
+    return b.toString();
+  }
+
+  /**
+   * Returns the URI bound to <code>prefix</code> in <code>namespaces</code>,
+   * or <code>null</code>.
+   */
+  static String lookup(String[] namespaces, String prefix) {
+    for (int i = 0; i < namespaces.length; i += 2) {
+      if (namespaces[i].equals(prefix)) {
+        return namespaces[i + 1];
+      }
+    }
+    return "xml".equals(prefix) ? "http://www.w3.org/XML/1998/namespace" : null;
+  }
+
+  /**
+   * Returns the prefixes bound to <code>namespaceURI</code> in
+   * <code>namespaces</code>, in the order they were declared.
+   */
+  static List<String> prefixes(String[] namespaces, String namespaceURI) {
+    List<String> prefixes = new ArrayList<String>();
+    for (int i = 0; i < namespaces.length; i += 2) {
+      if (namespaces[i + 1].equals(namespaceURI)) {
+        prefixes.add(namespaces[i]);
+      }
+    }
+    if ("http://www.w3.org/XML/1998/namespace".equals(namespaceURI)) {
+      prefixes.add("xml");
+    }
+    return prefixes;
+  }
+
+  XPathCache() {
+    super(16, 0.75f, true);
+  }
+
+  @Override
+  protected boolean removeEldestEntry(Map.Entry<String, E> eldest) {
+    return size() > CAPACITY;
+  }
+}
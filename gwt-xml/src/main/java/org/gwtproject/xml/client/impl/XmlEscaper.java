@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+/**
+ * Escapes text and attribute values the way the browsers'
+ * <code>XMLSerializer</code> does, for the serializers that are written in
+ * Java. The replacements are looked up in a table indexed by character, and
+ * runs of characters that need no escaping are copied in a single append.
+ */
+final class XmlEscaper {
+
+  /**
+   * One more than the highest character that is ever escaped, <code>'&gt;'</code>.
+   */
+  private static final int TABLE_SIZE = '>' + 1;
+
+  private static final String[] TEXT = new String[TABLE_SIZE];
+  private static final String[] ATTRIBUTE = new String[TABLE_SIZE];
+
+  static {
+    TEXT['&'] = "&amp;";
+    TEXT['<'] = "&lt;";
+    TEXT['>'] = "&gt;";
+    TEXT['\r'] = "&#13;";
+    for (int c = 0; c < TABLE_SIZE; c++) {
+      ATTRIBUTE[c] = TEXT[c];
+    }
+    ATTRIBUTE['"'] = "&quot;";
+    ATTRIBUTE['\t'] = "&#9;";
+    ATTRIBUTE['\n'] = "&#10;";
+  }
+
+  /**
+   * Returns <code>text</code> with the markup characters escaped, or
+   * <code>text</code> itself if none need to be.
+   */
+  static String escape(String text, boolean attribute) {
+    int first = indexOfEscape(text, 0, attribute ? ATTRIBUTE : TEXT);
+    if (first < 0) {
+      return text;
+    }
+    StringBuilder b = new StringBuilder(text.length() + 16);
+    escape(text, first, attribute ? ATTRIBUTE : TEXT, b);
+    return b.toString();
+  }
+
+  /**
+   * Appends <code>text</code>, escaping the markup characters.
+   */
+  static void escape(String text, boolean attribute, StringBuilder b) {
+    escape(text, 0, attribute ? ATTRIBUTE : TEXT, b);
+  }
+
+  private static void escape(String text, int start, String[] table, StringBuilder b) {
+    int from = 0;
+    for (int i = indexOfEscape(text, start, table); i >= 0;
+        i = indexOfEscape(text, i + 1, table)) {
+      b.append(text, from, i).append(table[text.charAt(i)]);
+      from = i + 1;
+    }
+    b.append(text, from, text.length());
+  }
+
+  private static int indexOfEscape(String text, int start, String[] table) {
+    for (int i = start, n = text.length(); i < n; i++) {
+      char c = text.charAt(i);
+      if (c < TABLE_SIZE && table[c] != null) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private XmlEscaper() {
+  }
+}
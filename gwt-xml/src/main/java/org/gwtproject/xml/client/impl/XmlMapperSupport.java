@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.XmlReader;
+
+/**
+ * The helpers called by the mappers that <code>gwt-xml-processor</code>
+ * generates for {@link org.gwtproject.xml.client.bind.XmlMapped} classes. It
+ * is public for the generated code only.
+ */
+public final class XmlMapperSupport {
+
+  /**
+   * Reads the text inside the current element, skipping its child elements,
+   * and leaves the reader on its end tag.
+   */
+  public static String readText(XmlReader reader) {
+    String text = null;
+    for (int type = reader.next(); type != XmlReader.END_ELEMENT; type = reader.next()) {
+      if (type == XmlReader.START_ELEMENT) {
+        reader.skipElement();
+      } else if (type == XmlReader.CHARACTERS || type == XmlReader.CDATA) {
+        text = concat(text, reader.getText());
+      }
+    }
+    return text == null ? "" : text;
+  }
+
+  /**
+   * Returns <code>text</code> followed by <code>more</code>, where
+   * <code>text</code> may be <code>null</code> before the first chunk.
+   */
+  public static String concat(String text, String more) {
+    return text == null ? more : text + more;
+  }
+
+  /**
+   * Parses an XML Schema boolean, <code>true</code>, <code>false</code>,
+   * <code>1</code> or <code>0</code>.
+   */
+  public static boolean parseBoolean(String value) {
+    String trimmed = value.trim();
+    if ("true".equals(trimmed) || "1".equals(trimmed)) {
+      return true;
+    }
+    if ("false".equals(trimmed) || "0".equals(trimmed)) {
+      return false;
+    }
+    throw new IllegalArgumentException("Not a boolean: " + value);
+  }
+
+  /**
+   * Parses a single character, the first of <code>value</code>.
+   */
+  public static char parseChar(String value) {
+    if (value.length() != 1) {
+      throw new IllegalArgumentException("Not a single character: " + value);
+    }
+    return value.charAt(0);
+  }
+
+  private XmlMapperSupport() {
+  }
+}
@@ -0,0 +1,822 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.XmlAttributes;
+import org.gwtproject.xml.client.XmlEventHandler;
+import org.gwtproject.xml.client.XmlReader;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A pull tokenizer for XML strings, written in plain Java so that it behaves
+ * the same in every browser and on the JVM. It checks well-formedness but does
+ * not build any nodes: tokens are kept as offsets into the input, names are
+ * interned in a small table, and text and attribute values are only decoded
+ * when they are requested. DTDs are skipped, so only the predefined entities
+ * and character references are resolved.
+ * <p>
+ * A scanner created without input is incremental: chunks are appended with
+ * {@link #append(String)} and {@link #poll()} stops with {@link #NEED_INPUT}
+ * when a token is cut off by the end of the buffered input, until
+ * {@link #finish()} marks the input as complete. The cut off token is then
+ * set aside with the chunks that follow it, and each chunk is only searched
+ * for the string that must end the token, so a token that spans many chunks
+ * is scanned once, in time linear in its length.
+ */
+final class XmlScanner implements XmlReader, XmlAttributes {
+
+  /**
+   * Returned by {@link #poll()} when more input is needed.
+   */
+  static final int NEED_INPUT = 0;
+
+  /**
+   * Thrown internally when a token is cut off by the end of incomplete input.
+   */
+  private static final class NeedInput extends RuntimeException {
+  }
+
+  private static final NeedInput NEED_INPUT_SIGNAL = new NeedInput();
+
+  /**
+   * Size of the name table, a power of two.
+   */
+  private static final int NAME_TABLE_SIZE = 256;
+
+  private String input;
+  private int pos;
+  private boolean complete;
+
+  /**
+   * Line and column of the start of the buffered input, which moves when
+   * incremental input is compacted.
+   */
+  private int offset;
+  private int line = 1;
+  private int column = 1;
+  private int eventType = START_DOCUMENT;
+
+  private String name;
+  private int nameStart;
+  private int nameEnd;
+  private int textStart;
+  private int textEnd;
+  private boolean emptyElement;
+  private boolean rootSeen;
+
+  /**
+   * Start and end offsets of each attribute name and value, four per
+   * attribute.
+   */
+  private int[] attributes = new int[32];
+  private int attributeCount;
+
+  private String[] openElements = new String[16];
+  private int depth;
+
+  private final String[] names = new String[NAME_TABLE_SIZE];
+
+  /**
+   * While a token is cut off by the end of incremental input: the input from
+   * the start of that token followed by the chunks appended since, the string
+   * that ends the token, and where the search for it resumes.
+   */
+  private StringBuilder pending;
+  private String terminator;
+  private int searchFrom;
+  private boolean terminated;
+
+  XmlScanner(String input) {
+    this.input = input;
+    this.complete = true;
+  }
+
+  /**
+   * Creates an incremental scanner.
+   */
+  XmlScanner() {
+    this.input = "";
+  }
+
+  /**
+   * Appends a chunk of incremental input, dropping the input that was already
+   * scanned. The current token becomes invalid.
+   */
+  void append(String chunk) {
+    if (complete) {
+      throw new IllegalStateException("Input is complete");
+    }
+    if (pending != null) {
+      pending.append(chunk);
+      if (!terminated) {
+        terminated = pending.indexOf(terminator, searchFrom) >= 0;
+        searchFrom = Math.max(searchFrom, pending.length() - terminator.length() + 1);
+      }
+      return;
+    }
+    if (pos > 0) {
+      advanceLocation(pos);
+      offset += pos;
+      input = input.substring(pos) + chunk;
+      pos = 0;
+    } else {
+      input += chunk;
+    }
+  }
+
+  /**
+   * Marks incremental input as complete.
+   */
+  void finish() {
+    complete = true;
+    resume();
+  }
+
+  /**
+   * Moves to the next token like {@link #next()}, but returns
+   * {@link #NEED_INPUT} instead of failing if the next token is not complete
+   * yet.
+   */
+  int poll() {
+    if (pending != null) {
+      if (!terminated) {
+        return NEED_INPUT;
+      }
+      resume();
+    }
+    int start = pos;
+    try {
+      return next();
+    } catch (NeedInput e) {
+      pos = start;
+      suspend();
+      return NEED_INPUT;
+    }
+  }
+
+  /**
+   * Sets aside the token at <code>pos</code>, which is cut off by the end of
+   * the input, until a chunk brings the string that ends it.
+   */
+  private void suspend() {
+    int length = input.length();
+    if (pos == length) {
+      return;
+    }
+    if (input.charAt(pos) != '<') {
+      terminator = "<";
+    } else if (input.startsWith("<!--", pos)) {
+      terminator = "-->";
+    } else if (input.startsWith("<![CDATA[", pos)) {
+      terminator = "]]>";
+    } else if (input.startsWith("<?", pos)) {
+      terminator = "?>";
+    } else {
+      // every markup token ends with '>'
+      terminator = ">";
+    }
+    pending = new StringBuilder(Math.max(2 * (length - pos), 1024));
+    pending.append(input, pos, length);
+    searchFrom = Math.max(0, pending.length() - terminator.length() + 1);
+    terminated = false;
+    advanceLocation(pos);
+    offset += pos;
+    input = "";
+    pos = 0;
+  }
+
+  /**
+   * Makes the token set aside by {@link #suspend()} and the chunks that
+   * followed it the buffered input.
+   */
+  private void resume() {
+    if (pending != null) {
+      input = pending.toString();
+      pending = null;
+      terminator = null;
+    }
+  }
+
+  /**
+   * Parses <code>input</code>, reporting every token to <code>handler</code>.
+   */
+  static void parse(String input, XmlEventHandler handler) {
+    XmlScanner scanner = new XmlScanner(input);
+    handler.startDocument();
+    while (scanner.next() != END_DOCUMENT) {
+      scanner.dispatch(handler);
+    }
+    handler.endDocument();
+  }
+
+  /**
+   * Reports the current token to <code>handler</code>.
+   */
+  void dispatch(XmlEventHandler handler) {
+    switch (eventType) {
+      case START_ELEMENT:
+        handler.startElement(name, this);
+        break;
+      case END_ELEMENT:
+        handler.endElement(name);
+        break;
+      case CHARACTERS:
+      case CDATA:
+        handler.characters(getText());
+        break;
+      case COMMENT:
+        handler.comment(getText());
+        break;
+      case PROCESSING_INSTRUCTION:
+        handler.processingInstruction(name, getText());
+        break;
+      default:
+        break;
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    return eventType != END_DOCUMENT;
+  }
+
+  @Override
+  public int next() {
+    attributeCount = 0;
+    if (emptyElement) {
+      emptyElement = false;
+      depth--;
+      return eventType = END_ELEMENT;
+    }
+    if (offset + pos == 0 && input.length() > 0 && input.charAt(0) == '\uFEFF') {
+      pos = 1;
+    }
+    while (pos < input.length()) {
+      if (input.charAt(pos) != '<') {
+        if (scanText()) {
+          return eventType = CHARACTERS;
+        }
+      } else if (!complete && input.indexOf('>', pos) < 0) {
+        // every markup token ends with '>', this one has not been read yet
+        throw NEED_INPUT_SIGNAL;
+      } else if (input.startsWith("</", pos)) {
+        return eventType = scanEndTag();
+      } else if (input.startsWith("<!--", pos)) {
+        return eventType = scanComment();
+      } else if (input.startsWith("<![CDATA[", pos)) {
+        return eventType = scanCData();
+      } else if (input.startsWith("<!DOCTYPE", pos)) {
+        skipDoctype();
+      } else if (input.startsWith("<?", pos)) {
+        if (scanProcessingInstruction()) {
+          return eventType = PROCESSING_INSTRUCTION;
+        }
+      } else {
+        return eventType = scanStartTag();
+      }
+    }
+    if (eventType == END_DOCUMENT) {
+      throw new NoSuchElementException();
+    }
+    if (!complete) {
+      throw NEED_INPUT_SIGNAL;
+    }
+    if (depth > 0) {
+      throw error("Unclosed element <" + openElements[depth - 1] + ">");
+    }
+    if (!rootSeen) {
+      throw error("No root element");
+    }
+    return eventType = END_DOCUMENT;
+  }
+
+  @Override
+  public int getEventType() {
+    return eventType;
+  }
+
+  @Override
+  public String getName() {
+    return hasName() ? name : null;
+  }
+
+  @Override
+  public String getLocalName() {
+    if (!hasName()) {
+      return null;
+    }
+    int colon = name.indexOf(':');
+    return colon < 0 ? name : name(nameStart + colon + 1, nameEnd);
+  }
+
+  @Override
+  public String getAttributeValue(String attributeName) {
+    return getValue(attributeName);
+  }
+
+  @Override
+  public XmlAttributes getAttributes() {
+    return this;
+  }
+
+  @Override
+  public String getText() {
+    switch (eventType) {
+      case CHARACTERS:
+        return decode(textStart, textEnd, false);
+      case CDATA:
+      case COMMENT:
+      case PROCESSING_INSTRUCTION:
+        return normalizeLineEnds(textStart, textEnd);
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  public void skipElement() {
+    if (eventType != START_ELEMENT) {
+      throw new IllegalStateException("Not at a start element");
+    }
+    int parentDepth = depth - 1;
+    while (next() != END_ELEMENT || depth != parentDepth) {
+      // skip
+    }
+  }
+
+  @Override
+  public int getLength() {
+    return attributeCount;
+  }
+
+  @Override
+  public String getName(int index) {
+    return name(attributes[index * 4], attributes[index * 4 + 1]);
+  }
+
+  @Override
+  public String getValue(int index) {
+    return decode(attributes[index * 4 + 2], attributes[index * 4 + 3], true);
+  }
+
+  @Override
+  public String getValue(String attributeName) {
+    int index = indexOfAttribute(attributeName);
+    return index < 0 ? null : getValue(index);
+  }
+
+  /**
+   * Returns the index of the attribute with the given qualified name, without
+   * creating any strings.
+   */
+  int indexOfAttribute(String attributeName) {
+    int length = attributeName.length();
+    for (int i = 0; i < attributeCount; i++) {
+      int start = attributes[i * 4];
+      if (attributes[i * 4 + 1] - start == length
+          && input.regionMatches(start, attributeName, 0, length)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Creates the exception for a well-formedness error at the current position.
+   */
+  DOMParseException error(String message) {
+    int startLine = line;
+    int startColumn = column;
+    advanceLocation(Math.min(pos, input.length()));
+    return new DOMParseException(input, new RuntimeException(
+        "line " + line + ", column " + column + ": " + message), startLine, startColumn);
+  }
+
+  /**
+   * Fails for a token that is cut off by the end of the input, or waits for
+   * more input if the input is not complete.
+   */
+  private RuntimeException endOfInput(String message) {
+    if (!complete) {
+      return NEED_INPUT_SIGNAL;
+    }
+    pos = input.length();
+    return error(message);
+  }
+
+  /**
+   * Advances the location of the start of the buffered input to
+   * <code>end</code>.
+   */
+  private void advanceLocation(int end) {
+    for (int i = 0; i < end; i++) {
+      if (input.charAt(i) == '\n') {
+        line++;
+        column = 1;
+      } else {
+        column++;
+      }
+    }
+  }
+
+  /**
+   * Scans character data up to the next markup. Returns false if it was
+   * whitespace outside the root element, which is dropped.
+   */
+  private boolean scanText() {
+    int end = input.indexOf('<', pos);
+    if (end < 0) {
+      if (depth > 0 && !complete) {
+        throw NEED_INPUT_SIGNAL;
+      }
+      end = input.length();
+    }
+    textStart = pos;
+    textEnd = end;
+    if (depth > 0) {
+      pos = end;
+      return true;
+    }
+    for (; pos < end; pos++) {
+      if (!isWhitespace(input.charAt(pos))) {
+        throw error("Text outside the root element");
+      }
+    }
+    return false;
+  }
+
+  private int scanStartTag() {
+    if (depth == 0 && rootSeen) {
+      throw error("More than one root element");
+    }
+    pos++;
+    nameStart = pos;
+    nameEnd = scanName();
+    name = name(nameStart, nameEnd);
+    while (true) {
+      boolean separated = skipWhitespace();
+      if (pos >= input.length()) {
+        throw endOfInput("Unterminated start tag <" + name + ">");
+      }
+      char c = input.charAt(pos);
+      if (c == '>') {
+        pos++;
+        break;
+      }
+      if (c == '/' && input.startsWith("/>", pos)) {
+        pos += 2;
+        emptyElement = true;
+        break;
+      }
+      if (!separated) {
+        throw error("Expected whitespace before attribute");
+      }
+      scanAttribute();
+    }
+    if (depth == openElements.length) {
+      String[] grown = new String[depth * 2];
+      System.arraycopy(openElements, 0, grown, 0, depth);
+      openElements = grown;
+    }
+    openElements[depth++] = name;
+    rootSeen = true;
+    return START_ELEMENT;
+  }
+
+  private void scanAttribute() {
+    int nameStart = pos;
+    int nameEnd = scanName();
+    skipWhitespace();
+    if (pos >= input.length()) {
+      throw endOfInput("Unterminated attribute");
+    }
+    if (input.charAt(pos) != '=') {
+      throw error("Expected '=' after attribute name");
+    }
+    pos++;
+    skipWhitespace();
+    if (pos >= input.length()) {
+      throw endOfInput("Unterminated attribute");
+    }
+    char quote = input.charAt(pos);
+    if (quote != '"' && quote != '\'') {
+      throw error("Expected quoted attribute value");
+    }
+    int valueStart = pos + 1;
+    int valueEnd = input.indexOf(quote, valueStart);
+    if (valueEnd < 0) {
+      throw endOfInput("Unterminated attribute value");
+    }
+    int lt = input.indexOf('<', valueStart);
+    if (lt >= 0 && lt < valueEnd) {
+      pos = lt;
+      throw error("'<' in attribute value");
+    }
+    for (int i = 0; i < attributeCount; i++) {
+      int start = attributes[i * 4];
+      int length = attributes[i * 4 + 1] - start;
+      if (length == nameEnd - nameStart && input.regionMatches(start, input, nameStart, length)) {
+        pos = nameStart;
+        throw error("Duplicate attribute " + name(nameStart, nameEnd));
+      }
+    }
+    if (attributeCount * 4 == attributes.length) {
+      int[] grown = new int[attributes.length * 2];
+      System.arraycopy(attributes, 0, grown, 0, attributes.length);
+      attributes = grown;
+    }
+    int i = attributeCount++ * 4;
+    attributes[i] = nameStart;
+    attributes[i + 1] = nameEnd;
+    attributes[i + 2] = valueStart;
+    attributes[i + 3] = valueEnd;
+    pos = valueEnd + 1;
+  }
+
+  private int scanEndTag() {
+    pos += 2;
+    nameStart = pos;
+    nameEnd = scanName();
+    skipWhitespace();
+    if (pos >= input.length()) {
+      throw endOfInput("Unterminated end tag");
+    }
+    if (input.charAt(pos) != '>') {
+      throw error("Unterminated end tag");
+    }
+    int length = nameEnd - nameStart;
+    String open = depth > 0 ? openElements[depth - 1] : null;
+    if (open == null || open.length() != length
+        || !input.regionMatches(nameStart, open, 0, length)) {
+      pos = nameStart;
+      throw error("Unexpected end tag </" + name(nameStart, nameEnd) + ">");
+    }
+    pos++;
+    name = open;
+    depth--;
+    return END_ELEMENT;
+  }
+
+  private int scanComment() {
+    textStart = pos + 4;
+    textEnd = input.indexOf("--", textStart);
+    if (textEnd < 0 || textEnd + 2 >= input.length()) {
+      throw endOfInput("Unterminated comment");
+    }
+    if (!input.startsWith("-->", textEnd)) {
+      pos = textEnd;
+      throw error("'--' in comment");
+    }
+    pos = textEnd + 3;
+    return COMMENT;
+  }
+
+  private int scanCData() {
+    if (depth == 0) {
+      throw error("CDATA section outside the root element");
+    }
+    textStart = pos + 9;
+    textEnd = input.indexOf("]]>", textStart);
+    if (textEnd < 0) {
+      throw endOfInput("Unterminated CDATA section");
+    }
+    pos = textEnd + 3;
+    return CDATA;
+  }
+
+  /**
+   * Scans a processing instruction. Returns false for the XML declaration,
+   * which is not reported.
+   */
+  private boolean scanProcessingInstruction() {
+    int start = pos;
+    pos += 2;
+    int targetStart = pos;
+    int targetEnd = scanName();
+    int end = input.indexOf("?>", targetEnd);
+    if (end < 0) {
+      throw endOfInput("Unterminated processing instruction");
+    }
+    boolean separated = skipWhitespace();
+    if (!separated && pos != end) {
+      throw error("Expected whitespace after processing instruction target");
+    }
+    textStart = pos;
+    textEnd = end;
+    pos = end + 2;
+    if (targetEnd - targetStart == 3 && input.regionMatches(true, targetStart, "xml", 0, 3)) {
+      if (offset + start > 1 || (start == 1 && input.charAt(0) != '\uFEFF')) {
+        pos = start;
+        throw error("XML declaration not at the start of the document");
+      }
+      return false;
+    }
+    nameStart = targetStart;
+    nameEnd = targetEnd;
+    name = name(targetStart, targetEnd);
+    return true;
+  }
+
+  /**
+   * Skips a document type declaration, including an internal subset.
+   */
+  private void skipDoctype() {
+    if (rootSeen) {
+      throw error("DOCTYPE after the root element");
+    }
+    int start = pos;
+    char quote = 0;
+    int brackets = 0;
+    for (pos += 9; pos < input.length(); pos++) {
+      char c = input.charAt(pos);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '"' || c == '\'') {
+        quote = c;
+      } else if (c == '[') {
+        brackets++;
+      } else if (c == ']') {
+        brackets--;
+      } else if (c == '>' && brackets == 0) {
+        pos++;
+        return;
+      }
+    }
+    throw endOfInput("Unterminated DOCTYPE");
+  }
+
+  /**
+   * Scans a name at the current position and returns its end.
+   */
+  private int scanName() {
+    int start = pos;
+    int length = input.length();
+    while (pos < length && isNameChar(input.charAt(pos))) {
+      pos++;
+    }
+    if (pos == length) {
+      throw endOfInput("Unexpected end of input");
+    }
+    if (pos == start || !isNameStartChar(input.charAt(start))) {
+      pos = start;
+      throw error("Expected a name");
+    }
+    return pos;
+  }
+
+  /**
+   * Skips whitespace and returns whether there was any.
+   */
+  private boolean skipWhitespace() {
+    int start = pos;
+    while (pos < input.length() && isWhitespace(input.charAt(pos))) {
+      pos++;
+    }
+    return pos > start;
+  }
+
+  /**
+   * Returns the substring between <code>start</code> and <code>end</code>,
+   * reusing the string of an earlier name with the same characters.
+   */
+  private String name(int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + input.charAt(i);
+    }
+    int slot = (hash ^ (hash >>> 8)) & (NAME_TABLE_SIZE - 1);
+    String cached = names[slot];
+    int length = end - start;
+    if (cached == null || cached.length() != length
+        || !input.regionMatches(start, cached, 0, length)) {
+      cached = input.substring(start, end);
+      names[slot] = cached;
+    }
+    return cached;
+  }
+
+  /**
+   * Decodes character data or an attribute value: resolves references,
+   * normalizes line ends and, in attributes, replaces whitespace with spaces.
+   */
+  private String decode(int start, int end, boolean attribute) {
+    int i = start;
+    while (i < end) {
+      char c = input.charAt(i);
+      if (c == '&' || c == '\r' || (attribute && (c == '\n' || c == '\t'))) {
+        break;
+      }
+      i++;
+    }
+    if (i == end) {
+      return input.substring(start, end);
+    }
+    StringBuilder b = new StringBuilder(end - start);
+    b.append(input, start, i);
+    while (i < end) {
+      char c = input.charAt(i++);
+      if (c == '&') {
+        i = appendReference(b, i, end);
+      } else if (c == '\r') {
+        if (i < end && input.charAt(i) == '\n') {
+          i++;
+        }
+        b.append(attribute ? ' ' : '\n');
+      } else if (attribute && (c == '\n' || c == '\t')) {
+        b.append(' ');
+      } else {
+        b.append(c);
+      }
+    }
+    return b.toString();
+  }
+
+  /**
+   * Appends the character a reference starting after the '&amp;' at
+   * <code>start</code> stands for, and returns the position after it.
+   */
+  private int appendReference(StringBuilder b, int start, int end) {
+    int semicolon = input.indexOf(';', start);
+    if (semicolon < 0 || semicolon >= end || semicolon == start) {
+      pos = start - 1;
+      throw error("Malformed reference");
+    }
+    if (input.charAt(start) == '#') {
+      int codePoint = -1;
+      try {
+        if (input.charAt(start + 1) == 'x') {
+          codePoint = Integer.parseInt(input.substring(start + 2, semicolon), 16);
+        } else {
+          codePoint = Integer.parseInt(input.substring(start + 1, semicolon));
+        }
+      } catch (NumberFormatException e) {
+        // reported below
+      }
+      if (codePoint <= 0 || codePoint > Character.MAX_CODE_POINT) {
+        pos = start - 1;
+        throw error("Malformed character reference");
+      }
+      b.appendCodePoint(codePoint);
+    } else {
+      switch (input.substring(start, semicolon)) {
+        case "lt":
+          b.append('<');
+          break;
+        case "gt":
+          b.append('>');
+          break;
+        case "amp":
+          b.append('&');
+          break;
+        case "quot":
+          b.append('"');
+          break;
+        case "apos":
+          b.append('\'');
+          break;
+        default:
+          pos = start - 1;
+          throw error("Undeclared entity &" + input.substring(start, semicolon) + ";");
+      }
+    }
+    return semicolon + 1;
+  }
+
+  private String normalizeLineEnds(int start, int end) {
+    String text = input.substring(start, end);
+    return text.indexOf('\r') < 0 ? text : text.replace("\r\n", "\n").replace('\r', '\n');
+  }
+
+  private boolean hasName() {
+    return eventType == START_ELEMENT || eventType == END_ELEMENT
+        || eventType == PROCESSING_INSTRUCTION;
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\n' || c == '\t' || c == '\r';
+  }
+
+  private static boolean isNameStartChar(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':' || c >= 0xC0;
+  }
+
+  private static boolean isNameChar(char c) {
+    return isNameStartChar(c) || (c >= '0' && c <= '9') || c == '-' || c == '.' || c == 0xB7;
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.XmlStreamWriter;
+
+/**
+ * Writes markup straight into a <code>StringBuilder</code>, see
+ * {@link XmlStreamWriter}. The open elements and the namespace bindings in
+ * scope are kept in arrays that only grow, like in {@link XmlWriter}, so
+ * writing allocates nothing but the output once the arrays are large enough
+ * for the deepest element.
+ */
+final class XmlStreamWriterImpl implements XmlStreamWriter {
+
+  private static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace";
+
+  private final StringBuilder b;
+  private final int start;
+
+  /**
+   * The names of the open elements, outermost first.
+   */
+  private String[] names = new String[16];
+  /**
+   * For every open element, the number of bindings in scope outside it.
+   */
+  private int[] scopes = new int[16];
+  private int depth;
+
+  /**
+   * The namespace bindings in scope, innermost last.
+   */
+  private String[] prefixes = new String[8];
+  private String[] uris = new String[8];
+  private int bindings;
+
+  /**
+   * Whether the start tag of the innermost element still lacks its closing
+   * <code>'&gt;'</code>.
+   */
+  private boolean startTagOpen;
+
+  XmlStreamWriterImpl(StringBuilder b) {
+    this.b = b;
+    this.start = b.length();
+  }
+
+  @Override
+  public XmlStreamWriter startDocument() {
+    if (b.length() != start) {
+      throw new IllegalStateException("The XML declaration must come first");
+    }
+    b.append(XmlWriter.XML_DECLARATION);
+    return this;
+  }
+
+  @Override
+  public XmlStreamWriter startElement(String name) {
+    closeStartTag();
+    if (depth == names.length) {
+      names = grow(names);
+      scopes = grow(scopes);
+    }
+    names[depth] = name;
+    scopes[depth] = bindings;
+    depth++;
+    b.append('<').append(name);
+    startTagOpen = true;
+    return this;
+  }
+
+  @Override
+  public XmlStreamWriter startElement(String namespaceURI, String name) {
+    startElement(name);
+    int colon = name.indexOf(':');
+    declare(colon < 0 ? "" : name.substring(0, colon), namespaceURI);
+    return this;
+  }
+
+  @Override
+  public XmlStreamWriter namespace(String prefix, String namespaceURI) {
+    checkStartTag();
+    if (prefix == null || prefix.isEmpty()) {
+      prefix = "";
+      b.append(" xmlns=\"");
+    } else {
+      b.append(" xmlns:").append(prefix).append("=\"");
+    }
+    String uri = namespaceURI == null ? "" : namespaceURI;
+    XmlEscaper.escape(uri, true, b);
+    b.append('"');
+    if (bindings == prefixes.length) {
+      prefixes = grow(prefixes);
+      uris = grow(uris);
+    }
+    prefixes[bindings] = prefix;
+    uris[bindings] = uri;
+    bindings++;
+    return this;
+  }
+
+  @Override
+  public XmlStreamWriter attribute(String name, String value) {
+    checkStartTag();
+    b.append(' ').append(name).append("=\"");
+    XmlEscaper.escape(value, true, b);
+    b.append('"');
+    return this;
+  }
+
+  @Override
+  public XmlStreamWriter attribute(String namespaceURI, String name, String value) {
+    if (namespaceURI != null && !namespaceURI.isEmpty()) {
+      checkStartTag();
+      int colon = name.indexOf(':');
+      if (colon < 0) {
+        throw new IllegalArgumentException("Attribute " + name
+            + " has a namespace but no prefix");
+      }
+      declare(name.substring(0, colon), namespaceURI);
+    }
+    return attribute(name, value);
+  }
+
+  @Override
+  public XmlStreamWriter text(String text) {
+    closeStartTag();
+    XmlEscaper.escape(text, false, b);
+    return this;
+  }
+
+  @Override
+  public XmlStreamWriter cdata(String data) {
+    closeStartTag();
+    b.append("<![CDATA[");
+    int from = 0;
+    for (int end = data.indexOf("]]>"); end >= 0; end = data.indexOf("]]>", end + 1)) {
+      // end the section between "]]" and ">"
+      b.append(data, from, end + 2).append("]]><![CDATA[");
+      from = end + 2;
+    }
+    b.append(data, from, data.length()).append("]]>");
+    return this;
+  }
+
+  @Override
+  public XmlStreamWriter comment(String data) {
+    if (data.contains("--") || data.endsWith("-")) {
+      throw new IllegalArgumentException("Invalid comment: " + data);
+    }
+    closeStartTag();
+    b.append("<!--").append(data).append("-->");
+    return this;
+  }
+
+  @Override
+  public XmlStreamWriter processingInstruction(String target, String data) {
+    if (data != null && data.contains("?>")) {
+      throw new IllegalArgumentException("Invalid processing instruction: " + data);
+    }
+    closeStartTag();
+    b.append("<?").append(target);
+    if (data != null && !data.isEmpty()) {
+      b.append(' ').append(data);
+    }
+    b.append("?>");
+    return this;
+  }
+
+  @Override
+  public XmlStreamWriter element(String name, String text) {
+    closeStartTag();
+    b.append('<').append(name).append('>');
+    XmlEscaper.escape(text, false, b);
+    b.append("</").append(name).append('>');
+    return this;
+  }
+
+  @Override
+  public XmlStreamWriter endElement() {
+    if (depth == 0) {
+      throw new IllegalStateException("No element is open");
+    }
+    depth--;
+    if (startTagOpen) {
+      b.append("/>");
+      startTagOpen = false;
+    } else {
+      b.append("</").append(names[depth]).append('>');
+    }
+    names[depth] = null;
+    bindings = scopes[depth];
+    return this;
+  }
+
+  @Override
+  public XmlStreamWriter endDocument() {
+    while (depth > 0) {
+      endElement();
+    }
+    return this;
+  }
+
+  @Override
+  public int getDepth() {
+    return depth;
+  }
+
+  @Override
+  public String toString() {
+    return b.substring(start);
+  }
+
+  /**
+   * Declares <code>namespaceURI</code> for <code>prefix</code> on the current
+   * start tag unless it is already bound to it.
+   */
+  private void declare(String prefix, String namespaceURI) {
+    String uri = namespaceURI == null ? "" : namespaceURI;
+    if (!uri.equals(lookup(prefix))) {
+      namespace(prefix, uri);
+    }
+  }
+
+  private String lookup(String prefix) {
+    for (int i = bindings - 1; i >= 0; i--) {
+      if (prefixes[i].equals(prefix)) {
+        return uris[i];
+      }
+    }
+    if (prefix.equals("xml")) {
+      return XML_NAMESPACE;
+    }
+    return prefix.isEmpty() ? "" : null;
+  }
+
+  private void checkStartTag() {
+    if (!startTagOpen) {
+      throw new IllegalStateException("Attributes must follow a start tag");
+    }
+  }
+
+  private void closeStartTag() {
+    if (startTagOpen) {
+      b.append('>');
+      startTagOpen = false;
+    }
+  }
+
+  private static String[] grow(String[] array) {
+    String[] grown = new String[array.length * 2];
+    System.arraycopy(array, 0, grown, 0, array.length);
+    return grown;
+  }
+
+  private static int[] grow(int[] array) {
+    int[] grown = new int[array.length * 2];
+    System.arraycopy(array, 0, grown, 0, array.length);
+    return grown;
+  }
+}
@@ -0,0 +1,477 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gwtproject.xml.client.impl;
+
+import org.gwtproject.xml.client.Node;
+import org.gwtproject.xml.client.SerializeOptions;
+
+/**
+ * Serializes a tree of nodes into a single <code>StringBuilder</code>. The
+ * tree is walked iteratively, so serializing takes time linear in the size of
+ * the document and no objects are allocated per node. Subclasses read the
+ * nodes of one implementation of the DOM, so that no wrappers need to be
+ * built.
+ * <p>
+ * Elements and attributes that have a namespace get a declaration for it when
+ * their prefix is not already bound to it, so a subtree or nodes created with
+ * a namespace still serialize to well-formed XML.
+ * <p>
+ * The output can be limited to a number of characters, in which case the walk
+ * stops as soon as the limit is reached and long values are cut before they
+ * are escaped, so the cost depends on the limit rather than on the size of the
+ * tree.
+ *
+ * @param <N> the type of the nodes
+ */
+abstract class XmlWriter<N> {
+
+  static final String XML_DECLARATION = "<?xml version=\"1.0\"?>";
+
+  /**
+   * The options of <code>toString()</code>, which writes nodes the way the
+   * browsers' <code>XMLSerializer</code> does.
+   */
+  static final SerializeOptions TO_STRING = new SerializeOptions()
+      .setOmitXmlDeclaration(true);
+
+  private static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace";
+
+  /**
+   * The children of an element are written as they are.
+   */
+  private static final byte INLINE = 0;
+  /**
+   * The children of an element are written on lines of their own.
+   */
+  private static final byte INDENTED = 1;
+  /**
+   * The element only has white space children, which pretty-printing drops.
+   */
+  private static final byte EMPTY = 2;
+
+  private final boolean prettyPrint;
+  private final String indent;
+  private final boolean omitXmlDeclaration;
+  private final boolean minimizeNamespaces;
+
+  /**
+   * The namespace bindings in scope, innermost last.
+   */
+  private String[] prefixes = new String[8];
+  private String[] uris = new String[8];
+  private int bindings;
+
+  /**
+   * For every open element or document, the number of bindings in scope
+   * outside it and whether its children are indented.
+   */
+  private int[] scopes = new int[16];
+  private boolean[] indented = new boolean[16];
+  private int depth;
+  private int openElements;
+
+  /**
+   * Where the output of the current call to {@link #write} starts.
+   */
+  private int start;
+  /**
+   * The maximum number of characters of the current call to {@link #write}.
+   */
+  private int maxChars;
+
+  XmlWriter(SerializeOptions options) {
+    prettyPrint = options.isPrettyPrint();
+    indent = options.getIndent();
+    omitXmlDeclaration = options.isOmitXmlDeclaration();
+    minimizeNamespaces = options.isMinimizeNamespaces();
+  }
+
+  abstract short type(N node);
+
+  /**
+   * Returns the qualified name of an element or attribute, the target of a
+   * processing instruction or the name of a document type or entity
+   * reference.
+   */
+  abstract String name(N node);
+
+  /**
+   * Returns the value of an attribute or the data of a character data node or
+   * processing instruction.
+   */
+  abstract String value(N node);
+
+  abstract String namespaceURI(N node);
+
+  abstract N firstChild(N node);
+
+  abstract N nextSibling(N node);
+
+  abstract N parent(N node);
+
+  abstract int attributeCount(N element);
+
+  abstract N attribute(N element, int index);
+
+  /**
+   * Appends the document type declaration of <code>doctype</code>, see
+   * {@link #writeDocumentType(String, String, String, String, StringBuilder)}.
+   */
+  abstract void writeDocumentType(N doctype, StringBuilder b);
+
+  /**
+   * Appends a document type declaration. The identifiers and the internal
+   * subset are left out when they are <code>null</code> or empty.
+   */
+  static void writeDocumentType(String name, String publicId, String systemId,
+      String internalSubset, StringBuilder b) {
+    b.append("<!DOCTYPE ").append(name);
+    if (publicId != null && !publicId.isEmpty()) {
+      b.append(" PUBLIC \"").append(publicId).append('"');
+      if (systemId != null && !systemId.isEmpty()) {
+        b.append(" \"").append(systemId).append('"');
+      }
+    } else if (systemId != null && !systemId.isEmpty()) {
+      b.append(" SYSTEM \"").append(systemId).append('"');
+    }
+    if (internalSubset != null && !internalSubset.isEmpty()) {
+      b.append(" [").append(internalSubset).append(']');
+    }
+    b.append('>');
+  }
+
+  /**
+   * Appends an attribute the way it appears in a start tag, after a space if
+   * <code>b</code> is not empty, which is how the attribute maps print.
+   */
+  static void writeAttribute(String name, String value, StringBuilder b) {
+    if (b.length() > 0) {
+      b.append(' ');
+    }
+    b.append(name).append("=\"");
+    XmlEscaper.escape(value, true, b);
+    b.append('"');
+  }
+
+  /**
+   * Appends the markup of <code>root</code> and its descendants.
+   */
+  final void write(N root, StringBuilder b) {
+    write(root, b, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Appends at most <code>maxChars</code> characters of the markup of
+   * <code>root</code> and its descendants.
+   */
+  final void write(N root, StringBuilder b, int maxChars) {
+    start = b.length();
+    this.maxChars = Math.max(maxChars, 0);
+    bindings = 0;
+    depth = 0;
+    openElements = 0;
+    if (type(root) == Node.DOCUMENT_NODE && !omitXmlDeclaration) {
+      b.append(XML_DECLARATION);
+    }
+    N current = root;
+    while (true) {
+      boolean hasChildren = open(current, b);
+      if (isFull(b)) {
+        b.setLength(start + this.maxChars);
+        return;
+      }
+      if (hasChildren) {
+        current = firstChild(current);
+        continue;
+      }
+      while (current != root) {
+        N next = nextSibling(current);
+        if (next != null) {
+          current = next;
+          break;
+        }
+        current = parent(current);
+        close(current, b);
+        if (isFull(b)) {
+          b.setLength(start + this.maxChars);
+          return;
+        }
+      }
+      if (current == root) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Appends the start of <code>node</code>, returning whether its children
+   * follow.
+   */
+  private boolean open(N node, StringBuilder b) {
+    short type = type(node);
+    if (depth > 0 && indented[depth - 1]) {
+      if (type == Node.TEXT_NODE && TreeFilter.isWhitespace(value(node))) {
+        return false;
+      }
+      newLine(openElements, b);
+    }
+    switch (type) {
+      case Node.ELEMENT_NODE:
+        return openElement(node, b);
+      case Node.DOCUMENT_NODE:
+      case Node.DOCUMENT_FRAGMENT_NODE:
+        if (firstChild(node) == null) {
+          return false;
+        }
+        push(prettyPrint);
+        return true;
+      case Node.ATTRIBUTE_NODE:
+        XmlEscaper.escape(clip(value(node), b), true, b);
+        return false;
+      case Node.TEXT_NODE:
+        XmlEscaper.escape(clip(value(node), b), false, b);
+        return false;
+      case Node.CDATA_SECTION_NODE:
+        writeCData(clip(value(node), b), b);
+        return false;
+      case Node.COMMENT_NODE:
+        b.append("<!--").append(clip(value(node), b)).append("-->");
+        return false;
+      case Node.PROCESSING_INSTRUCTION_NODE:
+        b.append("<?").append(name(node));
+        String data = clip(value(node), b);
+        if (!data.isEmpty()) {
+          b.append(' ').append(data);
+        }
+        b.append("?>");
+        return false;
+      case Node.ENTITY_REFERENCE_NODE:
+        b.append('&').append(name(node)).append(';');
+        return false;
+      case Node.DOCUMENT_TYPE_NODE:
+        writeDocumentType(node, b);
+        return false;
+      default:
+        return false;
+    }
+  }
+
+  private boolean openElement(N element, StringBuilder b) {
+    int scope = bindings;
+    String name = name(element);
+    b.append('<').append(name);
+    for (int i = 0, n = attributeCount(element); i < n; i++) {
+      if (isFull(b)) {
+        return false;
+      }
+      N attr = attribute(element, i);
+      String attrName = name(attr);
+      String value = value(attr);
+      if (attrName.startsWith("xmlns")
+          && (attrName.length() == 5 || attrName.charAt(5) == ':')) {
+        String prefix = attrName.length() == 5 ? "" : attrName.substring(6);
+        if (minimizeNamespaces && value.equals(lookup(prefix))) {
+          continue;
+        }
+        bind(prefix, value);
+      }
+      b.append(' ').append(attrName).append("=\"");
+      XmlEscaper.escape(clip(value, b), true, b);
+      b.append('"');
+    }
+    if (isFull(b)) {
+      return false;
+    }
+    declare(name, namespaceURI(element), b);
+    for (int i = 0, n = attributeCount(element); i < n; i++) {
+      N attr = attribute(element, i);
+      String attrName = name(attr);
+      if (attrName.indexOf(':') > 0) {
+        declare(attrName, namespaceURI(attr), b);
+      }
+    }
+    byte layout = layout(element);
+    if (layout == EMPTY) {
+      b.append("/>");
+      bindings = scope;
+      return false;
+    }
+    b.append('>');
+    push(layout == INDENTED);
+    scopes[depth - 1] = scope;
+    openElements++;
+    return true;
+  }
+
+  /**
+   * Appends the end of <code>node</code>, whose children have been written.
+   */
+  private void close(N node, StringBuilder b) {
+    depth--;
+    bindings = scopes[depth];
+    if (type(node) != Node.ELEMENT_NODE) {
+      return;
+    }
+    openElements--;
+    if (indented[depth]) {
+      newLine(openElements, b);
+    }
+    b.append("</").append(name(node)).append('>');
+  }
+
+  /**
+   * Decides how the children of <code>element</code> are written.
+   */
+  private byte layout(N element) {
+    N child = firstChild(element);
+    if (child == null) {
+      return EMPTY;
+    }
+    if (!prettyPrint) {
+      return INLINE;
+    }
+    byte layout = EMPTY;
+    for (; child != null; child = nextSibling(child)) {
+      switch (type(child)) {
+        case Node.TEXT_NODE:
+          if (!TreeFilter.isWhitespace(value(child))) {
+            return INLINE;
+          }
+          break;
+        case Node.CDATA_SECTION_NODE:
+        case Node.ENTITY_REFERENCE_NODE:
+          return INLINE;
+        default:
+          layout = INDENTED;
+          break;
+      }
+    }
+    return layout;
+  }
+
+  /**
+   * Declares the namespace of an element or attribute named
+   * <code>qualifiedName</code> if its prefix is not bound to it yet. An
+   * element without a namespace undeclares the default namespace in scope, so
+   * that it does not parse back into it.
+   */
+  private void declare(String qualifiedName, String namespaceURI, StringBuilder b) {
+    int colon = qualifiedName.indexOf(':');
+    if (namespaceURI == null || namespaceURI.isEmpty()) {
+      if (colon < 0 && !lookup("").isEmpty()) {
+        bind("", "");
+        b.append(" xmlns=\"\"");
+      }
+      return;
+    }
+    String prefix = colon < 0 ? "" : qualifiedName.substring(0, colon);
+    if (prefix.equals("xml") || prefix.equals("xmlns") || namespaceURI.equals(lookup(prefix))) {
+      return;
+    }
+    bind(prefix, namespaceURI);
+    b.append(prefix.isEmpty() ? " xmlns" : " xmlns:").append(prefix).append("=\"");
+    XmlEscaper.escape(namespaceURI, true, b);
+    b.append('"');
+  }
+
+  /**
+   * Returns the namespace bound to <code>prefix</code>, the empty string for
+   * the empty default namespace or <code>null</code> if it is not bound.
+   */
+  private String lookup(String prefix) {
+    for (int i = bindings - 1; i >= 0; i--) {
+      if (prefixes[i].equals(prefix)) {
+        return uris[i];
+      }
+    }
+    if (prefix.equals("xml")) {
+      return XML_NAMESPACE;
+    }
+    return prefix.isEmpty() ? "" : null;
+  }
+
+  /**
+   * Returns whether the limit of the current call to {@link #write} has been
+   * reached.
+   */
+  private boolean isFull(StringBuilder b) {
+    return b.length() - start >= maxChars;
+  }
+
+  /**
+   * Cuts <code>value</code> to the number of characters left before the
+   * limit, which is enough since escaping never makes text shorter.
+   */
+  private String clip(String value, StringBuilder b) {
+    int room = maxChars - (b.length() - start);
+    return value.length() > room ? value.substring(0, Math.max(room, 0)) : value;
+  }
+
+  private void bind(String prefix, String uri) {
+    if (bindings == prefixes.length) {
+      String[] grownPrefixes = new String[bindings * 2];
+      String[] grownUris = new String[bindings * 2];
+      System.arraycopy(prefixes, 0, grownPrefixes, 0, bindings);
+      System.arraycopy(uris, 0, grownUris, 0, bindings);
+      prefixes = grownPrefixes;
+      uris = grownUris;
+    }
+    prefixes[bindings] = prefix;
+    uris[bindings++] = uri;
+  }
+
+  private void push(boolean indentChildren) {
+    if (depth == scopes.length) {
+      int[] grownScopes = new int[depth * 2];
+      boolean[] grownIndented = new boolean[depth * 2];
+      System.arraycopy(scopes, 0, grownScopes, 0, depth);
+      System.arraycopy(indented, 0, grownIndented, 0, depth);
+      scopes = grownScopes;
+      indented = grownIndented;
+    }
+    scopes[depth] = bindings;
+    indented[depth++] = indentChildren;
+  }
+
+  /**
+   * Starts a new line indented <code>level</code> times, unless nothing has
+   * been written yet.
+   */
+  private void newLine(int level, StringBuilder b) {
+    if (b.length() == start) {
+      return;
+    }
+    b.append('\n');
+    for (int i = 0; i < level; i++) {
+      b.append(indent);
+    }
+  }
+
+  /**
+   * Appends a CDATA section, splitting it where the data contains the
+   * <code>]]&gt;</code> that would end it.
+   */
+  private static void writeCData(String data, StringBuilder b) {
+    b.append("<![CDATA[");
+    int from = 0;
+    for (int end = data.indexOf("]]>"); end >= 0; end = data.indexOf("]]>", end + 1)) {
+      b.append(data, from, end + 2).append("]]><![CDATA[");
+      from = end + 2;
+    }
+    b.append(data, from, data.length()).append("]]>");
+  }
+
+}
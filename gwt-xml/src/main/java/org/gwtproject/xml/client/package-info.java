@@ -18,6 +18,7 @@
  * Basic classes used in XML DOM parsing and XML document generation.
  * 
  * The classes in this package support parsing XML documents and creating
- * new XML documents.  The implementation uses the underlying browser.
+ * new XML documents.  The implementation uses the underlying browser, or the
+ * JRE's own DOM when running on the JVM.
  */
 package org.gwtproject.xml.client;
\ No newline at end of file